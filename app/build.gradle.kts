@@ -5,6 +5,8 @@ plugins {
     alias(libs.plugins.android.application)
     // Add the Google services Gradle plugin
     id("com.google.gms.google-services")
+    // Consumes the profile generated by :macrobenchmark and ships it in release builds.
+    alias(libs.plugins.baselineprofile)
 }
 
 android {
@@ -36,6 +38,13 @@ android {
                 "proguard-rules.pro"
             )
         }
+        // Non-debuggable, release-like build that :microbenchmark instruments.
+        create("benchmark") {
+            initWith(getByName("release"))
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+            isDebuggable = false
+        }
     }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_17
@@ -44,9 +53,22 @@ android {
     buildFeatures {
         viewBinding = true
     }
+    androidResources {
+        // Marina packs and water grids are memory-mapped straight out of the APK, which needs
+        // them uncompressed.
+        noCompress += listOf("pack", "grid")
+    }
+}
+
+baselineProfile {
+    // Profiles are regenerated on demand with :app:generateBaselineProfile, not on every build.
+    automaticGenerationDuringBuild = false
+    // Also emit a startup profile so the startup classes are laid out in the primary dex.
+    dexLayoutOptimization = true
 }
 
 dependencies {
+    implementation(project(":core"))
     implementation(libs.play.services.maps)
     implementation(libs.play.services.location)
     implementation(libs.places)
@@ -58,6 +80,8 @@ dependencies {
     implementation(libs.navigation.fragment)
     implementation(libs.navigation.ui)
     implementation(libs.activity)
+    // Resumable background jobs, e.g. offline region downloads.
+    implementation(libs.work.runtime)
 
     // --- Firebase and Google Auth Dependencies ---
     implementation(platform("com.google.firebase:firebase-bom:34.5.0"))
@@ -67,6 +91,11 @@ dependencies {
     implementation(libs.credentials)
     implementation(libs.credentials.play.services.auth)
     implementation(libs.googleid)
+    // --- Performance telemetry ---
+    implementation(libs.metrics.performance)
+    // --- Baseline Profile ---
+    implementation(libs.profileinstaller)
+    baselineProfile(project(":macrobenchmark"))
     // --- Testing Dependencies ---
     testImplementation(libs.junit)
     androidTestImplementation(libs.ext.junit)
@@ -0,0 +1,321 @@
+package com.example.sailspots;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.sailspots.core.metrics.LatencyHistogram;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The app's shared thread pools. Every piece of background work goes through one of these,
+ * instead of ad hoc threads or executors:
+ * - io(): blocking disk and network calls (geocoding, log files, downloads).
+ * - compute(): CPU work that prepares UI, e.g. decoding snapshots, text layout, row inflation.
+ * - forkJoin(): divide-and-conquer work that forks subtasks, e.g. passage planning.
+ * - main(): posts results back to the main thread.
+ * - newThread(): a dedicated thread for a loop that runs as long as a screen is open, such as
+ *   a socket feed, which would otherwise hold a pool thread the whole time.
+ *
+ * Pools are bounded in threads and queue length, their threads are named and run at a
+ * priority below the UI thread, and each pool reports queue depth and queue wait times.
+ */
+public final class AppExecutors {
+
+    private static final String TAG = "AppExecutors";
+
+    private static final int CPU_COUNT = Runtime.getRuntime().availableProcessors();
+    private static final int IO_THREADS = 4;
+    // Leave a core for the UI and render threads.
+    private static final int COMPUTE_THREADS = Math.max(1, Math.min(4, CPU_COUNT - 1));
+    private static final int QUEUE_CAPACITY = 256;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+    // How long a task turned away by a full pool waits before it is offered again.
+    private static final long RETRY_MILLIS = 50;
+
+    private static final AppExecutors INSTANCE = new AppExecutors();
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Pool io = new Pool("io", IO_THREADS, Process.THREAD_PRIORITY_BACKGROUND, mainHandler);
+    private final Pool compute = new Pool("compute", COMPUTE_THREADS,
+            Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_MORE_FAVORABLE, mainHandler);
+    // Created on first use; most sessions never plan a passage.
+    private ForkJoinPool forkJoin;
+    private final Executor main = mainHandler::post;
+
+    private AppExecutors() { }
+
+    @NonNull
+    public static AppExecutors get() {
+        return INSTANCE;
+    }
+
+    /**
+     * For blocking disk and network calls.
+     */
+    @NonNull
+    public Executor io() {
+        return io;
+    }
+
+    /**
+     * For CPU-bound work.
+     */
+    @NonNull
+    public Executor compute() {
+        return compute;
+    }
+
+    /**
+     * For RecursiveTasks that split themselves across threads. Sized like compute(), with
+     * named low-priority threads; use it rather than ForkJoinPool.commonPool(), which is
+     * unbounded in priority and shared with every library in the process.
+     */
+    @NonNull
+    public synchronized ForkJoinPool forkJoin() {
+        if (forkJoin == null) {
+            forkJoin = new ForkJoinPool(COMPUTE_THREADS, new NamedWorkerFactory("forkjoin",
+                    Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_MORE_FAVORABLE),
+                    (t, e) -> Log.e(TAG, "Uncaught in " + t.getName(), e), false);
+        }
+        return forkJoin;
+    }
+
+    /**
+     * Runs tasks on the main thread.
+     */
+    @NonNull
+    public Executor main() {
+        return main;
+    }
+
+    /**
+     * A named, low-priority thread of its own for a long-running loop, e.g. reading a socket
+     * feed for as long as the map is open. Not started; stop it by interrupting it or closing
+     * what it blocks on.
+     */
+    @NonNull
+    public Thread newThread(@NonNull String name, @NonNull Runnable loop) {
+        return new NamedThreadFactory(name, Process.THREAD_PRIORITY_BACKGROUND).newThread(loop);
+    }
+
+    /**
+     * A new executor that runs its tasks one at a time, in order, on the compute pool.
+     * Use one per snapshot listener so snapshots are never decoded out of order.
+     */
+    @NonNull
+    public Executor newSerialCompute() {
+        return newSerial(compute);
+    }
+
+    /**
+     * A new executor that runs its tasks one at a time, in order, on the given pool.
+     */
+    @NonNull
+    public Executor newSerial(@NonNull Executor pool) {
+        return new SerialExecutor(pool, mainHandler);
+    }
+
+    /**
+     * @return Statistics for every pool, for the performance debug screen.
+     */
+    @NonNull
+    public List<Pool> pools() {
+        return Arrays.asList(io, compute);
+    }
+
+    /**
+     * A bounded thread pool that measures how long tasks wait in its queue.
+     *
+     * A task that finds the queue full is never dropped and never thrown back at the caller:
+     * a background caller runs it itself, which slows it down to the pool's pace, and the
+     * main thread, which must not block, offers it again shortly. Either way it is counted in
+     * rejectedCount().
+     */
+    public static final class Pool extends ThreadPoolExecutor {
+        public final String name;
+        private final Handler mainHandler;
+        private final LatencyHistogram queueWaitNanos = new LatencyHistogram();
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+        private final AtomicLong rejected = new AtomicLong();
+
+        Pool(String name, int threads, int priority, Handler mainHandler) {
+            super(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(QUEUE_CAPACITY), new NamedThreadFactory(name, priority));
+            this.name = name;
+            this.mainHandler = mainHandler;
+            allowCoreThreadTimeOut(true); // No idle threads while the app sits in the background.
+        }
+
+        @Override
+        public void execute(@NonNull Runnable task) {
+            if (offer(task)) return;
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                Log.w(TAG, name + " queue is full (" + QUEUE_CAPACITY + "); retrying");
+                mainHandler.postDelayed(() -> execute(task), RETRY_MILLIS);
+            } else {
+                Log.w(TAG, name + " queue is full (" + QUEUE_CAPACITY + "); running on "
+                        + Thread.currentThread().getName());
+                task.run();
+            }
+        }
+
+        /**
+         * Queues a task if there is room.
+         * @return False, having counted the rejection, if the queue is full or the pool shut down.
+         */
+        boolean offer(@NonNull Runnable task) {
+            final long queuedAt = System.nanoTime();
+            try {
+                super.execute(() -> {
+                    queueWaitNanos.record(System.nanoTime() - queuedAt);
+                    task.run();
+                });
+            } catch (RejectedExecutionException e) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            int depth = getQueue().size();
+            int seen = maxQueueDepth.get();
+            while (depth > seen && !maxQueueDepth.compareAndSet(seen, depth)) {
+                seen = maxQueueDepth.get();
+            }
+            return true;
+        }
+
+        public int queueDepth() { return getQueue().size(); }
+
+        public int maxQueueDepth() { return maxQueueDepth.get(); }
+
+        public long rejectedCount() { return rejected.get(); }
+
+        @NonNull
+        public LatencyHistogram.Snapshot queueWait() { return queueWaitNanos.snapshot(); }
+    }
+
+    /**
+     * Names threads "sailspots-<pool>-<n>" and sets their Linux priority.
+     */
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final String pool;
+        private final int priority;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String pool, int priority) {
+            this.pool = pool;
+            this.priority = priority;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable r) {
+            return new Thread(() -> {
+                // Thread.setPriority() barely affects Android's scheduler; this does.
+                Process.setThreadPriority(priority);
+                r.run();
+            }, "sailspots-" + pool + "-" + count.incrementAndGet());
+        }
+    }
+
+    /**
+     * NamedThreadFactory for fork/join workers, which must be ForkJoinWorkerThreads.
+     */
+    private static final class NamedWorkerFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+        private final String pool;
+        private final int priority;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedWorkerFactory(String pool, int priority) {
+            this.pool = pool;
+            this.priority = priority;
+        }
+
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool owner) {
+            ForkJoinWorkerThread t = new ForkJoinWorkerThread(owner) {
+                @Override
+                protected void onStart() {
+                    super.onStart();
+                    Process.setThreadPriority(priority);
+                }
+            };
+            t.setName("sailspots-" + pool + "-" + count.incrementAndGet());
+            return t;
+        }
+    }
+
+    /**
+     * Runs tasks one at a time in submission order on a backing executor.
+     *
+     * If the backing executor turns the next task away, it goes back to the head of the queue
+     * and is offered again shortly, so a saturated pool delays the series but never loses a
+     * task or leaves it stuck behind one that will never run.
+     */
+    private static final class SerialExecutor implements Executor {
+        private final Executor backing;
+        private final Handler retryHandler;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private Runnable active;
+        private boolean retryPosted;
+
+        SerialExecutor(Executor backing, Handler retryHandler) {
+            this.backing = backing;
+            this.retryHandler = retryHandler;
+        }
+
+        @Override
+        public synchronized void execute(@NonNull Runnable task) {
+            tasks.add(() -> {
+                try {
+                    task.run();
+                } finally {
+                    scheduleNext();
+                }
+            });
+            if (active == null) scheduleNext();
+        }
+
+        private synchronized void scheduleNext() {
+            active = tasks.poll();
+            if (active == null || submit(active)) return;
+            tasks.addFirst(active);
+            active = null;
+            if (!retryPosted) {
+                retryPosted = true;
+                retryHandler.postDelayed(this::retry, RETRY_MILLIS);
+            }
+        }
+
+        private synchronized void retry() {
+            retryPosted = false;
+            if (active == null) scheduleNext();
+        }
+
+        // Hands a task to the backing executor without it ever running on this thread.
+        private boolean submit(Runnable task) {
+            if (backing instanceof Pool) return ((Pool) backing).offer(task);
+            try {
+                backing.execute(task);
+                return true;
+            } catch (RejectedExecutionException e) {
+                Log.w(TAG, "Serial task rejected; retrying", e);
+                return false;
+            }
+        }
+    }
+}
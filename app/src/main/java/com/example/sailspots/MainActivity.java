@@ -1,27 +1,61 @@
 package com.example.sailspots;
 
+import android.Manifest;
+import android.content.Intent;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.os.Build;
 import android.os.Bundle;
 import android.view.Menu;
+import android.view.MenuItem;
+import android.view.View;
+import android.widget.CheckBox;
+import android.widget.EditText;
+import android.widget.Toast;
 
 import com.google.android.material.navigation.NavigationView;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.appcompat.app.AlertDialog;
+import androidx.core.content.ContextCompat;
 import androidx.navigation.NavController;
 import androidx.navigation.Navigation;
 import androidx.navigation.ui.AppBarConfiguration;
 import androidx.navigation.ui.NavigationUI;
 import androidx.drawerlayout.widget.DrawerLayout;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.sailspots.core.weather.WindThresholds;
+import com.example.sailspots.data.WindAlerts;
 import com.example.sailspots.databinding.ActivityMainBinding;
+import com.example.sailspots.ui.RowPool;
+import com.example.sailspots.ui.debug.PerfDebugActivity;
 
 public class MainActivity extends AppCompatActivity {
 
+    // About one screenful of marina rows under the map.
+    private static final int PREINFLATED_MARINA_ROWS = 8;
+
     private AppBarConfiguration mAppBarConfiguration;
     private ActivityMainBinding binding;
 
+    /**
+     * Asks to post notifications once wind alerts are turned on (Android 13 and later).
+     */
+    private final ActivityResultLauncher<String> requestNotifications =
+            registerForActivityResult(new ActivityResultContracts.RequestPermission(), isGranted -> {
+                if (!isGranted) {
+                    Toast.makeText(this, "Wind alerts need notifications to be allowed", Toast.LENGTH_LONG).show();
+                }
+            });
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        // Inflate the map's list rows in the background while the drawer and map start up.
+        RowPool.of(this).preinflate(R.layout.row_marina, PREINFLATED_MARINA_ROWS);
 
         binding = ActivityMainBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
@@ -49,9 +83,68 @@ public class MainActivity extends AppCompatActivity {
     public boolean onCreateOptionsMenu(Menu menu) {
         // Inflate the menu; this adds items to the action bar if it is present.
         getMenuInflater().inflate(R.menu.main, menu);
+        // The performance screen is for development builds only.
+        boolean debuggable = (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        menu.findItem(R.id.action_perf_debug).setVisible(debuggable);
         return true;
     }
 
+    @Override
+    public boolean onOptionsItemSelected(@NonNull MenuItem item) {
+        if (item.getItemId() == R.id.action_perf_debug) {
+            startActivity(new Intent(this, PerfDebugActivity.class));
+            return true;
+        }
+        if (item.getItemId() == R.id.action_settings) {
+            showWindAlertSettings();
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    /**
+     * Shows the wind alert settings: on or off, and the wind and gust speeds to alert at.
+     * A blank speed turns that alert off.
+     */
+    private void showWindAlertSettings() {
+        View view = getLayoutInflater().inflate(R.layout.dialog_wind_alerts, null);
+        CheckBox enabled = view.findViewById(R.id.cbWindAlerts);
+        EditText wind = view.findViewById(R.id.etWindKnots);
+        EditText gust = view.findViewById(R.id.etGustKnots);
+        WindThresholds saved = WindAlerts.saved(this);
+        enabled.setChecked(WindAlerts.isEnabled(this));
+        if (!Double.isNaN(saved.windKnots)) wind.setText(String.valueOf(Math.round(saved.windKnots)));
+        if (!Double.isNaN(saved.gustKnots)) gust.setText(String.valueOf(Math.round(saved.gustKnots)));
+
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.wind_alerts_title)
+                .setView(view)
+                .setNegativeButton(R.string.wind_alerts_cancel, (d, which) -> d.dismiss())
+                .setPositiveButton(R.string.wind_alerts_save, (d, which) -> {
+                    WindThresholds thresholds = new WindThresholds(knots(wind), knots(gust));
+                    boolean on = enabled.isChecked() && thresholds.enabled();
+                    WindAlerts.save(this, on, thresholds);
+                    if (on && Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                            && ContextCompat.checkSelfPermission(this, Manifest.permission.POST_NOTIFICATIONS)
+                            != PackageManager.PERMISSION_GRANTED) {
+                        requestNotifications.launch(Manifest.permission.POST_NOTIFICATIONS);
+                    }
+                })
+                .show();
+    }
+
+    /**
+     * @return The speed typed into a field, or NaN if it is blank or not a positive number.
+     */
+    private static double knots(EditText field) {
+        try {
+            double v = Double.parseDouble(field.getText().toString().trim());
+            return v > 0 ? v : Double.NaN;
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
     @Override
     public boolean onSupportNavigateUp() {
         NavController navController = Navigation.findNavController(this, R.id.nav_host_fragment_content_main);
@@ -0,0 +1,27 @@
+package com.example.sailspots;
+
+import android.app.Application;
+
+import com.example.sailspots.data.CatalogSync;
+import com.example.sailspots.data.Forecasts;
+import com.example.sailspots.data.WindAlerts;
+import com.example.sailspots.perf.FrameTelemetry;
+
+/**
+ * The application class. Sets up process-wide services before any activity starts.
+ */
+public class SailSpotsApp extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Frame telemetry hooks every activity, so it must be installed before the first one.
+        FrameTelemetry.install(this);
+        // Refreshes changed catalog tiles in the background; a no-op until a server is configured.
+        CatalogSync.syncIfDue(this);
+        // Likewise for the wind forecast.
+        Forecasts.refreshIfDue(this);
+        // The favorites wind check runs from WorkManager once the user turns it on.
+        WindAlerts.scheduleIfEnabled(this);
+    }
+}
@@ -20,6 +20,7 @@ import androidx.credentials.GetCredentialRequest;
 import androidx.credentials.GetCredentialResponse;
 import androidx.credentials.exceptions.GetCredentialException;
 
+import com.example.sailspots.AppExecutors;
 import com.example.sailspots.MainActivity;
 import com.example.sailspots.R;
 import com.google.android.gms.tasks.OnCompleteListener;
@@ -35,7 +36,6 @@ import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.auth.GoogleAuthProvider;
 
 import java.util.Objects;
-import java.util.concurrent.Executors;
 
 /**
  * LoginActivity handles all user authentication, including email/password and Google Sign-In.
@@ -151,21 +151,20 @@ public class LoginActivity extends AppCompatActivity {
                 this,
                 request,
                 new CancellationSignal(), // Allows the operation to be cancelled.
-                Executors.newSingleThreadExecutor(), // Runs the callback on a background thread.
+                // Deliver the callback straight to the main thread; a new executor per tap leaked a thread each time.
+                AppExecutors.get().main(),
                 new CredentialManagerCallback<GetCredentialResponse, GetCredentialException>() {
                     @Override
                     public void onResult(GetCredentialResponse result) {
-                        // The credential request was successful. Handle the result on the main UI thread.
-                        runOnUiThread(() -> handleSignInWithGoogle(result.getCredential()));
+                        // The credential request was successful.
+                        handleSignInWithGoogle(result.getCredential());
                     }
 
                     @Override
                     public void onError(GetCredentialException e) {
                         // The credential request failed. Log the error and show a message to the user.
-                        runOnUiThread(() -> {
-                            Log.e(TAG, "GetCredentialException: " + e.getMessage());
-                            Toast.makeText(LoginActivity.this, "Google Sign-In failed: " + e.getMessage(), Toast.LENGTH_LONG).show();
-                        });
+                        Log.e(TAG, "GetCredentialException: " + e.getMessage());
+                        Toast.makeText(LoginActivity.this, "Google Sign-In failed: " + e.getMessage(), Toast.LENGTH_LONG).show();
                     }
                 }
         );
@@ -0,0 +1,162 @@
+package com.example.sailspots.data;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.sailspots.AppExecutors;
+import com.example.sailspots.R;
+import com.example.sailspots.core.ais.AisDecoder;
+import com.example.sailspots.core.ais.AisSimulator;
+import com.example.sailspots.core.ais.AisTargets;
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.nmea.SentenceReader;
+
+import java.io.IOException;
+
+/**
+ * Nearby vessel traffic from AIS, for the map. The source is R.string.ais_feed_url: a
+ * receiver or gateway streaming NMEA over TCP ("tcp://192.168.4.1:10110") or broadcasting
+ * it over UDP ("udp://10110"), or "sim" for simulated traffic around the map. Empty turns
+ * the overlay off.
+ *
+ * While the map is visible the feed runs on a thread of its own, decoding into a shared
+ * AisTargets, and reconnects after a pause when the source drops. Targets outlive the feed,
+ * so the map comes back with the traffic it had.
+ */
+public final class AisTraffic {
+
+    private static final String TAG = "AisTraffic";
+    // A harbor's worth; beyond this the vessel heard from longest ago is replaced.
+    private static final int CAPACITY = 1024;
+    // Class A ships report every 2-10 s under way and every 3 minutes at anchor; class B
+    // yachts every 30 s. A target silent this long has left or switched off.
+    public static final long EXPIRE_MILLIS = 6 * 60_000;
+    private static final long RETRY_MILLIS = 15_000;
+    // --- Simulator ---
+    private static final int SIM_VESSELS = 300;
+    private static final double SIM_RADIUS_MILES = 6;
+    private static final long SIM_STEP_MILLIS = 1000;
+
+    private static final AisTargets TARGETS = new AisTargets(CAPACITY);
+    @Nullable private static Feed feed;
+
+    private AisTraffic() { }
+
+    @NonNull
+    public static AisTargets targets() {
+        return TARGETS;
+    }
+
+    /**
+     * @return Whether this build has a traffic source set.
+     */
+    public static boolean isConfigured(@NonNull Context context) {
+        return !context.getString(R.string.ais_feed_url).trim().isEmpty();
+    }
+
+    /**
+     * Starts the feed, if configured and not already running.
+     * @param center Where simulated traffic sails; ignored for a real source.
+     */
+    @MainThread
+    public static synchronized void start(@NonNull Context context, @NonNull GeoPoint center) {
+        if (feed != null || !isConfigured(context)) return;
+        feed = new Feed(context.getString(R.string.ais_feed_url).trim(), center);
+        feed.start();
+    }
+
+    /**
+     * Stops the feed. Its targets stay until they expire.
+     */
+    @MainThread
+    public static synchronized void stop() {
+        if (feed == null) return;
+        feed.cancel();
+        feed = null;
+    }
+
+    /**
+     * Reads one source on its own thread until cancelled, reconnecting when it fails.
+     */
+    private static final class Feed implements Runnable {
+        private final String url;
+        private final GeoPoint center;
+        private final AisDecoder decoder = new AisDecoder(TARGETS);
+        private final Thread thread = AppExecutors.get().newThread("ais", this);
+        private volatile boolean cancelled;
+        @Nullable private volatile SentenceReader reader;
+
+        Feed(@NonNull String url, @NonNull GeoPoint center) {
+            this.url = url;
+            this.center = center;
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        // Closes the socket and interrupts a pause between attempts; the thread ends promptly.
+        void cancel() {
+            cancelled = true;
+            SentenceReader r = reader;
+            if (r != null) r.close();
+            thread.interrupt();
+        }
+
+        @Override
+        public void run() {
+            if (url.equals("sim")) {
+                simulate();
+                return;
+            }
+            Uri uri = Uri.parse(url);
+            while (!cancelled) {
+                try {
+                    SentenceReader r = "udp".equals(uri.getScheme())
+                            ? SentenceReader.udp(Integer.parseInt(uri.getAuthority()), decoder)
+                            : SentenceReader.tcp(uri.getHost(), uri.getPort(), decoder);
+                    reader = r;
+                    if (cancelled) r.close();  // Cancelled while connecting; run() returns at once.
+                    r.run();
+                    Log.i(TAG, "Feed closed: " + r + ", " + decoder);
+                } catch (IOException e) {
+                    Log.w(TAG, "AIS feed " + url + " failed; retrying", e);
+                } catch (IllegalArgumentException e) {
+                    Log.e(TAG, "Bad ais_feed_url " + url, e);
+                    return;
+                }
+                if (!pause(RETRY_MILLIS)) return;
+            }
+        }
+
+        private void simulate() {
+            AisSimulator sim = new AisSimulator(center.latitude, center.longitude, SIM_RADIUS_MILES, SIM_VESSELS,
+                    SystemClock.elapsedRealtime());
+            Log.i(TAG, "Simulating " + SIM_VESSELS + " vessels around " + center);
+            while (!cancelled) {
+                sim.step(SIM_STEP_MILLIS / 1000.0, decoder);
+                if (!pause(SIM_STEP_MILLIS)) break;
+            }
+            Log.i(TAG, "Simulation stopped: " + decoder);
+        }
+
+        /**
+         * @return False if cancelled, before or during the pause.
+         */
+        private boolean pause(long millis) {
+            if (cancelled) return false;
+            try {
+                Thread.sleep(millis);
+                return !cancelled;
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.sailspots.data;
+
+import android.Manifest;
+import android.annotation.SuppressLint;
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.content.pm.ServiceInfo;
+import android.location.Location;
+import android.media.AudioAttributes;
+import android.media.RingtoneManager;
+import android.os.Build;
+import android.os.IBinder;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+import androidx.core.app.ServiceCompat;
+import androidx.core.content.ContextCompat;
+
+import com.example.sailspots.R;
+import com.example.sailspots.core.anchor.AnchorWatch;
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
+import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
+
+import java.util.Locale;
+
+/**
+ * Keeps an anchor watch for hours on battery, as a foreground service.
+ *
+ * The fused location provider is asked for fixes at the interval AnchorWatch wants: every
+ * few seconds while the boat is moving or near the edge of its circle, stretching to every
+ * two minutes while it lies quietly. The request is only re-issued when that interval
+ * changes. Everything runs on the main thread; the work per fix is a few multiplies.
+ *
+ * The anchor is set at the first fix good enough to trust. The ongoing notification shows
+ * the distance from it and the fixes and wakeups per hour; when the boat leaves its circle
+ * a separate alarm notification sounds until silenced or the watch is stopped.
+ *
+ * The service is sticky: if the system kills it, it is restarted with no intent and picks
+ * the watch up from Anchors' prefs, anchor and all. A watch that ends any way but the user
+ * stopping it posts a high-priority "stopped" notification, since a silent end looks just
+ * like a boat holding fine.
+ */
+public class AnchorWatchService extends Service {
+
+    static final String EXTRA_RADIUS = "radius_metres";
+    private static final String TAG = "AnchorWatch";
+    private static final String ACTION_STOP = "com.example.sailspots.action.STOP_ANCHOR_WATCH";
+    private static final String ACTION_SILENCE = "com.example.sailspots.action.SILENCE_ANCHOR_ALARM";
+    private static final String CHANNEL_WATCH = "anchor_watch";
+    private static final String CHANNEL_ALARM = "anchor_alarm";
+    private static final int NOTIFICATION_WATCH = 4701;
+    private static final int NOTIFICATION_ALARM = 4702;
+    private static final int NOTIFICATION_STOPPED = 4703;
+    // The anchor is set from the first fix at least this good.
+    private static final float ANCHOR_ACCURACY_METRES = 20;
+
+    private FusedLocationProviderClient locations;
+    private int radiusMetres;
+    private long startMillis;
+    @Nullable private AnchorWatch watch;  // Null until the anchor is set.
+    private long requestedMillis;         // The interval asked of the provider; 0 when none.
+    private boolean alarmShown;
+
+    private final LocationCallback callback = new LocationCallback() {
+        @Override
+        public void onLocationResult(@NonNull LocationResult result) {
+            onFixes(result);
+        }
+    };
+
+    @Nullable
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    @Override
+    public int onStartCommand(@Nullable Intent intent, int flags, int startId) {
+        String action = intent != null ? intent.getAction() : null;
+        if (ACTION_STOP.equals(action)) {
+            Anchors.forget(this);
+            stopSelf();
+            return START_NOT_STICKY;
+        }
+        if (ACTION_SILENCE.equals(action)) {
+            if (watch != null) watch.acknowledge();
+            cancelAlarm();
+            return START_STICKY;
+        }
+        if (locations != null) return START_STICKY;  // Already watching.
+        boolean restarted = intent == null;
+        if (restarted && !Anchors.isSaved(this)) {
+            stopSelf();  // Stopped by the user before the restart came round.
+            return START_NOT_STICKY;
+        }
+        createChannels();
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION)
+                != PackageManager.PERMISSION_GRANTED) {
+            Log.w(TAG, "No location permission; not watching");
+            giveUp();
+            return START_NOT_STICKY;
+        }
+        if (restarted) {
+            // Keep the anchor already set; re-anchoring here would hide a drag.
+            watch = Anchors.savedWatch(this);
+            radiusMetres = Anchors.savedRadius(this);
+            startMillis = Anchors.savedStartMillis(this);
+            Log.i(TAG, "Restarted by the system; " + (watch != null ? "anchor restored" : "waiting for a fix"));
+        } else {
+            radiusMetres = intent.getIntExtra(EXTRA_RADIUS, Anchors.DEFAULT_RADIUS_METRES);
+            startMillis = System.currentTimeMillis();
+        }
+        try {
+            ServiceCompat.startForeground(this, NOTIFICATION_WATCH,
+                    watchNotification(getString(R.string.anchor_watch_waiting)),
+                    Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q ? ServiceInfo.FOREGROUND_SERVICE_TYPE_LOCATION : 0);
+        } catch (IllegalStateException e) {
+            // Android 12+ may refuse a foreground start from the background.
+            Log.e(TAG, "Could not start in the foreground; not watching", e);
+            giveUp();
+            return START_NOT_STICKY;
+        }
+        NotificationManagerCompat.from(this).cancel(NOTIFICATION_STOPPED);
+
+        locations = LocationServices.getFusedLocationProviderClient(this);
+        requestEvery(AnchorWatch.FAST_MILLIS);
+        Anchors.STATUS.setValue(watch != null
+                ? Anchors.Status.of(watch, System.currentTimeMillis())
+                : Anchors.Status.starting(radiusMetres));
+        return START_STICKY;
+    }
+
+    /**
+     * Asks for fixes at a new interval. Re-requesting with the same callback replaces the
+     * previous request.
+     */
+    @SuppressLint("MissingPermission")  // Checked before the first request.
+    private void requestEvery(long intervalMillis) {
+        if (intervalMillis == requestedMillis) return;
+        requestedMillis = intervalMillis;
+        LocationRequest request = new LocationRequest.Builder(Priority.PRIORITY_HIGH_ACCURACY, intervalMillis)
+                .setMinUpdateIntervalMillis(intervalMillis)
+                .build();
+        locations.requestLocationUpdates(request, callback, Looper.getMainLooper());
+    }
+
+    @SuppressLint("MissingPermission")  // Notifications only; without the permission they are dropped.
+    private void onFixes(@NonNull LocationResult result) {
+        if (watch == null) {
+            // Set the anchor at the first fix worth trusting; the rest of the batch feeds the watch.
+            for (Location l : result.getLocations()) {
+                if (l.hasAccuracy() && l.getAccuracy() <= ANCHOR_ACCURACY_METRES) {
+                    watch = new AnchorWatch(l.getLatitude(), l.getLongitude(), radiusMetres, startMillis);
+                    Anchors.saveAnchor(this, l.getLatitude(), l.getLongitude(), startMillis);
+                    Log.i(TAG, String.format(Locale.US, "Anchor set at %.6f, %.6f, radius %d m",
+                            l.getLatitude(), l.getLongitude(), radiusMetres));
+                    break;
+                }
+            }
+            if (watch == null) return;
+        }
+        watch.onWakeup();
+        for (Location l : result.getLocations()) {
+            watch.onFix(l.getTime(), l.getLatitude(), l.getLongitude(), l.hasAccuracy() ? l.getAccuracy() : 50);
+        }
+        requestEvery(watch.intervalMillis());
+
+        long now = System.currentTimeMillis();
+        Anchors.Status status = Anchors.Status.of(watch, now);
+        Anchors.STATUS.setValue(status);
+        if (watch.alarm() && !alarmShown) showAlarm(status);
+        NotificationManagerCompat.from(this).notify(NOTIFICATION_WATCH, watchNotification(describe(status)));
+    }
+
+    @NonNull
+    private String describe(@NonNull Anchors.Status status) {
+        int state;
+        switch (status.state) {
+            case DRAGGING: state = R.string.anchor_dragging; break;
+            case DRIFTING: state = R.string.anchor_drifting; break;
+            default: state = R.string.anchor_holding; break;
+        }
+        return getString(R.string.anchor_watch_status, getString(state),
+                Math.round(status.distanceMetres), Math.round(status.radiusMetres),
+                status.fixesPerHour, status.wakeupsPerHour);
+    }
+
+    @SuppressLint("MissingPermission")
+    private void showAlarm(@NonNull Anchors.Status status) {
+        alarmShown = true;
+        Log.w(TAG, "Anchor dragging: " + Math.round(status.distanceMetres) + " m from the anchor");
+        Notification alarm = new NotificationCompat.Builder(this, CHANNEL_ALARM)
+                .setSmallIcon(R.drawable.ic_map)
+                .setContentTitle(getString(R.string.anchor_alarm_title))
+                .setContentText(getString(R.string.anchor_alarm_text,
+                        Math.round(status.distanceMetres), Math.round(status.radiusMetres)))
+                .setCategory(NotificationCompat.CATEGORY_ALARM)
+                .setPriority(NotificationCompat.PRIORITY_MAX)
+                .setSound(RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM))
+                .setVibrate(new long[] {0, 800, 400, 800, 400, 800})
+                .setOngoing(true)
+                .addAction(0, getString(R.string.anchor_alarm_silence), action(ACTION_SILENCE))
+                .build();
+        alarm.flags |= Notification.FLAG_INSISTENT;  // Keep sounding until silenced.
+        NotificationManagerCompat.from(this).notify(NOTIFICATION_ALARM, alarm);
+    }
+
+    private void cancelAlarm() {
+        alarmShown = false;
+        NotificationManagerCompat.from(this).cancel(NOTIFICATION_ALARM);
+    }
+
+    // Ends a watch that cannot go on, telling the user, and keeps it from being restarted.
+    private void giveUp() {
+        showStopped();
+        Anchors.forget(this);
+        stopSelf();
+    }
+
+    @SuppressLint("MissingPermission")
+    private void showStopped() {
+        Log.w(TAG, "Watch ended without being stopped");
+        NotificationManagerCompat.from(this).notify(NOTIFICATION_STOPPED,
+                new NotificationCompat.Builder(this, CHANNEL_ALARM)
+                        .setSmallIcon(R.drawable.ic_map)
+                        .setContentTitle(getString(R.string.anchor_stopped_title))
+                        .setContentText(getString(R.string.anchor_stopped_text))
+                        .setCategory(NotificationCompat.CATEGORY_ALARM)
+                        .setPriority(NotificationCompat.PRIORITY_HIGH)
+                        .setAutoCancel(true)
+                        .build());
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        if (locations != null) locations.removeLocationUpdates(callback);
+        cancelAlarm();
+        if (watch != null) {
+            long now = System.currentTimeMillis();
+            Log.i(TAG, String.format(Locale.US,
+                    "Watched %.1f h: %d fixes (%.0f/h), %d wakeups (%.0f/h), %d rejected",
+                    (now - startMillis) / 3_600_000.0, watch.fixes(), watch.fixesPerHour(now),
+                    watch.wakeups(), watch.wakeupsPerHour(now), watch.rejected()));
+        }
+        Anchors.STATUS.setValue(null);
+        // Still saved means the system ended it; a sticky restart takes this back down.
+        if (Anchors.isSaved(this)) showStopped();
+    }
+
+    private void createChannels() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) return;
+        NotificationManager manager = getSystemService(NotificationManager.class);
+        manager.createNotificationChannel(new NotificationChannel(CHANNEL_WATCH,
+                getString(R.string.anchor_watch_channel), NotificationManager.IMPORTANCE_LOW));
+        NotificationChannel alarm = new NotificationChannel(CHANNEL_ALARM,
+                getString(R.string.anchor_alarm_channel), NotificationManager.IMPORTANCE_HIGH);
+        alarm.setSound(RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM), new AudioAttributes.Builder()
+                .setUsage(AudioAttributes.USAGE_ALARM)
+                .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                .build());
+        alarm.enableVibration(true);
+        alarm.setBypassDnd(true);
+        manager.createNotificationChannel(alarm);
+    }
+
+    @NonNull
+    private Notification watchNotification(@NonNull String text) {
+        return new NotificationCompat.Builder(this, CHANNEL_WATCH)
+                .setSmallIcon(R.drawable.ic_map)
+                .setContentTitle(getString(R.string.anchor_watch_title))
+                .setContentText(text)
+                .setOngoing(true)
+                .setOnlyAlertOnce(true)
+                .addAction(0, getString(R.string.anchor_watch_stop), action(ACTION_STOP))
+                .build();
+    }
+
+    @NonNull
+    private PendingIntent action(@NonNull String action) {
+        return PendingIntent.getService(this, action.hashCode(),
+                new Intent(this, AnchorWatchService.class).setAction(action), PendingIntent.FLAG_IMMUTABLE);
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.sailspots.data;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.sailspots.core.anchor.AnchorWatch;
+
+/**
+ * The anchor watch: starting and stopping AnchorWatchService, the swing radius last used,
+ * and the status the service publishes for the map.
+ *
+ * A running watch is also recorded in prefs, with its anchor once set, so the service can
+ * carry on with the same anchor if the system kills and restarts it.
+ */
+public final class Anchors {
+
+    private static final String PREFS = "anchor_watch";
+    private static final String KEY_RADIUS = "radius_metres";
+    // --- The running watch; absent once the user stops it ---
+    private static final String KEY_WATCHING = "watching";
+    private static final String KEY_STARTED = "started_millis";
+    private static final String KEY_ANCHOR_LAT = "anchor_lat_bits";
+    private static final String KEY_ANCHOR_LNG = "anchor_lng_bits";
+    public static final int DEFAULT_RADIUS_METRES = 50;
+
+    // Null while no watch is running. Set by the service on the main thread.
+    static final MutableLiveData<Status> STATUS = new MutableLiveData<>(null);
+
+    private Anchors() { }
+
+    /**
+     * What the watch knows, as of the last fix.
+     */
+    public static final class Status {
+        public final AnchorWatch.State state;
+        public final double anchorLat;      // NaN until the first good fix sets the anchor.
+        public final double anchorLng;
+        public final double radiusMetres;
+        public final double distanceMetres;  // Filtered; NaN until the first good fix.
+        public final double fixesPerHour;
+        public final double wakeupsPerHour;
+
+        Status(AnchorWatch.State state, double anchorLat, double anchorLng, double radiusMetres,
+               double distanceMetres, double fixesPerHour, double wakeupsPerHour) {
+            this.state = state;
+            this.anchorLat = anchorLat;
+            this.anchorLng = anchorLng;
+            this.radiusMetres = radiusMetres;
+            this.distanceMetres = distanceMetres;
+            this.fixesPerHour = fixesPerHour;
+            this.wakeupsPerHour = wakeupsPerHour;
+        }
+
+        static Status starting(double radiusMetres) {
+            return new Status(AnchorWatch.State.STARTING, Double.NaN, Double.NaN, radiusMetres, Double.NaN, 0, 0);
+        }
+
+        static Status of(@NonNull AnchorWatch watch, long nowMillis) {
+            return new Status(watch.state(), watch.anchorLat, watch.anchorLng, watch.radiusMetres,
+                    watch.distanceMetres(), watch.fixesPerHour(nowMillis), watch.wakeupsPerHour(nowMillis));
+        }
+    }
+
+    /**
+     * @return The running watch's status, or null when there is none.
+     */
+    @NonNull
+    public static LiveData<Status> status() {
+        return STATUS;
+    }
+
+    public static boolean isRunning() {
+        return STATUS.getValue() != null;
+    }
+
+    /**
+     * @return The swing radius last started with.
+     */
+    public static int savedRadius(@NonNull Context context) {
+        return prefs(context).getInt(KEY_RADIUS, DEFAULT_RADIUS_METRES);
+    }
+
+    /**
+     * Starts watching, with the anchor where the boat is now. Needs the fine location
+     * permission; the alarm needs notifications.
+     */
+    @MainThread
+    public static void start(@NonNull Context context, int radiusMetres) {
+        Context app = context.getApplicationContext();
+        prefs(app).edit()
+                .putInt(KEY_RADIUS, radiusMetres)
+                .putBoolean(KEY_WATCHING, true)
+                .remove(KEY_STARTED)
+                .remove(KEY_ANCHOR_LAT)
+                .remove(KEY_ANCHOR_LNG)
+                .apply();
+        ContextCompat.startForegroundService(app, new Intent(app, AnchorWatchService.class)
+                .putExtra(AnchorWatchService.EXTRA_RADIUS, radiusMetres));
+    }
+
+    @MainThread
+    public static void stop(@NonNull Context context) {
+        Context app = context.getApplicationContext();
+        forget(app);  // First, so the service knows the user ended it.
+        app.stopService(new Intent(app, AnchorWatchService.class));
+    }
+
+    // --- The running watch, for AnchorWatchService ---
+
+    /**
+     * @return Whether a watch was started and not stopped by the user.
+     */
+    static boolean isSaved(@NonNull Context context) {
+        return prefs(context).getBoolean(KEY_WATCHING, false);
+    }
+
+    /**
+     * Records where the anchor was set, so a restarted service keeps it.
+     */
+    static void saveAnchor(@NonNull Context context, double lat, double lng, long startMillis) {
+        prefs(context).edit()
+                .putLong(KEY_STARTED, startMillis)
+                .putLong(KEY_ANCHOR_LAT, Double.doubleToRawLongBits(lat))
+                .putLong(KEY_ANCHOR_LNG, Double.doubleToRawLongBits(lng))
+                .apply();
+    }
+
+    /**
+     * @return The saved watch with its anchor, or null if the anchor had not been set.
+     */
+    @Nullable
+    static AnchorWatch savedWatch(@NonNull Context context) {
+        SharedPreferences prefs = prefs(context);
+        if (!prefs.contains(KEY_ANCHOR_LAT) || !prefs.contains(KEY_ANCHOR_LNG)) return null;
+        return new AnchorWatch(Double.longBitsToDouble(prefs.getLong(KEY_ANCHOR_LAT, 0)),
+                Double.longBitsToDouble(prefs.getLong(KEY_ANCHOR_LNG, 0)),
+                savedRadius(context), savedStartMillis(context));
+    }
+
+    /**
+     * @return When the saved watch set its anchor, or now if it had not.
+     */
+    static long savedStartMillis(@NonNull Context context) {
+        return prefs(context).getLong(KEY_STARTED, System.currentTimeMillis());
+    }
+
+    /**
+     * Forgets the running watch; the radius is kept for next time.
+     */
+    static void forget(@NonNull Context context) {
+        prefs(context).edit()
+                .remove(KEY_WATCHING)
+                .remove(KEY_STARTED)
+                .remove(KEY_ANCHOR_LAT)
+                .remove(KEY_ANCHOR_LNG)
+                .apply();
+    }
+
+    @NonNull
+    private static SharedPreferences prefs(@NonNull Context context) {
+        return context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+}
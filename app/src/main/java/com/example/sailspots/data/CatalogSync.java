@@ -0,0 +1,101 @@
+package com.example.sailspots.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.example.sailspots.AppExecutors;
+import com.example.sailspots.R;
+import com.example.sailspots.core.sync.HttpTileSource;
+import com.example.sailspots.core.sync.TileSyncEngine;
+import com.example.sailspots.perf.OpTracer;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the synced marina tiles up to date with the server named by R.string.catalog_tiles_url.
+ *
+ * At most one sync runs at a time, at most once per SYNC_INTERVAL. Only tiles whose content
+ * hash changed are downloaded (see TileSyncEngine); when any changed, the catalog loader is
+ * invalidated so screens pick up the new tiles on their next load.
+ */
+public final class CatalogSync {
+
+    private static final String TAG = "CatalogSync";
+    private static final String PREFS = "catalog_sync";
+    private static final String KEY_LAST_SYNC = "last_sync_millis";
+    private static final long SYNC_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(24);
+    // Tile downloads in flight at once; the IO pool has room for other work alongside.
+    private static final int MAX_CONCURRENT_TILES = 3;
+
+    private static final Object SYNC_LOCK = new Object();
+    private static boolean running;  // Main thread only.
+
+    private CatalogSync() { }
+
+    /**
+     * Starts a sync on the IO pool unless one ran recently, one is running, or no server is set.
+     */
+    @MainThread
+    public static void syncIfDue(@NonNull Context context) {
+        final Context app = context.getApplicationContext();
+        String url = app.getString(R.string.catalog_tiles_url);
+        if (url.isEmpty() || running) return;
+        SharedPreferences prefs = app.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        if (System.currentTimeMillis() - prefs.getLong(KEY_LAST_SYNC, 0) < SYNC_INTERVAL_MILLIS) return;
+
+        running = true;
+        AppExecutors.get().io().execute(() -> {
+            TileSyncEngine.Result result = null;
+            try {
+                result = syncTiles(app, id -> true);
+            } catch (IOException e) {
+                Log.w(TAG, "Catalog sync failed; keeping the current tiles", e);
+            }
+            final TileSyncEngine.Result done = result;
+            AppExecutors.get().main().execute(() -> {
+                running = false;
+                if (done == null) return; // Try again next launch.
+                prefs.edit().putLong(KEY_LAST_SYNC, System.currentTimeMillis()).apply();
+            });
+        });
+    }
+
+    /**
+     * Syncs the tiles {@code only} accepts, e.g. those covering an offline region, and reloads
+     * the catalog if any changed. Syncs run one at a time, since they share the tile store.
+     * @return What changed, or null if no catalog server is configured.
+     * @throws IOException If the manifest could not be fetched.
+     */
+    @WorkerThread
+    @Nullable
+    public static TileSyncEngine.Result syncTiles(@NonNull Context context, @NonNull Predicate<String> only)
+            throws IOException {
+        Context app = context.getApplicationContext();
+        String url = app.getString(R.string.catalog_tiles_url);
+        if (url.isEmpty()) return null;
+        TileSyncEngine.Result result;
+        synchronized (SYNC_LOCK) {
+            long start = OpTracer.now();
+            try {
+                result = new TileSyncEngine(new HttpTileSource(url), MarinaCatalogLoader.tileStore(app),
+                        AppExecutors.get().io(), MAX_CONCURRENT_TILES).sync(only);
+            } catch (IOException e) {
+                OpTracer.get().record(OpTracer.CATALOG_SYNC, start, false);
+                throw e;
+            }
+            OpTracer.get().record(OpTracer.CATALOG_SYNC, start, result.failed.isEmpty());
+        }
+        Log.i(TAG, "Catalog sync: " + result);
+        if (!result.failed.isEmpty()) Log.w(TAG, "Tiles failed: " + result.failed.keySet());
+        if (result.changed()) AppExecutors.get().main().execute(() -> MarinaCatalogLoader.get().invalidate());
+        return result;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.sailspots.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.example.sailspots.AppExecutors;
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.model.MarinaItem;
+import com.example.sailspots.core.routing.WaterRouter;
+import com.example.sailspots.core.scoring.SailabilityScorer;
+import com.example.sailspots.core.weather.Forecast;
+import com.example.sailspots.core.weather.WindField;
+import com.example.sailspots.perf.OpTracer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orders the marina list by how good the sailing is right now: forecast wind at each marina
+ * and which way it blows against the shore, distance and rating (see SailabilityScorer).
+ *
+ * The scorer keeps what it sampled per marina, so a pan re-scores only the marinas new to the
+ * list and a new forecast resamples the wind alone. There is no tide source yet; tide stays
+ * out of the score until one is set.
+ */
+public final class ConditionsRanker implements MarinaAdapter.Ranker {
+
+    private static final String TAG = "ConditionsRanker";
+    // The forecast is sampled on the hour, so the wind is resampled at most hourly.
+    private static final long SAMPLE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final Context app;
+    private final SailabilityScorer scorer = new SailabilityScorer(AppExecutors.get().forkJoin());
+    // Forecast.windField() builds a new field per call; keep one per forecast so the scorer
+    // sees the same wind until the forecast changes.
+    @Nullable private Forecast forecast;
+    @Nullable private WindField wind;
+
+    public ConditionsRanker(@NonNull Context context) {
+        this.app = context.getApplicationContext();
+    }
+
+    @WorkerThread
+    @NonNull
+    @Override
+    public List<MarinaItem> rank(@NonNull List<MarinaItem> items) {
+        long start = OpTracer.now();
+        Forecast f = Forecasts.covering(app, bounds(items));
+        if (f != forecast) {
+            forecast = f;
+            wind = f != null ? f.windField() : null;
+        }
+        long hour = System.currentTimeMillis() / SAMPLE_MILLIS * SAMPLE_MILLIS;
+        scorer.setWind(wind, hour);
+        WaterRouter water = WaterRouting.router(app);
+        scorer.setWater(water != null ? water.fineGrid() : null);
+
+        SailabilityScorer.Ranking ranking = scorer.score(items);
+        OpTracer.get().record(OpTracer.SPOT_SCORE, start, true);
+        Log.d(TAG, ranking.toString());
+        return ranking.sorted;
+    }
+
+    @NonNull
+    private static BoundingBox bounds(@NonNull List<MarinaItem> items) {
+        double south = 90;
+        double west = 180;
+        double north = -90;
+        double east = -180;
+        for (MarinaItem m : items) {
+            south = Math.min(south, m.latLng.latitude);
+            north = Math.max(north, m.latLng.latitude);
+            west = Math.min(west, m.latLng.longitude);
+            east = Math.max(east, m.latLng.longitude);
+        }
+        return new BoundingBox(south, west, north, east);
+    }
+}
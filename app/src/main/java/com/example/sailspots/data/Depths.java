@@ -0,0 +1,111 @@
+package com.example.sailspots.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.example.sailspots.core.model.MarinaItem;
+import com.example.sailspots.core.routing.DepthStore;
+import com.example.sailspots.perf.OpTracer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Water depths from the depth tiles built by the :core:depthTiles task, copied into
+ * files/datasets/depth/. Tiles are memory-mapped as queries reach them and dropped least
+ * recently used first once they pass BUDGET_BYTES, so a whole coast of soundings costs no
+ * more than that in address space and far less in RAM.
+ *
+ * Used to flag marinas with a shallow approach and to keep passages off the bottom. Without
+ * tiles nothing is flagged and routes ignore depth.
+ */
+public final class Depths {
+
+    private static final String TAG = "Depths";
+    public static final String DIR_NAME = "depth";
+    // Most tile bytes mapped at once: about 25 one-degree tiles at 15 arc seconds.
+    private static final long BUDGET_BYTES = 32L << 20;
+
+    // --- Boat ---
+    // A typical cruising keel; the boat itself is not configurable yet.
+    public static final double DRAFT_METRES = 1.8;
+    // Kept under the keel when routing, for swell, squat and old soundings.
+    public static final double UNDER_KEEL_METRES = 0.5;
+    // An approach shallower than this is flagged in the marina list.
+    public static final float SHALLOW_METRES = (float) (DRAFT_METRES + UNDER_KEEL_METRES);
+
+    // --- Approach search ---
+    // Pins sit on docks and buildings; the first water is looked for this far around them.
+    private static final double SNAP_MILES = 0.2;
+    // Beyond this the approach counts as open water.
+    private static final double APPROACH_MILES = 2;
+    // Water this deep is clear for any yacht.
+    private static final double DEEP_METRES = 6;
+
+    @Nullable private static DepthStore store;
+    private static boolean opened;
+    // Approach depths by place ID; NaN for marinas without soundings. Keyed by place ID rather
+    // than the dense id, which is reserved afresh each time a pack opens or the catalog reloads,
+    // so a marina keeps one entry however often that happens and the map stays as big as the
+    // set of marinas seen.
+    private static final ConcurrentHashMap<String, Float> approaches = new ConcurrentHashMap<>();
+
+    private Depths() { }
+
+    /**
+     * @return The depth store, or null if no tiles have been installed.
+     */
+    @WorkerThread
+    @Nullable
+    public static synchronized DepthStore store(@NonNull Context context) {
+        if (opened) return store;
+        opened = true;
+        File dir = new File(new File(context.getFilesDir(), MarinaCatalogLoader.DATASET_DIR), DIR_NAME);
+        String[] tiles = dir.list((d, name) -> name.endsWith(DepthStore.EXTENSION));
+        if (tiles == null || tiles.length == 0) return null;  // No soundings in this install.
+        store = new DepthStore(dir, BUDGET_BYTES);
+        Log.i(TAG, tiles.length + " depth tiles in " + dir);
+        return store;
+    }
+
+    /**
+     * @return The controlling depth of a marina's approach in metres, or NaN if unknown.
+     */
+    @WorkerThread
+    public static float approachDepth(@NonNull DepthStore store, @NonNull MarinaItem marina) {
+        boolean cacheable = marina.placeId != null;
+        Float cached = cacheable ? approaches.get(marina.placeId) : null;
+        if (cached != null) return cached;
+        float depth = (float) store.approachDepth(marina.latLng.latitude, marina.latLng.longitude,
+                SNAP_MILES, APPROACH_MILES, DEEP_METRES);
+        if (cacheable) approaches.put(marina.placeId, depth);
+        return depth;
+    }
+
+    /**
+     * @return Copies of the marinas with their approach depths, in the same order.
+     */
+    @WorkerThread
+    @NonNull
+    public static List<MarinaItem> withApproachDepths(@NonNull DepthStore store, @NonNull List<MarinaItem> marinas) {
+        long start = OpTracer.now();
+        List<MarinaItem> out = new ArrayList<>(marinas.size());
+        for (MarinaItem m : marinas) out.add(m.withApproachDepth(approachDepth(store, m)));
+        OpTracer.get().record(OpTracer.APPROACH_DEPTH, start, true);
+        Log.d(TAG, "Approach depths for " + marinas.size() + " marinas: " + store);
+        return out;
+    }
+
+    /**
+     * @return True if a depth is known and too shallow for the boat.
+     */
+    public static boolean isShallow(float metres) {
+        return metres < SHALLOW_METRES;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.sailspots.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.weather.Forecast;
+import com.example.sailspots.core.weather.ForecastTile;
+import com.example.sailspots.core.weather.WindThresholds;
+import com.example.sailspots.models.SpotsItem;
+import com.example.sailspots.perf.OpTracer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks the forecast at every favorite against the user's wind alert thresholds (see
+ * WindAlerts) and posts one notification listing those over them.
+ *
+ * Favorites are grouped by ForecastTile first, so each tile is fetched and decoded once
+ * however many favorites share it; a harbour full of favorites costs one request.
+ */
+public class FavoriteWeatherWorker extends Worker {
+
+    private static final String TAG = "FavoriteWeatherWorker";
+    // How far ahead to look: tomorrow's sail is worth knowing about today.
+    private static final long LOOKAHEAD_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    public FavoriteWeatherWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context app = getApplicationContext();
+        WindThresholds thresholds = WindAlerts.thresholds(app);
+        if (!thresholds.enabled()) return Result.success();
+
+        long start = OpTracer.now();
+        List<SpotsItem> favorites;
+        try {
+            favorites = new SpotsRepository().loadFavorites();
+        } catch (Exception e) {
+            Log.w(TAG, "Could not read favorites; trying again next time", e);
+            OpTracer.get().record(OpTracer.FAVORITES_WEATHER, start, false);
+            return Result.retry();
+        }
+
+        Map<ForecastTile, List<SpotsItem>> tiles = ForecastTile.group(favorites,
+                s -> new GeoPoint(s.getLatitude(), s.getLongitude()));
+        long now = System.currentTimeMillis();
+        List<String> lines = new ArrayList<>();
+        int missing = 0;
+        for (Map.Entry<ForecastTile, List<SpotsItem>> tile : tiles.entrySet()) {
+            if (isStopped()) return Result.retry();
+            Forecast forecast = Forecasts.forTile(app, tile.getKey());
+            if (forecast == null) {
+                missing++;
+                continue;
+            }
+            for (SpotsItem s : tile.getValue()) {
+                WindThresholds.Exceedance e = thresholds.check(forecast, s.getLatitude(), s.getLongitude(),
+                        now, now + LOOKAHEAD_MILLIS);
+                if (e != null) lines.add(WindAlerts.describe(s.getName(), e));
+            }
+        }
+        // With no forecast at all there is nothing to say, not an all-clear.
+        if (missing < tiles.size() || tiles.isEmpty()) WindAlerts.post(app, lines);
+        OpTracer.get().record(OpTracer.FAVORITES_WEATHER, start, missing == 0);
+        Log.i(TAG, favorites.size() + " favorites in " + tiles.size() + " tiles (" + missing
+                + " without a forecast), " + lines.size() + " over " + thresholds);
+        return Result.success();
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.sailspots.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.example.sailspots.AppExecutors;
+import com.example.sailspots.R;
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.weather.Forecast;
+import com.example.sailspots.core.weather.ForecastTile;
+import com.example.sailspots.core.weather.Grib2Decoder;
+import com.example.sailspots.core.weather.Grib2Parameter;
+import com.example.sailspots.core.weather.GridWindField;
+import com.example.sailspots.perf.OpTracer;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The wind forecast: a GRIB2 file (files/forecast/forecast.grb2) downloaded from
+ * R.string.forecast_grib_url every few hours, or pushed there by hand.
+ *
+ * The file is decoded for a region at a time and the result kept, so the detail page, the
+ * passage planner and the favorites check all sample one decode as long as their places fall
+ * inside it. A newer file or a place outside the region triggers a new decode.
+ *
+ * When R.string.forecast_tile_url is set, the favorites check fetches ForecastTile-sized
+ * pieces from it instead (files/forecast/tiles/), one request per tile per refresh.
+ */
+public final class Forecasts {
+
+    private static final String TAG = "Forecasts";
+    public static final String DIR = "forecast";
+    public static final String FILE_NAME = "forecast.grb2";
+    private static final String TILE_DIR = "tiles";
+    // GFS and ECMWF publish a new run every 6 hours.
+    private static final long REFRESH_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(6);
+    // Decoded around what was asked for, so nearby places reuse the decode.
+    private static final double MARGIN_DEGREES = 2;
+    private static final int CONNECT_TIMEOUT_MS = 15_000;
+    private static final int READ_TIMEOUT_MS = 60_000;
+
+    @Nullable private static Forecast cached;
+    @Nullable private static BoundingBox cachedRegion;
+    private static long cachedModified;
+    private static boolean downloading;  // Main thread only.
+
+    private Forecasts() { }
+
+    @NonNull
+    public static File file(@NonNull Context context) {
+        return new File(new File(context.getFilesDir(), DIR), FILE_NAME);
+    }
+
+    /**
+     * Downloads a fresh forecast on the IO pool unless the current one is recent, a download
+     * is running, or no server is set.
+     */
+    @MainThread
+    public static void refreshIfDue(@NonNull Context context) {
+        final Context app = context.getApplicationContext();
+        final String url = app.getString(R.string.forecast_grib_url);
+        final File target = file(app);
+        if (url.isEmpty() || downloading) return;
+        if (System.currentTimeMillis() - target.lastModified() < REFRESH_INTERVAL_MILLIS) return;
+
+        downloading = true;
+        AppExecutors.get().io().execute(() -> {
+            try {
+                download(url, target);
+            } catch (IOException e) {
+                Log.w(TAG, "Forecast download failed; keeping the current one", e);
+            }
+            AppExecutors.get().main().execute(() -> downloading = false);
+        });
+    }
+
+    @WorkerThread
+    private static void download(@NonNull String url, @NonNull File target) throws IOException {
+        File dir = target.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        File part = new File(target.getPath() + ".part");
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        conn.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        conn.setReadTimeout(READ_TIMEOUT_MS);
+        try {
+            int code = conn.getResponseCode();
+            if (code != HttpURLConnection.HTTP_OK) throw new IOException("HTTP " + code + " for " + url);
+            try (InputStream in = new BufferedInputStream(conn.getInputStream());
+                 OutputStream out = new FileOutputStream(part)) {
+                byte[] buf = new byte[64 * 1024];
+                int n;
+                while ((n = in.read(buf)) > 0) out.write(buf, 0, n);
+            }
+        } finally {
+            conn.disconnect();
+        }
+        // Readers map the old file until the rename, never a half-written one.
+        if (!part.renameTo(target)) throw new IOException("Cannot replace " + target);
+        Log.i(TAG, "Downloaded forecast, " + target.length() / 1024 + " KB");
+    }
+
+    /**
+     * @return The forecast around a point, or null if there is no forecast file, it does not
+     *         reach the point, or it cannot be read. Samples off the file's grid come back empty.
+     */
+    @WorkerThread
+    @Nullable
+    public static Forecast around(@NonNull Context context, @NonNull GeoPoint point) {
+        return covering(context, new BoundingBox(point.latitude, point.longitude, point.latitude, point.longitude));
+    }
+
+    /**
+     * @return The forecast covering a region, decoded with some margin, or null as for around().
+     */
+    @WorkerThread
+    @Nullable
+    public static synchronized Forecast covering(@NonNull Context context, @NonNull BoundingBox region) {
+        File f = file(context);
+        if (!f.isFile()) return null;
+        long modified = f.lastModified();
+        if (cached != null && modified == cachedModified && contains(cachedRegion, region)) return cached;
+
+        BoundingBox padded = new BoundingBox(Math.max(-90, region.south - MARGIN_DEGREES),
+                region.west - MARGIN_DEGREES, Math.min(90, region.north + MARGIN_DEGREES),
+                region.east + MARGIN_DEGREES);
+        Forecast decoded = decode(f, padded);
+        if (decoded == null) return null;
+        cached = decoded;
+        cachedRegion = padded;
+        cachedModified = modified;
+        return cached;
+    }
+
+    /**
+     * @return The forecast for one tile: its own file from R.string.forecast_tile_url, fetched
+     *         if the copy on disk is older than the refresh interval, or else that part of the
+     *         main forecast file. Null if there is neither.
+     */
+    @WorkerThread
+    @Nullable
+    public static Forecast forTile(@NonNull Context context, @NonNull ForecastTile tile) {
+        String template = context.getString(R.string.forecast_tile_url);
+        if (template.isEmpty()) return covering(context, tile.box());
+        File f = new File(new File(new File(context.getFilesDir(), DIR), TILE_DIR), tile.key() + ".grb2");
+        if (System.currentTimeMillis() - f.lastModified() >= REFRESH_INTERVAL_MILLIS) {
+            try {
+                download(tileUrl(template, tile), f);
+            } catch (IOException e) {
+                Log.w(TAG, "Download of " + tile + " failed; using the copy on disk if any", e);
+            }
+        }
+        return f.isFile() ? decode(f, tile.box()) : null;
+    }
+
+    @NonNull
+    private static String tileUrl(@NonNull String template, @NonNull ForecastTile tile) {
+        BoundingBox box = tile.box();
+        return template.replace("{south}", Integer.toString((int) box.south))
+                .replace("{west}", Integer.toString((int) box.west))
+                .replace("{north}", Integer.toString((int) box.north))
+                .replace("{east}", Integer.toString((int) box.east));
+    }
+
+    @WorkerThread
+    @Nullable
+    private static Forecast decode(@NonNull File f, @NonNull BoundingBox region) {
+        long start = OpTracer.now();
+        Grib2Decoder decoder = new Grib2Decoder(EnumSet.allOf(Grib2Parameter.class), region);
+        try {
+            Forecast forecast = decoder.decode(f);
+            OpTracer.get().record(OpTracer.FORECAST_DECODE, start, true);
+            Log.i(TAG, "Decoded " + forecast + ": " + decoder.fieldsDecoded() + " fields, "
+                    + decoder.fieldsSkipped() + " skipped");
+            return forecast;
+        } catch (IOException e) {
+            OpTracer.get().record(OpTracer.FORECAST_DECODE, start, false);
+            Log.w(TAG, "Cannot read " + f + " for " + region, e);
+            return null;
+        }
+    }
+
+    private static boolean contains(@Nullable BoundingBox outer, @NonNull BoundingBox inner) {
+        return outer != null && outer.south <= inner.south && outer.north >= inner.north
+                && outer.west <= inner.west && outer.east >= inner.east;
+    }
+
+    /**
+     * @return e.g. "SW" for a wind from 225 degrees.
+     */
+    @NonNull
+    public static String compassPoint(double degrees) {
+        String[] points = {"N", "NE", "E", "SE", "S", "SW", "W", "NW"};
+        return points[(int) Math.round(((degrees % 360) + 360) % 360 / 45) % 8];
+    }
+
+    /**
+     * @return e.g. "Wind 14 kt SW, gusts 19", or null if the forecast has no wind there then.
+     */
+    @Nullable
+    public static String describeWind(@NonNull Forecast forecast, double lat, double lng, long timeMillis) {
+        GridWindField field = forecast.windField();
+        double[] wind = new double[2];
+        if (field == null || !field.sample(lat, lng, timeMillis, wind)) return null;
+        String text = String.format(Locale.US, "Wind %.0f kt %s", wind[0], compassPoint(wind[1]));
+        double gust = forecast.sample(Grib2Parameter.GUST, lat, lng, timeMillis);
+        if (!Double.isNaN(gust)) text += String.format(Locale.US, ", gusts %.0f", gust * GridWindField.KNOTS_PER_MPS);
+        return text;
+    }
+}
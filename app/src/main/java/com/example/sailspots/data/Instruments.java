@@ -0,0 +1,130 @@
+package com.example.sailspots.data;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.sailspots.AppExecutors;
+import com.example.sailspots.R;
+import com.example.sailspots.core.nmea.InstrumentDecoder;
+import com.example.sailspots.core.nmea.InstrumentSlots;
+import com.example.sailspots.core.nmea.SentenceReader;
+
+import java.io.IOException;
+
+/**
+ * The boat's own instruments (wind, depth, boat speed, heading) from the NMEA 0183 stream
+ * its Wi-Fi gateway or multiplexer sends. The source is R.string.instruments_feed_url, TCP
+ * ("tcp://192.168.4.1:10110") or UDP ("udp://10110"); empty turns the readout off.
+ *
+ * While the map is visible the feed runs on a thread of its own, decoding each sentence into
+ * shared InstrumentSlots as it arrives, and reconnects after a pause when the source drops.
+ * Readers sample the slots when they draw; nothing is posted per sentence, however fast the
+ * instruments talk.
+ */
+public final class Instruments {
+
+    private static final String TAG = "Instruments";
+    // Readings older than this are shown as missing: that instrument is off or unplugged.
+    public static final long STALE_MILLIS = 5_000;
+    private static final long RETRY_MILLIS = 5_000;
+
+    private static final InstrumentSlots SLOTS = new InstrumentSlots();
+    // The slots' only writer, shared by successive feeds.
+    private static final InstrumentDecoder DECODER = new InstrumentDecoder(SLOTS);
+    @Nullable private static Feed feed;
+
+    private Instruments() { }
+
+    @NonNull
+    public static InstrumentSlots slots() {
+        return SLOTS;
+    }
+
+    /**
+     * @return Whether this build has an instrument source set.
+     */
+    public static boolean isConfigured(@NonNull Context context) {
+        return !context.getString(R.string.instruments_feed_url).trim().isEmpty();
+    }
+
+    /**
+     * Starts the feed, if configured and not already running.
+     */
+    @MainThread
+    public static synchronized void start(@NonNull Context context) {
+        if (feed != null || !isConfigured(context)) return;
+        feed = new Feed(context.getString(R.string.instruments_feed_url).trim());
+        feed.start();
+    }
+
+    /**
+     * Stops the feed. The last readings stay until they go stale.
+     */
+    @MainThread
+    public static synchronized void stop() {
+        if (feed == null) return;
+        feed.cancel();
+        feed = null;
+    }
+
+    /**
+     * Reads one source on its own thread until cancelled, reconnecting when it fails.
+     */
+    private static final class Feed implements Runnable {
+        private final String url;
+        private final Thread thread = AppExecutors.get().newThread("instruments", this);
+        private volatile boolean cancelled;
+        @Nullable private volatile SentenceReader reader;
+
+        Feed(@NonNull String url) {
+            this.url = url;
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        // Closes the socket and interrupts a pause between attempts; the thread ends promptly.
+        void cancel() {
+            cancelled = true;
+            SentenceReader r = reader;
+            if (r != null) r.close();
+            thread.interrupt();
+        }
+
+        @Override
+        public void run() {
+            Uri uri = Uri.parse(url);
+            // A feed cancelled just before may still be closing its socket; the decoder and
+            // slots take one writer at a time, so this one starts once that one has returned.
+            synchronized (DECODER) {
+                while (!cancelled) {
+                    try {
+                        SentenceReader r = "udp".equals(uri.getScheme())
+                                ? SentenceReader.udp(Integer.parseInt(uri.getAuthority()), DECODER)
+                                : SentenceReader.tcp(uri.getHost(), uri.getPort(), DECODER);
+                        reader = r;
+                        if (cancelled) r.close();  // Cancelled while connecting; run() returns at once.
+                        r.run();
+                        Log.i(TAG, "Feed closed: " + r + ", " + DECODER);
+                    } catch (IOException e) {
+                        Log.w(TAG, "Instrument feed " + url + " failed; retrying", e);
+                    } catch (IllegalArgumentException e) {
+                        Log.e(TAG, "Bad instruments_feed_url " + url, e);
+                        return;
+                    }
+                    try {
+                        if (!cancelled) Thread.sleep(RETRY_MILLIS);
+                    } catch (InterruptedException e) {
+                        return;  // Cancelled.
+                    }
+                }
+            }
+        }
+    }
+}
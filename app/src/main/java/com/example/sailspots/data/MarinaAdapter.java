@@ -1,6 +1,6 @@
 package com.example.sailspots.data;
 
-import android.view.LayoutInflater;
+import android.util.Log;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageButton;
@@ -8,15 +8,24 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.sailspots.AppExecutors;
 import com.example.sailspots.R;
-import com.example.sailspots.models.MarinaItem;
+import com.example.sailspots.core.catalog.PlaceIdRegistry;
+import com.example.sailspots.core.model.MarinaItem;
+import com.example.sailspots.ui.RowPool;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 
 /**
  * A RecyclerView adapter that efficiently displays a list of MarinaItem objects.
@@ -40,9 +49,54 @@ public class MarinaAdapter extends ListAdapter<MarinaItem, MarinaAdapter.VH> {
         void onMarinaClick(@NonNull MarinaItem item, int position);
     }
 
+    /**
+     * Puts submitted lists in some other order before they are shown, e.g. best conditions first.
+     */
+    public interface Ranker {
+        /**
+         * Called on a background thread, one list at a time.
+         * @return The same items in display order.
+         */
+        @WorkerThread
+        @NonNull
+        List<MarinaItem> rank(@NonNull List<MarinaItem> items);
+    }
+
+    private static final String TAG = "MarinaAdapter";
+
+    // --- Change payload bits; DIFF combines them into one Integer per changed row ---
+    public static final int PAYLOAD_FAVORITE = 1;
+    public static final int PAYLOAD_DISTANCE = 1 << 1;
+    public static final int PAYLOAD_NAME = 1 << 2;
+    public static final int PAYLOAD_ADDRESS = 1 << 3;
+    public static final int PAYLOAD_RATING = 1 << 4;
+    public static final int PAYLOAD_OPEN = 1 << 5;
+    public static final int PAYLOAD_DEPTH = 1 << 6;
+
+    // How many leading rows get a PrecomputedTextCompat address; the rest set plain text.
+    private static final int PRECOMPUTE_LIMIT = 200;
+
     private final OnFavoriteClickListener favoriteClickListener;
     private OnMarinaClickListener marinaClickListener;
 
+    // --- Subtitle cache (only touched on the main thread, except inside build jobs) ---
+    // Builds subtitle tables off the main thread, in submit order.
+    private final Executor subtitleExecutor = AppExecutors.get().newSerialCompute();
+    private final RowLabels labels = new RowLabels();
+    private MarinaSubtitles subtitles = MarinaSubtitles.EMPTY;
+    // Text metrics of the subtitle view, known once the first row is created.
+    private PrecomputedTextCompat.Params subtitleParams;
+    // Bumped on each submit so a slow build never overwrites a newer one.
+    private int subtitleGeneration;
+
+    // --- Ranking (main thread only, except inside rank jobs) ---
+    // Ranks lists off the main thread, in submit order.
+    private final Executor rankExecutor = AppExecutors.get().newSerialCompute();
+    @Nullable private Ranker ranker;
+    // The last list as submitted, so turning ranking on or off can reorder it.
+    @Nullable private List<MarinaItem> submitted;
+    // Bumped on each submit so a slow ranking never replaces a newer list.
+    private int rankGeneration;
 
     /**
      * Constructor for the adapter.
@@ -58,19 +112,91 @@ public class MarinaAdapter extends ListAdapter<MarinaItem, MarinaAdapter.VH> {
         this.marinaClickListener = listener;
     }
 
+    /**
+     * Sets how lists are ordered, and reorders the current one.
+     * @param ranker The order to show, or null for the order submitted.
+     */
+    public void setRanker(@Nullable Ranker ranker) {
+        if (ranker == this.ranker) return;
+        this.ranker = ranker;
+        if (submitted != null) submitList(submitted);
+    }
+
+    /**
+     * Submits a new list and starts preparing its row subtitles in the background.
+     */
+    @Override
+    public void submitList(@Nullable List<MarinaItem> list) {
+        submitList(list, null);
+    }
+
+    /**
+     * Submits a new list. With a ranker set, the list is ranked on a background thread first
+     * and shown once that is done; the rows on screen stay until then.
+     */
+    @Override
+    public void submitList(@Nullable List<MarinaItem> list, @Nullable Runnable commitCallback) {
+        submitted = list;
+        final int generation = ++rankGeneration;
+        final Ranker r = ranker;
+        if (r == null || list == null || list.size() < 2) {
+            show(list, commitCallback);
+            return;
+        }
+        rankExecutor.execute(() -> {
+            List<MarinaItem> ranked;
+            try {
+                ranked = r.rank(list);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Ranking failed; showing the list as submitted", e);
+                ranked = list;
+            }
+            final List<MarinaItem> shown = ranked;
+            AppExecutors.get().main().execute(() -> {
+                if (generation == rankGeneration) show(shown, commitCallback);
+            });
+        });
+    }
+
+    private void show(@Nullable List<MarinaItem> list, @Nullable Runnable commitCallback) {
+        super.submitList(list, commitCallback);
+        prepareSubtitles(list);
+    }
+
+    /**
+     * Builds the subtitle table for a list on the compute pool and publishes it on the main thread.
+     * Rows bound before the table arrives set their address as plain text.
+     */
+    private void prepareSubtitles(@Nullable List<MarinaItem> list) {
+        final int generation = ++subtitleGeneration;
+        final PrecomputedTextCompat.Params params = subtitleParams;
+        if (params == null) return; // Started again once the first row is created.
+        final List<MarinaItem> items = (list != null) ? list : Collections.emptyList();
+        final MarinaSubtitles previous = subtitles;
+        subtitleExecutor.execute(() -> {
+            MarinaSubtitles built = MarinaSubtitles.build(items, previous, params, PRECOMPUTE_LIMIT);
+            AppExecutors.get().main().execute(() -> {
+                if (generation == subtitleGeneration) subtitles = built;
+            });
+        });
+    }
+
 
     /**
      * DiffUtil configuration to calculate list changes efficiently.
      * This helps the RecyclerView perform optimized updates (e.g., animations).
+     * Visible so the microbenchmarks can diff realistic list sizes with it.
      */
-    private static final DiffUtil.ItemCallback<MarinaItem> DIFF =
+    @VisibleForTesting
+    public static final DiffUtil.ItemCallback<MarinaItem> DIFF =
             new DiffUtil.ItemCallback<MarinaItem>() {
                 /**
                  * Checks if two items are the same entity (e.g., they have the same unique ID).
                  */
                 @Override
                 public boolean areItemsTheSame(@NonNull MarinaItem oldItem, @NonNull MarinaItem newItem) {
-                    return oldItem.placeId != null && oldItem.placeId.equals(newItem.placeId);
+                    // A dense ID stands for one placeId, so an int compare replaces equals().
+                    return oldItem.id != PlaceIdRegistry.NO_ID && oldItem.id == newItem.id;
                 }
                 /**
                  * Checks if the contents of two items are the same.
@@ -78,41 +204,64 @@ public class MarinaAdapter extends ListAdapter<MarinaItem, MarinaAdapter.VH> {
                  */
                 @Override
                 public boolean areContentsTheSame(@NonNull MarinaItem oldItem, @NonNull MarinaItem newItem) {
-                    return oldItem.isFavorite() == newItem.isFavorite()
-                            && Objects.equals(oldItem.name, newItem.name)
-                            && Objects.equals(oldItem.address, newItem.address)
-                            && Double.compare(oldItem.distanceMiles, newItem.distanceMiles) == 0;
+                    return changedFields(oldItem, newItem) == 0;
                 }
                 /**
-                 * Creates a payload for partial updates if only certain fields changed.
-                 * This allows for more efficient view updates.
+                 * Creates a payload for partial updates: a bitmask of the PAYLOAD_* fields that changed.
+                 * Small Integers are cached by Integer.valueOf(), so this does not allocate.
                  */
                 @Override
                 public Object getChangePayload(@NonNull MarinaItem oldItem, @NonNull MarinaItem newItem) {
-                    // If only the favorite state is different, return a "favorite" payload.
-                    return (oldItem.isFavorite() != newItem.isFavorite()) ? "favorite" : null;
+                    int changed = changedFields(oldItem, newItem);
+                    return (changed != 0) ? Integer.valueOf(changed) : null;
                 }
             };
 
+    /**
+     * Compares two versions of a marina field by field.
+     * @return A bitmask of PAYLOAD_* bits, 0 if nothing shown in the row changed.
+     */
+    @VisibleForTesting
+    public static int changedFields(@NonNull MarinaItem oldItem, @NonNull MarinaItem newItem) {
+        int changed = 0;
+        if (oldItem.isFavorite() != newItem.isFavorite()) changed |= PAYLOAD_FAVORITE;
+        if (Double.compare(oldItem.distanceMiles, newItem.distanceMiles) != 0) changed |= PAYLOAD_DISTANCE;
+        if (!Objects.equals(oldItem.name, newItem.name)) changed |= PAYLOAD_NAME;
+        if (!Objects.equals(oldItem.address, newItem.address)) changed |= PAYLOAD_ADDRESS;
+        if (Float.compare(oldItem.rating, newItem.rating) != 0) changed |= PAYLOAD_RATING;
+        if (oldItem.openStatus != newItem.openStatus) changed |= PAYLOAD_OPEN;
+        if (Float.compare(oldItem.approachDepthMetres, newItem.approachDepthMetres) != 0) changed |= PAYLOAD_DEPTH;
+        return changed;
+    }
+
     /**
      * Returns a unique, stable ID for the item at the given position.
      * This is used by the RecyclerView to optimize animations.
+     * Dense place IDs never collide, unlike placeId.hashCode().
      */
     @Override
     public long getItemId(int position) {
         MarinaItem item = getItem(position);
-        return (item.placeId != null) ? item.placeId.hashCode() : position;
+        // Items without a place ID fall back to their position, kept above the int range
+        // so they can never clash with a dense ID.
+        return (item.id != PlaceIdRegistry.NO_ID) ? item.id : (1L << 32) + position;
     }
 
     /**
-     * Creates new ViewHolder instances by inflating the row layout.
+     * Uses the row layout as the view type, so lists sharing a RecycledViewPool never mix rows.
+     */
+    @Override
+    public int getItemViewType(int position) {
+        return R.layout.row_marina;
+    }
+
+    /**
+     * Creates new ViewHolder instances, taking a pre-inflated row from RowPool when one is ready.
      * Called by the RecyclerView when it needs a new view.
      */
     @NonNull @Override
     public VH onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View v = LayoutInflater.from(parent.getContext())
-                .inflate(R.layout.row_marina, parent, false);
-        return new VH(v);
+        return new VH(RowPool.inflate(parent, R.layout.row_marina));
     }
 
     /**
@@ -121,18 +270,34 @@ public class MarinaAdapter extends ListAdapter<MarinaItem, MarinaAdapter.VH> {
      */
     @Override
     public void onBindViewHolder(@NonNull VH holder, int position) {
-        holder.bind(getItem(position), position, favoriteClickListener, marinaClickListener);
+        if (subtitleParams == null) {
+            // All rows share one style, so the first row's metrics fit every subtitle.
+            // Taken on bind, not create, since rows may come from a shared pool.
+            subtitleParams = TextViewCompat.getTextMetricsParams(holder.tvSubtitle);
+            prepareSubtitles(getCurrentList());
+        }
+        holder.bind(getItem(position), this);
     }
 
     /**
      * An optimized version of onBindViewHolder that handles partial updates.
-     * @param payloads A list of payloads from DiffUtil (e.g., "favorite").
+     * @param payloads Bitmasks of changed fields from DiffUtil, one per change since the last bind.
      */
     @Override
     public void onBindViewHolder(@NonNull VH holder, int position, @NonNull List<Object> payloads) {
-        // If the payload indicates only the favorite status changed, update only that view.
-        if (!payloads.isEmpty() && payloads.contains("favorite")) {
-            holder.bindFavoriteOnly(getItem(position));
+        int changed = 0;
+        for (int i = 0; i < payloads.size(); i++) {
+            Object payload = payloads.get(i);
+            if (!(payload instanceof Integer)) {
+                changed = 0; // Unknown payload; fall back to a full rebind.
+                break;
+            }
+            changed |= (Integer) payload;
+        }
+
+        if (changed != 0) {
+            // Update only the views whose fields changed.
+            holder.bindChanges(getItem(position), changed, this);
         } else {
             // Otherwise, perform a full rebind.
             super.onBindViewHolder(holder, position, payloads);
@@ -142,11 +307,18 @@ public class MarinaAdapter extends ListAdapter<MarinaItem, MarinaAdapter.VH> {
     /**
      * ViewHolder class that holds and manages the views for a single list item.
      * This improves performance by avoiding repeated findViewById() calls.
+     * Click listeners are set once here and resolve the item at click time,
+     * so binding a row allocates nothing. Rows can move between adapters through a shared
+     * RecycledViewPool, so the owning adapter is looked up rather than stored.
      */
     static class VH extends RecyclerView.ViewHolder {
         // View references for the list item.
         final TextView tvTitle;
         final TextView tvSubtitle;
+        final TextView tvDistance;
+        final TextView tvRating;
+        final TextView tvOpenStatus;
+        final TextView tvDepth;
         final ImageButton btnFavorite;
 
         /**
@@ -158,59 +330,102 @@ public class MarinaAdapter extends ListAdapter<MarinaItem, MarinaAdapter.VH> {
             // Find views by their ID.
             tvTitle = itemView.findViewById(R.id.tvTitle);
             tvSubtitle = itemView.findViewById(R.id.tvSubtitle);
+            tvDistance = itemView.findViewById(R.id.tvDistance);
+            tvRating = itemView.findViewById(R.id.tvRating);
+            tvOpenStatus = itemView.findViewById(R.id.tvOpenStatus);
+            tvDepth = itemView.findViewById(R.id.tvDepth);
             btnFavorite = itemView.findViewById(R.id.btnFavorite);
-        }
-
-        void bind(MarinaItem item,
-                  int position,
-                  @Nullable OnFavoriteClickListener favListener) {
-            bind(item, position, favListener, null);
-        }
-
-        /**
-         * Binds a MarinaItem's data to the views (a "full" bind).
-         * @param item The data item to display.
-         * @param position The position of the item.
-         * @param favListener The listener for favorite button clicks.
-         */
-        void bind(MarinaItem item,
-                  int position,
-                  @Nullable OnFavoriteClickListener favListener,
-                  @Nullable OnMarinaClickListener marinaClickListener) {
-
-            tvTitle.setText(item.name);
-            tvSubtitle.setText(
-                    item.address +
-                            (item.distanceMiles > 0 ? String.format(" — %.1f mi", item.distanceMiles) : "")
-            );
-
-            // Set the visual state of the favorite button.
-            btnFavorite.setImageResource(R.drawable.favorite_heart_selector);
-            btnFavorite.setSelected(item.isFavorite());
 
             // Set the click listener for the favorite button.
             btnFavorite.setOnClickListener(v -> {
+                MarinaAdapter adapter = (MarinaAdapter) getBindingAdapter();
                 int p = getBindingAdapterPosition();
-                if (p == RecyclerView.NO_POSITION) return; // Ignore clicks during layout changes.
-                if (favListener != null) favListener.onFavoriteClick(item, p);
+                if (adapter == null || p == RecyclerView.NO_POSITION) return; // Ignore clicks during layout changes.
+                adapter.favoriteClickListener.onFavoriteClick(adapter.getItem(p), p);
             });
 
             // Whole-row click -> open detail page
             itemView.setOnClickListener(v -> {
+                MarinaAdapter adapter = (MarinaAdapter) getBindingAdapter();
                 int p = getBindingAdapterPosition();
-                if (p == RecyclerView.NO_POSITION) return; // Ignore clicks during layout changes.
-                if (marinaClickListener != null) marinaClickListener.onMarinaClick(item, p);
+                if (adapter == null || p == RecyclerView.NO_POSITION) return; // Ignore clicks during layout changes.
+                OnMarinaClickListener listener = adapter.marinaClickListener;
+                if (listener != null) listener.onMarinaClick(adapter.getItem(p), p);
             });
+        }
+
+        /**
+         * Binds a MarinaItem's data to the views (a "full" bind).
+         * @param item The data item to display.
+         * @param adapter The adapter binding the row, for its label caches.
+         */
+        void bind(MarinaItem item, MarinaAdapter adapter) {
+            bindChanges(item, -1, adapter); // Every bit set.
+        }
 
+        /**
+         * Updates only the views for the given fields (a "partial" bind).
+         * A distance update, for example, touches nothing but the distance label.
+         * @param item The data item with the updated fields.
+         * @param changed A bitmask of PAYLOAD_* bits.
+         * @param adapter The adapter binding the row, for its label caches.
+         */
+        void bindChanges(MarinaItem item, int changed, MarinaAdapter adapter) {
+            if ((changed & PAYLOAD_NAME) != 0) {
+                tvTitle.setText(item.name);
+            }
+            if ((changed & PAYLOAD_ADDRESS) != 0) {
+                setSubtitle(item, adapter.subtitles);
+            }
+            if ((changed & PAYLOAD_DISTANCE) != 0) {
+                tvDistance.setText(adapter.labels.distance(item.distanceMiles));
+            }
+            if ((changed & PAYLOAD_RATING) != 0) {
+                String rating = adapter.labels.rating(item.rating);
+                tvRating.setText(rating);
+                tvRating.setVisibility(rating.isEmpty() ? View.GONE : View.VISIBLE);
+            }
+            if ((changed & PAYLOAD_OPEN) != 0) {
+                bindOpenStatus(item.openStatus);
+            }
+            if ((changed & PAYLOAD_DEPTH) != 0) {
+                // Only approaches too shallow for the boat are worth a label.
+                boolean shallow = Depths.isShallow(item.approachDepthMetres);
+                tvDepth.setText(shallow ? adapter.labels.depth(item.approachDepthMetres) : "");
+                tvDepth.setVisibility(shallow ? View.VISIBLE : View.GONE);
             }
-            /**
-             * Updates only the favorite button's state (a "partial" bind).
-             * This is more efficient than rebinding the entire view.
-             * @param item The data item with the updated favorite status.
-             */
-            void bindFavoriteOnly(MarinaItem item) {
+            if ((changed & PAYLOAD_FAVORITE) != 0) {
+                // The heart selector is set in row_marina.xml; only its state changes here.
                 btnFavorite.setSelected(item.isFavorite());
             }
         }
-    }
 
+        private void bindOpenStatus(int openStatus) {
+            if (openStatus == MarinaItem.OPEN_NOW) {
+                tvOpenStatus.setText(R.string.marina_open_now);
+                tvOpenStatus.setVisibility(View.VISIBLE);
+            } else if (openStatus == MarinaItem.CLOSED_NOW) {
+                tvOpenStatus.setText(R.string.marina_closed_now);
+                tvOpenStatus.setVisibility(View.VISIBLE);
+            } else {
+                tvOpenStatus.setVisibility(View.GONE);
+            }
+        }
+
+        /**
+         * Shows the address, using the adapter's precomputed text when it has it.
+         */
+        private void setSubtitle(MarinaItem item, MarinaSubtitles subtitles) {
+            PrecomputedTextCompat precomputed = subtitles.get(item);
+            if (precomputed != null) {
+                try {
+                    TextViewCompat.setPrecomputedText(tvSubtitle, precomputed);
+                    return;
+                } catch (IllegalArgumentException e) {
+                    // Metrics changed since the text was measured (e.g. font scale); fall through.
+                }
+            }
+            tvSubtitle.setText(item.address);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.sailspots.data;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.example.sailspots.AppExecutors;
+import com.example.sailspots.core.catalog.MarinaCatalog;
+import com.example.sailspots.core.catalog.MarinaPack;
+import com.example.sailspots.core.catalog.MarinaStore;
+import com.example.sailspots.core.importer.CsvMarinaSource;
+import com.example.sailspots.core.importer.GeoJsonMarinaSource;
+import com.example.sailspots.core.importer.MarinaImporter;
+import com.example.sailspots.core.importer.MarinaSource;
+import com.example.sailspots.core.sync.LocalTileStore;
+import com.example.sailspots.perf.OpTracer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Loads the regional marina catalog once per process.
+ *
+ * Sources, in order:
+ * 1. Synced geohash tiles under files/tiles/ (see CatalogSync), each a memory-mapped MarinaPack.
+ * 2. marinas.pack, a prebuilt MarinaPack from files/datasets/ or the APK's assets. It is
+ *    memory-mapped, so it is ready immediately and costs almost no heap. The asset is stored
+ *    uncompressed so it can be mapped in place.
+ * 3. marinas.geojson or marinas.csv from the same places, streamed into an in-memory MarinaCatalog.
+ * Loading runs on the IO pool; screens get the read-only store on the main thread.
+ */
+public final class MarinaCatalogLoader {
+
+    private static final String TAG = "MarinaCatalogLoader";
+
+    // Downloaded datasets and synced tiles live here, under the app's files directory.
+    public static final String DATASET_DIR = "datasets";
+    public static final String TILES_DIR = "tiles";
+    public static final String PACK_NAME = "marinas.pack";
+    // Checked in order after the pack; the first one found wins.
+    private static final String[] DATASET_NAMES = {"marinas.geojson", "marinas.csv"};
+
+    private static final MarinaCatalogLoader INSTANCE = new MarinaCatalogLoader();
+    @Nullable private static LocalTileStore tileStore;
+
+    // --- Main-thread state ---
+    private boolean started;
+    private boolean finished;
+    @Nullable private MarinaStore catalog;
+    private final List<Consumer<MarinaStore>> waiting = new ArrayList<>();
+
+    private MarinaCatalogLoader() { }
+
+    @NonNull
+    public static MarinaCatalogLoader get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Delivers the catalog on the main thread, importing it first if this is the first call.
+     * @param onLoaded Receives the catalog, or null if there is neither a pack nor a dataset,
+     *                 or both failed to load; callers then keep whatever data they already show.
+     */
+    @MainThread
+    public void load(@NonNull Context context, @NonNull Consumer<MarinaStore> onLoaded) {
+        if (finished) {
+            onLoaded.accept(catalog);
+            return;
+        }
+        waiting.add(onLoaded);
+        if (started) return;
+        started = true;
+
+        final Context appContext = context.getApplicationContext();
+        AppExecutors.get().io().execute(() -> {
+            MarinaStore store = openTiles(appContext);
+            if (store == null) store = openPack(appContext);
+            final MarinaStore loaded = (store != null) ? store : importDataset(appContext);
+            AppExecutors.get().main().execute(() -> publish(loaded));
+        });
+    }
+
+    /**
+     * Forgets the loaded catalog, e.g. after a sync replaced tiles. The next load() reopens it;
+     * screens already holding the old one keep a working copy until they ask again.
+     */
+    @MainThread
+    public void invalidate() {
+        if (!finished) return; // A load in flight will see the new files anyway.
+        started = false;
+        finished = false;
+        catalog = null;
+    }
+
+    @MainThread
+    private void publish(@Nullable MarinaStore loaded) {
+        catalog = loaded;
+        finished = true;
+        for (Consumer<MarinaStore> c : waiting) c.accept(loaded);
+        waiting.clear();
+    }
+
+    /**
+     * @return The synced tiles on this device; CatalogSync writes them, this class reads them.
+     */
+    @NonNull
+    public static synchronized LocalTileStore tileStore(@NonNull Context context) {
+        // One instance, since it caches the manifest it writes.
+        if (tileStore == null) {
+            tileStore = new LocalTileStore(new File(context.getApplicationContext().getFilesDir(), TILES_DIR));
+        }
+        return tileStore;
+    }
+
+    @WorkerThread
+    @Nullable
+    private static MarinaStore openTiles(@NonNull Context context) {
+        try {
+            MarinaStore tiles = tileStore(context).openStore();
+            if (tiles != null) Log.i(TAG, "Mapped synced tiles: " + tiles.size() + " marinas");
+            return tiles;
+        } catch (IOException e) {
+            Log.e(TAG, "Could not map synced tiles; falling back to a pack or dataset", e);
+            return null;
+        }
+    }
+
+    @WorkerThread
+    @Nullable
+    private static MarinaPack openPack(@NonNull Context context) {
+        long start = OpTracer.now();
+        File file = new File(new File(context.getFilesDir(), DATASET_DIR), PACK_NAME);
+        try {
+            MarinaPack pack;
+            if (file.isFile()) {
+                pack = MarinaPack.open(file);
+            } else {
+                // openFd() only works for uncompressed assets; see noCompress in build.gradle.kts.
+                try (AssetFileDescriptor afd = context.getAssets().openFd(PACK_NAME);
+                     FileChannel channel = afd.createInputStream().getChannel()) {
+                    pack = MarinaPack.wrap(channel.map(FileChannel.MapMode.READ_ONLY,
+                            afd.getStartOffset(), afd.getLength()));
+                }
+            }
+            OpTracer.get().record(OpTracer.CATALOG_OPEN_PACK, start, true);
+            Log.i(TAG, "Mapped " + PACK_NAME + ": " + pack.size() + " marinas");
+            return pack;
+        } catch (FileNotFoundException e) {
+            return null; // No pack in this build; fall back to a dataset.
+        } catch (IOException e) {
+            OpTracer.get().record(OpTracer.CATALOG_OPEN_PACK, start, false);
+            Log.e(TAG, "Could not map " + PACK_NAME + "; falling back to a dataset", e);
+            return null;
+        }
+    }
+
+    @WorkerThread
+    @Nullable
+    private static MarinaCatalog importDataset(@NonNull Context context) {
+        File dir = new File(context.getFilesDir(), DATASET_DIR);
+        for (String name : DATASET_NAMES) {
+            File file = new File(dir, name);
+            InputStream in;
+            long length = -1;
+            try {
+                if (file.isFile()) {
+                    in = new FileInputStream(file);
+                    length = file.length();
+                } else {
+                    in = context.getAssets().open(name);
+                }
+            } catch (FileNotFoundException e) {
+                continue; // Not bundled in this build; try the next name.
+            } catch (IOException e) {
+                Log.e(TAG, "Could not open dataset " + name, e);
+                continue;
+            }
+
+            long start = OpTracer.now();
+            MarinaCatalog catalog = new MarinaCatalog();
+            try (MarinaSource source = name.endsWith(".csv")
+                    ? new CsvMarinaSource(in) : new GeoJsonMarinaSource(in)) {
+                MarinaImporter.Stats stats = new MarinaImporter(catalog)
+                        .setProgressListener(s -> Log.d(TAG, name + ": " + s))
+                        .importFrom(source, length);
+                OpTracer.get().record(OpTracer.CATALOG_IMPORT, start, true);
+                Log.i(TAG, "Imported " + name + ": " + stats);
+                return catalog;
+            } catch (IOException e) {
+                OpTracer.get().record(OpTracer.CATALOG_IMPORT, start, false);
+                Log.e(TAG, "Import of " + name + " failed", e);
+                closeQuietly(in);
+            }
+        }
+        return null;
+    }
+
+    private static void closeQuietly(@NonNull InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+            // Nothing left to do with it.
+        }
+    }
+}
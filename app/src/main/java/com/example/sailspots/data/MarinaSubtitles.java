@@ -0,0 +1,70 @@
+package com.example.sailspots.data;
+
+import android.util.SparseArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.text.PrecomputedTextCompat;
+
+import com.example.sailspots.core.model.MarinaItem;
+
+import java.util.List;
+
+/**
+ * An immutable table of precomputed row subtitles (the address line), keyed by dense marina ID.
+ * Tables are built off the main thread, so the text layout for the leading rows is measured
+ * ahead of time and binding a row is a lookup. A table holds only those rows, however large
+ * the IDs are.
+ */
+final class MarinaSubtitles {
+
+    static final MarinaSubtitles EMPTY = new MarinaSubtitles(new SparseArray<>(0), new SparseArray<>(0));
+
+    private final SparseArray<PrecomputedTextCompat> text;
+    // The address each entry was built from, so a stale entry is never shown.
+    private final SparseArray<String> addresses;
+
+    private MarinaSubtitles(SparseArray<PrecomputedTextCompat> text, SparseArray<String> addresses) {
+        this.text = text;
+        this.addresses = addresses;
+    }
+
+    /**
+     * @return The precomputed subtitle for an item, or null if this table has none for it.
+     */
+    @Nullable
+    PrecomputedTextCompat get(@NonNull MarinaItem item) {
+        PrecomputedTextCompat precomputed = text.get(item.id);
+        if (precomputed == null) return null;
+        // Items copied with withFavorite()/withDistance() share the same address instance.
+        String address = addresses.get(item.id);
+        return (address == item.address || address.equals(item.address)) ? precomputed : null;
+    }
+
+    /**
+     * Builds a table for a list, reusing entries from the previous table where nothing changed.
+     * Call on a background thread.
+     * @param params          Text metrics of the subtitle view.
+     * @param precomputeLimit How many leading rows to precompute.
+     */
+    @NonNull
+    static MarinaSubtitles build(@NonNull List<MarinaItem> items,
+                                 @NonNull MarinaSubtitles previous,
+                                 @NonNull PrecomputedTextCompat.Params params,
+                                 int precomputeLimit) {
+        int count = Math.min(items.size(), precomputeLimit);
+        SparseArray<PrecomputedTextCompat> text = new SparseArray<>(count);
+        SparseArray<String> addresses = new SparseArray<>(count);
+
+        for (int pos = 0; pos < count; pos++) {
+            MarinaItem item = items.get(pos);
+            int id = item.id;
+            if (id < 0 || item.address == null) continue;
+
+            PrecomputedTextCompat cached = previous.get(item);
+            text.put(id, (cached != null) ? cached : PrecomputedTextCompat.create(item.address, params));
+            addresses.put(id, item.address);
+        }
+        return new MarinaSubtitles(text, addresses);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.sailspots.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.work.Data;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.sailspots.AppExecutors;
+import com.example.sailspots.core.charts.Cancellation;
+import com.example.sailspots.core.charts.HttpTileFetcher;
+import com.example.sailspots.core.offline.OfflineRegion;
+import com.example.sailspots.core.offline.OfflineRegionStore;
+import com.example.sailspots.core.offline.RegionDownloader;
+import com.example.sailspots.core.offline.RegionPlan;
+import com.example.sailspots.perf.OpTracer;
+
+import java.io.IOException;
+
+/**
+ * Downloads one offline region:
+ * 1. the catalog tiles covering it, when a catalog server is configured (otherwise the
+ *    bundled catalog is already on the device);
+ * 2. the user's favorites inside it and their comments, into Firestore's offline cache;
+ * 3. its chart tiles, into the region's own directory.
+ * Then finished regions are evicted, least recently used first, until all fit the budget.
+ *
+ * Stopping and rerunning is cheap: tiles already on disk are skipped, so WorkManager can
+ * stop the job whenever the network goes away and resume it later. Progress is published
+ * under KEY_DONE, KEY_TOTAL and KEY_BYTES.
+ */
+public class OfflineRegionWorker extends Worker {
+
+    private static final String TAG = "OfflineRegionWorker";
+
+    public static final String KEY_REGION_ID = "regionId";
+    public static final String KEY_DONE = "done";
+    public static final String KEY_TOTAL = "total";
+    public static final String KEY_BYTES = "bytes";
+
+    private static final int MAX_CONCURRENT_TILES = 3;
+    private static final int MAX_ATTEMPTS = 5;
+    // How often progress reaches the UI and, less often, the region index on disk.
+    private static final int PROGRESS_EVERY_TILES = 25;
+    private static final int SAVE_EVERY_TILES = 500;
+
+    private final Cancellation cancel = new Cancellation();
+
+    public OfflineRegionWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        String id = getInputData().getString(KEY_REGION_ID);
+        OfflineRegions offline = OfflineRegions.get(getApplicationContext());
+        OfflineRegionStore store = offline.store();
+        OfflineRegion region = id == null ? null : store.get(id);
+        if (region == null) return Result.success(); // Deleted or evicted while queued.
+
+        long start = OpTracer.now();
+        RegionPlan plan = RegionPlan.of(region.box, region.minZoom, region.maxZoom, Integer.MAX_VALUE,
+                RegionPlan.DEFAULT_TILE_BYTES);
+        try {
+            store.put(region.withState(OfflineRegion.State.DOWNLOADING));
+            // Catalog and favorites are best effort: the charts are what matter offline.
+            try {
+                CatalogSync.syncTiles(getApplicationContext(), plan::coversCatalogTile);
+            } catch (IOException e) {
+                Log.w(TAG, "Could not sync catalog tiles for " + region, e);
+            }
+            try {
+                int favorites = new SpotsRepository().cacheFavoritesIn(region.box);
+                Log.i(TAG, "Cached " + favorites + " favorites for " + region.id);
+            } catch (Exception e) {
+                Log.w(TAG, "Could not cache favorites for " + region, e);
+            }
+
+            RegionDownloader.Result charts = downloadCharts(offline.chartFetcher(), store, region, plan);
+            long bytes = store.tiles(region.id).sizeBytes();
+            OfflineRegion updated = store.get(region.id);
+            if (updated == null) return Result.success(); // Deleted while downloading.
+            if (charts != null) updated = updated.withProgress(charts.kept + charts.downloaded, plan.chartTiles, bytes);
+
+            boolean complete = charts == null || charts.complete();
+            Result result;
+            if (complete) {
+                updated = updated.withState(OfflineRegion.State.COMPLETE);
+                result = Result.success();
+            } else if (isStopped() || getRunAttemptCount() + 1 < MAX_ATTEMPTS) {
+                updated = updated.withState(OfflineRegion.State.QUEUED);
+                result = Result.retry();
+            } else {
+                updated = updated.withState(OfflineRegion.State.FAILED);
+                result = Result.failure();
+            }
+            store.put(updated);
+            for (OfflineRegion evicted : store.evictToFit(0, region.id)) {
+                Log.i(TAG, "Evicted " + evicted + " to stay within the offline budget");
+            }
+            Log.i(TAG, "Region " + region.id + " charts: " + (charts != null ? charts : "no chart server"));
+            OpTracer.get().record(OpTracer.OFFLINE_REGION, start, complete);
+            return result;
+        } catch (IOException e) {
+            Log.e(TAG, "Could not update the region index for " + region, e);
+            OpTracer.get().record(OpTracer.OFFLINE_REGION, start, false);
+            return Result.retry();
+        }
+    }
+
+    /**
+     * @return What was downloaded, or null if no chart server is configured.
+     */
+    @Nullable
+    private RegionDownloader.Result downloadCharts(@Nullable HttpTileFetcher fetcher, OfflineRegionStore store,
+                                                   OfflineRegion region, RegionPlan plan) {
+        if (fetcher == null) return null;
+        RegionDownloader downloader = new RegionDownloader(fetcher, AppExecutors.get().io(), MAX_CONCURRENT_TILES)
+                .setProgressListener((done, total, bytes) -> {
+                    if (done % PROGRESS_EVERY_TILES != 0 && done != total) return;
+                    setProgressAsync(new Data.Builder()
+                            .putString(KEY_REGION_ID, region.id)
+                            .putInt(KEY_DONE, done)
+                            .putInt(KEY_TOTAL, total)
+                            .putLong(KEY_BYTES, bytes)
+                            .build());
+                    if (done % SAVE_EVERY_TILES == 0) saveProgress(store, region.id, done, total, bytes);
+                });
+        return downloader.download(plan.chartTileKeys(), store.tiles(region.id), cancel);
+    }
+
+    private static void saveProgress(OfflineRegionStore store, String id, int done, int total, long bytes) {
+        try {
+            OfflineRegion current = store.get(id);
+            if (current != null) store.put(current.withProgress(done, total, bytes));
+        } catch (IOException e) {
+            Log.w(TAG, "Could not save progress for " + id, e);
+        }
+    }
+
+    /**
+     * WorkManager stops the job when its constraints no longer hold, e.g. the network went
+     * away; abort the requests in flight rather than waiting out their timeouts.
+     */
+    @Override
+    public void onStopped() {
+        super.onStopped();
+        cancel.cancel();
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.sailspots.data;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+import androidx.lifecycle.LiveData;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+
+import com.example.sailspots.R;
+import com.example.sailspots.core.charts.HttpTileFetcher;
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.offline.OfflineRegion;
+import com.example.sailspots.core.offline.OfflineRegionStore;
+import com.example.sailspots.core.offline.RegionPlan;
+import com.example.sailspots.ui.maps.ChartTileProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Areas downloaded for use without a connection: planning them, starting their download
+ * jobs, and the store that holds them. One instance per process.
+ *
+ * Each region gets a unique OfflineRegionWorker job, which WorkManager runs when there is a
+ * network, retries with backoff, and resumes after the app or device restarts.
+ */
+public final class OfflineRegions {
+
+    public static final String WORK_TAG = "offline-region";
+    private static final String DIR = "offline-regions";
+
+    // All regions together stay under this; older ones are evicted to make room.
+    private static final long BUDGET_BYTES = 512L * 1024 * 1024;
+    // Chart zoom levels a region covers; the most detailed ones are dropped for large areas.
+    private static final int MAX_ZOOM = 16;
+    private static final int MAX_TILES = 20_000;
+
+    @Nullable private static OfflineRegions instance;
+
+    private final OfflineRegionStore store;
+    @Nullable private final HttpTileFetcher charts;  // Null when no chart server is configured.
+
+    private OfflineRegions(@NonNull Context app) {
+        store = new OfflineRegionStore(new File(app.getFilesDir(), DIR), BUDGET_BYTES);
+        String template = app.getString(R.string.chart_tiles_url);
+        charts = template.isEmpty() ? null : new HttpTileFetcher(template, app.getString(R.string.app_name),
+                HttpTileFetcher.DEFAULT_MAX_AGE_MILLIS);
+    }
+
+    @NonNull
+    public static synchronized OfflineRegions get(@NonNull Context context) {
+        if (instance == null) instance = new OfflineRegions(context.getApplicationContext());
+        return instance;
+    }
+
+    @NonNull
+    public OfflineRegionStore store() {
+        return store;
+    }
+
+    @Nullable
+    HttpTileFetcher chartFetcher() {
+        return charts;
+    }
+
+    /**
+     * Works out what downloading a box involves. The size estimate uses the average tile size
+     * of earlier downloads once there are some. Reads the region index, so call off the main thread.
+     */
+    @WorkerThread
+    @NonNull
+    public RegionPlan plan(@NonNull BoundingBox box) {
+        long bytes = 0;
+        long tiles = 0;
+        for (OfflineRegion r : store.regions()) {
+            bytes += r.bytes;
+            tiles += r.tilesDone;
+        }
+        long avg = tiles > 100 ? bytes / tiles : RegionPlan.DEFAULT_TILE_BYTES;
+        return RegionPlan.of(box, ChartTileProvider.MIN_ZOOM, MAX_ZOOM, MAX_TILES, avg);
+    }
+
+    /**
+     * Records a new region and starts downloading it.
+     * @return The region, or null if it would not fit in the storage budget even after
+     *         evicting every finished region.
+     */
+    @WorkerThread
+    @Nullable
+    public OfflineRegion download(@NonNull Context context, @NonNull RegionPlan plan, @NonNull String name)
+            throws IOException {
+        if (!store.canFit(plan.estimatedBytes)) return null;
+        OfflineRegion region = OfflineRegion.plan(UUID.randomUUID().toString(), name, plan,
+                System.currentTimeMillis());
+        store.put(region);
+        enqueue(context, region.id);
+        return region;
+    }
+
+    private static void enqueue(@NonNull Context context, @NonNull String regionId) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(OfflineRegionWorker.class)
+                .setInputData(new Data.Builder().putString(OfflineRegionWorker.KEY_REGION_ID, regionId).build())
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .setRequiresStorageNotLow(true)
+                        .build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 30, TimeUnit.SECONDS)
+                .addTag(WORK_TAG)
+                .build();
+        // KEEP: asking again while a region is downloading does not restart it.
+        WorkManager.getInstance(context).enqueueUniqueWork(WORK_TAG + ":" + regionId,
+                ExistingWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * @return Every region download job, with its progress; see OfflineRegionWorker for the keys.
+     */
+    @NonNull
+    public static LiveData<List<WorkInfo>> observe(@NonNull Context context) {
+        return WorkManager.getInstance(context).getWorkInfosByTagLiveData(WORK_TAG);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.sailspots.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.example.sailspots.AppExecutors;
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.routing.BoatPolar;
+import com.example.sailspots.core.routing.DepthStore;
+import com.example.sailspots.core.routing.IsochroneRouter;
+import com.example.sailspots.core.routing.WaterRouter;
+import com.example.sailspots.core.weather.Forecast;
+import com.example.sailspots.core.weather.UniformWind;
+import com.example.sailspots.core.weather.WindField;
+import com.example.sailspots.perf.OpTracer;
+
+/**
+ * Plans the fastest passage between two points with the isochrone router, for the boat's
+ * polar and the downloaded wind forecast, keeping to water on the bundled water grid when
+ * there is one, and off the shallows where depth tiles are installed. Without a forecast
+ * it assumes a steady breeze, and says so on the Passage it returns.
+ */
+public final class PassagePlanner {
+
+    private static final String TAG = "PassagePlanner";
+
+    // Used without a forecast: a moderate south-westerly, the prevailing summer breeze.
+    // R.string.passage_no_forecast names it to the user.
+    private static final WindField DEFAULT_WIND = new UniformWind(12, 225);
+    // Forecast decoded around the start and destination, for routes that swing wide.
+    private static final double MARGIN_MILES = 150;
+
+    private PassagePlanner() { }
+
+    /**
+     * A planned route and the wind it was planned in.
+     */
+    public static final class Passage {
+        @NonNull
+        public final IsochroneRouter.Route route;
+        /** False if there was no forecast and the route assumes the default south-westerly. */
+        public final boolean forecast;
+
+        Passage(@NonNull IsochroneRouter.Route route, boolean forecast) {
+            this.route = route;
+            this.forecast = forecast;
+        }
+    }
+
+    /**
+     * @return The forecast wind around both points, or null if there is no forecast for them.
+     */
+    @WorkerThread
+    @Nullable
+    public static WindField wind(@NonNull Context context, @NonNull GeoPoint from, @NonNull GeoPoint to) {
+        BoundingBox a = BoundingBox.around(from, MARGIN_MILES);
+        BoundingBox b = BoundingBox.around(to, MARGIN_MILES);
+        BoundingBox both = new BoundingBox(Math.min(a.south, b.south), Math.min(a.west, b.west),
+                Math.max(a.north, b.north), Math.max(a.east, b.east));
+        Forecast forecast = Forecasts.covering(context, both);
+        return forecast != null ? forecast.windField() : null;
+    }
+
+    /**
+     * Blocks for up to a few seconds on a long passage; the expansion itself runs on
+     * AppExecutors.forkJoin().
+     */
+    @WorkerThread
+    @NonNull
+    public static Passage plan(@NonNull Context context, @NonNull GeoPoint from,
+                               @NonNull GeoPoint to, long departMillis) {
+        long start = OpTracer.now();
+        WindField forecast = wind(context, from, to);
+        WindField wind = forecast != null ? forecast : DEFAULT_WIND;
+        IsochroneRouter router = new IsochroneRouter(BoatPolar.cruiser(), wind, AppExecutors.get().forkJoin());
+        WaterRouter water = WaterRouting.router(context);
+        if (water != null) router.setWater(water.fineGrid());
+        DepthStore depth = Depths.store(context);
+        if (depth != null) router.setDepth(depth, Depths.DRAFT_METRES + Depths.UNDER_KEEL_METRES);
+        IsochroneRouter.Route route = router.route(from, to, departMillis);
+        OpTracer.get().record(OpTracer.PASSAGE_PLAN, start, route.reached);
+        Log.d(TAG, "Planned in " + wind + ": " + route);
+        return new Passage(route, forecast != null);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.sailspots.data;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Caches the short numeric labels shown in marina rows ("1.2 mi", "★ 4.5", "⚠ 1.5 m").
+ * All are shown to one decimal place, so each label up to its cap is built at most once
+ * and then reused on every bind.
+ *
+ * Safe to share between threads: a race can only build the same immutable String twice.
+ */
+final class RowLabels {
+
+    // Labels for longer distances are built on demand instead of cached.
+    private static final int MAX_CACHED_MILES = 1000;
+    private static final int MAX_RATING = 5;
+    // Only shallow approaches are labelled, so a few metres covers them.
+    private static final int MAX_CACHED_DEPTH = 10;
+
+    private final String[] distances = new String[MAX_CACHED_MILES * 10 + 1];
+    private final String[] ratings = new String[MAX_RATING * 10 + 1];
+    private final String[] depths = new String[MAX_CACHED_DEPTH * 10 + 1];
+    // Matches String.format's "%.1f" for the default locale (e.g. "1,2" in Germany).
+    private final char decimalSeparator = DecimalFormatSymbols.getInstance(Locale.getDefault()).getDecimalSeparator();
+
+    /**
+     * @return The distance label, or an empty string for unknown (zero or negative) distances.
+     */
+    String distance(double miles) {
+        if (!(miles > 0)) return "";
+        long tenths = Math.round(miles * 10.0);
+        if (tenths >= distances.length) return oneDecimal("", tenths, " mi");
+        int i = (int) tenths;
+        String s = distances[i];
+        if (s == null) {
+            s = oneDecimal("", tenths, " mi");
+            distances[i] = s;
+        }
+        return s;
+    }
+
+    /**
+     * @return The star rating label, or an empty string if the marina is unrated.
+     */
+    String rating(float stars) {
+        if (Float.isNaN(stars)) return "";
+        int i = Math.max(0, Math.min(ratings.length - 1, Math.round(stars * 10f)));
+        String s = ratings[i];
+        if (s == null) {
+            s = oneDecimal("★ ", i, "");
+            ratings[i] = s;
+        }
+        return s;
+    }
+
+    /**
+     * @return The shallow-approach label for a depth in metres, or an empty string if unknown.
+     */
+    String depth(float metres) {
+        if (Float.isNaN(metres)) return "";
+        long tenths = Math.max(0, Math.round(metres * 10.0));
+        if (tenths >= depths.length) return oneDecimal("⚠ ", tenths, " m");
+        int i = (int) tenths;
+        String s = depths[i];
+        if (s == null) {
+            s = oneDecimal("⚠ ", tenths, " m");
+            depths[i] = s;
+        }
+        return s;
+    }
+
+    private String oneDecimal(String prefix, long tenths, String suffix) {
+        return prefix + (tenths / 10) + decimalSeparator + (tenths % 10) + suffix;
+    }
+}
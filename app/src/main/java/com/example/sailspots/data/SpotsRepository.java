@@ -1,6 +1,15 @@
 package com.example.sailspots.data;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import com.example.sailspots.AppExecutors;
+import com.example.sailspots.core.catalog.FavoriteSet;
+import com.example.sailspots.core.catalog.PlaceIdRegistry;
+import com.example.sailspots.core.geo.BoundingBox;
 import com.example.sailspots.models.SpotsItem;
+import com.example.sailspots.perf.OpTracer;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentSnapshot;
@@ -8,19 +17,27 @@ import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.FirebaseFirestoreSettings;
 import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.PersistentCacheSettings;
+import com.google.firebase.firestore.QuerySnapshot;
 import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
 
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 /**
  * Repository class for handling all data operations related to 'Spots' in Firestore.
  * This class encapsulates the logic for adding, deleting, and retrieving spot data.
+ * Every operation is timed through OpTracer.
  */
 public class SpotsRepository {
 
+    private static final long OFFLINE_READ_TIMEOUT_SECONDS = 30;
+
     // Get the singleton instance of FirebaseFirestore.
     private final FirebaseFirestore db = FirebaseFirestore.getInstance();
 
@@ -56,28 +73,45 @@ public class SpotsRepository {
     }
 
     /**
-     * Sets up a real-time listener on the spots collection to get a set of favorite place IDs.
-     * This is useful for quickly checking which spots are marked as favorites.
-     * @param onIds A callback function that receives the set of place IDs.
+     * Sets up a real-time listener on the spots collection to get the set of favorite marinas.
+     * Place IDs are resolved to dense IDs once here, so membership checks are a bit test;
+     * see FavoriteSet.resolveIn() for matching them to a catalog loaded later.
+     * Snapshots are decoded on the compute pool; both callbacks run on the main thread,
+     * and neither runs after the returned registration is removed.
+     * @param onIds A callback function that receives the favorites, keyed by dense place ID.
      * @param onErr A callback function to handle any errors.
      * @return A ListenerRegistration object which can be used to detach the listener.
      */
-    public ListenerRegistration listenFavoriteIds(Consumer<Set<String>> onIds,
+    public ListenerRegistration listenFavoriteIds(Consumer<FavoriteSet> onIds,
                                                   Consumer<Exception> onErr) {
+        PlaceIdRegistry registry = PlaceIdRegistry.global();
+        Executor main = AppExecutors.get().main();
+        AtomicBoolean removed = new AtomicBoolean();
+        OpTracer.SnapshotTrace trace = OpTracer.get().listener(OpTracer.LISTEN_FAVORITES);
         // Attach a snapshot listener that fires whenever the collection changes.
-        return spotsCol().addSnapshotListener((snap, e) -> {
-            if (e != null) { onErr.accept(e); return; } // Handle errors.
-            Set<String> ids = new HashSet<>();
+        // A serial executor keeps snapshots in order while decoding off the main thread.
+        ListenerRegistration reg = spotsCol().addSnapshotListener(AppExecutors.get().newSerialCompute(), (snap, e) -> {
+            trace.onSnapshot(snap != null ? snap.getMetadata() : null);
+            if (e != null) { // Handle errors.
+                main.execute(() -> { if (!removed.get()) onErr.accept(e); });
+                return;
+            }
+            List<String> placeIds = new ArrayList<>();
             if (snap != null) {
                 // Loop through all documents in the snapshot.
                 for (DocumentSnapshot d : snap.getDocuments()) {
-                    SpotsItem s = d.toObject(SpotsItem.class);
-                    // Add the placeId to the set if it exists.
-                    if (s != null && s.getPlaceId() != null) ids.add(s.getPlaceId());
+                    // Only the placeId field is needed; skip mapping the whole document.
+                    placeIds.add(d.getString("placeId"));
                 }
             }
-            onIds.accept(ids); // Pass the resulting set of IDs to the callback.
+            FavoriteSet favorites = FavoriteSet.fromPlaceIds(placeIds, registry);
+            // Pass the resulting set of IDs to the callback.
+            main.execute(() -> { if (!removed.get()) onIds.accept(favorites); });
         });
+        return () -> {
+            removed.set(true);
+            reg.remove();
+        };
     }
 
     /**
@@ -87,7 +121,7 @@ public class SpotsRepository {
      * @param onErr A callback to handle any errors.
      */
     public void addSpot(SpotsItem item, Runnable onOk, Consumer<Exception> onErr) {
-        spotsCol().add(item)
+        OpTracer.get().trace(OpTracer.SPOTS_ADD, spotsCol().add(item))
                 .addOnSuccessListener(docRef -> onOk.run())
                 .addOnFailureListener(onErr::accept);
     }
@@ -102,9 +136,8 @@ public class SpotsRepository {
      */
     public void upsertSpotById(String docId, SpotsItem item,
                                Runnable onOk, Consumer<Exception> onErr) {
-        spotsCol().document(docId)
-                // SetOptions.merge() updates only the fields in the item object.
-                .set(item, SetOptions.merge())
+        // SetOptions.merge() updates only the fields in the item object.
+        OpTracer.get().trace(OpTracer.SPOTS_UPSERT, spotsCol().document(docId).set(item, SetOptions.merge()))
                 .addOnSuccessListener(v -> onOk.run())
                 .addOnFailureListener(onErr::accept);
     }
@@ -116,7 +149,7 @@ public class SpotsRepository {
      * @param onErr A callback to handle any errors.
      */
     public void deleteSpot(String id, Runnable onOk, Consumer<Exception> onErr) {
-        spotsCol().document(id).delete()
+        OpTracer.get().trace(OpTracer.SPOTS_DELETE, spotsCol().document(id).delete())
                 .addOnSuccessListener(v -> onOk.run())
                 .addOnFailureListener(onErr::accept);
     }
@@ -128,8 +161,7 @@ public class SpotsRepository {
      * @param onErr A callback to handle any errors.
      */
     public void deleteSpotById(String docId, Runnable onOk, Consumer<Exception> onErr) {
-        spotsCol().document(docId)
-                .delete()
+        OpTracer.get().trace(OpTracer.SPOTS_DELETE, spotsCol().document(docId).delete())
                 .addOnSuccessListener(v -> onOk.run())
                 .addOnFailureListener(onErr::accept);
     }
@@ -141,11 +173,57 @@ public class SpotsRepository {
      * @param onErr A callback to handle any errors.
      */
     public void getSpot(String id, Consumer<SpotsItem> onOk, Consumer<Exception> onErr) {
-        spotsCol().document(id).get()
+        OpTracer.get().trace(OpTracer.SPOTS_GET, spotsCol().document(id).get())
                 // On success, convert the document to a SpotsItem object and pass to the callback.
                 .addOnSuccessListener(doc -> onOk.accept(doc.toObject(SpotsItem.class)))
                 .addOnFailureListener(onErr::accept);
     }
 
+    /**
+     * Reads the user's favorites inside a box, and the comments on each, from the server, so
+     * Firestore's persistent cache can show them without a connection. Blocks.
+     * @param box The area being prepared for offline use.
+     * @return How many favorites were cached.
+     * @throws Exception If a read fails or times out; whatever was read stays cached.
+     */
+    @WorkerThread
+    public int cacheFavoritesIn(@NonNull BoundingBox box) throws Exception {
+        QuerySnapshot favorites = Tasks.await(OpTracer.get().trace(OpTracer.SPOTS_LIST,
+                spotsCol().get(Source.SERVER)), OFFLINE_READ_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        int cached = 0;
+        for (DocumentSnapshot d : favorites.getDocuments()) {
+            Double lat = d.getDouble("latitude");
+            Double lng = d.getDouble("longitude");
+            String placeId = d.getString("placeId");
+            if (lat == null || lng == null || placeId == null || !box.contains(lat, lng)) continue;
+            // The same collection MarinaDetailActivity lists as reviews.
+            Tasks.await(OpTracer.get().trace(OpTracer.COMMENTS_GET,
+                    db.collection("spots").document(placeId).collection("comments").get(Source.SERVER)),
+                    OFFLINE_READ_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            cached++;
+        }
+        return cached;
+    }
+
+    /**
+     * Reads the user's favorites that have a position, from the server when it can be
+     * reached and from Firestore's cache otherwise. Blocks.
+     * @throws Exception If the read fails or times out.
+     */
+    @WorkerThread
+    @NonNull
+    public List<SpotsItem> loadFavorites() throws Exception {
+        QuerySnapshot favorites = Tasks.await(OpTracer.get().trace(OpTracer.SPOTS_LIST, spotsCol().get()),
+                OFFLINE_READ_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        List<SpotsItem> out = new ArrayList<>(favorites.size());
+        for (DocumentSnapshot d : favorites.getDocuments()) {
+            // Spots saved before positions were stored have no coordinates to forecast for.
+            if (d.getDouble("latitude") == null || d.getDouble("longitude") == null) continue;
+            SpotsItem item = d.toObject(SpotsItem.class);
+            if (item != null) out.add(item);
+        }
+        return out;
+    }
+
 
 }
@@ -0,0 +1,251 @@
+package com.example.sailspots.data;
+
+import android.Manifest;
+import android.annotation.SuppressLint;
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.content.pm.ServiceInfo;
+import android.location.Location;
+import android.os.Build;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.ServiceCompat;
+import androidx.core.content.ContextCompat;
+
+import com.example.sailspots.AppExecutors;
+import com.example.sailspots.R;
+import com.example.sailspots.core.track.Track;
+import com.example.sailspots.core.track.TrackRing;
+import com.example.sailspots.core.track.TrackSimplifier;
+import com.example.sailspots.core.track.TrackWriter;
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
+import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.Executor;
+
+/**
+ * Records a GPS track at 1 Hz while the app is in the background, as a foreground service
+ * with an ongoing notification.
+ *
+ * Fixes arrive on the main thread and go straight into a TrackRing, which allocates
+ * nothing per fix. Every few seconds a serial IO task drains the ring into the track file
+ * (TrackWriter: delta- and varint-encoded, about 400 KB a day) and into a TrackSimplifier,
+ * and publishes the simplified line for the map through Tracks.current().
+ *
+ * The service is sticky. If the system kills it mid-sail, it is restarted with no intent,
+ * reopens the file Tracks saved with TrackWriter.resume() (dropping a record torn by the
+ * kill), and redraws the line so far before carrying on.
+ */
+public class TrackRecordingService extends Service {
+
+    private static final String TAG = "TrackRecording";
+    private static final String ACTION_STOP = "com.example.sailspots.action.STOP_TRACK";
+    private static final String CHANNEL_ID = "track_recording";
+    private static final int NOTIFICATION_ID = 4601;
+
+    private static final long INTERVAL_MILLIS = 1000;
+    private static final long DRAIN_MILLIS = 5000;
+    // Several minutes of fixes, in case the IO pool is busy with a download.
+    private static final int RING_FIXES = 1024;
+    // Fixes worse than this are noise at the dock, not a track.
+    private static final float MAX_ACCURACY_METRES = 50;
+    private static final double DISPLAY_TOLERANCE_METRES = 5;
+
+    private final TrackRing ring = new TrackRing(RING_FIXES);
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Executor io = AppExecutors.get().newSerial(AppExecutors.get().io());
+    private FusedLocationProviderClient locations;
+    private boolean started;
+
+    // --- Written on the serial IO executor only ---
+    @Nullable private TrackWriter writer;  // Null if the file could not be created.
+    private TrackSimplifier simplifier;
+    private final TrackRing.Consumer sink = (time, lat, lng) -> {
+        if (writer != null) writer.accept(time, lat, lng);
+        simplifier.addE6(lat, lng);
+    };
+
+    private final LocationCallback callback = new LocationCallback() {
+        @Override
+        public void onLocationResult(@NonNull LocationResult result) {
+            for (Location l : result.getLocations()) {
+                if (l.hasAccuracy() && l.getAccuracy() > MAX_ACCURACY_METRES) continue;
+                if (!ring.offer(l.getTime(), l.getLatitude(), l.getLongitude())) {
+                    Log.w(TAG, "Track buffer full; " + ring.dropped() + " fixes dropped");
+                }
+            }
+        }
+    };
+
+    private final Runnable drainTick = new Runnable() {
+        @Override
+        public void run() {
+            io.execute(TrackRecordingService.this::drain);
+            handler.postDelayed(this, DRAIN_MILLIS);
+        }
+    };
+
+    @Nullable
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    @SuppressLint("MissingPermission")  // Checked just before.
+    @Override
+    public int onStartCommand(@Nullable Intent intent, int flags, int startId) {
+        if (intent != null && ACTION_STOP.equals(intent.getAction())) {
+            Tracks.forgetActive(this);
+            stopSelf();
+            return START_NOT_STICKY;
+        }
+        if (started) return START_STICKY;
+        File resumed = intent == null ? Tracks.activeFile(this) : null;
+        if (intent == null && resumed == null) {
+            stopSelf();  // Stopped by the user before the restart came round.
+            return START_NOT_STICKY;
+        }
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION)
+                != PackageManager.PERMISSION_GRANTED) {
+            Log.w(TAG, "No location permission; not recording");
+            Tracks.forgetActive(this);
+            stopSelf();
+            return START_NOT_STICKY;
+        }
+        try {
+            ServiceCompat.startForeground(this, NOTIFICATION_ID, notification(),
+                    Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q ? ServiceInfo.FOREGROUND_SERVICE_TYPE_LOCATION : 0);
+        } catch (IllegalStateException e) {
+            // Android 12+ may refuse a foreground start from the background.
+            Log.e(TAG, "Could not start in the foreground; not recording", e);
+            Tracks.forgetActive(this);
+            stopSelf();
+            return START_NOT_STICKY;
+        }
+        started = true;
+
+        long now = System.currentTimeMillis();
+        File file = resumed != null ? resumed : Tracks.newFile(this, now);
+        Tracks.saveActive(this, file);
+        io.execute(() -> {
+            simplifier = new TrackSimplifier(DISPLAY_TOLERANCE_METRES);
+            if (resumed != null && resume(resumed)) return;
+            try {
+                writer = TrackWriter.create(file, now);
+                Log.i(TAG, "Recording to " + file);
+            } catch (IOException e) {
+                Log.e(TAG, "Cannot create " + file + "; the track is shown but not saved", e);
+            }
+        });
+        Tracks.CURRENT.setValue(Collections.emptyList());
+        Tracks.RECORDING.setValue(true);
+
+        locations = LocationServices.getFusedLocationProviderClient(this);
+        LocationRequest request = new LocationRequest.Builder(Priority.PRIORITY_HIGH_ACCURACY, INTERVAL_MILLIS)
+                .setMinUpdateIntervalMillis(INTERVAL_MILLIS)
+                .build();
+        locations.requestLocationUpdates(request, callback, Looper.getMainLooper());
+        handler.postDelayed(drainTick, DRAIN_MILLIS);
+        return START_STICKY;
+    }
+
+    /**
+     * Picks a killed recording back up: the line so far into the simplifier, then the file
+     * reopened for appending.
+     * @return False if the file cannot be resumed; it is then started afresh.
+     */
+    @WorkerThread
+    private boolean resume(@NonNull File file) {
+        try {
+            Track track = Track.read(file);
+            for (int i = 0; i < track.size(); i++) simplifier.addE6(track.latE6(i), track.lngE6(i));
+            writer = TrackWriter.resume(file);
+            Log.i(TAG, "Restarted by the system; resumed " + file + " at " + writer.fixes() + " fixes");
+            Tracks.CURRENT.postValue(simplifier.points());
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot resume " + file + "; starting it again", e);
+            simplifier = new TrackSimplifier(DISPLAY_TOLERANCE_METRES);
+            return false;
+        }
+    }
+
+    @WorkerThread
+    private void drain() {
+        if (simplifier == null) return;
+        int n = ring.drain(sink);
+        if (n == 0) return;
+        if (writer != null) {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                Log.e(TAG, "Cannot write the track; keeping the line on screen only", e);
+                closeQuietly();
+            }
+        }
+        Tracks.CURRENT.postValue(simplifier.points());
+    }
+
+    @WorkerThread
+    private void closeQuietly() {
+        if (writer == null) return;
+        try {
+            writer.close();
+            Log.i(TAG, "Saved " + writer.fixes() + " fixes, " + writer.bytes() + " bytes");
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot close the track file", e);
+        }
+        writer = null;
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        handler.removeCallbacks(drainTick);
+        if (started) {
+            locations.removeLocationUpdates(callback);
+            io.execute(() -> {
+                drain();
+                closeQuietly();
+            });
+        }
+        Tracks.RECORDING.setValue(false);
+    }
+
+    @NonNull
+    private Notification notification() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationChannel channel = new NotificationChannel(CHANNEL_ID,
+                    getString(R.string.track_channel), NotificationManager.IMPORTANCE_LOW);
+            getSystemService(NotificationManager.class).createNotificationChannel(channel);
+        }
+        PendingIntent stop = PendingIntent.getService(this, 0,
+                new Intent(this, TrackRecordingService.class).setAction(ACTION_STOP),
+                PendingIntent.FLAG_IMMUTABLE);
+        return new NotificationCompat.Builder(this, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_map)
+                .setContentTitle(getString(R.string.track_recording))
+                .setOngoing(true)
+                .addAction(0, getString(R.string.track_stop), stop)
+                .build();
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.sailspots.data;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.sailspots.core.geo.GeoPoint;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Recorded GPS tracks: starting and stopping TrackRecordingService, and the state it
+ * publishes for the map. Tracks are saved to files/tracks/ in the format read by
+ * core.track.Track, one file per recording.
+ *
+ * The file being recorded is also kept in prefs, so if the system kills the service it is
+ * restarted appending to the same track.
+ */
+public final class Tracks {
+
+    public static final String DIR = "tracks";
+    public static final String EXTENSION = ".sstk";
+    private static final String PREFS = "tracks";
+    private static final String KEY_ACTIVE = "active_file";  // Absent once the user stops.
+
+    // Set by the service; observed by the map.
+    static final MutableLiveData<Boolean> RECORDING = new MutableLiveData<>(false);
+    static final MutableLiveData<List<GeoPoint>> CURRENT = new MutableLiveData<>(Collections.emptyList());
+
+    private Tracks() { }
+
+    /**
+     * @return Whether a track is being recorded.
+     */
+    @NonNull
+    public static LiveData<Boolean> recording() {
+        return RECORDING;
+    }
+
+    /**
+     * @return The track being recorded, or the last one, simplified for drawing.
+     */
+    @NonNull
+    public static LiveData<List<GeoPoint>> current() {
+        return CURRENT;
+    }
+
+    /**
+     * Starts recording in a foreground service. Needs the fine location permission.
+     */
+    @MainThread
+    public static void start(@NonNull Context context) {
+        Context app = context.getApplicationContext();
+        ContextCompat.startForegroundService(app, new Intent(app, TrackRecordingService.class));
+    }
+
+    /**
+     * Stops recording; the service writes out the last fixes before it goes.
+     */
+    @MainThread
+    public static void stop(@NonNull Context context) {
+        Context app = context.getApplicationContext();
+        forgetActive(app);  // First, so a pending restart does not pick the track back up.
+        app.stopService(new Intent(app, TrackRecordingService.class));
+    }
+
+    // --- The track being recorded, for TrackRecordingService ---
+
+    static void saveActive(@NonNull Context context, @NonNull File file) {
+        prefs(context).edit().putString(KEY_ACTIVE, file.getAbsolutePath()).apply();
+    }
+
+    /**
+     * @return The file of a recording the user has not stopped, or null.
+     */
+    @Nullable
+    static File activeFile(@NonNull Context context) {
+        String path = prefs(context).getString(KEY_ACTIVE, null);
+        return path != null ? new File(path) : null;
+    }
+
+    static void forgetActive(@NonNull Context context) {
+        prefs(context).edit().remove(KEY_ACTIVE).apply();
+    }
+
+    @NonNull
+    private static SharedPreferences prefs(@NonNull Context context) {
+        return context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * @return A new file named for the time, e.g. tracks/track-20240701-093000.sstk.
+     */
+    @NonNull
+    static File newFile(@NonNull Context context, long startMillis) {
+        File dir = new File(context.getFilesDir(), DIR);
+        //noinspection ResultOfMethodCallIgnored
+        dir.mkdirs();
+        String name = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date(startMillis));
+        return new File(dir, "track-" + name + EXTENSION);
+    }
+}
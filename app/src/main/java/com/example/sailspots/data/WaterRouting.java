@@ -0,0 +1,106 @@
+package com.example.sailspots.data;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.model.MarinaItem;
+import com.example.sailspots.core.routing.WaterGrid;
+import com.example.sailspots.core.routing.WaterRouter;
+import com.example.sailspots.perf.OpTracer;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ranks marinas by how far they are by water, using the water grid built by the
+ * :core:waterGrid task (water.grid in files/datasets/ or the APK's assets).
+ *
+ * The grid is memory-mapped on first use, like the marina pack. Without one, or for marinas
+ * off its edge, distances stay straight lines.
+ */
+public final class WaterRouting {
+
+    private static final String TAG = "WaterRouting";
+    public static final String GRID_NAME = "water.grid";
+
+    @Nullable private static WaterRouter router;
+    private static boolean opened;
+
+    private WaterRouting() { }
+
+    /**
+     * @return The router for the bundled grid, or null if this build has none.
+     */
+    @WorkerThread
+    @Nullable
+    public static synchronized WaterRouter router(@NonNull Context context) {
+        if (opened) return router;
+        opened = true;
+        File file = new File(new File(context.getFilesDir(), MarinaCatalogLoader.DATASET_DIR), GRID_NAME);
+        try {
+            List<WaterGrid> levels;
+            if (file.isFile()) {
+                levels = WaterGrid.open(file);
+            } else {
+                // openFd() only works for uncompressed assets; see noCompress in build.gradle.kts.
+                try (AssetFileDescriptor afd = context.getAssets().openFd(GRID_NAME);
+                     FileChannel channel = afd.createInputStream().getChannel()) {
+                    levels = WaterGrid.wrap(channel.map(FileChannel.MapMode.READ_ONLY,
+                            afd.getStartOffset(), afd.getLength()));
+                }
+            }
+            router = new WaterRouter(levels);
+            Log.i(TAG, "Mapped " + GRID_NAME + ": " + levels.get(0) + ", " + levels.size() + " levels");
+        } catch (FileNotFoundException e) {
+            // No grid in this build; distances stay straight lines.
+        } catch (IOException e) {
+            Log.e(TAG, "Could not map " + GRID_NAME, e);
+        }
+        return router;
+    }
+
+    /**
+     * Re-measures marinas by sailing distance from a point and sorts them nearest first.
+     * Marinas off the grid keep their straight-line distance and rank by it; those no water
+     * route reaches (a lake, another basin) keep it too but go last.
+     * @return A new list of copies with updated distances.
+     */
+    @WorkerThread
+    @NonNull
+    public static List<MarinaItem> rankBySailingDistance(@NonNull WaterRouter router, @NonNull GeoPoint from,
+                                                         @NonNull List<MarinaItem> marinas) {
+        long start = OpTracer.now();
+        List<GeoPoint> points = new ArrayList<>(marinas.size());
+        for (MarinaItem m : marinas) points.add(m.latLng);
+        WaterRouter.Result result = router.distances(from, points);
+        OpTracer.get().record(OpTracer.WATER_ROUTE, start, true);
+
+        List<MarinaItem> ranked = new ArrayList<>(marinas.size());
+        double[] keys = new double[marinas.size()];
+        Integer[] order = new Integer[marinas.size()];
+        for (int i = 0; i < marinas.size(); i++) {
+            MarinaItem m = marinas.get(i);
+            keys[i] = !result.isKnown(i) ? m.distanceMiles
+                    : result.isReachable(i) ? result.miles(i) : Double.POSITIVE_INFINITY;
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(keys[a], keys[b]));
+        for (int i : order) {
+            MarinaItem m = marinas.get(i);
+            ranked.add(result.isReachable(i) ? m.withDistance(result.miles(i)) : m);
+        }
+        Log.d(TAG, "Ranked by water: " + result);
+        return ranked;
+    }
+}
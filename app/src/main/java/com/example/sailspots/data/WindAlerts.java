@@ -0,0 +1,192 @@
+package com.example.sailspots.data;
+
+import android.Manifest;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+import androidx.core.content.ContextCompat;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+
+import com.example.sailspots.MainActivity;
+import com.example.sailspots.R;
+import com.example.sailspots.core.weather.WindThresholds;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The user's wind alert settings, the periodic FavoriteWeatherWorker job that checks them
+ * against the forecast at every favorite, and the one notification it posts.
+ */
+public final class WindAlerts {
+
+    private static final String PREFS = "wind_alerts";
+    private static final String KEY_ENABLED = "enabled";
+    private static final String KEY_WIND = "wind_knots";
+    private static final String KEY_GUST = "gust_knots";
+    private static final String KEY_LAST_POSTED = "last_posted";  // Hash of the lines last shown.
+
+    public static final double DEFAULT_WIND_KNOTS = 20;
+    public static final double DEFAULT_GUST_KNOTS = 30;
+
+    private static final String WORK_NAME = "favorite-weather";
+    // Forecasts arrive every 6 hours; checking twice as often catches each run soon after.
+    private static final long CHECK_INTERVAL_HOURS = 3;
+    private static final String CHANNEL_ID = "wind_alerts";
+    private static final int NOTIFICATION_ID = 4501;
+
+    private WindAlerts() { }
+
+    // --- Settings ---
+
+    public static boolean isEnabled(@NonNull Context context) {
+        return prefs(context).getBoolean(KEY_ENABLED, false);
+    }
+
+    /**
+     * @return The thresholds as last saved, even while alerts are off, for the settings dialog.
+     */
+    @NonNull
+    public static WindThresholds saved(@NonNull Context context) {
+        SharedPreferences prefs = prefs(context);
+        return new WindThresholds(prefs.getFloat(KEY_WIND, (float) DEFAULT_WIND_KNOTS),
+                prefs.getFloat(KEY_GUST, (float) DEFAULT_GUST_KNOTS));
+    }
+
+    /**
+     * @return The thresholds to check, or WindThresholds.OFF while alerts are off.
+     */
+    @NonNull
+    public static WindThresholds thresholds(@NonNull Context context) {
+        return isEnabled(context) ? saved(context) : WindThresholds.OFF;
+    }
+
+    /**
+     * Saves the settings and starts or stops the periodic check to match.
+     * @param thresholds Either may be NaN to alert on the other alone.
+     */
+    public static void save(@NonNull Context context, boolean enabled, @NonNull WindThresholds thresholds) {
+        prefs(context).edit()
+                .putBoolean(KEY_ENABLED, enabled)
+                .putFloat(KEY_WIND, (float) thresholds.windKnots)
+                .putFloat(KEY_GUST, (float) thresholds.gustKnots)
+                .remove(KEY_LAST_POSTED)  // New thresholds: tell the user even if the list looks the same.
+                .apply();
+        schedule(context, ExistingPeriodicWorkPolicy.UPDATE);
+    }
+
+    /**
+     * Makes sure the periodic check is scheduled if alerts are on, e.g. at app start.
+     */
+    public static void scheduleIfEnabled(@NonNull Context context) {
+        schedule(context, ExistingPeriodicWorkPolicy.KEEP);
+    }
+
+    private static void schedule(@NonNull Context context, @NonNull ExistingPeriodicWorkPolicy policy) {
+        WorkManager work = WorkManager.getInstance(context);
+        if (!isEnabled(context)) {
+            work.cancelUniqueWork(WORK_NAME);
+            return;
+        }
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(FavoriteWeatherWorker.class,
+                CHECK_INTERVAL_HOURS, TimeUnit.HOURS)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .setRequiresBatteryNotLow(true)
+                        .build())
+                .build();
+        work.enqueueUniquePeriodicWork(WORK_NAME, policy, request);
+    }
+
+    @NonNull
+    private static SharedPreferences prefs(@NonNull Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    // --- Notification ---
+
+    /**
+     * @return e.g. "Harbor Marina: 24 kt SW from Sat 14:00, gusts 33".
+     */
+    @NonNull
+    static String describe(@NonNull String name, @NonNull WindThresholds.Exceedance e) {
+        DateFormat when = new SimpleDateFormat("EEE HH:mm", Locale.getDefault());
+        StringBuilder text = new StringBuilder(name).append(": ");
+        if (!Double.isNaN(e.windKnots)) {
+            text.append(String.format(Locale.US, "%.0f kt %s ", e.windKnots, Forecasts.compassPoint(e.windFrom)));
+        }
+        text.append("from ").append(when.format(new Date(e.firstMillis)));
+        if (!Double.isNaN(e.gustKnots)) text.append(String.format(Locale.US, ", gusts %.0f", e.gustKnots));
+        return text.toString();
+    }
+
+    /**
+     * Shows one notification listing every favorite over a threshold, replacing the last one.
+     * An unchanged list is not shown again, so a dismissed alert stays dismissed until the
+     * forecast changes; an empty list takes the notification down.
+     */
+    static void post(@NonNull Context context, @NonNull List<String> lines) {
+        NotificationManagerCompat manager = NotificationManagerCompat.from(context);
+        SharedPreferences prefs = prefs(context);
+        if (lines.isEmpty()) {
+            manager.cancel(NOTIFICATION_ID);
+            prefs.edit().remove(KEY_LAST_POSTED).apply();
+            return;
+        }
+        int hash = lines.hashCode();
+        if (prefs.contains(KEY_LAST_POSTED) && prefs.getInt(KEY_LAST_POSTED, 0) == hash) return;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                && ContextCompat.checkSelfPermission(context, Manifest.permission.POST_NOTIFICATIONS)
+                != PackageManager.PERMISSION_GRANTED) {
+            return;
+        }
+        createChannel(context);
+
+        String title = context.getResources().getQuantityString(R.plurals.wind_alerts_notification_title,
+                lines.size(), lines.size());
+        NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle().setBigContentTitle(title);
+        for (String line : lines) style.addLine(line);
+        Intent open = new Intent(context, MainActivity.class)
+                .putExtra("NAVIGATE_TO_MAPS", true)
+                .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        PendingIntent tap = PendingIntent.getActivity(context, NOTIFICATION_ID, open,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+        NotificationCompat.Builder notification = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_map)
+                .setContentTitle(title)
+                .setContentText(lines.get(0))
+                .setStyle(style)
+                .setNumber(lines.size())
+                .setContentIntent(tap)
+                .setAutoCancel(true)
+                .setOnlyAlertOnce(true)
+                .setPriority(NotificationCompat.PRIORITY_DEFAULT);
+        manager.notify(NOTIFICATION_ID, notification.build());
+        prefs.edit().putInt(KEY_LAST_POSTED, hash).apply();
+    }
+
+    private static void createChannel(@NonNull Context context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) return;
+        NotificationChannel channel = new NotificationChannel(CHANNEL_ID,
+                context.getString(R.string.wind_alerts_channel), NotificationManager.IMPORTANCE_DEFAULT);
+        channel.setDescription(context.getString(R.string.wind_alerts_channel_description));
+        context.getSystemService(NotificationManager.class).createNotificationChannel(channel);
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.sailspots.perf;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.View;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentActivity;
+import androidx.fragment.app.FragmentManager;
+import androidx.metrics.performance.FrameData;
+import androidx.metrics.performance.JankStats;
+import androidx.metrics.performance.StateInfo;
+import androidx.navigation.fragment.NavHostFragment;
+
+import com.example.sailspots.AppExecutors;
+import com.example.sailspots.core.metrics.LatencyHistogram;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects frame durations from every activity window with JankStats.
+ *
+ * Each frame is filed under its (screen, interaction) states from PerfStates, into a
+ * fixed-memory histogram per pair. The histograms are kept for the whole process for the
+ * debug screen, and the change since the last write is appended to a rotating log
+ * every minute and whenever an activity stops.
+ */
+public final class FrameTelemetry implements Application.ActivityLifecycleCallbacks {
+
+    private static final long FLUSH_INTERVAL_MS = 60_000;
+    private static final long LOG_MAX_BYTES = 256 * 1024;
+    private static final int LOG_FILES = 4;
+    private static final String UNKNOWN_SCREEN = "unknown";
+
+    private static FrameTelemetry instance;
+
+    /**
+     * Frame statistics for one (screen, interaction) pair.
+     */
+    public static final class StateStats {
+        public final String screen;
+        public final String interaction;
+        final LatencyHistogram frameNanos = new LatencyHistogram();
+        final AtomicLong janky = new AtomicLong();
+        // What was last written to the log; only touched inside flush jobs, which run one at a time.
+        private LatencyHistogram.Snapshot flushed = LatencyHistogram.Snapshot.EMPTY;
+        private long flushedJanky;
+
+        StateStats(String screen, String interaction) {
+            this.screen = screen;
+            this.interaction = interaction;
+        }
+
+        @NonNull
+        public LatencyHistogram.Snapshot frames() { return frameNanos.snapshot(); }
+
+        public long jankyFrames() { return janky.get(); }
+    }
+
+    private final RotatingFileSink sink;
+    // Flush jobs run in order on the IO pool, never two at once.
+    private final Executor flushExecutor = AppExecutors.get().newSerial(AppExecutors.get().io());
+    // screen -> interaction -> stats. Written from the frame metrics thread, read anywhere.
+    private final Map<String, Map<String, StateStats>> stats = new ConcurrentHashMap<>();
+    // Main thread only.
+    private final Map<Activity, JankStats> trackers = new HashMap<>();
+    private final JankStats.OnFrameListener frameListener = this::onFrame;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable periodicFlush = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+            mainHandler.postDelayed(this, FLUSH_INTERVAL_MS);
+        }
+    };
+    private int startedActivities;
+
+    private FrameTelemetry(@NonNull RotatingFileSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Starts tracking every activity of the app. Call once from Application.onCreate().
+     */
+    @MainThread
+    public static void install(@NonNull Application app) {
+        if (instance != null) return;
+        File dir = new File(app.getFilesDir(), "perf");
+        instance = new FrameTelemetry(new RotatingFileSink(dir, "frames", LOG_MAX_BYTES, LOG_FILES));
+        app.registerActivityLifecycleCallbacks(instance);
+    }
+
+    /**
+     * @return The installed instance, or null outside the app process (e.g. in unit tests).
+     */
+    @Nullable
+    public static FrameTelemetry get() {
+        return instance;
+    }
+
+    /**
+     * @return Every (screen, interaction) pair seen so far.
+     */
+    @NonNull
+    public List<StateStats> states() {
+        List<StateStats> out = new ArrayList<>();
+        for (Map<String, StateStats> byInteraction : stats.values()) {
+            out.addAll(byInteraction.values());
+        }
+        return out;
+    }
+
+    /**
+     * Clears all collected frames.
+     */
+    public void reset() {
+        stats.clear();
+    }
+
+    /**
+     * @return The rotating log the histograms are written to.
+     */
+    @NonNull
+    public RotatingFileSink sink() {
+        return sink;
+    }
+
+    // --- Frame collection ---
+
+    /**
+     * Called by JankStats for every frame, on its frame metrics thread.
+     * FrameData is reused between calls, so nothing from it is kept.
+     */
+    private void onFrame(@NonNull FrameData frame) {
+        String screen = UNKNOWN_SCREEN;
+        String interaction = PerfStates.IDLE;
+        List<StateInfo> states = frame.getStates();
+        for (int i = 0; i < states.size(); i++) {
+            StateInfo s = states.get(i);
+            if (PerfStates.KEY_SCREEN.equals(s.getKey())) {
+                screen = s.getValue();
+            } else if (PerfStates.KEY_INTERACTION.equals(s.getKey())) {
+                interaction = s.getValue();
+            }
+        }
+
+        StateStats st = statsFor(screen, interaction);
+        st.frameNanos.record(frame.getFrameDurationUiNanos());
+        if (frame.isJank()) st.janky.incrementAndGet();
+    }
+
+    private StateStats statsFor(String screen, String interaction) {
+        // Plain gets first, so the common case allocates nothing.
+        Map<String, StateStats> byInteraction = stats.get(screen);
+        if (byInteraction == null) {
+            byInteraction = stats.computeIfAbsent(screen, k -> new ConcurrentHashMap<>());
+        }
+        StateStats st = byInteraction.get(interaction);
+        if (st == null) {
+            st = byInteraction.computeIfAbsent(interaction, k -> new StateStats(screen, interaction));
+        }
+        return st;
+    }
+
+    // --- Log output ---
+
+    /**
+     * Appends the frames recorded since the last flush to the log, off the main thread.
+     */
+    public void flush() {
+        final long now = System.currentTimeMillis();
+        flushExecutor.execute(() -> {
+            List<String> lines = new ArrayList<>();
+            for (StateStats st : states()) {
+                LatencyHistogram.Snapshot total = st.frameNanos.snapshot();
+                LatencyHistogram.Snapshot interval = total.minus(st.flushed);
+                long janky = st.janky.get();
+                if (interval.count() > 0) {
+                    lines.add(formatLine(now, st, interval, janky - st.flushedJanky));
+                }
+                st.flushed = total;
+                st.flushedJanky = janky;
+            }
+            sink.append(lines);
+        });
+    }
+
+    /**
+     * One CSV line: time, screen, interaction, frames, janky frames, then p50/p90/p99/max in ms.
+     */
+    private static String formatLine(long time, StateStats st, LatencyHistogram.Snapshot s, long janky) {
+        return String.format(Locale.US, "%d,%s,%s,%d,%d,%.2f,%.2f,%.2f,%.2f",
+                time, st.screen, st.interaction, s.count(), janky,
+                s.percentile(50) / 1e6, s.percentile(90) / 1e6, s.percentile(99) / 1e6, s.max() / 1e6);
+    }
+
+    // --- Activity tracking ---
+
+    @Override
+    public void onActivityCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
+        // Created here, during super.onCreate(), so screens can tag states from their own onCreate().
+        JankStats tracker = JankStats.createAndTrack(activity.getWindow(), frameListener);
+        tracker.setTrackingEnabled(false);
+        trackers.put(activity, tracker);
+        PerfStates.setScreen(activity.getWindow().getDecorView(), activity.getClass().getSimpleName());
+
+        if (activity instanceof FragmentActivity) {
+            ((FragmentActivity) activity).getSupportFragmentManager()
+                    .registerFragmentLifecycleCallbacks(fragmentScreens, true);
+        }
+    }
+
+    @Override
+    public void onActivityStarted(@NonNull Activity activity) {
+        JankStats tracker = trackers.get(activity);
+        if (tracker != null) tracker.setTrackingEnabled(true);
+        if (startedActivities++ == 0) {
+            mainHandler.postDelayed(periodicFlush, FLUSH_INTERVAL_MS);
+        }
+    }
+
+    @Override
+    public void onActivityStopped(@NonNull Activity activity) {
+        JankStats tracker = trackers.get(activity);
+        if (tracker != null) tracker.setTrackingEnabled(false);
+        if (--startedActivities == 0) {
+            mainHandler.removeCallbacks(periodicFlush);
+        }
+        flush();
+    }
+
+    @Override
+    public void onActivityDestroyed(@NonNull Activity activity) {
+        JankStats tracker = trackers.remove(activity);
+        if (tracker != null) tracker.setTrackingEnabled(false);
+    }
+
+    @Override
+    public void onActivityResumed(@NonNull Activity activity) { }
+
+    @Override
+    public void onActivityPaused(@NonNull Activity activity) { }
+
+    @Override
+    public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) { }
+
+    /**
+     * Names the screen after the navigation destination on top, e.g. MapsFragment.
+     * Child fragments such as the map itself are skipped.
+     */
+    private final FragmentManager.FragmentLifecycleCallbacks fragmentScreens =
+            new FragmentManager.FragmentLifecycleCallbacks() {
+                @Override
+                public void onFragmentResumed(@NonNull FragmentManager fm, @NonNull Fragment f) {
+                    View view = f.getView();
+                    if (view != null && f.getParentFragment() instanceof NavHostFragment) {
+                        PerfStates.setScreen(view, f.getClass().getSimpleName());
+                    }
+                }
+            };
+}
@@ -0,0 +1,236 @@
+package com.example.sailspots.perf;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.sailspots.core.metrics.LatencyHistogram;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.SnapshotMetadata;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records how long data operations take, one fixed-memory latency histogram per operation.
+ *
+ * Firestore writes and reads are traced by wrapping their Task with trace(). Snapshot
+ * listeners get a SnapshotTrace, which records the time to the first snapshot and to the
+ * first server-confirmed snapshot, the delivery lag of new documents, and how many
+ * snapshots came from the local cache versus the server.
+ */
+public final class OpTracer {
+
+    // --- Operation names ---
+    public static final String SPOTS_ADD = "spots.add";
+    public static final String SPOTS_UPSERT = "spots.upsert";
+    public static final String SPOTS_DELETE = "spots.delete";
+    public static final String SPOTS_GET = "spots.get";
+    public static final String SPOTS_LIST = "spots.list";
+    public static final String SPOT_ENSURE_PARENT = "spots.ensureParent";
+    public static final String COMMENTS_ADD = "comments.add";
+    public static final String COMMENTS_GET = "comments.get";
+    public static final String CATALOG_IMPORT = "catalog.import";
+    public static final String CATALOG_OPEN_PACK = "catalog.openPack";
+    public static final String CATALOG_SYNC = "catalog.sync";
+    public static final String CHART_TILE = "chart.tile";
+    public static final String OFFLINE_REGION = "offline.region";
+    public static final String WATER_ROUTE = "water.route";
+    public static final String PASSAGE_PLAN = "passage.plan";
+    public static final String FORECAST_DECODE = "forecast.decode";
+    public static final String SPOT_SCORE = "spot.score";
+    public static final String FAVORITES_WEATHER = "favorites.weather";
+    public static final String APPROACH_DEPTH = "depth.approach";
+
+    // --- Listener names ---
+    public static final String LISTEN_FAVORITES = "favorites";
+    public static final String LISTEN_COMMENTS = "comments";
+
+    private static final OpTracer INSTANCE = new OpTracer();
+
+    /**
+     * Latency and outcome counts for one operation.
+     */
+    public static final class OpStats {
+        public final String name;
+        final LatencyHistogram nanos = new LatencyHistogram();
+        final AtomicLong failures = new AtomicLong();
+
+        OpStats(String name) {
+            this.name = name;
+        }
+
+        @NonNull
+        public LatencyHistogram.Snapshot latency() { return nanos.snapshot(); }
+
+        public long failures() { return failures.get(); }
+    }
+
+    /**
+     * Snapshot counts for one kind of listener.
+     */
+    public static final class ListenerStats {
+        public final String name;
+        final AtomicLong fromCache = new AtomicLong();
+        final AtomicLong fromServer = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+
+        ListenerStats(String name) {
+            this.name = name;
+        }
+
+        public long fromCache() { return fromCache.get(); }
+
+        public long fromServer() { return fromServer.get(); }
+
+        public long errors() { return errors.get(); }
+    }
+
+    private final Map<String, OpStats> ops = new ConcurrentHashMap<>();
+    private final Map<String, ListenerStats> listeners = new ConcurrentHashMap<>();
+
+    private OpTracer() { }
+
+    @NonNull
+    public static OpTracer get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return A start time for record(), in nanoseconds.
+     */
+    public static long now() {
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    /**
+     * Times a Task from now until it completes. Returns the same Task, for chaining.
+     */
+    @NonNull
+    public <T> Task<T> trace(@NonNull String op, @NonNull Task<T> task) {
+        final long start = now();
+        // Runs on whichever thread completes the task, so the main thread's queue
+        // does not add to the measured time.
+        task.addOnCompleteListener(Runnable::run, t -> record(op, start, t.isSuccessful()));
+        return task;
+    }
+
+    /**
+     * Records one finished operation that started at {@code startNanos} (see now()).
+     */
+    public void record(@NonNull String op, long startNanos, boolean success) {
+        OpStats st = opStats(op);
+        st.nanos.record(now() - startNanos);
+        if (!success) st.failures.incrementAndGet();
+    }
+
+    /**
+     * Starts tracing one listener registration. Call right before addSnapshotListener.
+     */
+    @NonNull
+    public SnapshotTrace listener(@NonNull String name) {
+        return new SnapshotTrace(name);
+    }
+
+    /**
+     * @return A percentile of an operation's latency in milliseconds, or 0 if it never ran.
+     * @param percentile From 0 to 100, e.g. 50 or 99.
+     */
+    public double percentileMillis(@NonNull String op, double percentile) {
+        OpStats st = ops.get(op);
+        return (st == null) ? 0 : st.nanos.snapshot().percentile(percentile) / 1e6;
+    }
+
+    @NonNull
+    public List<OpStats> ops() {
+        return new ArrayList<>(ops.values());
+    }
+
+    @NonNull
+    public List<ListenerStats> listeners() {
+        return new ArrayList<>(listeners.values());
+    }
+
+    public void reset() {
+        ops.clear();
+        listeners.clear();
+    }
+
+    private OpStats opStats(String op) {
+        OpStats st = ops.get(op);
+        return (st != null) ? st : ops.computeIfAbsent(op, OpStats::new);
+    }
+
+    private ListenerStats listenerStats(String name) {
+        ListenerStats st = listeners.get(name);
+        return (st != null) ? st : listeners.computeIfAbsent(name, ListenerStats::new);
+    }
+
+    /**
+     * Timing for one snapshot listener registration. Not thread-safe; a registration's
+     * snapshots must be delivered one at a time (main thread or a serial executor).
+     */
+    public final class SnapshotTrace {
+        private final ListenerStats stats;
+        private final String firstOp;
+        private final String serverOp;
+        private final String lagOp;
+        private final long registeredAt = now();
+        private boolean sawFirst;
+        private boolean sawServer;
+
+        SnapshotTrace(String name) {
+            stats = listenerStats(name);
+            firstOp = name + ".first";
+            serverOp = name + ".firstServer";
+            lagOp = name + ".lag";
+        }
+
+        /**
+         * Call for every callback the listener gets.
+         * @param metadata The snapshot's metadata, or null if the callback carried an error.
+         */
+        public void onSnapshot(@Nullable SnapshotMetadata metadata) {
+            if (metadata == null) {
+                stats.errors.incrementAndGet();
+                return;
+            }
+            if (!sawFirst) {
+                sawFirst = true;
+                record(firstOp, registeredAt, true);
+            }
+            if (metadata.isFromCache()) {
+                stats.fromCache.incrementAndGet();
+            } else {
+                stats.fromServer.incrementAndGet();
+                if (!sawServer) {
+                    sawServer = true;
+                    record(serverOp, registeredAt, true);
+                }
+            }
+        }
+
+        /**
+         * @return True once the first snapshot arrived; documents after that are new arrivals.
+         */
+        public boolean isLive() {
+            return sawFirst;
+        }
+
+        /**
+         * Records how long a newly arrived document took to reach this device.
+         * @param writtenAtMillis When the document was written, in wall-clock ms. Writers' clocks
+         *                        may be skewed, so negative lags are dropped.
+         */
+        public void onDocumentArrived(long writtenAtMillis) {
+            long lagMillis = System.currentTimeMillis() - writtenAtMillis;
+            if (lagMillis >= 0) {
+                opStats(lagOp).nanos.record(lagMillis * 1_000_000L);
+            }
+        }
+    }
+}
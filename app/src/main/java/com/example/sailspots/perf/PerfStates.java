@@ -0,0 +1,77 @@
+package com.example.sailspots.perf;
+
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.metrics.performance.PerformanceMetricsState;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * The UI states frames are tagged with, so jank can be traced to a screen and an interaction.
+ * States are stored per window through PerformanceMetricsState and picked up by JankStats
+ * in FrameTelemetry.
+ */
+public final class PerfStates {
+
+    // --- State keys ---
+    public static final String KEY_SCREEN = "screen";
+    public static final String KEY_INTERACTION = "interaction";
+
+    // --- Interaction values ---
+    public static final String IDLE = "idle";
+    public static final String MAP_PAN = "map_pan";
+    public static final String MAP_ANIMATE = "map_animate";
+    public static final String LIST_DRAG = "list_drag";
+    public static final String LIST_FLING = "list_fling";
+    public static final String DETAIL_OPEN = "detail_open";
+
+    private PerfStates() { }
+
+    /**
+     * Tags the window containing a view with the screen being shown.
+     */
+    public static void setScreen(@NonNull View view, @NonNull String screen) {
+        put(view, KEY_SCREEN, screen);
+    }
+
+    /**
+     * Tags the window containing a view with the interaction in progress.
+     */
+    public static void setInteraction(@NonNull View view, @NonNull String interaction) {
+        put(view, KEY_INTERACTION, interaction);
+    }
+
+    /**
+     * Ends the interaction in progress, so following frames count as idle.
+     */
+    public static void clearInteraction(@NonNull View view) {
+        PerformanceMetricsState state = PerformanceMetricsState.getHolderForHierarchy(view).getState();
+        if (state != null) state.removeState(KEY_INTERACTION);
+    }
+
+    private static void put(View view, String key, String value) {
+        // Null until JankStats tracks the window; nothing is measured then anyway.
+        PerformanceMetricsState state = PerformanceMetricsState.getHolderForHierarchy(view).getState();
+        if (state != null) state.putState(key, value);
+    }
+
+    /**
+     * Tags frames with LIST_DRAG or LIST_FLING while a list scrolls.
+     * One instance can be shared by every list in the app.
+     */
+    public static final class ListScrollTracker extends RecyclerView.OnScrollListener {
+        @Override
+        public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+            if (newState == RecyclerView.SCROLL_STATE_DRAGGING) {
+                setInteraction(recyclerView, LIST_DRAG);
+            } else if (newState == RecyclerView.SCROLL_STATE_SETTLING) {
+                setInteraction(recyclerView, LIST_FLING);
+            } else {
+                clearInteraction(recyclerView);
+            }
+        }
+    }
+
+    // Stateless, so one listener serves every list.
+    public static final ListScrollTracker LIST_SCROLL_TRACKER = new ListScrollTracker();
+}
@@ -0,0 +1,97 @@
+package com.example.sailspots.perf;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An append-only text log split over a fixed number of files.
+ * When the current file would grow past maxBytes it becomes "name.1.log", the older ones
+ * shift up, and the oldest is deleted, so the log never takes more than maxFiles * maxBytes.
+ */
+public final class RotatingFileSink {
+
+    private static final String TAG = "RotatingFileSink";
+
+    private final File dir;
+    private final String name;
+    private final long maxBytes;
+    private final int maxFiles;
+
+    /**
+     * @param dir      The directory to write into; created on first write.
+     * @param name     The base file name, e.g. "frames" for frames.log, frames.1.log, ...
+     * @param maxBytes The size at which the current file is rotated.
+     * @param maxFiles How many files to keep, including the current one.
+     */
+    public RotatingFileSink(@NonNull File dir, @NonNull String name, long maxBytes, int maxFiles) {
+        this.dir = dir;
+        this.name = name;
+        this.maxBytes = maxBytes;
+        this.maxFiles = Math.max(1, maxFiles);
+    }
+
+    /**
+     * Appends lines to the current file, rotating first if needed. Errors are logged, not thrown;
+     * telemetry must never take the app down.
+     */
+    @WorkerThread
+    public synchronized void append(@NonNull List<String> lines) {
+        if (lines.isEmpty()) return;
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) sb.append(line).append('\n');
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Log.w(TAG, "Cannot create " + dir);
+            return;
+        }
+        File current = file(0);
+        if (current.length() > 0 && current.length() + bytes.length > maxBytes) {
+            rotate();
+        }
+        try (FileOutputStream out = new FileOutputStream(current, true)) {
+            out.write(bytes);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write " + current, e);
+        }
+    }
+
+    /**
+     * @return The log files that exist, newest first.
+     */
+    @NonNull
+    public synchronized List<File> files() {
+        List<File> out = new ArrayList<>();
+        for (int i = 0; i < maxFiles; i++) {
+            File f = file(i);
+            if (f.exists()) out.add(f);
+        }
+        return out;
+    }
+
+    private void rotate() {
+        File oldest = file(maxFiles - 1);
+        if (oldest.exists() && !oldest.delete()) {
+            Log.w(TAG, "Failed to delete " + oldest);
+        }
+        for (int i = maxFiles - 2; i >= 0; i--) {
+            File f = file(i);
+            if (f.exists() && !f.renameTo(file(i + 1))) {
+                Log.w(TAG, "Failed to rotate " + f);
+            }
+        }
+    }
+
+    private File file(int generation) {
+        return new File(dir, generation == 0 ? name + ".log" : name + "." + generation + ".log");
+    }
+}
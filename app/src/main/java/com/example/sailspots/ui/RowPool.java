@@ -0,0 +1,160 @@
+package com.example.sailspots.ui;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.util.Log;
+import android.util.SparseArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.annotation.LayoutRes;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.sailspots.AppExecutors;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Row views for one activity's lists, inflated ahead of time.
+ *
+ * Rows are pre-inflated on a background thread while the screen starts up, so the first frame
+ * after data arrives binds rows instead of inflating them. All lists in the activity share one
+ * RecycledViewPool; adapters use their row layout ID as the view type so rows never mix.
+ *
+ * The pool holds views built with the activity's context, so it lives and dies with the activity.
+ */
+public final class RowPool {
+
+    private static final String TAG = "RowPool";
+
+    // One pool per live activity; entries are dropped in onDestroy.
+    private static final Map<AppCompatActivity, RowPool> POOLS = new WeakHashMap<>();
+
+    private final Context context;
+    private final RecyclerView.RecycledViewPool viewPool = new RecyclerView.RecycledViewPool();
+    // Pre-inflated rows keyed by layout ID. Guarded by "this".
+    private final SparseArray<ArrayDeque<View>> spare = new SparseArray<>();
+    private volatile boolean destroyed;
+
+    private RowPool(@NonNull Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Returns the activity's pool, creating it on first use.
+     */
+    @MainThread
+    @NonNull
+    public static RowPool of(@NonNull AppCompatActivity activity) {
+        RowPool pool = POOLS.get(activity);
+        if (pool == null) {
+            final RowPool created = new RowPool(activity);
+            POOLS.put(activity, created);
+            activity.getLifecycle().addObserver(new DefaultLifecycleObserver() {
+                @Override
+                public void onDestroy(@NonNull LifecycleOwner owner) {
+                    created.destroy();
+                    POOLS.remove(activity);
+                }
+            });
+            pool = created;
+        }
+        return pool;
+    }
+
+    /**
+     * Inflates a row for onCreateViewHolder, using a pre-inflated view when one is ready.
+     * Falls back to a normal inflate outside a pooled activity or once the spares run out.
+     */
+    @MainThread
+    @NonNull
+    public static View inflate(@NonNull ViewGroup parent, @LayoutRes int layout) {
+        AppCompatActivity activity = findActivity(parent.getContext());
+        RowPool pool = (activity != null) ? POOLS.get(activity) : null;
+        View v = (pool != null) ? pool.takeSpare(layout) : null;
+        return (v != null) ? v : LayoutInflater.from(parent.getContext()).inflate(layout, parent, false);
+    }
+
+    /**
+     * Starts inflating rows in the background. Safe to call again; it only tops the spares up.
+     * @param layout The row layout.
+     * @param count  How many rows to keep ready, about one screenful.
+     */
+    @MainThread
+    public void preinflate(@LayoutRes int layout, int count) {
+        viewPool.setMaxRecycledViews(layout, Math.max(count, 5));
+        AppExecutors.get().compute().execute(() -> {
+            // A throwaway parent gives the rows proper layout params; RecyclerView converts them.
+            ViewGroup parent = new FrameLayout(context);
+            // A clone, because inflate() locks the inflater and the activity's own one is
+            // busy with setContentView on the main thread at the same time.
+            LayoutInflater inflater = LayoutInflater.from(context).cloneInContext(context);
+            while (!destroyed && spareCount(layout) < count) {
+                View v;
+                try {
+                    v = inflater.inflate(layout, parent, false);
+                } catch (RuntimeException e) {
+                    // Some views need a Looper to inflate; those rows just inflate on demand.
+                    Log.w(TAG, "Background inflate failed; inflating on demand instead", e);
+                    return;
+                }
+                addSpare(layout, v);
+            }
+        });
+    }
+
+    /**
+     * Attaches a list to the shared RecycledViewPool.
+     */
+    @MainThread
+    public void attach(@NonNull RecyclerView recyclerView) {
+        recyclerView.setRecycledViewPool(viewPool);
+    }
+
+    @Nullable
+    private synchronized View takeSpare(@LayoutRes int layout) {
+        ArrayDeque<View> views = spare.get(layout);
+        return (views != null) ? views.poll() : null;
+    }
+
+    private synchronized void addSpare(@LayoutRes int layout, @NonNull View v) {
+        ArrayDeque<View> views = spare.get(layout);
+        if (views == null) {
+            views = new ArrayDeque<>();
+            spare.put(layout, views);
+        }
+        views.add(v);
+    }
+
+    private synchronized int spareCount(@LayoutRes int layout) {
+        ArrayDeque<View> views = spare.get(layout);
+        return (views != null) ? views.size() : 0;
+    }
+
+    private void destroy() {
+        destroyed = true;
+        synchronized (this) {
+            spare.clear();
+        }
+        viewPool.clear();
+    }
+
+    @Nullable
+    private static AppCompatActivity findActivity(@Nullable Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof AppCompatActivity) return (AppCompatActivity) context;
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        return null;
+    }
+}
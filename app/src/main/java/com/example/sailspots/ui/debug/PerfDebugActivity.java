@@ -0,0 +1,156 @@
+package com.example.sailspots.ui.debug;
+
+import android.os.Bundle;
+import android.widget.TextView;
+
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.example.sailspots.AppExecutors;
+import com.example.sailspots.R;
+import com.example.sailspots.core.charts.ChartTileCache;
+import com.example.sailspots.core.metrics.LatencyHistogram;
+import com.example.sailspots.perf.FrameTelemetry;
+import com.example.sailspots.perf.OpTracer;
+import com.example.sailspots.ui.maps.ChartTileProvider;
+import com.google.android.material.appbar.MaterialToolbar;
+
+import java.io.File;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A debug screen showing the performance data collected on this device.
+ * Opened from MainActivity's overflow menu in debuggable builds.
+ */
+public class PerfDebugActivity extends AppCompatActivity {
+
+    private TextView tvReport;
+
+    @Override
+    protected void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_perf_debug);
+
+        MaterialToolbar toolbar = findViewById(R.id.topAppBar);
+        setSupportActionBar(toolbar);
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+        }
+        toolbar.setNavigationOnClickListener(v -> getOnBackPressedDispatcher().onBackPressed());
+
+        tvReport = findViewById(R.id.tvPerfReport);
+        findViewById(R.id.btnPerfRefresh).setOnClickListener(v -> refresh());
+        findViewById(R.id.btnPerfWrite).setOnClickListener(v -> {
+            FrameTelemetry frames = FrameTelemetry.get();
+            if (frames != null) frames.flush();
+            tvReport.postDelayed(this::refresh, 250); // Let the write land before listing files.
+        });
+        findViewById(R.id.btnPerfReset).setOnClickListener(v -> {
+            FrameTelemetry frames = FrameTelemetry.get();
+            if (frames != null) frames.reset();
+            OpTracer.get().reset();
+            refresh();
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        refresh();
+    }
+
+    private void refresh() {
+        StringBuilder sb = new StringBuilder();
+        appendFrames(sb);
+        sb.append('\n');
+        appendOperations(sb);
+        sb.append('\n');
+        appendExecutors(sb);
+        sb.append('\n');
+        appendChartTiles(sb);
+        tvReport.setText(sb);
+    }
+
+    // --- Report sections ---
+
+    private void appendFrames(StringBuilder sb) {
+        sb.append("FRAMES (ms)\n");
+        FrameTelemetry frames = FrameTelemetry.get();
+        if (frames == null) {
+            sb.append("  not installed\n");
+            return;
+        }
+
+        List<FrameTelemetry.StateStats> states = frames.states();
+        states.sort(Comparator.comparing((FrameTelemetry.StateStats s) -> s.screen)
+                .thenComparing(s -> s.interaction));
+        sb.append(String.format(Locale.US, "%-22s %-12s %7s %6s %6s %6s %6s %7s\n",
+                "screen", "interaction", "frames", "jank%", "p50", "p90", "p99", "max"));
+        for (FrameTelemetry.StateStats st : states) {
+            LatencyHistogram.Snapshot s = st.frames();
+            if (s.count() == 0) continue;
+            sb.append(String.format(Locale.US, "%-22s %-12s %7d %6.1f %6.1f %6.1f %6.1f %7.1f\n",
+                    st.screen, st.interaction, s.count(), 100.0 * st.jankyFrames() / s.count(),
+                    s.percentile(50) / 1e6, s.percentile(90) / 1e6, s.percentile(99) / 1e6, s.max() / 1e6));
+        }
+
+        sb.append("\nLOG FILES\n");
+        for (File f : frames.sink().files()) {
+            sb.append(String.format(Locale.US, "  %s  %d KB\n", f.getAbsolutePath(), f.length() / 1024));
+        }
+    }
+
+    private void appendOperations(StringBuilder sb) {
+        sb.append("OPERATIONS (ms)\n");
+        List<OpTracer.OpStats> ops = OpTracer.get().ops();
+        ops.sort(Comparator.comparing(o -> o.name));
+        sb.append(String.format(Locale.US, "%-26s %6s %6s %8s %8s %8s\n",
+                "operation", "count", "fail", "p50", "p99", "max"));
+        for (OpTracer.OpStats op : ops) {
+            LatencyHistogram.Snapshot s = op.latency();
+            sb.append(String.format(Locale.US, "%-26s %6d %6d %8.1f %8.1f %8.1f\n",
+                    op.name, s.count(), op.failures(),
+                    s.percentile(50) / 1e6, s.percentile(99) / 1e6, s.max() / 1e6));
+        }
+
+        sb.append("\nSNAPSHOTS\n");
+        List<OpTracer.ListenerStats> listeners = OpTracer.get().listeners();
+        listeners.sort(Comparator.comparing(l -> l.name));
+        sb.append(String.format(Locale.US, "%-26s %8s %8s %6s\n", "listener", "cache", "server", "errors"));
+        for (OpTracer.ListenerStats l : listeners) {
+            sb.append(String.format(Locale.US, "%-26s %8d %8d %6d\n",
+                    l.name, l.fromCache(), l.fromServer(), l.errors()));
+        }
+    }
+
+    private void appendExecutors(StringBuilder sb) {
+        sb.append("EXECUTORS (queue wait in ms)\n");
+        sb.append(String.format(Locale.US, "%-10s %7s %6s %6s %6s %9s %6s %6s\n",
+                "pool", "threads", "queue", "max", "reject", "done", "p50", "p99"));
+        for (AppExecutors.Pool pool : AppExecutors.get().pools()) {
+            LatencyHistogram.Snapshot wait = pool.queueWait();
+            sb.append(String.format(Locale.US, "%-10s %3d/%-3d %6d %6d %6d %9d %6.1f %6.1f\n",
+                    pool.name, pool.getActiveCount(), pool.getMaximumPoolSize(),
+                    pool.queueDepth(), pool.maxQueueDepth(), pool.rejectedCount(),
+                    pool.getCompletedTaskCount(), wait.percentile(50) / 1e6, wait.percentile(99) / 1e6));
+        }
+    }
+
+    private void appendChartTiles(StringBuilder sb) {
+        sb.append("CHART TILES\n");
+        ChartTileProvider charts = ChartTileProvider.get(this);
+        if (charts == null) {
+            sb.append("  disabled\n");
+            return;
+        }
+        ChartTileCache.Stats s = charts.stats();
+        sb.append(String.format(Locale.US, "  hits     memory %d  offline %d  disk %d\n",
+                s.memoryHits, s.offlineHits, s.diskHits));
+        sb.append(String.format(Locale.US, "  network  downloads %d  304s %d  failed %d  cancelled %d\n",
+                s.downloads, s.notModified, s.failures, s.cancelled));
+        sb.append(String.format(Locale.US, "  size     memory %d KB  disk %d KB\n",
+                s.memoryBytes / 1024, s.diskBytes / 1024));
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.sailspots.ui.detail;
 
+import androidx.annotation.VisibleForTesting;
+
 import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.DocumentSnapshot;
 
@@ -41,11 +43,13 @@ public class CommentItem {
     }
 
     /**
-     * A private helper method to convert a Firestore Timestamp into a simple, readable date string.
+     * A helper method to convert a Firestore Timestamp into a simple, readable date string.
+     * Visible so the microbenchmarks can measure it on its own.
      * @param ts The Timestamp object from Firestore.
      * @return A formatted date string like "MMM d" (e.g., "Jan 8"), or an empty string if the timestamp is null.
      */
-    private static String formatDate(Timestamp ts) {
+    @VisibleForTesting
+    public static String formatDate(Timestamp ts) {
         // Return an empty string if the timestamp is null to avoid crashes.
         if (ts == null) return "";
         // Convert the Firestore Timestamp to a standard Java Date object.
@@ -1,17 +1,18 @@
 package com.example.sailspots.ui.detail;
 
-import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.RatingBar;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.sailspots.R;
+import com.example.sailspots.ui.RowPool;
 
 /**
  * An adapter for displaying a list of comments in a RecyclerView.
@@ -32,8 +33,10 @@ public class CommentsAdapter extends ListAdapter<CommentItem, CommentsAdapter.VH
      * A static DiffUtil.ItemCallback instance.
      * This is a performance optimization that helps the ListAdapter determine
      * which items in a list have changed, added, removed, or moved.
+     * Visible so the microbenchmarks can diff realistic list sizes with it.
      */
-    private static final DiffUtil.ItemCallback<CommentItem> DIFF_CALLBACK =
+    @VisibleForTesting
+    public static final DiffUtil.ItemCallback<CommentItem> DIFF_CALLBACK =
             new DiffUtil.ItemCallback<CommentItem>() {
                 /**
                  * Called to check whether two objects represent the same item.
@@ -62,6 +65,14 @@ public class CommentsAdapter extends ListAdapter<CommentItem, CommentsAdapter.VH
                 }
             };
 
+    /**
+     * Uses the row layout as the view type, so lists sharing a RecycledViewPool never mix rows.
+     */
+    @Override
+    public int getItemViewType(int position) {
+        return R.layout.row_comment;
+    }
+
     /**
      * Called when the RecyclerView needs a new ViewHolder to represent an item.
      * This is where we inflate the layout for a single list item.
@@ -69,9 +80,8 @@ public class CommentsAdapter extends ListAdapter<CommentItem, CommentsAdapter.VH
     @NonNull
     @Override
     public VH onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        // Inflate the custom layout (row_comment.xml) for a single list item.
-        View v = LayoutInflater.from(parent.getContext())
-                .inflate(R.layout.row_comment, parent, false);
+        // Take a pre-inflated row_comment.xml from RowPool, or inflate one now.
+        View v = RowPool.inflate(parent, R.layout.row_comment);
         // Create and return a new ViewHolder with the inflated view.
         return new VH(v);
     }
@@ -1,5 +1,6 @@
 package com.example.sailspots.ui.detail;
 
+import android.content.Context;
 import android.os.Bundle;
 import android.widget.TextView;
 
@@ -8,16 +9,27 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.sailspots.AppExecutors;
 import com.example.sailspots.R;
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.weather.Forecast;
+import com.example.sailspots.core.weather.Grib2Parameter;
+import com.example.sailspots.data.Forecasts;
+import com.example.sailspots.perf.OpTracer;
+import com.example.sailspots.perf.PerfStates;
+import com.example.sailspots.ui.RowPool;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentChange;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 import android.view.LayoutInflater;
 import android.view.View;
@@ -33,6 +45,7 @@ import com.google.firebase.firestore.SetOptions;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Activity that displays the detailed information for a single marina.
@@ -46,6 +59,9 @@ public class MarinaDetailActivity extends AppCompatActivity {
     public static final String EXTRA_LAT = "extra_lat";
     public static final String EXTRA_LNG = "extra_lng";
 
+    // About one screenful of comment rows.
+    private static final int PREINFLATED_COMMENT_ROWS = 6;
+
     // --- UI Components ---
     private RecyclerView rvComments;
     private CommentsAdapter commentsAdapter;
@@ -60,8 +76,12 @@ public class MarinaDetailActivity extends AppCompatActivity {
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        // Inflate comment rows in the background while the detail layout inflates below.
+        RowPool.of(this).preinflate(R.layout.row_comment, PREINFLATED_COMMENT_ROWS);
         // Set the layout for this activity from the XML file.
         setContentView(R.layout.activity_marina_detail);
+        // Frames until the enter transition finishes count as opening the detail page.
+        PerfStates.setInteraction(getWindow().getDecorView(), PerfStates.DETAIL_OPEN);
 
         // --- Toolbar Setup ---
         MaterialToolbar toolbar = findViewById(R.id.topAppBar);
@@ -103,27 +123,30 @@ public class MarinaDetailActivity extends AppCompatActivity {
         tvMarinaName.setText(name != null ? name : "Unknown");
         tvMarinaAddress.setText(address != null ? address : "Unknown");
 
-        // Lat/Lng for future weather integration.
+        // Lat/Lng for the forecast lookup.
         double lat = getIntent().getDoubleExtra(EXTRA_LAT, Double.NaN);
         double lng = getIntent().getDoubleExtra(EXTRA_LNG, Double.NaN);
 
-        // ---- Weather mock hookup (for now just fake data) ----
+        // ---- Weather hookup ----
         TextView tvWeatherTemp = findViewById(R.id.tvWeatherTemp);
         TextView tvWeatherCondition = findViewById(R.id.tvWeatherCondition);
         TextView tvWeatherHiLo = findViewById(R.id.tvWeatherHiLo);
         TextView tvWeatherWind = findViewById(R.id.tvWeatherWind);
         TextView tvWeatherExtra = findViewById(R.id.tvWeatherExtra);
 
-        // TODO Later: replace with real API call using lat/lng.
+        // TODO Later: temperature and sky from a forecast that has them.
         tvWeatherTemp.setText("78°");
         tvWeatherCondition.setText("Partly cloudy");
         tvWeatherHiLo.setText("H 82°  •  L 72°");
-        tvWeatherWind.setText("Wind 9 kt");
-        tvWeatherExtra.setText("Tide: rising");
+        tvWeatherWind.setText("Wind –");
+        tvWeatherExtra.setText("");
+        if (!Double.isNaN(lat) && !Double.isNaN(lng)) showForecast(lat, lng, tvWeatherWind, tvWeatherExtra);
 
         // --- RecyclerView for comments ---
         rvComments = findViewById(R.id.rvComments);
         rvComments.setLayoutManager(new LinearLayoutManager(this)); // Arrange items in a vertical list.
+        RowPool.of(this).attach(rvComments); // Reuse the rows pre-inflated in onCreate.
+        rvComments.addOnScrollListener(PerfStates.LIST_SCROLL_TRACKER);
         commentsAdapter = new CommentsAdapter(); // Create the adapter.
         rvComments.setAdapter(commentsAdapter); // Connect the adapter to the RecyclerView.
 
@@ -131,13 +154,21 @@ public class MarinaDetailActivity extends AppCompatActivity {
         // Only try to load comments if our Firestore reference was successfully created.
         if (commentsRef != null) {
             // Listen for real-time changes to the comments, ordered by newest first.
+            // Snapshots are decoded in order on the compute pool, then shown on the main thread.
+            OpTracer.SnapshotTrace trace = OpTracer.get().listener(OpTracer.LISTEN_COMMENTS);
+            Executor main = AppExecutors.get().main();
             commentsRegistration = commentsRef
                     .orderBy("createdAt", Query.Direction.DESCENDING)
-                    .addSnapshotListener((snap, e) -> {
+                    .addSnapshotListener(AppExecutors.get().newSerialCompute(), (snap, e) -> {
+                        boolean live = trace.isLive();
+                        trace.onSnapshot(snap != null ? snap.getMetadata() : null);
+                        if (live && snap != null && !snap.getMetadata().isFromCache()) {
+                            traceNewComments(trace, snap);
+                        }
 
                         // If there's an error or no data, show some dummy comments.
                         if (e != null || snap == null || snap.isEmpty()) {
-                            commentsAdapter.submitList(seedDummyComments());
+                            main.execute(() -> showComments(seedDummyComments()));
                             return;
                         }
 
@@ -147,7 +178,7 @@ public class MarinaDetailActivity extends AppCompatActivity {
                             list.add(CommentItem.fromSnapshot(doc));
                         }
                         // Update the adapter with the new list of comments.
-                        commentsAdapter.submitList(list);
+                        main.execute(() -> showComments(list));
                     });
         }
         // Set up the "Add Comment" button.
@@ -155,6 +186,49 @@ public class MarinaDetailActivity extends AppCompatActivity {
         fabAddComment.setOnClickListener(v -> showAddCommentDialog());
     }
 
+    /**
+     * Shows decoded comments, unless the listener was removed while they were being decoded.
+     */
+    private void showComments(List<CommentItem> comments) {
+        if (commentsRegistration == null || isDestroyed()) return;
+        commentsAdapter.submitList(comments);
+    }
+
+    /**
+     * Fills the wind and pressure lines from the downloaded forecast, decoded on the IO pool.
+     * Leaves them as they are when there is no forecast for this marina.
+     */
+    private void showForecast(double lat, double lng, TextView wind, TextView extra) {
+        final Context app = getApplicationContext();
+        AppExecutors.get().io().execute(() -> {
+            long now = System.currentTimeMillis();
+            Forecast forecast = Forecasts.around(app, new GeoPoint(lat, lng));
+            if (forecast == null) return;
+            String windText = Forecasts.describeWind(forecast, lat, lng, now);
+            double pascals = forecast.sample(Grib2Parameter.PRESSURE, lat, lng, now);
+            String pressureText = Double.isNaN(pascals) ? null
+                    : String.format(Locale.US, "%.0f hPa", pascals / 100);
+            AppExecutors.get().main().execute(() -> {
+                if (isDestroyed()) return;
+                if (windText != null) wind.setText(windText);
+                if (pressureText != null) extra.setText(pressureText);
+            });
+        });
+    }
+
+    /**
+     * Records how long other people's new comments took to arrive, from their createdAt time.
+     * Our own writes are skipped; they show up locally before they reach the server.
+     */
+    private static void traceNewComments(OpTracer.SnapshotTrace trace, QuerySnapshot snap) {
+        for (DocumentChange change : snap.getDocumentChanges()) {
+            DocumentSnapshot doc = change.getDocument();
+            if (change.getType() != DocumentChange.Type.ADDED || doc.getMetadata().hasPendingWrites()) continue;
+            Timestamp createdAt = doc.getTimestamp("createdAt");
+            if (createdAt != null) trace.onDocumentArrived(createdAt.toDate().getTime());
+        }
+    }
+
     /**
      * Displays a dialog for the user to add a new review (comment and rating).
      */
@@ -214,13 +288,13 @@ public class MarinaDetailActivity extends AppCompatActivity {
 
                 // This ensures the parent 'spot' document exists before adding a sub-collection item.
                 if (placeId != null && !placeId.isEmpty()) {
-                    db.collection("spots")
+                    OpTracer.get().trace(OpTracer.SPOT_ENSURE_PARENT, db.collection("spots")
                             .document(placeId)
-                            .set(new HashMap<String, Object>(), SetOptions.merge());
+                            .set(new HashMap<String, Object>(), SetOptions.merge()));
                 }
 
                 // --- Add the comment to Firestore ---
-                commentsRef.add(data)
+                OpTracer.get().trace(OpTracer.COMMENTS_ADD, commentsRef.add(data))
                         .addOnSuccessListener(ref -> {
                             // On success, show a confirmation and close the dialog.
                             Toast.makeText(this, "Review added.", Toast.LENGTH_SHORT).show();
@@ -274,6 +348,15 @@ public class MarinaDetailActivity extends AppCompatActivity {
         return list;
     }
 
+    /**
+     * Called once the enter transition has finished; ends the DETAIL_OPEN frame state.
+     */
+    @Override
+    public void onEnterAnimationComplete() {
+        super.onEnterAnimationComplete();
+        PerfStates.clearInteraction(getWindow().getDecorView());
+    }
+
     /**
      * Called when the activity is being destroyed.
      * It's important to remove the Firestore listener to prevent memory leaks.
@@ -0,0 +1,200 @@
+package com.example.sailspots.ui.maps;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.SparseArray;
+import android.view.Choreographer;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+import com.example.sailspots.AppExecutors;
+import com.example.sailspots.core.ais.AisTargets;
+import com.example.sailspots.data.AisTraffic;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.Marker;
+import com.google.android.gms.maps.model.MarkerOptions;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Draws AIS targets as arrows pointing where each vessel is heading, keyed by MMSI.
+ *
+ * Markers are updated at most once per frame: the feed thread only signals that something
+ * changed, and the next Choreographer frame drains every change since the last one, so a
+ * vessel that reported five times in between moves once, to where it is now.
+ *
+ * Expiry runs on its own timer while attached, not on those frames: a feed that has gone
+ * quiet or dropped sends no changes, and its vessels must still leave the map once they
+ * are AisTraffic.EXPIRE_MILLIS old. A quiet feed costs that one check every few seconds.
+ */
+class AisMarkers implements Choreographer.FrameCallback {
+
+    private static final int SHIP_COLOR = 0xFF7B1FA2;
+    private static final int YACHT_COLOR = 0xFF00897B;
+    // AIS ship types 30-39 are fishing, sailing, pleasure craft and the like.
+    private static final int SMALL_CRAFT_MIN = 30;
+    private static final int SMALL_CRAFT_MAX = 39;
+    private static final long EXPIRE_EVERY_MILLIS = 10_000;
+    private static final int ICON_DP = 18;
+
+    private final GoogleMap map;
+    private final AisTargets targets;
+    private final float density;
+    private final SparseArray<Marker> markers = new SparseArray<>();
+    private final AisTargets.Changes changes;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Runnable postFrame = () -> Choreographer.getInstance().postFrameCallback(this);
+    private final Runnable requestFrame = this::requestFrame;
+    private final Choreographer.FrameCallback expireTick = frameTimeNanos -> expire();
+    private boolean attached;
+
+    // Created lazily; BitmapDescriptorFactory needs the map to be initialized.
+    private BitmapDescriptor shipIcon;
+    private BitmapDescriptor yachtIcon;
+
+    AisMarkers(@NonNull GoogleMap map, @NonNull AisTargets targets, float density) {
+        this.map = map;
+        this.targets = targets;
+        this.density = density;
+        this.changes = new AisTargets.Changes(targets.capacity());
+    }
+
+    /**
+     * Starts following the targets, beginning with everything already known.
+     */
+    @MainThread
+    void attach() {
+        attached = true;
+        targets.setListener(requestFrame);
+        targets.replay();
+        expire();  // Anything left over from before, then every EXPIRE_EVERY_MILLIS.
+    }
+
+    /**
+     * Stops following the targets and removes every marker.
+     */
+    @MainThread
+    void detach() {
+        attached = false;
+        targets.setListener(null);
+        Choreographer.getInstance().removeFrameCallback(this);
+        Choreographer.getInstance().removeFrameCallback(expireTick);
+        for (int i = 0; i < markers.size(); i++) markers.valueAt(i).remove();
+        markers.clear();
+    }
+
+    // Removals are queued like any change, and the listener asks for the frame that draws them.
+    private void expire() {
+        if (!attached) return;
+        targets.expire(System.currentTimeMillis() - AisTraffic.EXPIRE_MILLIS);
+        Choreographer.getInstance().postFrameCallbackDelayed(expireTick, EXPIRE_EVERY_MILLIS);
+    }
+
+    // Any thread: asks for a frame unless one is already coming.
+    private void requestFrame() {
+        if (scheduled.compareAndSet(false, true)) AppExecutors.get().main().execute(postFrame);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        // Cleared first, so a change arriving while this frame drains asks for the next one.
+        scheduled.set(false);
+        if (!attached) return;
+        targets.drain(changes);
+        for (int i = 0; i < changes.removedCount; i++) {
+            int mmsi = changes.removed[i];
+            Marker marker = markers.get(mmsi);
+            if (marker != null) {
+                marker.remove();
+                markers.remove(mmsi);
+            }
+        }
+        for (int i = 0; i < changes.count; i++) apply(i);
+    }
+
+    private void apply(int i) {
+        int mmsi = changes.mmsi[i];
+        Marker marker = markers.get(mmsi);
+        if (marker == null) {
+            if (Double.isNaN(changes.lat[i])) return;  // Named, but not placed yet.
+            String name = targets.name(mmsi);
+            marker = map.addMarker(new MarkerOptions()
+                    .position(new LatLng(changes.lat[i], changes.lng[i]))
+                    .flat(true)
+                    .anchor(0.5f, 0.5f)
+                    .rotation(bearing(i))
+                    .icon(icon(targets.shipType(mmsi)))
+                    .title(name != null ? name : "MMSI " + mmsi)
+                    .snippet(snippet(i)));
+            if (marker != null) markers.put(mmsi, marker);
+            return;
+        }
+        int flags = changes.flags[i];
+        if ((flags & AisTargets.CHANGED_POSITION) != 0) {
+            marker.setPosition(new LatLng(changes.lat[i], changes.lng[i]));
+            marker.setRotation(bearing(i));
+            marker.setSnippet(snippet(i));
+        }
+        if ((flags & AisTargets.CHANGED_STATIC) != 0) {
+            String name = targets.name(mmsi);
+            if (name != null) marker.setTitle(name);
+            marker.setIcon(icon(targets.shipType(mmsi)));
+        }
+        if (marker.isInfoWindowShown()) marker.showInfoWindow();  // Redraw with the new text.
+    }
+
+    // Where the bow points if the vessel says, otherwise its course.
+    private float bearing(int i) {
+        if (changes.heading[i] != AisTargets.NO_HEADING) return changes.heading[i];
+        return Float.isNaN(changes.cog[i]) ? 0 : changes.cog[i];
+    }
+
+    @NonNull
+    private String snippet(int i) {
+        float sog = changes.sog[i];
+        float cog = changes.cog[i];
+        if (Float.isNaN(sog)) return "";
+        return Float.isNaN(cog)
+                ? String.format(Locale.getDefault(), "%.1f kn", sog)
+                : String.format(Locale.getDefault(), "%.1f kn, %03.0f°", sog, cog);
+    }
+
+    @NonNull
+    private BitmapDescriptor icon(int shipType) {
+        if (shipIcon == null) {
+            shipIcon = BitmapDescriptorFactory.fromBitmap(arrow(SHIP_COLOR));
+            yachtIcon = BitmapDescriptorFactory.fromBitmap(arrow(YACHT_COLOR));
+        }
+        return shipType >= SMALL_CRAFT_MIN && shipType <= SMALL_CRAFT_MAX ? yachtIcon : shipIcon;
+    }
+
+    // A narrow arrowhead pointing up, outlined in white so it shows on charts.
+    @NonNull
+    private Bitmap arrow(int color) {
+        int size = Math.round(ICON_DP * density);
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        Path path = new Path();
+        path.moveTo(size / 2f, size * 0.05f);
+        path.lineTo(size * 0.8f, size * 0.95f);
+        path.lineTo(size / 2f, size * 0.75f);
+        path.lineTo(size * 0.2f, size * 0.95f);
+        path.close();
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setColor(color);
+        canvas.drawPath(path, paint);
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setStrokeWidth(density);
+        paint.setColor(Color.WHITE);
+        canvas.drawPath(path, paint);
+        return bitmap;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.sailspots.ui.maps;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.example.sailspots.AppExecutors;
+import com.example.sailspots.R;
+import com.example.sailspots.core.charts.CachedTile;
+import com.example.sailspots.core.charts.ChartTileCache;
+import com.example.sailspots.core.charts.DiskTileCache;
+import com.example.sailspots.core.charts.HttpTileFetcher;
+import com.example.sailspots.core.charts.MemoryTileCache;
+import com.example.sailspots.core.charts.TileKey;
+import com.example.sailspots.core.charts.TileRange;
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.data.OfflineRegions;
+import com.example.sailspots.perf.OpTracer;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.android.gms.maps.model.Tile;
+import com.google.android.gms.maps.model.TileProvider;
+
+import java.io.File;
+
+/**
+ * Nautical chart tiles (OpenSeaMap seamarks by default) for a map overlay, through a
+ * ChartTileCache: a memory LRU, then a size-bounded disk cache, then the network with
+ * conditional revalidation.
+ *
+ * MapsFragment reports the camera: tiles more than one tile off screen are treated as no
+ * longer wanted, so their downloads are cancelled, and when the camera settles the border of
+ * tiles around the screen is prefetched. One instance per process, so the memory cache
+ * survives leaving and reopening the map.
+ */
+public final class ChartTileProvider implements TileProvider {
+
+    private static final String TAG = "ChartTileProvider";
+    private static final String CACHE_DIR = "chart-tiles";
+
+    private static final int TILE_PIXELS = 256;
+    // Seamarks are too dense to draw below this zoom, and the server has none past the max.
+    public static final int MIN_ZOOM = 9;
+    public static final int MAX_ZOOM = 18;
+    private static final long MEMORY_BYTES = 8L * 1024 * 1024;
+    private static final long DISK_BYTES = 64L * 1024 * 1024;
+    // Prefetches run on the shared IO pool; keep most of it free for everything else.
+    private static final int MAX_BACKGROUND_LOADS = 2;
+    // Tiles this far beyond the screen edge are prefetched and never cancelled.
+    private static final int BORDER_TILES = 1;
+
+    @Nullable private static ChartTileProvider instance;  // Main thread only.
+
+    private final ChartTileCache cache;
+    // The tiles still wanted: on screen plus the border. Null until the camera is reported.
+    @Nullable private volatile TileRange wanted;
+
+    private ChartTileProvider(@NonNull ChartTileCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * @return The shared provider, or null if R.string.chart_tiles_url is empty.
+     */
+    @MainThread
+    @Nullable
+    public static ChartTileProvider get(@NonNull Context context) {
+        if (instance == null) {
+            Context app = context.getApplicationContext();
+            String template = app.getString(R.string.chart_tiles_url);
+            if (template.isEmpty()) return null;
+            ChartTileCache cache = new ChartTileCache(
+                    new MemoryTileCache(MEMORY_BYTES),
+                    new DiskTileCache(new File(app.getCacheDir(), CACHE_DIR), DISK_BYTES),
+                    new HttpTileFetcher(template, app.getString(R.string.app_name),
+                            HttpTileFetcher.DEFAULT_MAX_AGE_MILLIS),
+                    AppExecutors.get().io(), MAX_BACKGROUND_LOADS);
+            // Downloaded regions are checked before the disk cache, so they work offline.
+            cache.setOfflineTiles(OfflineRegions.get(app).store());
+            instance = new ChartTileProvider(cache);
+        }
+        return instance;
+    }
+
+    /**
+     * Called by the map on its tile threads.
+     * @return The tile; NO_TILE where the server has none; or null to have the map ask again
+     *         later, when the tile is off screen, offline, or its download was cancelled.
+     */
+    @WorkerThread
+    @Override
+    public Tile getTile(int x, int y, int zoom) {
+        if (zoom < MIN_ZOOM || zoom > MAX_ZOOM) return NO_TILE;
+        TileKey key = new TileKey(zoom, x, y);
+        CachedTile tile = cache.peek(key);
+        if (tile == null) {
+            TileRange range = wanted;
+            if (range != null && !range.contains(key)) return null; // Scrolled away already.
+            long start = OpTracer.now();
+            tile = cache.get(key);
+            OpTracer.get().record(OpTracer.CHART_TILE, start, tile != null);
+            if (tile == null) return null;
+        }
+        return tile.isEmpty() ? NO_TILE : new Tile(TILE_PIXELS, TILE_PIXELS, tile.data);
+    }
+
+    /**
+     * Follows the camera while it moves, cancelling downloads of tiles that left the screen.
+     */
+    @MainThread
+    public void onCameraMove(@NonNull LatLngBounds visible, float zoom) {
+        TileRange range = rangeFor(visible, zoom);
+        if (range == null || range.equals(wanted)) return;
+        wanted = range;
+        int cancelled = cache.cancelUnless(range::contains);
+        if (cancelled > 0) Log.v(TAG, "Cancelled " + cancelled + " off-screen tiles");
+    }
+
+    /**
+     * Once the camera settles, prefetches the tiles just beyond the screen edge so a short
+     * pan finds them cached.
+     */
+    @MainThread
+    public void onCameraIdle(@NonNull LatLngBounds visible, float zoom) {
+        onCameraMove(visible, zoom);
+        TileRange range = wanted;
+        TileRange screen = rangeFor(visible, zoom, 0);
+        if (range == null || screen == null) return;
+        for (TileKey k : screen.ring(range)) {
+            if (!cache.prefetch(k)) break; // Busy; the rest wait for the next idle.
+        }
+    }
+
+    @NonNull
+    public ChartTileCache.Stats stats() {
+        return cache.stats();
+    }
+
+    @Nullable
+    private static TileRange rangeFor(@NonNull LatLngBounds visible, float zoom) {
+        return rangeFor(visible, zoom, BORDER_TILES);
+    }
+
+    @Nullable
+    private static TileRange rangeFor(@NonNull LatLngBounds visible, float zoom, int border) {
+        int z = (int) Math.floor(zoom);
+        if (z < MIN_ZOOM || z > MAX_ZOOM) return null;
+        BoundingBox box = new BoundingBox(visible.southwest.latitude, visible.southwest.longitude,
+                visible.northeast.latitude, visible.northeast.longitude);
+        return TileRange.covering(box, z).expand(border);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.sailspots.ui.maps;
+
+import android.view.Choreographer;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+import com.example.sailspots.core.nmea.InstrumentSlots;
+import com.example.sailspots.data.Instruments;
+
+import java.util.Arrays;
+
+/**
+ * A small readout of the boat's instruments over the map: apparent and true wind, boat
+ * speed and depth.
+ *
+ * The feed thread never touches the view. Each frame the panel copies the latest values out
+ * of the slots, rounds them as they are shown, and only sets new text when a displayed
+ * digit changed, so a 10 Hz feed costs a snapshot a frame and a relayout only when the
+ * numbers move. When nothing arrives it drops to a few checks a second, enough to blank a
+ * reading that has gone stale.
+ */
+class InstrumentPanel implements Choreographer.FrameCallback {
+
+    private static final long IDLE_FRAME_MILLIS = 250;
+    private static final int MISSING = Integer.MIN_VALUE;
+    // --- What is shown, in order; speeds and depth in tenths, angles in whole degrees ---
+    private static final int AWA = 0;
+    private static final int AWS = 1;
+    private static final int TWD = 2;
+    private static final int TWS = 3;
+    private static final int STW = 4;
+    private static final int DEPTH = 5;
+    private static final int SHOWN = 6;
+
+    private final TextView view;
+    private final InstrumentSlots slots;
+    private final InstrumentSlots.Snapshot snapshot = new InstrumentSlots.Snapshot();
+    private final int[] shown = new int[SHOWN];
+    private final int[] next = new int[SHOWN];
+    private final StringBuilder text = new StringBuilder();
+    private boolean attached;
+
+    InstrumentPanel(@NonNull TextView view, @NonNull InstrumentSlots slots) {
+        this.view = view;
+        this.slots = slots;
+    }
+
+    @MainThread
+    void attach() {
+        attached = true;
+        view.setVisibility(View.VISIBLE);
+        Arrays.fill(shown, MISSING + 1);  // Matches no reading, so the first frame draws.
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    @MainThread
+    void detach() {
+        attached = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!attached) return;
+        boolean fresh = slots.snapshot(snapshot);
+        long now = System.currentTimeMillis();
+        next[AWA] = degrees(InstrumentSlots.AWA, now);
+        next[AWS] = tenths(InstrumentSlots.AWS, now);
+        next[TWD] = degrees(InstrumentSlots.TWD, now);
+        next[TWS] = tenths(InstrumentSlots.TWS, now);
+        next[STW] = tenths(InstrumentSlots.STW, now);
+        next[DEPTH] = tenths(InstrumentSlots.DEPTH, now);
+        if (!Arrays.equals(shown, next)) {
+            System.arraycopy(next, 0, shown, 0, SHOWN);
+            view.setText(format());
+        }
+        // Every frame while data flows; a few times a second while it doesn't.
+        if (fresh) Choreographer.getInstance().postFrameCallback(this);
+        else Choreographer.getInstance().postFrameCallbackDelayed(this, IDLE_FRAME_MILLIS);
+    }
+
+    private int degrees(int quantity, long now) {
+        double v = snapshot.get(quantity, now, Instruments.STALE_MILLIS);
+        return Double.isNaN(v) ? MISSING : (int) Math.round(v) % 360;
+    }
+
+    private int tenths(int quantity, long now) {
+        double v = snapshot.get(quantity, now, Instruments.STALE_MILLIS);
+        return Double.isNaN(v) ? MISSING : (int) Math.round(v * 10);
+    }
+
+    // e.g. "AWA 38° S  AWS 14.2 kn\nTWD 266°  TWS 11.9 kn\nSTW 6.2 kn  Depth 8.3 m"
+    @NonNull
+    private String format() {
+        text.setLength(0);
+        text.append("AWA ");
+        int awa = shown[AWA];
+        if (awa == MISSING) text.append("--");
+        else if (awa > 180) text.append(360 - awa).append("° P");
+        else text.append(awa).append(awa == 0 || awa == 180 ? "°" : "° S");
+        text.append("  AWS ");
+        appendTenths(shown[AWS], " kn");
+        text.append("\nTWD ");
+        if (shown[TWD] == MISSING) text.append("--");
+        else text.append(shown[TWD]).append('°');
+        text.append("  TWS ");
+        appendTenths(shown[TWS], " kn");
+        text.append("\nSTW ");
+        appendTenths(shown[STW], " kn");
+        text.append("  Depth ");
+        appendTenths(shown[DEPTH], " m");
+        return text.toString();
+    }
+
+    private void appendTenths(int v, @NonNull String unit) {
+        if (v == MISSING) {
+            text.append("--");
+            return;
+        }
+        if (v < 0) text.append('-');
+        text.append(Math.abs(v) / 10).append('.').append(Math.abs(v) % 10).append(unit);
+    }
+}
@@ -3,45 +3,86 @@ package com.example.sailspots.ui.maps;
 import android.Manifest;
 import android.content.pm.PackageManager;
 import android.content.Intent;
+import android.content.Context;
 import android.location.Address;
-import android.location.Geocoder;import android.os.Bundle;
+import android.location.Geocoder;import android.os.Build;
+import android.os.Bundle;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.EditText;
 import android.widget.Toast;
 
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.annotation.VisibleForTesting;
 import androidx.appcompat.widget.SearchView;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import androidx.work.WorkInfo;
 
+import com.example.sailspots.AppExecutors;
 import com.example.sailspots.R;
+import com.example.sailspots.core.anchor.AnchorWatch;
+import com.example.sailspots.core.catalog.FavoriteSet;
+import com.example.sailspots.core.catalog.MarinaStore;
+import com.example.sailspots.core.catalog.PlaceIdRegistry;
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.geo.GeoMath;
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.model.MarinaItem;
+import com.example.sailspots.core.offline.OfflineRegion;
+import com.example.sailspots.core.offline.OfflineRegionStore;
+import com.example.sailspots.core.offline.RegionPlan;
+import com.example.sailspots.core.routing.DepthStore;
+import com.example.sailspots.core.routing.IsochroneRouter;
+import com.example.sailspots.core.routing.WaterRouter;
+import com.example.sailspots.data.ConditionsRanker;
+import com.example.sailspots.data.Depths;
 import com.example.sailspots.data.MarinaAdapter;
+import com.example.sailspots.data.MarinaCatalogLoader;
+import com.example.sailspots.data.OfflineRegionWorker;
+import com.example.sailspots.data.OfflineRegions;
+import com.example.sailspots.data.PassagePlanner;
+import com.example.sailspots.perf.PerfStates;
+import com.example.sailspots.ui.RowPool;
 import com.example.sailspots.data.SpotsRepository;
-import com.example.sailspots.models.MarinaItem;
+import com.example.sailspots.data.Tracks;
+import com.example.sailspots.data.AisTraffic;
+import com.example.sailspots.data.Anchors;
+import com.example.sailspots.data.Instruments;
+import com.example.sailspots.data.WaterRouting;
 import com.example.sailspots.models.SpotsItem;
 import com.example.sailspots.ui.detail.MarinaDetailActivity;
 import com.google.android.gms.maps.CameraUpdateFactory;
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.OnMapReadyCallback;
 import com.google.android.gms.maps.SupportMapFragment;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
 import com.google.android.gms.maps.model.CameraPosition;
+import com.google.android.gms.maps.model.Circle;
+import com.google.android.gms.maps.model.CircleOptions;
 import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.android.gms.maps.model.Marker;
 import com.google.android.gms.maps.model.MarkerOptions;
+import com.google.android.gms.maps.model.Polyline;
+import com.google.android.gms.maps.model.PolylineOptions;
+import com.google.android.gms.maps.model.TileOverlayOptions;
+import com.google.android.material.button.MaterialButton;
 import com.google.firebase.firestore.ListenerRegistration;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.Set;
 
 /**
  * A fragment that displays a Google Map and a list of nearby marinas.
@@ -51,18 +92,44 @@ public class MapsFragment extends Fragment implements OnMapReadyCallback {
 
     // Tag for identifying the map fragment in the fragment manager.
     private static final String TAG_MAP = "mapFrag";
+    // Where the camera starts (New York City).
+    private static final LatLng DEFAULT_CENTER = new LatLng(40.7128, -74.0060);
+    // How many catalog marinas the list shows, nearest to the map center first.
+    private static final int NEAREST_LIMIT = 100;
+    private static final int PASSAGE_COLOR = 0xFFE65100;
+    private static final int TRACK_COLOR = 0xFF1565C0;
+    private static final int ANCHOR_COLOR = 0xFF2E7D32;
+    private static final int ANCHOR_ALARM_COLOR = 0xFFC62828;
 
     // --- UI and Data Components ---
     private GoogleMap mMap;
     private SearchView searchView;
+    private MaterialButton btnDownloadArea;
+    private MaterialButton btnBestNow;
+    private MaterialButton btnRecordTrack;
+    private MaterialButton btnAnchorWatch;
     private RecyclerView recyclerMarinas;
     private List<MarinaItem> allMarinas = new ArrayList<>();
+    private MarinaStore catalog;  // The regional catalog, once loaded; null until then.
 
     private SpotsRepository spotsRepo;
     private ListenerRegistration favReg;
-    private Set<String> favoriteIdsLive = new HashSet<>();
+    private FavoriteSet favoriteIdsLive = FavoriteSet.EMPTY;
 
     private MarinaAdapter marinaAdapter;
+    private ConditionsRanker conditionsRanker;  // Kept across views so its samples are reused.
+    private boolean bestNow;                    // Whether the list is ordered by conditions.
+    private MarinaMarkers marinaMarkers;  // Created once the map is ready.
+    private AisMarkers aisMarkers;        // Created with the map, if there is a traffic source.
+    @Nullable private InstrumentPanel instrumentPanel;  // Null when no instrument feed is configured.
+    private Marker searchMarker;          // The pin dropped by the last location search.
+    @Nullable private ChartTileProvider chartTiles;  // Null when no chart server is configured.
+    private int routeGeneration;  // Bumped per list, so stale sailing distances are dropped.
+    private Marker passageStart;     // First long-press of a passage plan; null when none is pending.
+    private Polyline passageLine;    // The last planned passage.
+    private int passageGeneration;   // Bumped per plan, so a plan finishing after a reset is dropped.
+    private Polyline trackLine;      // The track being recorded, simplified.
+    private Circle anchorCircle;     // The anchor watch's swing circle; null when not watching.
 
     /**
      * Handles the result of the location permission request.
@@ -78,6 +145,17 @@ public class MapsFragment extends Fragment implements OnMapReadyCallback {
                 }
             });
 
+    /**
+     * Asks to post notifications, so the anchor alarm can sound. The watch runs either way.
+     */
+    private final ActivityResultLauncher<String> requestNotifications =
+            registerForActivityResult(new ActivityResultContracts.RequestPermission(), isGranted -> {
+                if (!isGranted) {
+                    Toast.makeText(requireContext(), "Without notifications the anchor alarm cannot sound",
+                            Toast.LENGTH_LONG).show();
+                }
+            });
+
     /**
      * Default constructor for the fragment. Required for fragment instantiation.
      */
@@ -103,8 +181,13 @@ public class MapsFragment extends Fragment implements OnMapReadyCallback {
         searchView = root.findViewById(R.id.idSearchView);
         spotsRepo = new SpotsRepository();
         recyclerMarinas = root.findViewById(R.id.recyclerMarinas);
-        recyclerMarinas.setLayoutManager(new LinearLayoutManager(requireContext()));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(requireContext());
+        // Hand rows back to the activity's shared pool when this view is torn down.
+        layoutManager.setRecycleChildrenOnDetach(true);
+        recyclerMarinas.setLayoutManager(layoutManager);
         recyclerMarinas.setHasFixedSize(true);
+        RowPool.of((AppCompatActivity) requireActivity()).attach(recyclerMarinas);
+        recyclerMarinas.addOnScrollListener(PerfStates.LIST_SCROLL_TRACKER);
 
         // --- Adapter Setup ---
         // Initialize the adapter and define the favorite button click behavior.
@@ -115,9 +198,7 @@ public class MapsFragment extends Fragment implements OnMapReadyCallback {
             boolean newFavorite = !old.isFavorite();
 
             // Create an updated item with the new favorite state.
-            MarinaItem updated = new MarinaItem(
-                    old.name, old.address, old.placeId, old.latLng, old.distanceMiles, newFavorite
-            );
+            MarinaItem updated = old.withFavorite(newFavorite);
             // Replace the old item with the updated one and submit the new list.
             current.set(position, updated);
             marinaAdapter.submitList(current);
@@ -163,22 +244,45 @@ public class MapsFragment extends Fragment implements OnMapReadyCallback {
             }
         });
 
-        marinaAdapter.setOnMarinaClickListener((item, position) -> {
-            Intent intent = new Intent(requireContext(), MarinaDetailActivity.class);
-            intent.putExtra(MarinaDetailActivity.EXTRA_MARINA_NAME, item.name);
-            intent.putExtra(MarinaDetailActivity.EXTRA_MARINA_ADDRESS, item.address);
-            intent.putExtra(MarinaDetailActivity.EXTRA_PLACE_ID, item.placeId);
-            if (item.latLng != null) {
-                intent.putExtra(MarinaDetailActivity.EXTRA_LAT, item.latLng.latitude);
-                intent.putExtra(MarinaDetailActivity.EXTRA_LNG, item.latLng.longitude);
-            }
-            startActivity(intent);
-        });
+        marinaAdapter.setOnMarinaClickListener((item, position) -> openMarinaDetail(item));
 
         recyclerMarinas.setAdapter(marinaAdapter);
 
         // --- Initial Data Load ---
-        seedDummyMarinas(); // TODO: Replace with actual location-based map query.
+        seedDummyMarinas(); // Shown until the regional catalog is loaded.
+        MarinaCatalogLoader.get().load(requireContext(), loaded -> {
+            if (loaded == null || loaded.size() == 0 || getView() == null) return;
+            catalog = loaded;
+            favoriteIdsLive = favoriteIdsLive.resolveIn(loaded, PlaceIdRegistry.global());
+            showNearest(mMap != null ? mMap.getCameraPosition().target : DEFAULT_CENTER);
+        });
+
+        // --- Offline Regions ---
+        btnDownloadArea = root.findViewById(R.id.btnDownloadArea);
+        btnDownloadArea.setOnClickListener(v -> planDownloadArea());
+        OfflineRegions.observe(requireContext()).observe(getViewLifecycleOwner(), this::showDownloadProgress);
+
+        // --- Sorting ---
+        btnBestNow = root.findViewById(R.id.btnBestNow);
+        btnBestNow.setOnClickListener(v -> setBestNow(!bestNow));
+        setBestNow(bestNow);
+
+        // --- Track Recording ---
+        btnRecordTrack = root.findViewById(R.id.btnRecordTrack);
+        btnRecordTrack.setOnClickListener(v -> toggleRecording());
+        Tracks.recording().observe(getViewLifecycleOwner(), recording ->
+                btnRecordTrack.setText(Boolean.TRUE.equals(recording) ? R.string.track_stop : R.string.track_record));
+        Tracks.current().observe(getViewLifecycleOwner(), this::showTrack);
+
+        // --- Anchor Watch ---
+        btnAnchorWatch = root.findViewById(R.id.btnAnchorWatch);
+        btnAnchorWatch.setOnClickListener(v -> toggleAnchorWatch());
+        Anchors.status().observe(getViewLifecycleOwner(), this::showAnchorWatch);
+
+        // --- Instruments ---
+        if (Instruments.isConfigured(requireContext())) {
+            instrumentPanel = new InstrumentPanel(root.findViewById(R.id.tvInstruments), Instruments.slots());
+        }
 
         // --- Final Setup ---
         setupMapFragment(savedInstanceState);
@@ -188,30 +292,83 @@ public class MapsFragment extends Fragment implements OnMapReadyCallback {
     @Override public void onStart() {
         super.onStart();
         favReg = spotsRepo.listenFavoriteIds(ids -> {
-            favoriteIdsLive = ids;
+            // Catalog marinas carry their pack's IDs; match the favorites to those.
+            favoriteIdsLive = catalog != null ? ids.resolveIn(catalog, PlaceIdRegistry.global()) : ids;
             recomputeMergedAndSubmit();  // recompute using latest allMarinas + live IDs
         }, e -> {
             Log.e("Spots", "favorites listen failed", e);
             Toast.makeText(requireContext(), "Failed to listen to favorites", Toast.LENGTH_SHORT).show();
         });
+        // Vessel traffic only while the map is on screen; simulated traffic sails around it.
+        LatLng center = mMap != null ? mMap.getCameraPosition().target : DEFAULT_CENTER;
+        AisTraffic.start(requireContext(), new GeoPoint(center.latitude, center.longitude));
+        Instruments.start(requireContext());
+        if (instrumentPanel != null) instrumentPanel.attach();
     }
 
     @Override public void onStop() {
         super.onStop();
         if (favReg != null) { favReg.remove(); favReg = null; }
+        AisTraffic.stop();
+        Instruments.stop();
+        if (instrumentPanel != null) instrumentPanel.detach();
+    }
+
+    @Override public void onDestroyView() {
+        super.onDestroyView();
+        // The map and its markers go away with the view.
+        marinaMarkers = null;
+        if (aisMarkers != null) aisMarkers.detach();
+        aisMarkers = null;
+        instrumentPanel = null;
+        searchMarker = null;
+        passageStart = null;
+        passageLine = null;
+        passageGeneration++;
+        trackLine = null;
+        anchorCircle = null;
+        chartTiles = null;
+        btnDownloadArea = null;
+        btnBestNow = null;
+        btnRecordTrack = null;
+        btnAnchorWatch = null;
+        mMap = null;
+    }
+
+    /**
+     * Orders the list by sailing conditions right now, or back to nearest first. Scoring runs
+     * in the background; the list reorders when it is done.
+     */
+    private void setBestNow(boolean enabled) {
+        bestNow = enabled;
+        if (enabled && conditionsRanker == null) conditionsRanker = new ConditionsRanker(requireContext());
+        marinaAdapter.setRanker(enabled ? conditionsRanker : null);
+        btnBestNow.setText(enabled ? R.string.sort_nearest : R.string.sort_best_now);
     }
 
     private void recomputeMergedAndSubmit() {
         if (allMarinas == null) return;
+        List<MarinaItem> merged = mergeFavorites(allMarinas, favoriteIdsLive);
+        marinaAdapter.submitList(merged);
+        if (marinaMarkers != null) marinaMarkers.sync(merged);
+    }
 
-        List<MarinaItem> merged = new ArrayList<>(allMarinas.size());
-        for (MarinaItem m : allMarinas) {
-            boolean isFavorite = favoriteIdsLive.contains(m.placeId);
-            merged.add(new MarinaItem(
-                    m.name, m.address, m.placeId, m.latLng, m.distanceMiles, isFavorite
-            ));
+    /**
+     * Builds a fresh list of marinas with their favorite flag taken from the live favorite IDs.
+     * New items are created so ListAdapter/DiffUtil see the change.
+     * Visible so the microbenchmarks can run it at catalog scale.
+     * @param marinas The loaded marinas.
+     * @param favoriteIds The marinas currently marked as favorites, by dense place ID.
+     * @return A new list, in the same order, with favorite flags applied.
+     */
+    @VisibleForTesting
+    public static List<MarinaItem> mergeFavorites(@NonNull List<MarinaItem> marinas,
+                                                  @NonNull FavoriteSet favoriteIds) {
+        List<MarinaItem> merged = new ArrayList<>(marinas.size());
+        for (MarinaItem m : marinas) {
+            merged.add(m.withFavorite(favoriteIds.contains(m.id)));
         }
-        marinaAdapter.submitList(merged);
+        return merged;
     }
 
     private void setMarinasAndRefresh(List<MarinaItem> loadedMarinas) {
@@ -220,25 +377,179 @@ public class MapsFragment extends Fragment implements OnMapReadyCallback {
         recomputeMergedAndSubmit();  // merges with favoriteIdsLive and updates the adapter
     }
 
+    /**
+     * Lists the catalog marinas closest to a point, with distances measured from it.
+     * @param center Usually the map's camera target.
+     */
+    private void showNearest(@NonNull LatLng center) {
+        GeoPoint from = new GeoPoint(center.latitude, center.longitude);
+        List<MarinaItem> nearest = catalog.nearest(from, NEAREST_LIMIT);
+        List<MarinaItem> withDistance = new ArrayList<>(nearest.size());
+        for (MarinaItem m : nearest) {
+            withDistance.add(m.withDistance(GeoMath.haversineMiles(from, m.latLng)));
+        }
+        setMarinasAndRefresh(withDistance);
+        rankBySailingDistance(from, withDistance);
+    }
+
+    /**
+     * Re-sorts the list by distance over water once the router has measured it, if this
+     * build has a water grid, and flags shallow approaches if depth tiles are installed.
+     * Straight-line distances show until then.
+     */
+    private void rankBySailingDistance(@NonNull GeoPoint from, @NonNull List<MarinaItem> marinas) {
+        final int generation = ++routeGeneration;
+        final Context appContext = requireContext().getApplicationContext();
+        AppExecutors.get().compute().execute(() -> {
+            WaterRouter router = WaterRouting.router(appContext);
+            DepthStore depths = Depths.store(appContext);
+            if (router == null && depths == null) return;
+            List<MarinaItem> ranked = router != null
+                    ? WaterRouting.rankBySailingDistance(router, from, marinas) : marinas;
+            if (depths != null) ranked = Depths.withApproachDepths(depths, ranked);
+            final List<MarinaItem> result = ranked;
+            AppExecutors.get().main().execute(() -> {
+                // A newer camera position already replaced this list.
+                if (generation != routeGeneration || getView() == null) return;
+                setMarinasAndRefresh(result);
+            });
+        });
+    }
+
+    /**
+     * Plans a download of the area on screen, then asks the user to confirm it with the size.
+     */
+    private void planDownloadArea() {
+        if (mMap == null) return;
+        LatLngBounds visible = mMap.getProjection().getVisibleRegion().latLngBounds;
+        BoundingBox box = new BoundingBox(visible.southwest.latitude, visible.southwest.longitude,
+                visible.northeast.latitude, visible.northeast.longitude);
+        LatLng center = visible.getCenter();
+        final Context appContext = requireContext().getApplicationContext();
+        OfflineRegions regions = OfflineRegions.get(appContext);
+        // Planning reads the region index, so it runs on the IO pool.
+        AppExecutors.get().io().execute(() -> {
+            RegionPlan plan = regions.plan(box);
+            boolean fits = regions.store().canFit(plan.estimatedBytes);
+            long used = regions.store().usedBytes();
+            long budget = regions.store().budgetBytes();
+            AppExecutors.get().main().execute(() -> {
+                if (!isAdded()) return;
+                if (!fits) {
+                    Toast.makeText(requireContext(), getString(R.string.offline_too_large,
+                            used / 1e6, budget / 1e6), Toast.LENGTH_LONG).show();
+                    return;
+                }
+                String message = getString(R.string.offline_download_message,
+                        plan.chartTiles, plan.minZoom, plan.maxZoom, plan.estimatedBytes / 1e6,
+                        used / 1e6, budget / 1e6);
+                new AlertDialog.Builder(requireContext())
+                        .setTitle(R.string.offline_download_title)
+                        .setMessage(message)
+                        .setNegativeButton(android.R.string.cancel, null)
+                        .setPositiveButton(R.string.offline_download_action, (d, which) ->
+                                startDownloadArea(appContext, plan, appContext.getString(R.string.offline_region_name,
+                                        center.latitude, center.longitude)))
+                        .show();
+            });
+        });
+    }
+
+    private void startDownloadArea(@NonNull Context appContext, @NonNull RegionPlan plan, @NonNull String name) {
+        AppExecutors.get().io().execute(() -> {
+            OfflineRegion region = null;
+            try {
+                region = OfflineRegions.get(appContext).download(appContext, plan, name);
+            } catch (IOException e) {
+                Log.e("Offline", "Could not save the offline region", e);
+            }
+            final boolean started = region != null;
+            AppExecutors.get().main().execute(() -> Toast.makeText(appContext,
+                    started ? R.string.offline_download_started : R.string.offline_download_failed,
+                    Toast.LENGTH_SHORT).show());
+        });
+    }
+
+    /**
+     * Shows the progress of a running region download on the download button.
+     */
+    private void showDownloadProgress(@Nullable List<WorkInfo> jobs) {
+        if (btnDownloadArea == null) return;
+        WorkInfo running = null;
+        boolean waiting = false;
+        if (jobs != null) {
+            for (WorkInfo job : jobs) {
+                if (job.getState() == WorkInfo.State.RUNNING) running = job;
+                else if (job.getState() == WorkInfo.State.ENQUEUED) waiting = true;
+            }
+        }
+        if (running != null) {
+            int total = running.getProgress().getInt(OfflineRegionWorker.KEY_TOTAL, 0);
+            int done = running.getProgress().getInt(OfflineRegionWorker.KEY_DONE, 0);
+            btnDownloadArea.setText(getString(R.string.offline_downloading, total == 0 ? 0 : done * 100 / total));
+        } else if (waiting) {
+            btnDownloadArea.setText(R.string.offline_waiting);
+        } else {
+            btnDownloadArea.setText(R.string.offline_download_area);
+        }
+    }
+
     /**
      * Populates the marina list with hardcoded data for development and testing.
      */
     private void seedDummyMarinas() {
+        PlaceIdRegistry registry = PlaceIdRegistry.global();
         List<MarinaItem> dummyMarinas = new ArrayList<>();
-        dummyMarinas.add(new MarinaItem("Hudson Marina", "123 River Rd", "id1", new LatLng(40.70, -74.01), 1.2, false));
-        dummyMarinas.add(new MarinaItem("East Bay Harbor", "45 Dock St", "id2", new LatLng(40.72, -74.00), 2.5, false));
-        dummyMarinas.add(new MarinaItem("Lakeside Yacht Club", "789 Lake Ave", "id3", new LatLng(40.74, -74.02), 4.8, false));
-        dummyMarinas.add(new MarinaItem("North Cove Marina", "385 South End Ave", "id4", new LatLng(40.709, -74.016), 0.5, false));
-        dummyMarinas.add(new MarinaItem("ONE°15 Brooklyn Marina", "159 Bridge Park Dr", "id5", new LatLng(40.697, -73.999), 1.8, false));
-        dummyMarinas.add(new MarinaItem("Newport Yacht Club & Marina", "76 Washington Blvd", "id6", new LatLng(40.726, -74.035), 3.2, false));
-        dummyMarinas.add(new MarinaItem("Liberty Landing Marina", "80 Audrey Zapp Dr", "id7", new LatLng(40.71, -74.04), 2.1, false));
-        dummyMarinas.add(new MarinaItem("Pier 40", "353 West St", "id8", new LatLng(40.729, -74.011), 1.5, false));
-        dummyMarinas.add(new MarinaItem("Hoboken Cove Boathouse", "Frank Sinatra Dr", "id9", new LatLng(40.748, -74.025), 5.5, false));
-        dummyMarinas.add(new MarinaItem("Weehawken-Port Imperial", "4800 Ave at Port Imperial", "id10", new LatLng(40.78, -74.01), 7.0, false));
+        dummyMarinas.add(new MarinaItem("Hudson Marina", "123 River Rd", "id1", registry.intern("id1"), new GeoPoint(40.70, -74.01), 1.2, 4.3f, MarinaItem.OPEN_NOW, false));
+        dummyMarinas.add(new MarinaItem("East Bay Harbor", "45 Dock St", "id2", registry.intern("id2"), new GeoPoint(40.72, -74.00), 2.5, 3.8f, MarinaItem.CLOSED_NOW, false));
+        dummyMarinas.add(new MarinaItem("Lakeside Yacht Club", "789 Lake Ave", "id3", registry.intern("id3"), new GeoPoint(40.74, -74.02), 4.8, Float.NaN, MarinaItem.OPEN_UNKNOWN, false));
+        dummyMarinas.add(new MarinaItem("North Cove Marina", "385 South End Ave", "id4", registry.intern("id4"), new GeoPoint(40.709, -74.016), 0.5, 4.6f, MarinaItem.OPEN_NOW, false));
+        dummyMarinas.add(new MarinaItem("ONE°15 Brooklyn Marina", "159 Bridge Park Dr", "id5", registry.intern("id5"), new GeoPoint(40.697, -73.999), 1.8, 4.7f, MarinaItem.OPEN_NOW, false));
+        dummyMarinas.add(new MarinaItem("Newport Yacht Club & Marina", "76 Washington Blvd", "id6", registry.intern("id6"), new GeoPoint(40.726, -74.035), 3.2, Float.NaN, MarinaItem.OPEN_UNKNOWN, false));
+        dummyMarinas.add(new MarinaItem("Liberty Landing Marina", "80 Audrey Zapp Dr", "id7", registry.intern("id7"), new GeoPoint(40.71, -74.04), 2.1, 4.4f, MarinaItem.OPEN_UNKNOWN, false));
+        dummyMarinas.add(new MarinaItem("Pier 40", "353 West St", "id8", registry.intern("id8"), new GeoPoint(40.729, -74.011), 1.5, Float.NaN, MarinaItem.OPEN_NOW, false));
+        dummyMarinas.add(new MarinaItem("Hoboken Cove Boathouse", "Frank Sinatra Dr", "id9", registry.intern("id9"), new GeoPoint(40.748, -74.025), 5.5, Float.NaN, MarinaItem.OPEN_UNKNOWN, false));
+        dummyMarinas.add(new MarinaItem("Weehawken-Port Imperial", "4800 Ave at Port Imperial", "id10", registry.intern("id10"), new GeoPoint(40.78, -74.01), 7.0, Float.NaN, MarinaItem.OPEN_UNKNOWN, false));
         allMarinas = new ArrayList<>(dummyMarinas);
         setMarinasAndRefresh(allMarinas);
     }
 
+    /**
+     * Shows a geocoding result: moves the camera and drops a pin, or explains what went wrong.
+     * @param found The first match, or null if there was none.
+     * @param error True if the lookup failed, e.g. with no network.
+     */
+    private void showSearchResult(String locationName, @Nullable Address found, boolean error) {
+        if (!isAdded()) return; // The user left the screen while the lookup ran.
+        if (error) {
+            Toast.makeText(requireContext(), "Geocoder error. Check network.", Toast.LENGTH_SHORT).show();
+        } else if (found == null) {
+            Toast.makeText(requireContext(), "No results for \"" + locationName + "\"", Toast.LENGTH_SHORT).show();
+        } else if (mMap != null) {
+            LatLng latLng = new LatLng(found.getLatitude(), found.getLongitude());
+            // Replace only the previous search pin; marina markers stay put.
+            if (searchMarker != null) searchMarker.remove();
+            searchMarker = mMap.addMarker(new MarkerOptions().position(latLng).title(locationName));
+            animateCamera(latLng, 12f);
+        }
+    }
+
+    /**
+     * Opens the detail page for a marina.
+     * @param item The marina to show.
+     */
+    private void openMarinaDetail(@NonNull MarinaItem item) {
+        Intent intent = new Intent(requireContext(), MarinaDetailActivity.class);
+        intent.putExtra(MarinaDetailActivity.EXTRA_MARINA_NAME, item.name);
+        intent.putExtra(MarinaDetailActivity.EXTRA_MARINA_ADDRESS, item.address);
+        intent.putExtra(MarinaDetailActivity.EXTRA_PLACE_ID, item.placeId);
+        if (item.latLng != null) {
+            intent.putExtra(MarinaDetailActivity.EXTRA_LAT, item.latLng.latitude);
+            intent.putExtra(MarinaDetailActivity.EXTRA_LNG, item.latLng.longitude);
+        }
+        startActivity(intent);
+    }
+
     /**
      * Converts a MarinaItem to a SpotsItem for database storage.
      * @param m The MarinaItem to convert.
@@ -297,26 +608,23 @@ public class MapsFragment extends Fragment implements OnMapReadyCallback {
                     Toast.makeText(requireContext(), "Please enter a location.", Toast.LENGTH_SHORT).show();
                     return true;
                 }
-                // Use Geocoder to find coordinates for the entered location name.
-                try {
-                    Geocoder geocoder = new Geocoder(requireContext(), Locale.getDefault());
-                    // Get the first result from the geocoder.
-                    List<Address> addressList = geocoder.getFromLocationName(locationName, 1);
-                    if (addressList != null && !addressList.isEmpty()) {
-                        Address address = addressList.get(0);
-                        LatLng latLng = new LatLng(address.getLatitude(), address.getLongitude());
-                        // Move the map camera to the found location.
-                        if (mMap != null) {
-                            mMap.clear();
-                            mMap.addMarker(new MarkerOptions().position(latLng).title(locationName));
-                            animateCamera(latLng, 12f);
-                        }
-                    } else {
-                        Toast.makeText(requireContext(), "No results for \"" + locationName + "\"", Toast.LENGTH_SHORT).show();
+                // Geocoder blocks on the network, so look the name up on the IO pool.
+                final Context appContext = requireContext().getApplicationContext();
+                AppExecutors.get().io().execute(() -> {
+                    Address address = null;
+                    boolean failed = false;
+                    try {
+                        Geocoder geocoder = new Geocoder(appContext, Locale.getDefault());
+                        // Get the first result from the geocoder.
+                        List<Address> addressList = geocoder.getFromLocationName(locationName, 1);
+                        if (addressList != null && !addressList.isEmpty()) address = addressList.get(0);
+                    } catch (IOException e) {
+                        failed = true;
                     }
-                } catch (IOException e) {
-                    Toast.makeText(requireContext(), "Geocoder error. Check network.", Toast.LENGTH_SHORT).show();
-                }
+                    final Address found = address;
+                    final boolean error = failed;
+                    AppExecutors.get().main().execute(() -> showSearchResult(locationName, found, error));
+                });
                 return true;
             }
 
@@ -336,18 +644,241 @@ public class MapsFragment extends Fragment implements OnMapReadyCallback {
     @Override
     public void onMapReady(@NonNull GoogleMap googleMap) {
         mMap = googleMap;
-        // Set initial camera position (e.g., New York City).
-        LatLng nyc = new LatLng(40.7128, -74.0060);
-        mMap.moveCamera(CameraUpdateFactory.newLatLngZoom(nyc, 11f));
+        // Set initial camera position.
+        mMap.moveCamera(CameraUpdateFactory.newLatLngZoom(DEFAULT_CENTER, 11f));
 
         // Configure map UI settings.
         mMap.getUiSettings().setZoomControlsEnabled(true);
         mMap.getUiSettings().setMyLocationButtonEnabled(true);
 
+        // Show a marker per marina; tapping its info window opens the detail page.
+        marinaMarkers = new MarinaMarkers(mMap);
+        marinaMarkers.sync(marinaAdapter.getCurrentList());
+        mMap.setOnInfoWindowClickListener(marker -> {
+            MarinaItem item = marinaMarkers.itemFor(marker);
+            if (item != null) openMarinaDetail(item);
+        });
+        // Nearby vessels from AIS, redrawn at most once a frame.
+        if (AisTraffic.isConfigured(requireContext())) {
+            aisMarkers = new AisMarkers(mMap, AisTraffic.targets(), getResources().getDisplayMetrics().density);
+            aisMarkers.attach();
+        }
+
+        // Nautical chart overlay above the base map, below the markers.
+        chartTiles = ChartTileProvider.get(requireContext());
+        if (chartTiles != null) {
+            mMap.addTileOverlay(new TileOverlayOptions().tileProvider(chartTiles).fadeIn(false));
+            mMap.setOnCameraMoveListener(() -> {
+                if (mMap != null) chartTiles.onCameraMove(
+                        mMap.getProjection().getVisibleRegion().latLngBounds, mMap.getCameraPosition().zoom);
+            });
+        }
+
+        // Tag frames while the camera moves, so map jank shows up separately from list jank.
+        mMap.setOnCameraMoveStartedListener(reason -> {
+            View view = getView();
+            if (view == null) return;
+            PerfStates.setInteraction(view, reason == GoogleMap.OnCameraMoveStartedListener.REASON_GESTURE
+                    ? PerfStates.MAP_PAN : PerfStates.MAP_ANIMATE);
+        });
+        mMap.setOnCameraIdleListener(() -> {
+            View view = getView();
+            if (view != null) PerfStates.clearInteraction(view);
+            if (chartTiles != null && mMap != null) {
+                chartTiles.onCameraIdle(mMap.getProjection().getVisibleRegion().latLngBounds,
+                        mMap.getCameraPosition().zoom);
+            }
+            if (mMap != null) touchOfflineRegions(mMap.getCameraPosition().target);
+            // Follow the camera with the list once the full catalog is available.
+            if (catalog != null && mMap != null) showNearest(mMap.getCameraPosition().target);
+        });
+
+        // Long-press the start, then the destination, to plan a passage between them.
+        mMap.setOnMapLongClickListener(this::onPassagePoint);
+
+        showTrack(Tracks.current().getValue());
+        showAnchorWatch(Anchors.status().getValue());
+
         // Attempt to enable the 'My Location' blue dot and button.
         enableMyLocation();
     }
 
+    // --- Passage planning ---
+
+    /**
+     * First long-press marks the start, the second plans to the destination, and the next
+     * one clears the plan and marks a new start.
+     */
+    private void onPassagePoint(@NonNull LatLng point) {
+        if (mMap == null) return;
+        if (passageStart == null) {
+            clearPassage();
+            passageStart = mMap.addMarker(new MarkerOptions().position(point).title("Passage start")
+                    .icon(BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_ORANGE)));
+            Toast.makeText(requireContext(), "Long-press the destination", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        LatLng start = passageStart.getPosition();
+        planPassage(new GeoPoint(start.latitude, start.longitude), new GeoPoint(point.latitude, point.longitude));
+        passageStart.remove();
+        passageStart = null;
+    }
+
+    /**
+     * Plans a passage departing now on the compute pool, then draws it.
+     */
+    private void planPassage(@NonNull GeoPoint from, @NonNull GeoPoint to) {
+        final int generation = ++passageGeneration;
+        final Context appContext = requireContext().getApplicationContext();
+        final long depart = System.currentTimeMillis();
+        Toast.makeText(requireContext(), "Planning passage…", Toast.LENGTH_SHORT).show();
+        AppExecutors.get().compute().execute(() -> {
+            PassagePlanner.Passage passage = PassagePlanner.plan(appContext, from, to, depart);
+            AppExecutors.get().main().execute(() -> {
+                if (generation != passageGeneration || mMap == null) return;
+                showPassage(passage);
+            });
+        });
+    }
+
+    private void showPassage(@NonNull PassagePlanner.Passage passage) {
+        IsochroneRouter.Route route = passage.route;
+        List<LatLng> points = new ArrayList<>(route.points.size());
+        for (GeoPoint p : route.points) points.add(new LatLng(p.latitude, p.longitude));
+        passageLine = mMap.addPolyline(new PolylineOptions().addAll(points)
+                .color(PASSAGE_COLOR).width(8f).geodesic(false));
+        String text = route.reached
+                ? String.format(Locale.US, "%.1f h, %.1f nm", route.hours(), route.nauticalMiles())
+                : String.format(Locale.US, "Not reachable within %d h; showing the closest approach",
+                        IsochroneRouter.DEFAULT_MAX_HOURS);
+        if (!passage.forecast) text = getString(R.string.passage_no_forecast, text);
+        Toast.makeText(requireContext(), text, Toast.LENGTH_LONG).show();
+    }
+
+    private void clearPassage() {
+        passageGeneration++;
+        if (passageLine != null) {
+            passageLine.remove();
+            passageLine = null;
+        }
+    }
+
+    // --- Track recording ---
+
+    /**
+     * Starts or stops recording a track. Recording carries on in the background, with a
+     * notification, until stopped here or from the notification.
+     */
+    private void toggleRecording() {
+        if (Boolean.TRUE.equals(Tracks.recording().getValue())) {
+            Tracks.stop(requireContext());
+        } else if (ContextCompat.checkSelfPermission(requireContext(), Manifest.permission.ACCESS_FINE_LOCATION)
+                == PackageManager.PERMISSION_GRANTED) {
+            Tracks.start(requireContext());
+        } else {
+            requestFineLocation.launch(Manifest.permission.ACCESS_FINE_LOCATION);
+        }
+    }
+
+    /**
+     * Draws the recorded track, reusing one polyline; the service has already simplified it.
+     */
+    private void showTrack(@Nullable List<GeoPoint> track) {
+        if (mMap == null || track == null) return;
+        List<LatLng> points = new ArrayList<>(track.size());
+        for (GeoPoint p : track) points.add(new LatLng(p.latitude, p.longitude));
+        if (trackLine == null) {
+            trackLine = mMap.addPolyline(new PolylineOptions().color(TRACK_COLOR).width(8f).geodesic(false));
+        }
+        trackLine.setPoints(points);
+    }
+
+    // --- Anchor watch ---
+
+    /**
+     * Stops the anchor watch, or asks for the swing radius and starts one with the anchor
+     * where the boat is now.
+     */
+    private void toggleAnchorWatch() {
+        if (Anchors.isRunning()) {
+            Anchors.stop(requireContext());
+            return;
+        }
+        if (ContextCompat.checkSelfPermission(requireContext(), Manifest.permission.ACCESS_FINE_LOCATION)
+                != PackageManager.PERMISSION_GRANTED) {
+            requestFineLocation.launch(Manifest.permission.ACCESS_FINE_LOCATION);
+            return;
+        }
+        View view = getLayoutInflater().inflate(R.layout.dialog_anchor_watch, null);
+        EditText radius = view.findViewById(R.id.etSwingRadius);
+        radius.setText(String.valueOf(Anchors.savedRadius(requireContext())));
+        new AlertDialog.Builder(requireContext())
+                .setTitle(R.string.anchor_watch_title)
+                .setView(view)
+                .setNegativeButton(android.R.string.cancel, null)
+                .setPositiveButton(R.string.anchor_watch_start, (d, which) -> {
+                    int metres;
+                    try {
+                        metres = Integer.parseInt(radius.getText().toString().trim());
+                    } catch (NumberFormatException e) {
+                        metres = 0;
+                    }
+                    if (metres <= 0) {
+                        Toast.makeText(requireContext(), "Enter a swing radius in metres", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    Anchors.start(requireContext(), metres);
+                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                            && ContextCompat.checkSelfPermission(requireContext(), Manifest.permission.POST_NOTIFICATIONS)
+                            != PackageManager.PERMISSION_GRANTED) {
+                        requestNotifications.launch(Manifest.permission.POST_NOTIFICATIONS);
+                    }
+                })
+                .show();
+    }
+
+    /**
+     * Updates the button, and draws the swing circle around the anchor, red once dragging.
+     */
+    private void showAnchorWatch(@Nullable Anchors.Status status) {
+        if (btnAnchorWatch != null) {
+            btnAnchorWatch.setText(status != null ? R.string.anchor_watch_stop : R.string.anchor_watch);
+        }
+        if (mMap == null) return;
+        if (status == null || Double.isNaN(status.anchorLat)) {
+            if (anchorCircle != null) {
+                anchorCircle.remove();
+                anchorCircle = null;
+            }
+            return;
+        }
+        int color = status.state == AnchorWatch.State.DRAGGING ? ANCHOR_ALARM_COLOR : ANCHOR_COLOR;
+        LatLng anchor = new LatLng(status.anchorLat, status.anchorLng);
+        if (anchorCircle == null) {
+            anchorCircle = mMap.addCircle(new CircleOptions().center(anchor).radius(status.radiusMetres)
+                    .strokeWidth(6f).strokeColor(color));
+        } else {
+            anchorCircle.setCenter(anchor);
+            anchorCircle.setRadius(status.radiusMetres);
+            anchorCircle.setStrokeColor(color);
+        }
+    }
+
+    /**
+     * Marks downloaded regions under the camera as recently used, so they are evicted last.
+     */
+    private void touchOfflineRegions(@NonNull LatLng target) {
+        OfflineRegionStore store = OfflineRegions.get(requireContext()).store();
+        long now = System.currentTimeMillis();
+        AppExecutors.get().io().execute(() -> {
+            try {
+                store.touch(target.latitude, target.longitude, now);
+            } catch (IOException e) {
+                Log.w("Offline", "Could not update offline region use", e);
+            }
+        });
+    }
+
     /**
      * Checks for location permission and enables the 'My Location' layer if granted.
      * If not granted, it launches the permission request.
@@ -0,0 +1,108 @@
+package com.example.sailspots.ui.maps;
+
+import android.util.SparseArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.sailspots.core.catalog.PlaceIdRegistry;
+import com.example.sailspots.core.model.MarinaItem;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.Marker;
+import com.google.android.gms.maps.model.MarkerOptions;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Keeps one map marker per marina, keyed by the marina's dense ID.
+ * Markers are looked up by int instead of by place ID string, and only markers whose
+ * marina actually changed are touched on each sync. Storage and every pass over it scale
+ * with the markers on the map, not with the largest ID, which a pack's block can make large.
+ */
+class MarinaMarkers {
+
+    private final GoogleMap map;
+    private final SparseArray<Marker> markers = new SparseArray<>();
+    private final SparseArray<MarinaItem> items = new SparseArray<>();
+    // Scratch set of the IDs present in the latest sync; reused between syncs.
+    private final BitSet present = new BitSet();
+
+    // Created lazily; BitmapDescriptorFactory needs the map to be initialized.
+    private BitmapDescriptor favoriteIcon;
+    private BitmapDescriptor defaultIcon;
+
+    MarinaMarkers(@NonNull GoogleMap map) {
+        this.map = map;
+    }
+
+    /**
+     * Adds, updates and removes markers so they match the given marinas.
+     * @param marinas The marinas currently shown in the list.
+     */
+    void sync(@NonNull List<MarinaItem> marinas) {
+        present.clear();
+        for (MarinaItem m : marinas) {
+            int id = m.id;
+            if (id == PlaceIdRegistry.NO_ID || m.latLng == null) continue;
+            present.set(id);
+
+            Marker marker = markers.get(id);
+            MarinaItem old = items.get(id);
+            if (marker == null) {
+                marker = map.addMarker(new MarkerOptions()
+                        .position(new LatLng(m.latLng.latitude, m.latLng.longitude))
+                        .title(m.name)
+                        .snippet(m.address)
+                        .icon(icon(m.isFavorite())));
+                if (marker == null) continue;
+                marker.setTag(id); // Boxed once per marker, read back on clicks.
+                markers.put(id, marker);
+            } else if (old == null || old.isFavorite() != m.isFavorite()) {
+                marker.setIcon(icon(m.isFavorite()));
+            }
+            items.put(id, m);
+        }
+
+        // Drop markers for marinas that are no longer listed; backwards, as removeAt() shifts.
+        for (int i = markers.size() - 1; i >= 0; i--) {
+            int id = markers.keyAt(i);
+            if (!present.get(id)) {
+                markers.valueAt(i).remove();
+                markers.removeAt(i);
+                items.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Finds the marina behind a marker, e.g. from a marker or info window click.
+     * @return The marina, or null if the marker is not one of ours.
+     */
+    @Nullable
+    MarinaItem itemFor(@NonNull Marker marker) {
+        Object tag = marker.getTag();
+        if (!(tag instanceof Integer)) return null;
+        return items.get((Integer) tag);
+    }
+
+    /**
+     * Removes every marker. Call when the map is torn down or cleared.
+     */
+    void clear() {
+        for (int i = 0; i < markers.size(); i++) markers.valueAt(i).remove();
+        markers.clear();
+        items.clear();
+    }
+
+    private BitmapDescriptor icon(boolean favorite) {
+        if (favoriteIcon == null) {
+            favoriteIcon = BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_ROSE);
+            defaultIcon = BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_AZURE);
+        }
+        return favorite ? favoriteIcon : defaultIcon;
+    }
+}
@@ -0,0 +1,103 @@
+// core/build.gradle.kts
+// Plain-JVM domain code (models, geo math, catalog algorithms) shared by :app.
+// No Android dependencies, so it can be unit tested and benchmarked with JMH on a workstation.
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+dependencies {
+    // Streaming JsonReader for dataset imports; also runs unchanged on Android.
+    implementation(libs.gson)
+    testImplementation(libs.junit)
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh.get()
+    // Pick benchmarks with -Pjmh.includes=SpatialIndex, e.g. ./gradlew :core:jmh -Pjmh.includes=Search
+    (project.findProperty("jmh.includes") as String?)?.let { includes = listOf(it) }
+    // Allocation rate per op alongside time; add "async" here when async-profiler is installed.
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+}
+
+// Converts a dataset into a marina pack asset, e.g.
+// ./gradlew :core:marinaPack -Pin=/data/marinas.geojson -Pout=../app/src/main/assets/marinas.pack
+tasks.register<JavaExec>("marinaPack") {
+    group = "sailspots"
+    description = "Builds a memory-mappable marina pack from a GeoJSON or CSV dataset."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.example.sailspots.core.catalog.MarinaPackTool")
+    args(listOfNotNull(
+        project.findProperty("in") as String?,
+        project.findProperty("out") as String?,
+        project.findProperty("cellDegrees") as String?,
+    ))
+}
+
+// Splits a dataset into geohash tiles for delta sync, e.g.
+// ./gradlew :core:marinaTiles -Pin=/data/marinas.geojson -Pout=/srv/catalog -Pprecision=3
+tasks.register<JavaExec>("marinaTiles") {
+    group = "sailspots"
+    description = "Publishes a dataset as geohash tile packs plus manifest.json."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.example.sailspots.core.sync.MarinaTiler")
+    args(listOfNotNull(
+        project.findProperty("in") as String?,
+        project.findProperty("out") as String?,
+        project.findProperty("precision") as String?,
+    ))
+}
+
+// Rasterizes coastline (GeoJSON land polygons) into a water grid for sailing distances, e.g.
+// ./gradlew :core:waterGrid -Pin=/data/land.geojson -Pout=../app/src/main/assets/water.grid -Pbox=36,-77,40,-73
+tasks.register<JavaExec>("waterGrid") {
+    group = "sailspots"
+    description = "Builds a multi-level navigable-water grid from land polygons."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.example.sailspots.core.routing.WaterGridTool")
+    args(listOfNotNull(
+        project.findProperty("in") as String?,
+        project.findProperty("out") as String?,
+    ) + ((project.findProperty("box") as String?)?.split(",") ?: emptyList()) + listOfNotNull(
+        project.findProperty("cellDegrees") as String?,
+    ))
+}
+
+// Cuts a bathymetry grid (ESRI ASCII, elevations) into one-degree depth tiles for the app to
+// copy into files/datasets/depth/ (add -Pdepths if the grid is already depths), e.g.
+// ./gradlew :core:depthTiles -Pin=/data/gebco.asc -Pout=/data/depth
+tasks.register<JavaExec>("depthTiles") {
+    group = "sailspots"
+    description = "Builds memory-mappable depth tiles from an ESRI ASCII bathymetry grid."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.example.sailspots.core.routing.DepthTool")
+    args(listOfNotNull(
+        project.findProperty("in") as String?,
+        project.findProperty("out") as String?,
+        if (project.hasProperty("depths")) "depth" else null,
+    ))
+}
+
+// Serves a recorded NMEA log over TCP, looping, as a boat's Wi-Fi gateway would; point the app's
+// instruments_feed_url at it (tcp://10.0.2.2:10110 from the emulator). Defaults to the test log, e.g.
+// ./gradlew :core:nmeaReplay -Pin=/data/passage.nmea -Pport=10110 -Pspeed=2
+tasks.register<JavaExec>("nmeaReplay") {
+    group = "sailspots"
+    description = "Replays a recorded NMEA instrument log over TCP."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.example.sailspots.core.nmea.NmeaReplay")
+    args(listOfNotNull(
+        project.findProperty("in") as String? ?: "src/test/resources/nmea/sample.nmea",
+        project.findProperty("port") as String? ?: "10110",
+        project.findProperty("speed") as String?,
+    ))
+}
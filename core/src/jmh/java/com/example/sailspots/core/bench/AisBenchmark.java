@@ -0,0 +1,77 @@
+package com.example.sailspots.core.bench;
+
+import com.example.sailspots.core.ais.AisDecoder;
+import com.example.sailspots.core.ais.AisSimulator;
+import com.example.sailspots.core.ais.AisTargets;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding a busy harbor's AIS traffic into the target table, and draining it once a frame.
+ * The gc profiler should show no allocation per sentence.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AisBenchmark {
+
+    private static final int VESSELS = 500;
+    private static final int STEPS = AisSimulator.STATIC_EVERY;
+
+    private byte[][] sentences;
+    private int[] stepEnds;  // Index past each step's last sentence.
+    private AisTargets targets;
+    private AisDecoder decoder;
+    private AisTargets.Changes changes;
+
+    @Setup
+    public void setUp() {
+        // A minute of traffic, static reports included, recorded once.
+        AisSimulator sim = new AisSimulator(41.5, -71.3, 10, VESSELS, 1);
+        List<byte[]> recorded = new ArrayList<>();
+        stepEnds = new int[STEPS];
+        for (int s = 0; s < STEPS; s++) {
+            sim.step(2, (buf, off, len) -> recorded.add(Arrays.copyOfRange(buf, off, off + len)));
+            stepEnds[s] = recorded.size();
+        }
+        sentences = recorded.toArray(new byte[0][]);
+        targets = new AisTargets(1024);
+        decoder = new AisDecoder(targets, () -> 0);
+        changes = new AisTargets.Changes(targets.capacity());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VESSELS * STEPS)
+    public int decode() {
+        int n = 0;
+        for (byte[] s : sentences) {
+            if (decoder.decode(s, 0, s.length, 0)) n++;
+        }
+        return n + targets.drain(changes);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STEPS)
+    public int decodeAndDrainPerStep() {
+        // One drain per simulated step, as the map does once a frame.
+        int n = 0;
+        int s = 0;
+        for (int end : stepEnds) {
+            for (; s < end; s++) decoder.decode(sentences[s], 0, sentences[s].length, 0);
+            n += targets.drain(changes);
+        }
+        return n;
+    }
+}
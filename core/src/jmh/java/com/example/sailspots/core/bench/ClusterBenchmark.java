@@ -0,0 +1,51 @@
+package com.example.sailspots.core.bench;
+
+import com.example.sailspots.core.catalog.MarinaCatalog;
+import com.example.sailspots.core.catalog.MarinaClusterer;
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.geo.GeoPoint;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marker clustering of one viewport at a zoomed-out and a harbor-level zoom.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ClusterBenchmark {
+
+    @Param({"100000"})
+    public int size;
+
+    @Param({"6", "11"})
+    public double zoom;
+
+    private MarinaCatalog catalog;
+    private BoundingBox viewport;
+    private final MarinaClusterer clusterer = new MarinaClusterer(64);
+
+    @Setup
+    public void setUp() {
+        catalog = Fixtures.catalog(size, 200, 7);
+        GeoPoint center = catalog.get(0).latLng;
+        // Half-width of a 400px-wide screen at this zoom, in miles.
+        double radius = 200 * 360.0 / (256 * Math.pow(2, zoom)) * 69.0;
+        viewport = BoundingBox.around(center, radius);
+    }
+
+    @Benchmark
+    public List<MarinaClusterer.Cluster> cluster() {
+        return clusterer.cluster(catalog.index(), viewport, zoom);
+    }
+}
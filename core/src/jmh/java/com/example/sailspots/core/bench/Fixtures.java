@@ -0,0 +1,45 @@
+package com.example.sailspots.core.bench;
+
+import com.example.sailspots.core.catalog.MarinaCatalog;
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.model.MarinaItem;
+
+import java.util.Random;
+
+/**
+ * Synthetic catalogs shaped like real coastlines: marinas bunch up around harbors
+ * instead of being spread uniformly.
+ */
+final class Fixtures {
+
+    private static final String[] WORDS = {
+            "Harbor", "Bay", "Yacht", "Club", "Marina", "Cove", "Point", "Landing", "Boatyard",
+            "Anchorage", "Island", "Creek", "Port", "Pier", "Basin", "Sailing", "Shore", "Inlet"
+    };
+
+    private Fixtures() { }
+
+    /**
+     * A catalog of {@code count} marinas around {@code harbors} random harbor centers
+     * along the US East Coast.
+     */
+    static MarinaCatalog catalog(int count, int harbors, long seed) {
+        Random rnd = new Random(seed);
+        double[] hLat = new double[harbors];
+        double[] hLng = new double[harbors];
+        for (int h = 0; h < harbors; h++) {
+            hLat[h] = 25.0 + rnd.nextDouble() * 20.0;
+            hLng[h] = -81.0 + rnd.nextDouble() * 11.0;
+        }
+        MarinaCatalog catalog = new MarinaCatalog();
+        for (int i = 0; i < count; i++) {
+            int h = rnd.nextInt(harbors);
+            double lat = hLat[h] + rnd.nextGaussian() * 0.08;
+            double lng = hLng[h] + rnd.nextGaussian() * 0.08;
+            String name = WORDS[rnd.nextInt(WORDS.length)] + " " + WORDS[rnd.nextInt(WORDS.length)] + " " + i;
+            String address = (1 + rnd.nextInt(9999)) + " " + WORDS[rnd.nextInt(WORDS.length)] + " Rd";
+            catalog.add(new MarinaItem(name, address, "place" + i, new GeoPoint(lat, lng), 0, false));
+        }
+        return catalog;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.sailspots.core.bench;
+
+import com.example.sailspots.core.geo.GeoMath;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exact haversine versus the equirectangular approximation used for ranking and pruning.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GeoMathBenchmark {
+
+    private static final int N = 1024;
+
+    private final double[] lat = new double[N];
+    private final double[] lng = new double[N];
+
+    @Setup
+    public void setUp() {
+        Random rnd = new Random(1);
+        for (int i = 0; i < N; i++) {
+            lat[i] = 25.0 + rnd.nextDouble() * 20.0;
+            lng[i] = -81.0 + rnd.nextDouble() * 11.0;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N - 1)
+    public double haversine() {
+        double sum = 0;
+        for (int i = 1; i < N; i++) sum += GeoMath.haversineMiles(lat[i - 1], lng[i - 1], lat[i], lng[i]);
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N - 1)
+    public double approx() {
+        double sum = 0;
+        for (int i = 1; i < N; i++) sum += GeoMath.approxMiles(lat[i - 1], lng[i - 1], lat[i], lng[i]);
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N - 1)
+    public double bearing() {
+        double sum = 0;
+        for (int i = 1; i < N; i++) sum += GeoMath.bearingDegrees(lat[i - 1], lng[i - 1], lat[i], lng[i]);
+        return sum;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.sailspots.core.bench;
+
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.routing.BoatPolar;
+import com.example.sailspots.core.routing.IsochroneRouter;
+import com.example.sailspots.core.weather.GridWindField;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A 24-hour upwind-and-across passage under a veering gridded forecast, at one and four
+ * fork/join threads. The "expansions" counter is the candidate points evaluated per second,
+ * the throughput figure that matters as passages get longer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class IsochroneBenchmark {
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private ForkJoinPool pool;
+    private IsochroneRouter router;
+    private final GeoPoint from = new GeoPoint(41.0, -71.0);
+    private final GeoPoint to = new GeoPoint(42.4, -69.2);
+
+    /**
+     * Counted per invocation and reported by JMH as a rate.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long expansions;
+    }
+
+    @Setup
+    public void setUp() {
+        pool = new ForkJoinPool(parallelism);
+        router = new IsochroneRouter(BoatPolar.cruiser(), forecast(), pool).setMaxHours(24);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public IsochroneRouter.Route route(Counters counters) {
+        IsochroneRouter.Route route = router.route(from, to, 0);
+        counters.expansions += route.candidates;
+        return route;
+    }
+
+    /**
+     * A quarter-degree grid whose wind backs from north-east to south-west over two days,
+     * with some noise so neighboring cells differ.
+     */
+    private static GridWindField forecast() {
+        int cols = 25;
+        int rows = 17;
+        int times = 17;
+        Random random = new Random(42);
+        float[][] u = new float[times][cols * rows];
+        float[][] v = new float[times][cols * rows];
+        long[] at = new long[times];
+        for (int t = 0; t < times; t++) {
+            at[t] = t * 3 * 3_600_000L;
+            double from = Math.toRadians(45 + 180.0 * t / (times - 1));
+            for (int i = 0; i < cols * rows; i++) {
+                double mps = 6 + random.nextDouble() * 2;
+                u[t][i] = (float) (-mps * Math.sin(from));
+                v[t][i] = (float) (-mps * Math.cos(from));
+            }
+        }
+        return new GridWindField(40, -72, 0.25, 0.25, cols, rows, at, u, v);
+    }
+}
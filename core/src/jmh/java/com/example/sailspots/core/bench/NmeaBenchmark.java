@@ -0,0 +1,93 @@
+package com.example.sailspots.core.bench;
+
+import com.example.sailspots.core.nmea.InstrumentDecoder;
+import com.example.sailspots.core.nmea.InstrumentSlots;
+import com.example.sailspots.core.nmea.NmeaReplay;
+import com.example.sailspots.core.nmea.NmeaSentence;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replaying a minute of a busy instrument feed through the tokenizer and decoder, and the
+ * UI's once-a-frame snapshot of the result. The gc profiler should show no allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NmeaBenchmark {
+
+    // A minute at 10 Hz, each tick wind, depth, speed, heading and a fix.
+    private static final int TICKS = 600;
+    private static final int PER_TICK = 6;
+
+    private NmeaReplay replay;
+    private NmeaSentence sentence;
+    private InstrumentSlots slots;
+    private InstrumentDecoder decoder;
+    private InstrumentSlots.Snapshot snapshot;
+    private int fields;
+
+    @Setup
+    public void setUp() {
+        StringBuilder log = new StringBuilder();
+        for (int t = 0; t < TICKS; t++) {
+            double s = Math.sin(t / 20.0);
+            line(log, "WIMWV,%.1f,R,%.1f,N,A", 38 + 5 * s, 14 + 2 * s);
+            line(log, "SDDPT,%.1f,0.4,", 6 + s);
+            line(log, "VWVHW,,T,%.1f,M,%.2f,N,,K", 212 + s, 5.8 + s / 4);
+            line(log, "HCHDG,%.1f,,,14.5,W", 212 + s);
+            line(log, "GPRMC,1233%02d.%d0,A,4129.%04d,N,07119.%04d,W,6.1,201.8,181026,14.5,W,A",
+                    t / 10 % 60, t % 10, 3000 + t, 4700 + t);
+            line(log, "WIMWD,%.1f,T,%.1f,M,%.1f,N,,M", 265 + s, 280 + s, 11 + s);
+        }
+        replay = NmeaReplay.parse(log.toString().getBytes(StandardCharsets.US_ASCII));
+        sentence = new NmeaSentence();
+        slots = new InstrumentSlots();
+        decoder = new InstrumentDecoder(slots, () -> 1);
+        snapshot = new InstrumentSlots.Snapshot();
+    }
+
+    private static void line(StringBuilder log, String format, Object... args) {
+        String body = String.format(Locale.ROOT, format, args);
+        int sum = 0;
+        for (int i = 0; i < body.length(); i++) sum ^= body.charAt(i);
+        log.append('$').append(body).append(String.format(Locale.ROOT, "*%02X\n", sum));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TICKS * PER_TICK)
+    public int tokenize() {
+        fields = 0;
+        replay.play((buf, off, len) -> {
+            if (sentence.wrap(buf, off, len) == NmeaSentence.OK) fields += sentence.fields();
+        });
+        return fields;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TICKS * PER_TICK)
+    public long decode() {
+        replay.play(decoder);
+        return decoder.decoded();
+    }
+
+    @Benchmark
+    public boolean snapshotPerFrame() {
+        // A frame after a write, as the panel sees a 10 Hz feed.
+        slots.begin(1);
+        slots.put(InstrumentSlots.AWS, 14);
+        slots.end();
+        return slots.snapshot(snapshot);
+    }
+}
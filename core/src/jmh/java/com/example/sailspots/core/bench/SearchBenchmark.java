@@ -0,0 +1,48 @@
+package com.example.sailspots.core.bench;
+
+import com.example.sailspots.core.catalog.MarinaCatalog;
+import com.example.sailspots.core.catalog.MarinaSearch;
+import com.example.sailspots.core.geo.GeoPoint;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranked search for a short and a two-word query, with a proximity bonus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchBenchmark {
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    @Param({"har", "yacht club"})
+    public String query;
+
+    private MarinaSearch search;
+    private GeoPoint origin;
+
+    @Setup
+    public void setUp() {
+        MarinaCatalog catalog = Fixtures.catalog(size, 200, 7);
+        search = new MarinaSearch(catalog);
+        origin = catalog.get(0).latLng;
+        search.search("warm up", origin, 1); // normalizes the catalog outside the measurement
+    }
+
+    @Benchmark
+    public List<MarinaSearch.Hit> search() {
+        return search.search(query, origin, 20);
+    }
+}
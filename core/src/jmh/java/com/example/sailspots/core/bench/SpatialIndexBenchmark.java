@@ -0,0 +1,76 @@
+package com.example.sailspots.core.bench;
+
+import com.example.sailspots.core.catalog.MarinaCatalog;
+import com.example.sailspots.core.catalog.SpatialGridIndex;
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.util.IntList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Viewport and k-nearest queries against the grid index, compared with a linear scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SpatialIndexBenchmark {
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    private SpatialGridIndex index;
+    private GeoPoint[] probes;
+    private BoundingBox[] viewports;
+    private final IntList hits = new IntList(1024);
+    private final int[] idx = new int[20];
+    private final double[] miles = new double[20];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        MarinaCatalog catalog = Fixtures.catalog(size, 200, 7);
+        index = catalog.index();
+        Random rnd = new Random(3);
+        probes = new GeoPoint[256];
+        viewports = new BoundingBox[256];
+        for (int i = 0; i < probes.length; i++) {
+            GeoPoint p = catalog.get(rnd.nextInt(size)).latLng;
+            probes[i] = p;
+            // Roughly a phone screen at zoom 11.
+            viewports[i] = BoundingBox.around(p, 12.0);
+        }
+        index.queryBox(viewports[0], hits); // build once outside the measurement
+    }
+
+    @Benchmark
+    public int viewportQuery() {
+        return index.queryBox(viewports[next++ & 255], hits);
+    }
+
+    @Benchmark
+    public int nearest20() {
+        GeoPoint p = probes[next++ & 255];
+        return index.nearest(p.latitude, p.longitude, 20, idx, miles);
+    }
+
+    @Benchmark
+    public int linearScanViewport() {
+        BoundingBox box = viewports[next++ & 255];
+        int n = 0;
+        for (int i = 0; i < index.size(); i++) {
+            if (box.contains(index.latitude(i), index.longitude(i))) n++;
+        }
+        return n;
+    }
+}
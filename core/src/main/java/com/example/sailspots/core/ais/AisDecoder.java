@@ -0,0 +1,253 @@
+package com.example.sailspots.core.ais;
+
+import com.example.sailspots.core.nmea.NmeaSentence;
+import com.example.sailspots.core.nmea.SentenceReader;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Decodes AIS reports from !AIVDM sentences into AisTargets, straight from the reader's
+ * buffer: the 6-bit armored payload is unpacked into a reused sextet array and fields are
+ * read from it bit by bit, so a sentence costs no allocation.
+ *
+ * Handles position reports from class A (types 1-3) and class B (18, 19) transponders, and
+ * vessel names from static reports (5, split over two sentences, and 24 part A). Multi-part
+ * messages are reassembled when their parts arrive in order, as receivers send them; other
+ * types and !AIVDO (the boat's own transponder) are counted and skipped. Sentences with a
+ * bad or missing checksum are dropped.
+ *
+ * Not thread-safe: one decoder per feed thread.
+ */
+public final class AisDecoder implements SentenceReader.Handler {
+
+    // The most sextets a message can span: five sentences of up to 82 characters.
+    private static final int MAX_SEXTETS = 5 * 82;
+    // Unavailable values, per ITU-R M.1371.
+    private static final int LNG_UNAVAILABLE = 181 * 600_000;
+    private static final int LAT_UNAVAILABLE = 91 * 600_000;
+    private static final int SOG_UNAVAILABLE = 1023;
+    private static final int COG_UNAVAILABLE = 3600;
+    private static final int HEADING_UNAVAILABLE = 511;
+
+    private final AisTargets targets;
+    private final LongSupplier clock;
+    private final byte[] sextets = new byte[MAX_SEXTETS];
+    private int bits;            // Payload bits assembled so far.
+    private int partsExpected;   // Of the message being assembled; 0 when none.
+    private int partsSeen;
+    private int sequence;        // Its sequential message id, or -1.
+    private final int[] fields = new int[8];  // Start of each comma-separated field.
+    private final char[] text = new char[AisTargets.MAX_NAME];
+
+    private long messages;
+    private long badChecksums;
+    private long malformed;
+    private long unsupported;
+    private long partsDropped;
+
+    public AisDecoder(AisTargets targets) {
+        this(targets, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock Stamps each report's arrival, in milliseconds.
+     */
+    public AisDecoder(AisTargets targets, LongSupplier clock) {
+        this.targets = targets;
+        this.clock = clock;
+    }
+
+    @Override
+    public void onSentence(byte[] buf, int off, int len) {
+        decode(buf, off, len, clock.getAsLong());
+    }
+
+    /**
+     * Decodes one sentence, or one part of a multi-part message.
+     * @return True if it completed a message that updated a target.
+     */
+    public boolean decode(byte[] buf, int off, int len, long nowMillis) {
+        int end = off + len;
+        // Skip anything before the start, such as an NMEA 4.0 tag block.
+        int start = off;
+        while (start < end && buf[start] != '!') start++;
+        if (end - start < 15) {
+            malformed++;
+            return false;
+        }
+        if (!NmeaSentence.checksumOk(buf, start, end)) {
+            badChecksums++;
+            return false;
+        }
+        // !AIVDM: talker AI (or another), then VDM; VDO is our own boat.
+        if (buf[start + 3] != 'V' || buf[start + 4] != 'D' || buf[start + 5] != 'M') {
+            unsupported++;
+            return false;
+        }
+        int n = 0;
+        for (int i = start; i < end && buf[i] != '*' && n < fields.length; i++) {
+            if (buf[i] == ',') fields[n++] = i + 1;
+        }
+        if (n < 6) {
+            malformed++;
+            return false;
+        }
+        int count = digit(buf[fields[0]]);
+        int number = digit(buf[fields[1]]);
+        int seq = fields[3] - fields[2] > 1 ? digit(buf[fields[2]]) : -1;
+        if (count < 1 || number < 1 || number > count) {
+            malformed++;
+            return false;
+        }
+        if (number == 1) {
+            if (partsExpected != 0) partsDropped += partsSeen;  // Never finished.
+            bits = 0;
+            partsExpected = count;
+            partsSeen = 0;
+            sequence = seq;
+        } else if (count != partsExpected || number != partsSeen + 1 || seq != sequence) {
+            // Out of order, or its first part was lost: drop this part and any in progress.
+            partsDropped += 1 + (partsExpected != 0 ? partsSeen : 0);
+            partsExpected = 0;
+            return false;
+        }
+        partsSeen++;
+        int payloadEnd = fields[5] - 1;
+        int fill = digit(buf[fields[5]]);
+        for (int i = fields[4]; i < payloadEnd; i++) {
+            int v = buf[i] - 48;
+            if (v > 40) v -= 8;
+            if (v < 0 || v > 63 || bits / 6 >= MAX_SEXTETS) {
+                malformed++;
+                partsExpected = 0;
+                return false;
+            }
+            sextets[bits / 6] = (byte) v;
+            bits += 6;
+        }
+        if (number < count) return false;  // Wait for the rest.
+        partsExpected = 0;
+        if (fill > 0 && fill < 6) bits -= fill;
+        messages++;
+        return message(nowMillis);
+    }
+
+    private boolean message(long now) {
+        if (bits < 38) {
+            malformed++;
+            return false;
+        }
+        int type = (int) unsigned(0, 6);
+        int mmsi = (int) unsigned(8, 30);
+        if (mmsi == 0) {
+            malformed++;
+            return false;
+        }
+        switch (type) {
+            case 1: case 2: case 3:
+                if (bits < 137) break;
+                return position(mmsi, now, unsigned(50, 10), signed(61, 28), signed(89, 27),
+                        unsigned(116, 12), unsigned(128, 9));
+            case 18: case 19: {
+                if (bits < 133) break;
+                boolean moved = position(mmsi, now, unsigned(46, 10), signed(57, 28), signed(85, 27),
+                        unsigned(112, 12), unsigned(124, 9));
+                if (type == 19 && bits >= 271) {
+                    targets.staticData(mmsi, now, text, text(143, 20), (int) unsigned(263, 8));
+                }
+                return moved;
+            }
+            case 5:
+                if (bits < 240) break;
+                targets.staticData(mmsi, now, text, text(112, 20), (int) unsigned(232, 8));
+                return true;
+            case 24: {
+                int part = (int) unsigned(38, 2);
+                if (part == 0 && bits >= 160) {
+                    targets.staticData(mmsi, now, text, text(40, 20), -1);
+                    return true;
+                }
+                if (part == 1 && bits >= 48) {
+                    targets.staticData(mmsi, now, text, 0, (int) unsigned(40, 8));
+                    return true;
+                }
+                break;
+            }
+            default:
+                unsupported++;
+                return false;
+        }
+        malformed++;  // Too short for its type.
+        return false;
+    }
+
+    private boolean position(int mmsi, long now, long sog, long lng, long lat, long cog, long heading) {
+        if (lng == LNG_UNAVAILABLE || lat == LAT_UNAVAILABLE || Math.abs(lat) > 90 * 600_000
+                || Math.abs(lng) > 180 * 600_000) {
+            return false;  // A report without a fix.
+        }
+        targets.position(mmsi, now, lat / 600_000.0, lng / 600_000.0,
+                sog == SOG_UNAVAILABLE ? Float.NaN : sog / 10f,
+                cog >= COG_UNAVAILABLE ? Float.NaN : cog / 10f,
+                heading == HEADING_UNAVAILABLE || heading >= 360 ? AisTargets.NO_HEADING : (int) heading);
+        return true;
+    }
+
+    // --- Payload bits ---
+
+    private long unsigned(int from, int count) {
+        long v = 0;
+        int end = from + count;
+        // A sextet's worth at a time: the part of each sextet that lies in [from, end).
+        for (int i = from; i < end; ) {
+            int offset = i % 6;
+            int take = Math.min(6 - offset, end - i);
+            v = (v << take) | ((sextets[i / 6] >> (6 - offset - take)) & ((1 << take) - 1));
+            i += take;
+        }
+        return v;
+    }
+
+    private long signed(int from, int count) {
+        long v = unsigned(from, count);
+        return (v << (64 - count)) >> (64 - count);
+    }
+
+    /**
+     * Unpacks 6-bit text into the text buffer, dropping the trailing '@' padding and spaces.
+     * @return Its length.
+     */
+    private int text(int from, int chars) {
+        int n = 0;
+        for (int k = 0; k < chars && from + 6 * (k + 1) <= bits; k++) {
+            int v = (int) unsigned(from + 6 * k, 6);
+            text[n++] = (char) (v < 32 ? v + 64 : v);
+        }
+        while (n > 0 && (text[n - 1] == '@' || text[n - 1] == ' ')) n--;
+        return n;
+    }
+
+    // --- Sentence ---
+
+    private static int digit(byte b) {
+        return b >= '0' && b <= '9' ? b - '0' : -1;
+    }
+
+    // --- Stats ---
+
+    public long messages() { return messages; }
+
+    public long badChecksums() { return badChecksums; }
+
+    public long malformed() { return malformed; }
+
+    public long unsupported() { return unsupported; }
+
+    public long partsDropped() { return partsDropped; }
+
+    @Override
+    public String toString() {
+        return "AisDecoder{" + messages + " messages, " + badChecksums + " bad checksums, " + malformed
+                + " malformed, " + unsupported + " unsupported, " + partsDropped + " parts dropped}";
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.sailspots.core.ais;
+
+import com.example.sailspots.core.nmea.SentenceReader;
+
+import java.util.Random;
+
+/**
+ * Stands in for an AIS receiver: a fleet of vessels steaming straight courses around a
+ * point, turning back at the edge of the area, that report as real transponders do in
+ * !AIVDM sentences. Used by tests and benchmarks, and by the app when no receiver is set
+ * up, to exercise the decoder and map overlay with a busy harbor's worth of traffic.
+ *
+ * Every step sends one position report per vessel (type 1 for class A ships, 18 for class B
+ * yachts) and, every STATIC_EVERY steps, its name and type (type 5 over two sentences, or
+ * type 24 parts A and B). Sentences are built in a reused buffer, so stepping allocates
+ * nothing. Not thread-safe.
+ */
+public final class AisSimulator {
+
+    // Steps between static reports; real class A ships send them every six minutes.
+    public static final int STATIC_EVERY = 30;
+    private static final int SAILING = 36;
+    private static final int CARGO = 70;
+    private static final int PASSENGER = 60;
+
+    private final double centerLat;
+    private final double centerLng;
+    private final double radiusMiles;
+    private final int[] mmsi;
+    private final double[] lat;
+    private final double[] lng;
+    private final float[] sog;
+    private final float[] cog;
+    private final boolean[] classB;
+    private final char[][] names;
+    private final int[] types;
+    private long steps;
+    private int sequence;
+
+    private final byte[] sextets = new byte[72];
+    private int bits;
+    private final byte[] sentence = new byte[100];
+
+    /**
+     * @param radiusMiles The vessels start within this distance and turn back beyond it.
+     * @param seed        Seeds the fleet, so a simulation can be repeated exactly.
+     */
+    public AisSimulator(double lat, double lng, double radiusMiles, int vessels, long seed) {
+        this.centerLat = lat;
+        this.centerLng = lng;
+        this.radiusMiles = radiusMiles;
+        mmsi = new int[vessels];
+        this.lat = new double[vessels];
+        this.lng = new double[vessels];
+        sog = new float[vessels];
+        cog = new float[vessels];
+        classB = new boolean[vessels];
+        names = new char[vessels][];
+        types = new int[vessels];
+        Random rnd = new Random(seed);
+        double cosLat = Math.cos(Math.toRadians(lat));
+        for (int i = 0; i < vessels; i++) {
+            mmsi[i] = 366_000_000 + 1000 * i + rnd.nextInt(1000);
+            double r = radiusMiles * Math.sqrt(rnd.nextDouble());
+            double a = rnd.nextDouble() * 2 * Math.PI;
+            this.lat[i] = lat + r * Math.cos(a) / 60;
+            this.lng[i] = lng + r * Math.sin(a) / (60 * cosLat);
+            classB[i] = i % 4 != 0;  // Mostly yachts.
+            sog[i] = classB[i] ? 3 + rnd.nextInt(60) / 10f : 8 + rnd.nextInt(120) / 10f;
+            cog[i] = rnd.nextInt(3600) / 10f;
+            types[i] = classB[i] ? SAILING : i % 8 == 0 ? CARGO : PASSENGER;
+            names[i] = ((classB[i] ? "SIM YACHT " : "SIM SHIP ") + (i + 1)).toCharArray();
+        }
+    }
+
+    public int vessels() { return mmsi.length; }
+
+    public int mmsi(int i) { return mmsi[i]; }
+
+    public double lat(int i) { return lat[i]; }
+
+    public double lng(int i) { return lng[i]; }
+
+    public String name(int i) { return new String(names[i]); }
+
+    public int shipType(int i) { return types[i]; }
+
+    /**
+     * Moves every vessel on and sends its reports.
+     * @return How many sentences were sent.
+     */
+    public int step(double seconds, SentenceReader.Handler out) {
+        boolean statics = steps++ % STATIC_EVERY == 0;
+        int sent = 0;
+        for (int i = 0; i < mmsi.length; i++) {
+            move(i, seconds);
+            sent += classB[i] ? positionB(i, out) : positionA(i, out);
+            if (statics) sent += classB[i] ? staticB(i, out) : staticA(i, out);
+        }
+        return sent;
+    }
+
+    private void move(int i, double seconds) {
+        double miles = sog[i] * seconds / 3600;
+        double c = Math.toRadians(cog[i]);
+        lat[i] += miles * Math.cos(c) / 60;
+        lng[i] += miles * Math.sin(c) / (60 * Math.cos(Math.toRadians(lat[i])));
+        double dy = (lat[i] - centerLat) * 60;
+        double dx = (lng[i] - centerLng) * 60 * Math.cos(Math.toRadians(centerLat));
+        if (dx * dx + dy * dy > radiusMiles * radiusMiles) {
+            // Head back toward the middle.
+            cog[i] = (float) ((Math.toDegrees(Math.atan2(-dx, -dy)) + 360) % 360);
+        }
+    }
+
+    // --- Messages, per ITU-R M.1371 ---
+
+    private int positionA(int i, SentenceReader.Handler out) {
+        header(1, i);
+        put(0, 4);                                   // Navigational status: under way.
+        put(0x80, 8);                                // Rate of turn: not available.
+        putPosition(i);
+        put(Math.round(cog[i] * 10) % 3600, 12);
+        put(Math.round(cog[i]) % 360, 9);            // Heading.
+        put(60, 6);                                  // Timestamp: not available.
+        put(0, 25);                                  // Manoeuvre, spare, RAIM, radio status.
+        return send(out);
+    }
+
+    private int positionB(int i, SentenceReader.Handler out) {
+        header(18, i);
+        put(0, 8);                                   // Reserved.
+        putPosition(i);
+        put(Math.round(cog[i] * 10) % 3600, 12);
+        put(511, 9);                                 // Heading: not available, as on most yachts.
+        put(60, 6);
+        put(0, 29);                                  // Flags and radio status.
+        return send(out);
+    }
+
+    private int staticA(int i, SentenceReader.Handler out) {
+        header(5, i);
+        put(0, 2);                                   // AIS version.
+        put(9_000_000 + i, 30);                      // IMO number.
+        putText("SIM", 7);                           // Call sign.
+        putText(names[i], 20);
+        put(types[i], 8);
+        put(0, 424 - bits);                          // Dimensions, ETA, draught, destination.
+        return send(out);
+    }
+
+    private int staticB(int i, SentenceReader.Handler out) {
+        header(24, i);
+        put(0, 2);                                   // Part A: the name.
+        putText(names[i], 20);
+        put(0, 8);                                   // Spare.
+        int sent = send(out);
+        header(24, i);
+        put(1, 2);                                   // Part B: type, vendor, call sign, size.
+        put(types[i], 8);
+        put(0, 42);
+        putText("SIM", 7);
+        put(0, 36);                                  // Dimensions, spare.
+        return sent + send(out);
+    }
+
+    private void header(int type, int i) {
+        bits = 0;
+        put(type, 6);
+        put(0, 2);                                   // Repeat indicator.
+        put(mmsi[i], 30);
+    }
+
+    // Speed, accuracy, longitude and latitude, laid out alike in types 1 and 18.
+    private void putPosition(int i) {
+        put(Math.round(sog[i] * 10), 10);
+        put(1, 1);                                   // Position accuracy: high.
+        put(Math.round(lng[i] * 600_000), 28);
+        put(Math.round(lat[i] * 600_000), 27);
+    }
+
+    private void put(long value, int count) {
+        for (int k = count - 1; k >= 0; k--) {
+            int s = bits / 6;
+            if (bits % 6 == 0) sextets[s] = 0;
+            sextets[s] |= (byte) (((value >> k) & 1) << (5 - bits % 6));
+            bits++;
+        }
+    }
+
+    private void putText(CharSequence s, int chars) {
+        for (int k = 0; k < chars; k++) put(k < s.length() ? sixBit(s.charAt(k)) : 0, 6);
+    }
+
+    private void putText(char[] s, int chars) {
+        for (int k = 0; k < chars; k++) put(k < s.length ? sixBit(s[k]) : 0, 6);
+    }
+
+    private static int sixBit(char c) {
+        return c >= 64 ? (c - 64) & 0x3F : c & 0x3F;
+    }
+
+    /**
+     * Armors the message and sends it, split into sentences of at most 60 characters.
+     * @return How many sentences it took.
+     */
+    private int send(SentenceReader.Handler out) {
+        int chars = (bits + 5) / 6;
+        int fill = chars * 6 - bits;
+        int parts = (chars + 59) / 60;
+        int seq = -1;  // Sequential message id, tying the parts of one message together.
+        if (parts > 1) seq = sequence = (sequence + 1) % 10;
+        for (int p = 0; p < parts; p++) {
+            int n = 0;
+            n = ascii("!AIVDM,", n);
+            sentence[n++] = (byte) ('0' + parts);
+            sentence[n++] = ',';
+            sentence[n++] = (byte) ('1' + p);
+            sentence[n++] = ',';
+            if (seq >= 0) sentence[n++] = (byte) ('0' + seq);
+            n = ascii(",A,", n);
+            for (int c = p * 60; c < Math.min(chars, (p + 1) * 60); c++) {
+                int v = sextets[c];
+                sentence[n++] = (byte) (v < 40 ? v + 48 : v + 56);
+            }
+            sentence[n++] = ',';
+            sentence[n++] = (byte) ('0' + (p == parts - 1 ? fill : 0));
+            int sum = 0;
+            for (int k = 1; k < n; k++) sum ^= sentence[k];
+            sentence[n++] = '*';
+            sentence[n++] = (byte) Character.toUpperCase(Character.forDigit(sum >> 4, 16));
+            sentence[n++] = (byte) Character.toUpperCase(Character.forDigit(sum & 15, 16));
+            out.onSentence(sentence, 0, n);
+        }
+        return parts;
+    }
+
+    private int ascii(String s, int n) {
+        for (int k = 0; k < s.length(); k++) sentence[n++] = (byte) s.charAt(k);
+        return n;
+    }
+}
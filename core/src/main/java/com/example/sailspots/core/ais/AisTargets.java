@@ -0,0 +1,399 @@
+package com.example.sailspots.core.ais;
+
+/**
+ * The latest state of every vessel heard on AIS, in primitive arrays keyed by MMSI (the
+ * nine-digit number each AIS station transmits), so a report updates a slot in place and a
+ * busy harbor's hundreds of targets cost no objects.
+ *
+ * MMSIs map to slots through an open-addressed hash table with linear probing. When every
+ * slot is taken, a new vessel replaces the one heard from longest ago.
+ *
+ * Updates are conflated for the map: a changed vessel is queued once, however many reports
+ * arrive before the next drain(), and drain() hands over only its latest state. Expired
+ * vessels are reported as removals. The listener hears when a drained table gets its first
+ * change, so the UI can schedule one drain per frame instead of polling.
+ *
+ * Thread-safe; written by the feed thread and drained by the UI.
+ */
+public final class AisTargets {
+
+    // --- Change flags, per vessel in a drain ---
+    public static final int CHANGED_POSITION = 1;
+    public static final int CHANGED_STATIC = 1 << 1;  // Name or ship type.
+
+    // In pending[]: the slot is in the queue, though its vessel may have gone since.
+    private static final int QUEUED = 1 << 31;
+
+    public static final int NO_HEADING = -1;
+    public static final int MAX_NAME = 20;  // Characters in an AIS vessel name.
+
+    /**
+     * The vessels changed since the previous drain. Reused from drain to drain; its arrays
+     * hold the table's capacity.
+     */
+    public static final class Changes {
+        public final int[] mmsi;
+        public final int[] flags;
+        public final double[] lat;
+        public final double[] lng;
+        public final float[] sog;     // Knots; NaN if not available.
+        public final float[] cog;     // Degrees true; NaN if not available.
+        public final int[] heading;   // Degrees true; NO_HEADING if not available.
+        public int count;
+        public final int[] removed;   // MMSIs of vessels that expired.
+        public int removedCount;
+
+        public Changes(int capacity) {
+            mmsi = new int[capacity];
+            flags = new int[capacity];
+            lat = new double[capacity];
+            lng = new double[capacity];
+            sog = new float[capacity];
+            cog = new float[capacity];
+            heading = new int[capacity];
+            removed = new int[capacity];
+        }
+    }
+
+    private final int capacity;
+    // MMSI -> slot + 1 (0 is empty), open addressing over a power-of-two table.
+    private final int[] keys;
+    private final int[] values;
+    private final int mask;
+
+    // --- Per slot ---
+    private final int[] mmsi;
+    private final double[] lat;
+    private final double[] lng;
+    private final float[] sog;
+    private final float[] cog;
+    private final int[] heading;
+    private final int[] shipType;
+    private final char[] names;      // MAX_NAME chars per slot.
+    private final int[] nameLength;
+    private final long[] lastMillis;
+    private final int[] pending;     // CHANGED_* bits not yet drained, plus QUEUED.
+
+    private final int[] freeSlots;
+    private int free;
+    // Slots with pending changes, in the order they first changed.
+    private final int[] queue;
+    private int queued;
+    // Expired MMSIs not yet drained; when it overflows, the oldest are forgotten.
+    private final int[] removed;
+    private int removedCount;
+    private boolean dirty;  // Something to drain.
+
+    private Runnable listener;
+    private long updates;
+    private long evictions;
+
+    public AisTargets(int capacity) {
+        if (capacity < 1 || capacity > (1 << 20)) throw new IllegalArgumentException("capacity");
+        this.capacity = capacity;
+        int size = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        keys = new int[size];
+        values = new int[size];
+        mask = size - 1;
+        mmsi = new int[capacity];
+        lat = new double[capacity];
+        lng = new double[capacity];
+        sog = new float[capacity];
+        cog = new float[capacity];
+        heading = new int[capacity];
+        shipType = new int[capacity];
+        names = new char[capacity * MAX_NAME];
+        nameLength = new int[capacity];
+        lastMillis = new long[capacity];
+        pending = new int[capacity];
+        freeSlots = new int[capacity];
+        for (int i = 0; i < capacity; i++) freeSlots[i] = capacity - 1 - i;
+        free = capacity;
+        queue = new int[capacity];
+        removed = new int[capacity];
+    }
+
+    public int capacity() { return capacity; }
+
+    /**
+     * @param listener Called on the writer's thread, outside the table's lock, when a change
+     *                 arrives and none was pending; or null.
+     */
+    public synchronized void setListener(Runnable listener) {
+        this.listener = listener;
+    }
+
+    // --- Updates, from the decoder ---
+
+    /**
+     * Records a position report.
+     * @param sog     Speed over ground in knots, or NaN.
+     * @param cog     Course over ground in degrees, or NaN.
+     * @param heading True heading in degrees, or NO_HEADING.
+     */
+    public void position(int vessel, long nowMillis, double lat, double lng, float sog, float cog, int heading) {
+        Runnable notify;
+        synchronized (this) {
+            int s = slot(vessel, nowMillis);
+            this.lat[s] = lat;
+            this.lng[s] = lng;
+            this.sog[s] = sog;
+            this.cog[s] = cog;
+            this.heading[s] = heading;
+            notify = changed(s, CHANGED_POSITION);
+        }
+        if (notify != null) notify.run();
+    }
+
+    /**
+     * Records a vessel's name and type from a static report. Either may be missing, since
+     * class B yachts send them separately; an unchanged report queues nothing.
+     * @param name   Characters in name[0, length), trailing padding already trimmed.
+     * @param length 0 if the report has no name.
+     * @param type   The AIS ship type, or -1 if the report has none.
+     */
+    public void staticData(int vessel, long nowMillis, char[] name, int length, int type) {
+        Runnable notify = null;
+        synchronized (this) {
+            int s = slot(vessel, nowMillis);
+            boolean changed = false;
+            if (type >= 0 && type != shipType[s]) {
+                shipType[s] = type;
+                changed = true;
+            }
+            int n = Math.min(length, MAX_NAME);
+            if (n > 0 && !sameName(s, name, n)) {
+                System.arraycopy(name, 0, names, s * MAX_NAME, n);
+                nameLength[s] = n;
+                changed = true;
+            }
+            if (changed) notify = changed(s, CHANGED_STATIC);
+        }
+        if (notify != null) notify.run();
+    }
+
+    /**
+     * Forgets vessels not heard from since a time, and queues their removal.
+     * @return How many were removed.
+     */
+    public int expire(long olderThanMillis) {
+        int n = 0;
+        Runnable notify = null;
+        synchronized (this) {
+            for (int i = 0; i < keys.length; i++) {
+                // Removal shifts later entries back, so a slot is re-examined after one goes.
+                while (keys[i] != 0 && lastMillis[values[i] - 1] < olderThanMillis) {
+                    int s = values[i] - 1;
+                    if (removedCount == removed.length) {
+                        System.arraycopy(removed, 1, removed, 0, removed.length - 1);
+                        removedCount--;
+                    }
+                    removed[removedCount++] = mmsi[s];
+                    remove(i, s);
+                    n++;
+                }
+            }
+            if (n > 0) notify = markDirty();
+        }
+        if (notify != null) notify.run();
+        return n;
+    }
+
+    /**
+     * Queues every known vessel as changed, for a new reader that has seen none of them.
+     */
+    public void replay() {
+        Runnable notify = null;
+        synchronized (this) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == 0) continue;
+                Runnable l = changed(values[i] - 1, CHANGED_POSITION | CHANGED_STATIC);
+                if (l != null) notify = l;
+            }
+        }
+        if (notify != null) notify.run();
+    }
+
+    // --- Reads, from the UI ---
+
+    /**
+     * Moves every pending change into out and clears them.
+     * @return How many vessels changed.
+     */
+    public synchronized int drain(Changes out) {
+        int n = 0;
+        for (int q = 0; q < queued; q++) {
+            int s = queue[q];
+            int flags = pending[s] & ~QUEUED;
+            pending[s] = 0;
+            if (flags == 0) continue;  // Removed since it was queued.
+            out.mmsi[n] = mmsi[s];
+            out.flags[n] = flags;
+            out.lat[n] = lat[s];
+            out.lng[n] = lng[s];
+            out.sog[n] = sog[s];
+            out.cog[n] = cog[s];
+            out.heading[n] = heading[s];
+            n++;
+        }
+        queued = 0;
+        out.count = n;
+        System.arraycopy(removed, 0, out.removed, 0, removedCount);
+        out.removedCount = removedCount;
+        removedCount = 0;
+        dirty = false;
+        return n;
+    }
+
+    /**
+     * @return The vessel's name, or null if none has been heard. Allocates; call it only when
+     *         a drain reports CHANGED_STATIC.
+     */
+    public synchronized String name(int vessel) {
+        int i = find(vessel);
+        if (i < 0) return null;
+        int s = values[i] - 1;
+        return nameLength[s] == 0 ? null : new String(names, s * MAX_NAME, nameLength[s]);
+    }
+
+    /**
+     * @return The vessel's AIS ship type (e.g. 36 sailing, 70-79 cargo), or 0 if unknown.
+     */
+    public synchronized int shipType(int vessel) {
+        int i = find(vessel);
+        return i < 0 ? 0 : shipType[values[i] - 1];
+    }
+
+    /**
+     * @return The latitude, or NaN if the vessel is unknown or has sent no position.
+     */
+    public synchronized double lat(int vessel) {
+        int i = find(vessel);
+        return i < 0 ? Double.NaN : lat[values[i] - 1];
+    }
+
+    /**
+     * @return The longitude, or NaN if the vessel is unknown or has sent no position.
+     */
+    public synchronized double lng(int vessel) {
+        int i = find(vessel);
+        return i < 0 ? Double.NaN : lng[values[i] - 1];
+    }
+
+    public synchronized int size() { return capacity - free; }
+
+    public synchronized long updates() { return updates; }
+
+    public synchronized long evictions() { return evictions; }
+
+    @Override
+    public synchronized String toString() {
+        return "AisTargets{" + (capacity - free) + " of " + capacity + " vessels, " + updates + " updates, "
+                + evictions + " evictions}";
+    }
+
+    // --- Table ---
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Index in keys of a vessel, or -1.
+    private int find(int vessel) {
+        for (int i = hash(vessel) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == vessel) return i;
+        }
+        return -1;
+    }
+
+    // The slot of a vessel, taking one (or the stalest) for a new one; marks it heard.
+    private int slot(int vessel, long nowMillis) {
+        if (vessel == 0) throw new IllegalArgumentException("MMSI 0");
+        updates++;
+        int i = hash(vessel) & mask;
+        for (; keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == vessel) {
+                int s = values[i] - 1;
+                lastMillis[s] = Math.max(lastMillis[s], nowMillis);
+                return s;
+            }
+        }
+        if (free == 0) {
+            evictStalest();
+            // The eviction may have shifted entries; find the insertion point again.
+            for (i = hash(vessel) & mask; keys[i] != 0; i = (i + 1) & mask) { }
+        }
+        int s = freeSlots[--free];
+        keys[i] = vessel;
+        values[i] = s + 1;
+        mmsi[s] = vessel;
+        lat[s] = Double.NaN;
+        lng[s] = Double.NaN;
+        sog[s] = Float.NaN;
+        cog[s] = Float.NaN;
+        heading[s] = NO_HEADING;
+        shipType[s] = 0;
+        nameLength[s] = 0;
+        lastMillis[s] = nowMillis;
+        return s;
+    }
+
+    private void evictStalest() {
+        int oldest = -1;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0 && (oldest < 0 || lastMillis[values[i] - 1] < lastMillis[values[oldest] - 1])) {
+                oldest = i;
+            }
+        }
+        int s = values[oldest] - 1;
+        if (removedCount < removed.length) removed[removedCount++] = mmsi[s];
+        remove(oldest, s);
+        evictions++;
+    }
+
+    // Frees a slot and deletes its key at index i, shifting the probe chain back over the gap.
+    private void remove(int i, int s) {
+        pending[s] &= QUEUED;  // Still in the queue; drain() skips it with no changes.
+        nameLength[s] = 0;
+        freeSlots[free++] = s;
+        int gap = i;
+        for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = hash(keys[j]) & mask;
+            // Move j into the gap unless its home lies cyclically in (gap, j].
+            boolean stays = gap <= j ? (home > gap && home <= j) : (home > gap || home <= j);
+            if (!stays) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = 0;
+    }
+
+    private boolean sameName(int s, char[] name, int n) {
+        if (nameLength[s] != n) return false;
+        int base = s * MAX_NAME;
+        for (int k = 0; k < n; k++) {
+            if (names[base + k] != name[k]) return false;
+        }
+        return true;
+    }
+
+    // Marks a slot changed; returns the listener to call if the table was clean.
+    private Runnable changed(int s, int flag) {
+        if ((pending[s] & QUEUED) == 0) {
+            queue[queued++] = s;
+            pending[s] |= QUEUED;
+        }
+        pending[s] |= flag;
+        return markDirty();
+    }
+
+    private Runnable markDirty() {
+        if (dirty) return null;
+        dirty = true;
+        return listener;
+    }
+}
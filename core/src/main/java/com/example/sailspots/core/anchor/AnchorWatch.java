@@ -0,0 +1,168 @@
+package com.example.sailspots.core.anchor;
+
+import com.example.sailspots.core.geo.GeoMath;
+
+/**
+ * Watches a boat at anchor: filters the position fixes, raises the alarm when the boat
+ * leaves its swing circle, and says how often it needs a fix.
+ *
+ * Sampling adapts to what the boat is doing. While it lies quietly inside the circle the
+ * interval doubles after each fix, up to SLOW_MILLIS, so a calm night costs a fix every
+ * couple of minutes. Once it nears the edge of the circle or moves faster than a swing,
+ * sampling drops straight back to FAST_MILLIS until things settle.
+ *
+ * The alarm goes off when the filtered position is outside the circle on ALARM_FIXES
+ * fixes in a row, and stays on until acknowledge(). Not thread-safe.
+ */
+public final class AnchorWatch {
+
+    public enum State {
+        /** Waiting for the first usable fix. */
+        STARTING,
+        /** Inside the swing circle. */
+        HOLDING,
+        /** Near the edge of the circle or moving; sampling fast. */
+        DRIFTING,
+        /** Outside the circle: the anchor is dragging or the rode has parted. */
+        DRAGGING
+    }
+
+    public static final long FAST_MILLIS = 5_000;
+    public static final long SLOW_MILLIS = 120_000;
+    // Share of the swing radius beyond which the boat counts as near the edge.
+    static final double NEAR_EDGE = 0.75;
+    // Faster than this, in metres per second, is more than swinging to the wind.
+    static final double DRIFT_SPEED = 0.3;
+    static final int ALARM_FIXES = 2;
+    private static final double METRES_PER_DEGREE = GeoMath.MILES_PER_DEGREE * 1609.344;
+
+    public final double anchorLat;
+    public final double anchorLng;
+    public final double radiusMetres;
+    private final double lngScale;
+    private final PositionFilter filter = new PositionFilter();
+
+    private final long startMillis;
+    private long intervalMillis = FAST_MILLIS;
+    private State state = State.STARTING;
+    private int outsideInARow;
+    private boolean alarm;
+    private long fixes;
+    private long rejected;
+    private long wakeups;
+
+    /**
+     * @param radiusMetres How far from the anchor the boat may lie: rode plus boat length,
+     *                     with a margin for GPS error.
+     */
+    public AnchorWatch(double anchorLat, double anchorLng, double radiusMetres, long startMillis) {
+        if (!(radiusMetres > 0)) throw new IllegalArgumentException("radius " + radiusMetres);
+        this.anchorLat = anchorLat;
+        this.anchorLng = anchorLng;
+        this.radiusMetres = radiusMetres;
+        this.lngScale = Math.cos(Math.toRadians(anchorLat)) * METRES_PER_DEGREE;
+        this.startMillis = startMillis;
+    }
+
+    /**
+     * Counts a wakeup: one delivery of fixes, however many it holds. Fixes batched by the
+     * location provider arrive together, so there are at most as many wakeups as fixes.
+     */
+    public void onWakeup() {
+        wakeups++;
+    }
+
+    /**
+     * Filters a fix and updates the state and the sampling interval.
+     * @return The state after the fix.
+     */
+    public State onFix(long timeMillis, double lat, double lng, double accuracyMetres) {
+        fixes++;
+        double east = GeoMath.wrapLongitude(lng - anchorLng) * lngScale;
+        double north = (lat - anchorLat) * METRES_PER_DEGREE;
+        if (!filter.update(timeMillis, east, north, accuracyMetres)) {
+            rejected++;
+            // Something odd is going on; look again soon.
+            intervalMillis = FAST_MILLIS;
+            return state;
+        }
+        double distance = distanceMetres();
+        outsideInARow = distance > radiusMetres ? outsideInARow + 1 : 0;
+        if (outsideInARow >= ALARM_FIXES) alarm = true;
+
+        if (alarm) {
+            state = State.DRAGGING;
+        } else if (distance > NEAR_EDGE * radiusMetres || filter.speed() > DRIFT_SPEED) {
+            state = State.DRIFTING;
+        } else {
+            state = State.HOLDING;
+        }
+        intervalMillis = state == State.HOLDING ? Math.min(SLOW_MILLIS, intervalMillis * 2) : FAST_MILLIS;
+        return state;
+    }
+
+    /**
+     * Silences the alarm. It goes off again if the boat is still outside the circle after
+     * ALARM_FIXES more fixes.
+     */
+    public void acknowledge() {
+        alarm = false;
+        outsideInARow = 0;
+        if (state == State.DRAGGING) state = State.DRIFTING;
+    }
+
+    public State state() { return state; }
+
+    public boolean alarm() { return alarm; }
+
+    /**
+     * @return How long to wait for the next fix.
+     */
+    public long intervalMillis() { return intervalMillis; }
+
+    /**
+     * @return The filtered distance from the anchor, or NaN before the first fix.
+     */
+    public double distanceMetres() {
+        return filter.initialised() ? Math.hypot(filter.east(), filter.north()) : Double.NaN;
+    }
+
+    /**
+     * @return The filtered speed over ground in metres per second, or NaN before the first fix.
+     */
+    public double speedMetresPerSecond() {
+        return filter.initialised() ? filter.speed() : Double.NaN;
+    }
+
+    /**
+     * @return The filtered position as {latitude, longitude}, or null before the first fix.
+     */
+    public double[] position() {
+        if (!filter.initialised()) return null;
+        return new double[] {
+                anchorLat + filter.north() / METRES_PER_DEGREE,
+                GeoMath.wrapLongitude(anchorLng + filter.east() / lngScale)};
+    }
+
+    public long fixes() { return fixes; }
+
+    /**
+     * @return Fixes rejected as outliers.
+     */
+    public long rejected() { return rejected; }
+
+    public long wakeups() { return wakeups; }
+
+    public double fixesPerHour(long nowMillis) {
+        return perHour(fixes, nowMillis);
+    }
+
+    public double wakeupsPerHour(long nowMillis) {
+        return perHour(wakeups, nowMillis);
+    }
+
+    private double perHour(long count, long nowMillis) {
+        double hours = Math.max(nowMillis - startMillis, 60_000) / 3_600_000.0;
+        return count / hours;
+    }
+}
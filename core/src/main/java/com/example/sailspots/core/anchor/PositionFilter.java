@@ -0,0 +1,140 @@
+package com.example.sailspots.core.anchor;
+
+/**
+ * A small Kalman filter for position fixes on a local plane, in metres east and north.
+ *
+ * Each axis is filtered on its own: two states, position and velocity, a 2x2 covariance,
+ * a handful of multiplies per fix and no allocation. That is plenty for a boat swinging at
+ * anchor, whose east and north motion are close to independent. The velocity is modelled
+ * as wandering around zero and forgetting itself over SWING_SECONDS (an Ornstein-Uhlenbeck
+ * process) rather than as constant: a boat on a rode cannot keep going, so the position
+ * variance grows in proportion to the gap between fixes rather than with its cube, and a
+ * long gap at slow sampling does not open the door to wild fixes.
+ *
+ * Fixes that land implausibly far from the prediction (a multipath jump, a stale network
+ * fix) are rejected. Several rejections in a row mean the boat really is somewhere else,
+ * so the filter restarts from the next fix rather than ignoring a dragging anchor.
+ */
+public final class PositionFilter {
+
+    // Chi-squared for two degrees of freedom at 99.9%: a good fix fails this once in 1000.
+    static final double GATE = 13.8;
+    // Rejected fixes in a row after which the filter trusts the fixes again.
+    static final int MAX_REJECTED = 3;
+    // Typical speed of a boat swinging at anchor, in metres per second, and how long it keeps it.
+    private static final double SWING_SPEED = 0.3;
+    private static final double SWING_SECONDS = 20;
+    // Floor for a fix's accuracy, since phones report over-confident figures in open sky.
+    private static final double MIN_ACCURACY_METRES = 3;
+
+    private final Axis east = new Axis();
+    private final Axis north = new Axis();
+    private long lastMillis;
+    private boolean initialised;
+    private int rejectedInARow;
+
+    /**
+     * Filters one fix.
+     * @param accuracyMetres The fix's horizontal accuracy, taken as its standard deviation.
+     * @return Whether the fix was used; false if it was rejected as an outlier.
+     */
+    public boolean update(long timeMillis, double eastMetres, double northMetres, double accuracyMetres) {
+        double r = Math.max(accuracyMetres, MIN_ACCURACY_METRES);
+        r *= r;
+        if (!initialised || rejectedInARow >= MAX_REJECTED) {
+            east.reset(eastMetres, r);
+            north.reset(northMetres, r);
+            lastMillis = timeMillis;
+            initialised = true;
+            rejectedInARow = 0;
+            return true;
+        }
+        double dt = Math.max(0, (timeMillis - lastMillis) / 1000.0);
+        east.predict(dt);
+        north.predict(dt);
+        double d2 = east.innovation2(eastMetres, r) + north.innovation2(northMetres, r);
+        if (d2 > GATE) {
+            // Keep the prediction, so the next fix is gated against where the boat should be by then.
+            lastMillis = timeMillis;
+            rejectedInARow++;
+            return false;
+        }
+        east.correct(eastMetres, r);
+        north.correct(northMetres, r);
+        lastMillis = timeMillis;
+        rejectedInARow = 0;
+        return true;
+    }
+
+    public boolean initialised() { return initialised; }
+
+    public double east() { return east.p; }
+
+    public double north() { return north.p; }
+
+    /**
+     * @return The estimated speed over ground, in metres per second.
+     */
+    public double speed() {
+        return Math.hypot(east.v, north.v);
+    }
+
+    /**
+     * @return The standard deviation of the estimated position, in metres.
+     */
+    public double sigma() {
+        return Math.sqrt(east.pp + north.pp);
+    }
+
+    /**
+     * One axis: position p, velocity v, and their covariance [pp pv; pv vv].
+     */
+    private static final class Axis {
+        double p, v, pp, pv, vv;
+
+        void reset(double position, double r) {
+            p = position;
+            v = 0;
+            pp = r;
+            pv = 0;
+            vv = SWING_SPEED * SWING_SPEED;
+        }
+
+        /**
+         * Moves the estimate dt seconds on: P = F P F' + Q, with F and Q those of an
+         * Ornstein-Uhlenbeck velocity integrated into position.
+         */
+        void predict(double dt) {
+            double tau = SWING_SECONDS;
+            double a = Math.exp(-dt / tau);
+            double f = tau * (1 - a);  // How far the current velocity still carries the boat.
+            p += f * v;
+            v *= a;
+            double s2 = SWING_SPEED * SWING_SPEED;
+            pp += 2 * f * pv + f * f * vv + s2 * tau * tau * (2 * dt / tau - 3 + 4 * a - a * a);
+            pv = a * (pv + f * vv) + s2 * tau * (1 - a) * (1 - a);
+            vv = a * a * vv + s2 * (1 - a * a);
+        }
+
+        /**
+         * @return The squared innovation over its variance, i.e. how surprising z is.
+         */
+        double innovation2(double z, double r) {
+            double y = z - p;
+            return y * y / (pp + r);
+        }
+
+        void correct(double z, double r) {
+            double s = pp + r;
+            double kp = pp / s;
+            double kv = pv / s;
+            double y = z - p;
+            p += kp * y;
+            v += kv * y;
+            // (I - KH) P, written out; the order matters, since each line reads the old pv or pp.
+            vv -= kv * pv;
+            pv -= kv * pp;
+            pp -= kp * pp;
+        }
+    }
+}
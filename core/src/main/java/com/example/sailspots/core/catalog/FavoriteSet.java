@@ -0,0 +1,73 @@
+package com.example.sailspots.core.catalog;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * An immutable set of favorite marinas keyed by their dense IDs.
+ * Membership is a single bit test: no string hashing or boxing per lookup.
+ *
+ * A marina's ID depends on where it came from (a pack numbers its own rows), so the set keeps
+ * the favorites' place IDs and can be resolved again against a newly loaded store.
+ */
+public final class FavoriteSet {
+
+    public static final FavoriteSet EMPTY = new FavoriteSet(new BitSet(), new ArrayList<>());
+
+    private final BitSet bits;
+    private final List<String> placeIds;
+
+    private FavoriteSet(BitSet bits, List<String> placeIds) {
+        this.bits = bits;
+        this.placeIds = placeIds;
+    }
+
+    /**
+     * Builds a set from place ID strings, interning any that are new.
+     */
+    public static FavoriteSet fromPlaceIds(Iterable<String> placeIds, PlaceIdRegistry registry) {
+        return fromPlaceIds(placeIds, null, registry);
+    }
+
+    /**
+     * Builds a set from place ID strings, using the IDs a store's items carry. Place IDs the
+     * store does not have are interned, for marinas that come from elsewhere.
+     * @param store The loaded catalog, or null if there is none yet.
+     */
+    public static FavoriteSet fromPlaceIds(Iterable<String> placeIds, MarinaStore store,
+                                           PlaceIdRegistry registry) {
+        BitSet bits = new BitSet();
+        List<String> kept = new ArrayList<>();
+        for (String placeId : placeIds) {
+            if (placeId == null) continue;
+            int id = store != null ? store.idOf(placeId) : PlaceIdRegistry.NO_ID;
+            if (id == PlaceIdRegistry.NO_ID) id = registry.intern(placeId);
+            bits.set(id);
+            kept.add(placeId);
+        }
+        return new FavoriteSet(bits, kept);
+    }
+
+    /**
+     * @return The same favorites, keyed by the IDs another store's items carry.
+     */
+    public FavoriteSet resolveIn(MarinaStore store, PlaceIdRegistry registry) {
+        return fromPlaceIds(placeIds, store, registry);
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && bits.get(id);
+    }
+
+    public int size() {
+        return bits.cardinality();
+    }
+
+    /**
+     * @return A copy of the underlying bits, safe to modify.
+     */
+    public BitSet toBitSet() {
+        return (BitSet) bits.clone();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.sailspots.core.catalog;
+
+/**
+ * A fixed-capacity max-heap keeping the k smallest distances seen so far.
+ * Used by the nearest-neighbor searches of SpatialGridIndex and MarinaPack.
+ */
+final class KHeap {
+    private final int[] idx;
+    private final double[] dist;
+    private int size;
+
+    KHeap(int k) {
+        idx = new int[k];
+        dist = new double[k];
+    }
+
+    boolean isFull() { return size == idx.length; }
+
+    double worst() { return dist[0]; }
+
+    void clear() { size = 0; }
+
+    void offer(int i, double d) {
+        if (size < idx.length) {
+            idx[size] = i;
+            dist[size] = d;
+            siftUp(size++);
+        } else if (d < dist[0]) {
+            idx[0] = i;
+            dist[0] = d;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Empties the heap into {@code out}, nearest first.
+     */
+    int drainSorted(int[] out) {
+        int n = size;
+        for (int i = n - 1; i >= 0; i--) {
+            out[i] = idx[0];
+            size--;
+            idx[0] = idx[size];
+            dist[0] = dist[size];
+            siftDown(0);
+        }
+        return n;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (dist[parent] >= dist[i]) break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int l = 2 * i + 1, r = l + 1, largest = i;
+            if (l < size && dist[l] > dist[largest]) largest = l;
+            if (r < size && dist[r] > dist[largest]) largest = r;
+            if (largest == i) return;
+            swap(i, largest);
+            i = largest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int ti = idx[a]; idx[a] = idx[b]; idx[b] = ti;
+        double td = dist[a]; dist[a] = dist[b]; dist[b] = td;
+    }
+}
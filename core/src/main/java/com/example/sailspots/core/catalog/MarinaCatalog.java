@@ -0,0 +1,90 @@
+package com.example.sailspots.core.catalog;
+
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.model.MarinaItem;
+import com.example.sailspots.core.util.IntList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An in-memory marina catalog with a spatial index over its coordinates.
+ * Items are addressed by their insertion index, which is also their index in the spatial grid.
+ *
+ * Not thread-safe: fill it on one thread, then share it read-only.
+ */
+public final class MarinaCatalog implements MarinaStore {
+
+    private final List<MarinaItem> items = new ArrayList<>();
+    private final SpatialGridIndex index;
+
+    public MarinaCatalog() { this(SpatialGridIndex.DEFAULT_CELL_DEGREES); }
+
+    public MarinaCatalog(double cellDegrees) {
+        this.index = new SpatialGridIndex(cellDegrees);
+    }
+
+    /**
+     * Adds a marina. Items without coordinates are kept but never returned by spatial queries.
+     * @return The item's catalog index.
+     */
+    public int add(MarinaItem item) {
+        items.add(item);
+        return item.latLng != null
+                ? index.add(item.latLng.latitude, item.latLng.longitude)
+                : index.add(Double.NaN, Double.NaN);
+    }
+
+    public void addAll(Collection<MarinaItem> batch) {
+        for (MarinaItem m : batch) add(m);
+    }
+
+    public MarinaItem get(int i) { return items.get(i); }
+
+    @Override
+    public int size() { return items.size(); }
+
+    /**
+     * @return A read-only view of all items in insertion order.
+     */
+    public List<MarinaItem> items() { return Collections.unmodifiableList(items); }
+
+    public SpatialGridIndex index() { return index; }
+
+    /**
+     * All marinas inside a box, in index order.
+     */
+    @Override
+    public List<MarinaItem> within(BoundingBox box) {
+        IntList hits = new IntList();
+        index.queryBox(box, hits);
+        List<MarinaItem> out = new ArrayList<>(hits.size());
+        for (int i = 0; i < hits.size(); i++) out.add(items.get(hits.get(i)));
+        return out;
+    }
+
+    /**
+     * Imported items carry their interned ID, so this asks the registry; the marina may not be
+     * in this catalog, but then no item here has the ID either.
+     */
+    @Override
+    public int idOf(String placeId) {
+        return PlaceIdRegistry.global().idOf(placeId);
+    }
+
+    /**
+     * The k marinas closest to a point, nearest first.
+     */
+    @Override
+    public List<MarinaItem> nearest(GeoPoint from, int k) {
+        int[] idx = new int[k];
+        double[] miles = new double[k];
+        int n = index.nearest(from.latitude, from.longitude, k, idx, miles);
+        List<MarinaItem> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) out.add(items.get(idx[i]));
+        return out;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.sailspots.core.catalog;
+
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.util.IntList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Groups the points of a viewport into screen-space clusters for map markers.
+ * Points are bucketed into square Web Mercator pixel cells at the given zoom, so the
+ * clusters line up with what the user sees and stay stable while panning.
+ */
+public final class MarinaClusterer {
+
+    // Google Maps tile edge at zoom 0.
+    private static final double TILE_SIZE = 256.0;
+
+    private final int cellPixels;
+    private final IntList scratch = new IntList(256);
+
+    /**
+     * @param cellPixels Cluster cell edge in screen pixels (at mdpi scale).
+     */
+    public MarinaClusterer(int cellPixels) {
+        if (cellPixels <= 0) throw new IllegalArgumentException("cellPixels");
+        this.cellPixels = cellPixels;
+    }
+
+    /**
+     * A cluster of one or more points.
+     */
+    public static final class Cluster {
+        public final double latitude;
+        public final double longitude;
+        // Indices into the clustered index, in index order.
+        public final int[] members;
+
+        Cluster(double latitude, double longitude, int[] members) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.members = members;
+        }
+
+        public int size() { return members.length; }
+    }
+
+    /**
+     * Clusters every point of the index inside a viewport.
+     * @param zoom The map zoom level (fractional zooms are fine).
+     */
+    public List<Cluster> cluster(SpatialGridIndex index, BoundingBox viewport, double zoom) {
+        index.queryBox(viewport, scratch);
+        int n = scratch.size();
+        List<Cluster> out = new ArrayList<>();
+        if (n == 0) return out;
+
+        double world = TILE_SIZE * Math.pow(2.0, zoom);
+        double x0 = lngToX(viewport.west, world);
+        double y0 = latToY(viewport.north, world);
+
+        // Pack (cell x, cell y, point index) into longs; viewport-relative cells fit in 16 bits each.
+        long[] packed = new long[n];
+        for (int i = 0; i < n; i++) {
+            int idx = scratch.get(i);
+            double dx = lngToX(index.longitude(idx), world) - x0;
+            if (dx < 0) dx += world; // viewport crosses the antimeridian
+            double dy = latToY(index.latitude(idx), world) - y0;
+            long cx = Math.min(0xFFFF, Math.max(0, (long) (dx / cellPixels)));
+            long cy = Math.min(0xFFFF, Math.max(0, (long) (dy / cellPixels)));
+            packed[i] = (cx << 48) | (cy << 32) | idx;
+        }
+        Arrays.sort(packed);
+
+        int runStart = 0;
+        for (int i = 1; i <= n; i++) {
+            if (i == n || (packed[i] >>> 32) != (packed[runStart] >>> 32)) {
+                out.add(toCluster(index, packed, runStart, i));
+                runStart = i;
+            }
+        }
+        return out;
+    }
+
+    private static Cluster toCluster(SpatialGridIndex index, long[] packed, int from, int to) {
+        int[] members = new int[to - from];
+        double lat = 0, lngX = 0, lngY = 0;
+        for (int i = from; i < to; i++) {
+            int idx = (int) packed[i];
+            members[i - from] = idx;
+            lat += index.latitude(idx);
+            // Average longitudes on the unit circle so clusters straddling 180° stay put.
+            double rad = Math.toRadians(index.longitude(idx));
+            lngX += Math.cos(rad);
+            lngY += Math.sin(rad);
+        }
+        int count = to - from;
+        return new Cluster(lat / count, Math.toDegrees(Math.atan2(lngY, lngX)), members);
+    }
+
+    private static double lngToX(double lng, double world) {
+        return (lng + 180.0) / 360.0 * world;
+    }
+
+    private static double latToY(double lat, double world) {
+        double clamped = Math.max(-85.05112878, Math.min(85.05112878, lat));
+        double sin = Math.sin(Math.toRadians(clamped));
+        return (0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI)) * world;
+    }
+}
@@ -0,0 +1,360 @@
+package com.example.sailspots.core.catalog;
+
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.geo.GeoMath;
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.model.MarinaItem;
+import com.example.sailspots.core.util.IntList;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A read-only marina catalog in the compact binary "marina pack" format, queried in place.
+ *
+ * The file is memory-mapped, so opening it only checks the header: there is no parsing, and
+ * the heap holds a few dozen bytes however many marinas the pack has. Pages are read in by
+ * the OS as queries touch them. MarinaItems are only created for query results.
+ *
+ * Opening also reserves one block of PlaceIdRegistry IDs, and each marina's dense ID is the
+ * block's first plus its row, so results are numbered without hashing a place ID. Going the
+ * other way, from a favorite's place ID to its row, is a binary search of the place ID index.
+ *
+ * Layout (little-endian, sections 8-byte aligned, written by MarinaPackWriter):
+ * - header: magic "SSPK", version, count, cell count, cell size, then section offsets;
+ * - latitude and longitude columns as int degrees x 1e7 (about 1 cm);
+ * - rating (tenths of a star, 255 = none) and open status columns, one byte each;
+ * - for each marina, the string table offsets of its name, address and place ID;
+ * - the string table: u16 length plus UTF-8 bytes per distinct string;
+ * - the spatial grid: sorted cell keys and where each cell's marinas start. Marinas are
+ *   stored in cell order, so a cell is one contiguous run of every column;
+ * - the place ID index: every row, ordered by the UTF-8 bytes of its place ID. Version 1
+ *   packs have none and are searched row by row.
+ *
+ * The grid uses the same cells as SpatialGridIndex. Thread-safe: all reads are absolute.
+ */
+public final class MarinaPack implements MarinaStore {
+
+    // --- Format ---
+    static final int MAGIC = 0x4B505353; // "SSPK" read as a little-endian int.
+    static final int VERSION = 2;
+    static final int VERSION_WITHOUT_INDEX = 1;
+    static final int HEADER_BYTES = 64;
+    static final double E7 = 1e7;
+    static final int NO_RATING = 0xFF;
+
+    // Header field positions.
+    static final int H_MAGIC = 0;
+    static final int H_VERSION = 4;
+    static final int H_COUNT = 8;
+    static final int H_CELLS = 12;
+    static final int H_CELL_DEGREES = 16;
+    static final int H_LATS = 24;
+    static final int H_LNGS = 28;
+    static final int H_RATINGS = 32;
+    static final int H_OPEN = 36;
+    static final int H_STRING_REFS = 40;
+    static final int H_STRINGS = 44;
+    static final int H_CELL_KEYS = 48;
+    static final int H_CELL_STARTS = 52;
+    static final int H_PLACE_INDEX = 56;
+
+    // Strings per marina in the reference column: name, address, place ID.
+    static final int STRINGS_PER_ITEM = 3;
+
+    private final ByteBuffer buf;
+    private final int count;
+    private final int cells;
+    private final double cellDeg;
+    private final int rows;
+    private final int cols;
+    private final int lats;
+    private final int lngs;
+    private final int ratings;
+    private final int open;
+    private final int stringRefs;
+    private final int cellKeys;
+    private final int cellStarts;
+    private final int placeIndex;  // -1 in a version 1 pack.
+    private final int firstId;
+
+    private MarinaPack(ByteBuffer buf) throws IOException {
+        this.buf = buf;
+        if (buf.capacity() < HEADER_BYTES || buf.getInt(H_MAGIC) != MAGIC) {
+            throw new IOException("Not a marina pack");
+        }
+        int version = buf.getInt(H_VERSION);
+        if (version != VERSION && version != VERSION_WITHOUT_INDEX) {
+            throw new IOException("Unsupported marina pack version " + version);
+        }
+        count = buf.getInt(H_COUNT);
+        cells = buf.getInt(H_CELLS);
+        cellDeg = buf.getDouble(H_CELL_DEGREES);
+        lats = section(H_LATS, 4L * count);
+        lngs = section(H_LNGS, 4L * count);
+        ratings = section(H_RATINGS, count);
+        open = section(H_OPEN, count);
+        stringRefs = section(H_STRING_REFS, 4L * STRINGS_PER_ITEM * count);
+        section(H_STRINGS, 0);
+        cellKeys = section(H_CELL_KEYS, 8L * cells);
+        cellStarts = section(H_CELL_STARTS, 4L * (cells + 1));
+        placeIndex = version == VERSION ? section(H_PLACE_INDEX, 4L * count) : -1;
+        if (!(cellDeg >= MarinaPackWriter.MIN_CELL_DEGREES) || cellDeg > 90) {
+            throw new IOException("Corrupt marina pack: cell size " + cellDeg);
+        }
+        rows = (int) Math.ceil(180.0 / cellDeg) + 1;
+        cols = (int) Math.ceil(360.0 / cellDeg);
+        firstId = PlaceIdRegistry.global().reserve(count);
+    }
+
+    /**
+     * Memory-maps a pack file. The mapping stays valid after this returns; the file is not
+     * kept open.
+     * @throws IOException If the file cannot be read or is not a valid pack.
+     */
+    public static MarinaPack open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            return wrap(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads a pack from a buffer, e.g. a mapping of an uncompressed APK asset.
+     * The buffer is shared, not copied.
+     * @throws IOException If the buffer does not hold a valid pack.
+     */
+    public static MarinaPack wrap(ByteBuffer buffer) throws IOException {
+        return new MarinaPack(buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    /**
+     * @return The offset stored at a header field, checked to leave room for {@code length} bytes.
+     */
+    private int section(int field, long length) throws IOException {
+        int offset = buf.getInt(field);
+        if (offset < HEADER_BYTES || offset + length > buf.capacity()) {
+            throw new IOException("Corrupt marina pack: section at " + field + " out of bounds");
+        }
+        return offset;
+    }
+
+    // --- Columns ---
+
+    @Override
+    public int size() { return count; }
+
+    public double latitude(int i) { return buf.getInt(lats + 4 * i) / E7; }
+
+    public double longitude(int i) { return buf.getInt(lngs + 4 * i) / E7; }
+
+    /**
+     * @return The rating from 0 to 5, to a tenth of a star, or NaN if unrated.
+     */
+    public float rating(int i) {
+        int tenths = buf.get(ratings + i) & 0xFF;
+        return tenths == NO_RATING ? Float.NaN : tenths / 10f;
+    }
+
+    /**
+     * @return MarinaItem.OPEN_UNKNOWN, OPEN_NOW or CLOSED_NOW.
+     */
+    public int openStatus(int i) { return buf.get(open + i); }
+
+    public String name(int i) { return string(i, 0); }
+
+    public String address(int i) { return string(i, 1); }
+
+    public String placeId(int i) { return string(i, 2); }
+
+    /**
+     * @return The dense ID of one marina, as its MarinaItem carries.
+     */
+    public int id(int i) { return firstId + i; }
+
+    /**
+     * Creates a MarinaItem for one marina, with no distance and not a favorite.
+     */
+    public MarinaItem item(int i) {
+        return new MarinaItem(name(i), address(i), placeId(i), id(i), new GeoPoint(latitude(i), longitude(i)),
+                0, rating(i), openStatus(i), false);
+    }
+
+    private String string(int i, int field) {
+        int at = stringAt(i, field);
+        int length = buf.getShort(at) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        for (int b = 0; b < length; b++) bytes[b] = buf.get(at + 2 + b);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int stringAt(int i, int field) {
+        return buf.getInt(stringRefs + 4 * (STRINGS_PER_ITEM * i + field));
+    }
+
+    // --- Queries ---
+
+    /**
+     * Finds a marina by place ID without decoding any strings.
+     * @return Its row, or -1 if the pack does not have it.
+     */
+    public int rowOf(String placeId) {
+        if (placeId == null || count == 0) return -1;
+        byte[] key = placeId.getBytes(StandardCharsets.UTF_8);
+        if (placeIndex < 0) {
+            for (int i = 0; i < count; i++) {
+                if (compareTo(key, i) == 0) return i;
+            }
+            return -1;
+        }
+        int lo = 0, hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int row = buf.getInt(placeIndex + 4 * mid);
+            int c = compareTo(key, row);
+            if (c == 0) return row;
+            if (c > 0) lo = mid + 1; else hi = mid - 1;
+        }
+        return -1;
+    }
+
+    @Override
+    public int idOf(String placeId) {
+        int row = rowOf(placeId);
+        return row >= 0 ? id(row) : PlaceIdRegistry.NO_ID;
+    }
+
+    // Compares UTF-8 bytes with a row's place ID in place, unsigned, as the writer sorts them.
+    private int compareTo(byte[] key, int row) {
+        int at = stringAt(row, 2);
+        int length = buf.getShort(at) & 0xFFFF;
+        for (int b = 0, n = Math.min(key.length, length); b < n; b++) {
+            int c = (key[b] & 0xFF) - (buf.get(at + 2 + b) & 0xFF);
+            if (c != 0) return c;
+        }
+        return key.length - length;
+    }
+
+    /**
+     * Collects the indices of all marinas inside a box into {@code out} (which is cleared first).
+     * @return The number of marinas found.
+     */
+    public int queryBox(BoundingBox box, IntList out) {
+        out.clear();
+        if (count == 0) return 0;
+        int r0 = row(box.south);
+        int r1 = row(box.north);
+        if (box.crossesAntimeridian()) {
+            scanRows(box, r0, r1, col(box.west), cols - 1, out);
+            scanRows(box, r0, r1, 0, col(box.east), out);
+        } else {
+            // East = 180 would wrap to column 0; it means "up to the antimeridian".
+            int c1 = box.east >= 180.0 ? cols - 1 : col(box.east);
+            scanRows(box, r0, r1, col(box.west), c1, out);
+        }
+        return out.size();
+    }
+
+    /**
+     * Finds the k nearest marinas to a location, closest first, by searching ever larger
+     * boxes until k marinas lie within the searched radius.
+     * @param outIdx   Receives marina indices; its length must be at least k.
+     * @param outMiles Receives great-circle distances in miles; its length must be at least k.
+     * @return The number of results written (less than k if the pack holds fewer marinas).
+     */
+    public int nearest(double lat, double lng, int k, int[] outIdx, double[] outMiles) {
+        k = Math.min(k, count);
+        if (k <= 0) return 0;
+        KHeap heap = new KHeap(k);
+        IntList hits = new IntList();
+        GeoPoint center = new GeoPoint(lat, lng);
+        // Half the Earth's circumference: a box this big covers the globe.
+        double maxRadius = Math.PI * GeoMath.EARTH_RADIUS_MILES;
+        for (double radius = cellDeg * GeoMath.MILES_PER_DEGREE; ; radius *= 2) {
+            boolean global = radius >= maxRadius;
+            queryBox(global ? new BoundingBox(-90, -180, 90, 180) : BoundingBox.around(center, radius), hits);
+            if (hits.size() < k && !global) continue;
+            heap.clear();
+            for (int h = 0; h < hits.size(); h++) {
+                int i = hits.get(h);
+                heap.offer(i, GeoMath.haversineMiles(lat, lng, latitude(i), longitude(i)));
+            }
+            // Marinas outside the box are farther than the radius, so a full heap inside it is final.
+            if (global || (heap.isFull() && heap.worst() <= radius)) break;
+        }
+        int n = heap.drainSorted(outIdx);
+        for (int i = 0; i < n; i++) {
+            outMiles[i] = GeoMath.haversineMiles(lat, lng, latitude(outIdx[i]), longitude(outIdx[i]));
+        }
+        return n;
+    }
+
+    /**
+     * All marinas inside a box, in pack order.
+     */
+    @Override
+    public List<MarinaItem> within(BoundingBox box) {
+        IntList hits = new IntList();
+        queryBox(box, hits);
+        List<MarinaItem> out = new ArrayList<>(hits.size());
+        for (int i = 0; i < hits.size(); i++) out.add(item(hits.get(i)));
+        return out;
+    }
+
+    /**
+     * The k marinas closest to a point, nearest first.
+     */
+    @Override
+    public List<MarinaItem> nearest(GeoPoint from, int k) {
+        int[] idx = new int[Math.max(0, k)];
+        double[] miles = new double[Math.max(0, k)];
+        int n = nearest(from.latitude, from.longitude, k, idx, miles);
+        List<MarinaItem> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) out.add(item(idx[i]));
+        return out;
+    }
+
+    // --- Grid ---
+
+    private int row(double lat) {
+        int r = (int) Math.floor((lat + 90.0) / cellDeg);
+        return Math.max(0, Math.min(rows - 1, r));
+    }
+
+    private int col(double lng) {
+        int c = (int) Math.floor((GeoMath.wrapLongitude(lng) + 180.0) / cellDeg);
+        return Math.max(0, Math.min(cols - 1, c));
+    }
+
+    private long cellKey(int cell) { return buf.getLong(cellKeys + 8 * cell); }
+
+    private int cellStart(int cell) { return buf.getInt(cellStarts + 4 * cell); }
+
+    private void scanRows(BoundingBox box, int r0, int r1, int c0, int c1, IntList out) {
+        for (int r = r0; r <= r1; r++) {
+            long lo = (long) r * cols + c0;
+            long hi = (long) r * cols + c1;
+            for (int j = lowerBound(lo); j < cells && cellKey(j) <= hi; j++) {
+                for (int i = cellStart(j), end = cellStart(j + 1); i < end; i++) {
+                    if (box.contains(latitude(i), longitude(i))) out.add(i);
+                }
+            }
+        }
+    }
+
+    private int lowerBound(long key) {
+        int lo = 0, hi = cells;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cellKey(mid) < key) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+}
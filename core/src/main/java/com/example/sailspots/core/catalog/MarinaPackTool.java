@@ -0,0 +1,50 @@
+package com.example.sailspots.core.catalog;
+
+import com.example.sailspots.core.importer.CsvMarinaSource;
+import com.example.sailspots.core.importer.GeoJsonMarinaSource;
+import com.example.sailspots.core.importer.MarinaImporter;
+import com.example.sailspots.core.importer.MarinaSource;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Command-line converter from a GeoJSON or CSV dataset to a marina pack, run by the
+ * :core:marinaPack Gradle task.
+ *
+ * Usage: MarinaPackTool input.(geojson|csv) output.pack [cellDegrees]
+ */
+public final class MarinaPackTool {
+
+    private MarinaPackTool() { }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: MarinaPackTool input.(geojson|csv) output.pack [cellDegrees]");
+            System.exit(2);
+        }
+        File in = new File(args[0]);
+        File out = new File(args[1]);
+        double cellDegrees = args.length > 2 ? Double.parseDouble(args[2]) : SpatialGridIndex.DEFAULT_CELL_DEGREES;
+
+        MarinaCatalog catalog = new MarinaCatalog();
+        MarinaImporter.Stats stats;
+        try (MarinaSource source = in.getName().endsWith(".csv")
+                ? new CsvMarinaSource(new BufferedInputStream(new FileInputStream(in)))
+                : new GeoJsonMarinaSource(new BufferedInputStream(new FileInputStream(in)))) {
+            stats = new MarinaImporter(catalog).importFrom(source, in.length());
+        }
+        System.out.println("Imported " + in + ": " + stats);
+
+        int written;
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(out))) {
+            written = MarinaPackWriter.write(catalog.items(), cellDegrees, os);
+        }
+        System.out.println("Wrote " + written + " marinas to " + out + " (" + out.length() + " bytes)");
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.sailspots.core.catalog;
+
+import static com.example.sailspots.core.catalog.MarinaPack.STRINGS_PER_ITEM;
+
+import com.example.sailspots.core.model.MarinaItem;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes marinas in the marina pack format read by MarinaPack.
+ *
+ * This runs at build time or on a server, not on the device's hot path, so it simply lays
+ * the whole file out in one heap buffer. Marinas are sorted by grid cell, and repeated
+ * strings (common addresses, names) are stored once.
+ */
+public final class MarinaPackWriter {
+
+    // Cell keys must fit the grid into 32 bits for the sort below.
+    public static final double MIN_CELL_DEGREES = 0.01;
+
+    private MarinaPackWriter() { }
+
+    /**
+     * Writes every marina that has coordinates and a place ID.
+     * @param cellDegrees Grid cell edge, as for SpatialGridIndex.
+     * @return How many marinas were written.
+     * @throws IllegalArgumentException If a string is longer than 65535 UTF-8 bytes.
+     */
+    public static int write(Collection<MarinaItem> marinas, double cellDegrees, OutputStream out)
+            throws IOException {
+        if (!(cellDegrees >= MIN_CELL_DEGREES) || cellDegrees > 90) {
+            throw new IllegalArgumentException("cellDegrees");
+        }
+        SpatialGridIndex grid = new SpatialGridIndex(cellDegrees);
+
+        // Quantize first, so the writer and reader bucket exactly the same coordinates.
+        List<MarinaItem> items = new ArrayList<>(marinas.size());
+        List<int[]> e7 = new ArrayList<>(marinas.size());
+        for (MarinaItem m : marinas) {
+            if (m.latLng == null || m.placeId == null) continue;
+            double lat = m.latLng.latitude;
+            double lng = m.latLng.longitude;
+            if (!(lat >= -90 && lat <= 90 && lng >= -180 && lng <= 180)) continue;
+            items.add(m);
+            e7.add(new int[]{(int) Math.round(lat * MarinaPack.E7), (int) Math.round(lng * MarinaPack.E7)});
+        }
+        int n = items.size();
+
+        // Sort by (cell, input order) packed into one long, as SpatialGridIndex does.
+        long[] packed = new long[n];
+        for (int i = 0; i < n; i++) {
+            int[] p = e7.get(i);
+            packed[i] = (grid.cellKey(p[0] / MarinaPack.E7, p[1] / MarinaPack.E7) << 32) | i;
+        }
+        Arrays.sort(packed);
+
+        long[] keys = new long[n];
+        int[] starts = new int[n + 1];
+        int cells = 0;
+        long prev = -1;
+        for (int i = 0; i < n; i++) {
+            long key = packed[i] >>> 32;
+            if (key != prev) {
+                keys[cells] = key;
+                starts[cells] = i;
+                cells++;
+                prev = key;
+            }
+        }
+        starts[cells] = n;
+
+        // String table, deduplicated.
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        Map<String, Integer> stringAt = new HashMap<>();
+        int[] refs = new int[n * STRINGS_PER_ITEM];
+        for (int i = 0; i < n; i++) {
+            MarinaItem m = items.get((int) packed[i]);
+            refs[STRINGS_PER_ITEM * i] = intern(m.name, strings, stringAt);
+            refs[STRINGS_PER_ITEM * i + 1] = intern(m.address, strings, stringAt);
+            refs[STRINGS_PER_ITEM * i + 2] = intern(m.placeId, strings, stringAt);
+        }
+
+        // Place ID index: rows ordered by the unsigned UTF-8 bytes MarinaPack.rowOf() compares.
+        byte[][] placeIdBytes = new byte[n][];
+        Integer[] byPlaceId = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            placeIdBytes[i] = items.get((int) packed[i]).placeId.getBytes(StandardCharsets.UTF_8);
+            byPlaceId[i] = i;
+        }
+        Arrays.sort(byPlaceId, (a, b) -> compareUnsigned(placeIdBytes[a], placeIdBytes[b]));
+
+        // Section layout.
+        int lats = MarinaPack.HEADER_BYTES;
+        int lngs = align(lats + 4 * n);
+        int ratings = align(lngs + 4 * n);
+        int open = align(ratings + n);
+        int stringRefs = align(open + n);
+        int stringTable = align(stringRefs + 4 * refs.length);
+        int cellKeys = align(stringTable + strings.size());
+        int cellStarts = align(cellKeys + 8 * cells);
+        int placeIndex = align(cellStarts + 4 * (cells + 1));
+        int total = align(placeIndex + 4 * n);
+
+        ByteBuffer buf = ByteBuffer.allocate(total).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MarinaPack.H_MAGIC, MarinaPack.MAGIC);
+        buf.putInt(MarinaPack.H_VERSION, MarinaPack.VERSION);
+        buf.putInt(MarinaPack.H_COUNT, n);
+        buf.putInt(MarinaPack.H_CELLS, cells);
+        buf.putDouble(MarinaPack.H_CELL_DEGREES, cellDegrees);
+        buf.putInt(MarinaPack.H_LATS, lats);
+        buf.putInt(MarinaPack.H_LNGS, lngs);
+        buf.putInt(MarinaPack.H_RATINGS, ratings);
+        buf.putInt(MarinaPack.H_OPEN, open);
+        buf.putInt(MarinaPack.H_STRING_REFS, stringRefs);
+        buf.putInt(MarinaPack.H_STRINGS, stringTable);
+        buf.putInt(MarinaPack.H_CELL_KEYS, cellKeys);
+        buf.putInt(MarinaPack.H_CELL_STARTS, cellStarts);
+        buf.putInt(MarinaPack.H_PLACE_INDEX, placeIndex);
+
+        for (int i = 0; i < n; i++) {
+            int src = (int) packed[i];
+            MarinaItem m = items.get(src);
+            buf.putInt(lats + 4 * i, e7.get(src)[0]);
+            buf.putInt(lngs + 4 * i, e7.get(src)[1]);
+            buf.put(ratings + i, (byte) ratingTenths(m.rating));
+            buf.put(open + i, (byte) m.openStatus);
+        }
+        for (int i = 0; i < refs.length; i++) buf.putInt(stringRefs + 4 * i, stringTable + refs[i]);
+        byte[] table = strings.toByteArray();
+        for (int i = 0; i < table.length; i++) buf.put(stringTable + i, table[i]);
+        for (int c = 0; c < cells; c++) buf.putLong(cellKeys + 8 * c, keys[c]);
+        for (int c = 0; c <= cells; c++) buf.putInt(cellStarts + 4 * c, starts[c]);
+        for (int i = 0; i < n; i++) buf.putInt(placeIndex + 4 * i, byPlaceId[i]);
+
+        out.write(buf.array());
+        return n;
+    }
+
+    /**
+     * Appends a string to the table unless it is already there. Null is stored as "".
+     * @return The string's offset within the table.
+     */
+    private static int intern(String s, ByteArrayOutputStream table, Map<String, Integer> at) {
+        if (s == null) s = "";
+        Integer offset = at.get(s);
+        if (offset != null) return offset;
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) throw new IllegalArgumentException("String too long for a marina pack");
+        int start = table.size();
+        table.write(bytes.length & 0xFF);
+        table.write(bytes.length >>> 8);
+        table.write(bytes, 0, bytes.length);
+        at.put(s, start);
+        return start;
+    }
+
+    private static int compareUnsigned(byte[] a, byte[] b) {
+        for (int i = 0, n = Math.min(a.length, b.length); i < n; i++) {
+            int c = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (c != 0) return c;
+        }
+        return a.length - b.length;
+    }
+
+    private static int ratingTenths(float rating) {
+        if (Float.isNaN(rating)) return MarinaPack.NO_RATING;
+        return Math.round(Math.max(0f, Math.min(5f, rating)) * 10);
+    }
+
+    private static int align(int offset) {
+        return (offset + 7) & ~7;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.sailspots.core.catalog;
+
+import com.example.sailspots.core.geo.GeoMath;
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.model.MarinaItem;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+
+/**
+ * Ranked free-text search over a MarinaCatalog.
+ * Every query token must match the name or address; matches at the start of the name rank
+ * highest, then word-prefix matches, then substrings. An optional origin adds a proximity bonus.
+ */
+public final class MarinaSearch {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    // Relative weights of each match kind.
+    private static final double NAME_START = 3.0;
+    private static final double NAME_WORD = 2.0;
+    private static final double NAME_SUBSTRING = 1.0;
+    private static final double ADDRESS_WORD = 0.75;
+    private static final double ADDRESS_SUBSTRING = 0.25;
+    private static final double PROXIMITY_WEIGHT = 0.5;
+    // Distance at which the proximity bonus has halved.
+    private static final double PROXIMITY_HALF_MILES = 10.0;
+
+    private final MarinaCatalog catalog;
+    private String[] names = new String[0];
+    private String[] addresses = new String[0];
+
+    public MarinaSearch(MarinaCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * A ranked result.
+     */
+    public static final class Hit {
+        public final int index;
+        public final MarinaItem item;
+        public final double score;
+
+        Hit(int index, MarinaItem item, double score) {
+            this.index = index;
+            this.item = item;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Returns the best matches for a query, highest score first.
+     * @param origin Where the user is, or null to rank on text alone.
+     */
+    public List<Hit> search(String query, GeoPoint origin, int limit) {
+        List<Hit> out = new ArrayList<>();
+        String[] tokens = tokens(query);
+        if (tokens.length == 0 || limit <= 0) return out;
+        ensureNormalized();
+
+        // Min-heap on score keeps the best `limit` hits.
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, (a, b) -> Double.compare(a.score, b.score));
+        for (int i = 0; i < names.length; i++) {
+            double score = textScore(names[i], addresses[i], tokens);
+            if (score <= 0) continue;
+            MarinaItem item = catalog.get(i);
+            if (origin != null && item.latLng != null) {
+                double miles = GeoMath.approxMiles(origin.latitude, origin.longitude,
+                        item.latLng.latitude, item.latLng.longitude);
+                score += PROXIMITY_WEIGHT * PROXIMITY_HALF_MILES / (PROXIMITY_HALF_MILES + miles);
+            }
+            if (best.size() < limit) {
+                best.add(new Hit(i, item, score));
+            } else if (score > best.peek().score) {
+                best.poll();
+                best.add(new Hit(i, item, score));
+            }
+        }
+        while (!best.isEmpty()) out.add(best.poll());
+        Collections.reverse(out);
+        return out;
+    }
+
+    /**
+     * Lowercases, strips accents and collapses everything that is not a letter or digit into
+     * single spaces, so "ONE°15 Brooklyn" becomes "one 15 brooklyn".
+     */
+    public static String normalize(String s) {
+        if (s == null) return "";
+        String folded = MARKS.matcher(Normalizer.normalize(s, Normalizer.Form.NFD)).replaceAll("");
+        StringBuilder sb = new StringBuilder(folded.length());
+        boolean space = true;
+        for (int i = 0; i < folded.length(); i++) {
+            char c = Character.toLowerCase(folded.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(c);
+                space = false;
+            } else if (!space) {
+                sb.append(' ');
+                space = true;
+            }
+        }
+        int len = sb.length();
+        if (len > 0 && sb.charAt(len - 1) == ' ') sb.setLength(len - 1);
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private static String[] tokens(String query) {
+        String norm = normalize(query);
+        return norm.isEmpty() ? new String[0] : norm.split(" ");
+    }
+
+    private static double textScore(String name, String address, String[] tokens) {
+        double total = 0;
+        for (String t : tokens) {
+            double s;
+            if (name.startsWith(t)) s = NAME_START;
+            else if (hasWordStarting(name, t)) s = NAME_WORD;
+            else if (name.contains(t)) s = NAME_SUBSTRING;
+            else if (hasWordStarting(address, t)) s = ADDRESS_WORD;
+            else if (address.contains(t)) s = ADDRESS_SUBSTRING;
+            else return 0; // every token has to match somewhere
+            total += s;
+        }
+        return total / tokens.length;
+    }
+
+    private static boolean hasWordStarting(String text, String token) {
+        for (int i = text.indexOf(token); i >= 0; i = text.indexOf(token, i + 1)) {
+            if (i == 0 || text.charAt(i - 1) == ' ') return true;
+        }
+        return false;
+    }
+
+    private void ensureNormalized() {
+        int n = catalog.size();
+        if (names.length == n) return;
+        int from = names.length;
+        names = Arrays.copyOf(names, n);
+        addresses = Arrays.copyOf(addresses, n);
+        for (int i = from; i < n; i++) {
+            MarinaItem m = catalog.get(i);
+            names[i] = normalize(m.name);
+            addresses[i] = normalize(m.address);
+        }
+    }
+}
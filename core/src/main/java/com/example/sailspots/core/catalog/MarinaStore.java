@@ -0,0 +1,32 @@
+package com.example.sailspots.core.catalog;
+
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.model.MarinaItem;
+
+import java.util.List;
+
+/**
+ * Read-only spatial queries over a set of marinas, whether held in memory (MarinaCatalog)
+ * or memory-mapped from a file (MarinaPack).
+ */
+public interface MarinaStore {
+
+    int size();
+
+    /**
+     * All marinas inside a box.
+     */
+    List<MarinaItem> within(BoundingBox box);
+
+    /**
+     * The k marinas closest to a point, nearest first.
+     */
+    List<MarinaItem> nearest(GeoPoint from, int k);
+
+    /**
+     * The dense ID this store's item for a place ID carries, e.g. to match favorites.
+     * @return The ID, or PlaceIdRegistry.NO_ID if the store cannot have that marina.
+     */
+    int idOf(String placeId);
+}
@@ -0,0 +1,91 @@
+package com.example.sailspots.core.catalog;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Interns Google place ID strings into dense ints: 0, 1, 2, ... in first-seen order.
+ * Each placeId is hashed once, when it is first interned; after that stable adapter IDs,
+ * favorite membership and marker lookups all work on the int.
+ *
+ * A MarinaPack numbers its own marinas instead: it reserves one block of IDs when it is
+ * opened and gives each row the next one, so its place IDs are never hashed or held here.
+ *
+ * IDs are never reused or removed for the life of the process. Thread-safe.
+ */
+public final class PlaceIdRegistry {
+
+    // Returned by idOf() for place IDs that were never interned.
+    public static final int NO_ID = -1;
+
+    private static final PlaceIdRegistry GLOBAL = new PlaceIdRegistry();
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    // Interned IDs in ascending order, and their place IDs; reserved blocks fall between them.
+    private int[] interned = new int[256];
+    private String[] placeIds = new String[256];
+    private int internedCount;
+    private int size;
+
+    /**
+     * The process-wide registry: imported marinas and favorites intern into it, and every
+     * opened MarinaPack reserves its block from it.
+     */
+    public static PlaceIdRegistry global() { return GLOBAL; }
+
+    /**
+     * Returns the dense ID for a place ID, assigning the next free one if it is new.
+     * @return The ID, or NO_ID for a null place ID.
+     */
+    public synchronized int intern(String placeId) {
+        if (placeId == null) return NO_ID;
+        Integer id = ids.get(placeId);
+        if (id != null) return id;
+        if (internedCount == placeIds.length) {
+            interned = Arrays.copyOf(interned, internedCount * 2);
+            placeIds = Arrays.copyOf(placeIds, internedCount * 2);
+        }
+        interned[internedCount] = size;
+        placeIds[internedCount++] = placeId;
+        ids.put(placeId, size);
+        return size++;
+    }
+
+    /**
+     * Reserves a block of consecutive IDs for a source that numbers its own marinas.
+     * Nothing is stored per ID: placeIdOf() returns null for them.
+     * @return The first ID of the block.
+     * @throws IllegalStateException If the int range is used up.
+     */
+    public synchronized int reserve(int count) {
+        if (count < 0) throw new IllegalArgumentException("count");
+        if (count > Integer.MAX_VALUE - size) throw new IllegalStateException("Dense IDs exhausted");
+        int first = size;
+        size += count;
+        return first;
+    }
+
+    /**
+     * Looks up a place ID without interning it.
+     * @return The ID, or NO_ID if it was never interned.
+     */
+    public synchronized int idOf(String placeId) {
+        if (placeId == null) return NO_ID;
+        Integer id = ids.get(placeId);
+        return id != null ? id : NO_ID;
+    }
+
+    /**
+     * @return The place ID for an interned ID, or null if it is out of range or reserved.
+     */
+    public synchronized String placeIdOf(int id) {
+        int at = Arrays.binarySearch(interned, 0, internedCount, id);
+        return at >= 0 ? placeIds[at] : null;
+    }
+
+    /**
+     * @return How many IDs have been interned or reserved; every ID is below this.
+     */
+    public synchronized int size() { return size; }
+}
@@ -0,0 +1,249 @@
+package com.example.sailspots.core.catalog;
+
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.geo.GeoMath;
+import com.example.sailspots.core.util.IntList;
+
+import java.util.Arrays;
+
+/**
+ * A uniform latitude/longitude grid over point coordinates, stored in flat primitive arrays.
+ * Points are appended and identified by their insertion index; the grid is (re)built lazily
+ * on the first query after a change by sorting packed (cell, index) longs.
+ *
+ * Not thread-safe: build it on one thread, then share it read-only.
+ */
+public final class SpatialGridIndex {
+
+    // About 3.5 miles of latitude: a handful of marinas per cell in busy harbors.
+    public static final double DEFAULT_CELL_DEGREES = 0.05;
+
+    // Past this many rings a nearest query falls back to a linear scan, which is cheaper by then.
+    private static final int MAX_RINGS = 64;
+
+    private final double cellDeg;
+    private final int rows;
+    private final int cols;
+
+    private double[] lats = new double[64];
+    private double[] lngs = new double[64];
+    private int size;
+
+    // Built lookup structure: sorted distinct cell keys, and item ranges per cell.
+    private long[] cellKeys = new long[0];
+    private int[] cellStart = new int[1];
+    private int[] order = new int[0];
+    private boolean dirty;
+
+    public SpatialGridIndex() { this(DEFAULT_CELL_DEGREES); }
+
+    /**
+     * @param cellDegrees Cell edge in degrees. Smaller cells mean faster dense queries and
+     *                    slower sparse ones.
+     */
+    public SpatialGridIndex(double cellDegrees) {
+        if (!(cellDegrees > 0) || cellDegrees > 90) throw new IllegalArgumentException("cellDegrees");
+        this.cellDeg = cellDegrees;
+        this.rows = (int) Math.ceil(180.0 / cellDegrees) + 1;
+        this.cols = (int) Math.ceil(360.0 / cellDegrees);
+    }
+
+    /**
+     * Appends a point. Points with NaN coordinates get an index but are never returned by queries.
+     * @return The point's index.
+     */
+    public int add(double lat, double lng) {
+        if (size == lats.length) {
+            lats = Arrays.copyOf(lats, size * 2);
+            lngs = Arrays.copyOf(lngs, size * 2);
+        }
+        lats[size] = lat;
+        lngs[size] = lng;
+        dirty = true;
+        return size++;
+    }
+
+    public int size() { return size; }
+
+    public double latitude(int i) { return lats[i]; }
+
+    public double longitude(int i) { return lngs[i]; }
+
+    public double cellDegrees() { return cellDeg; }
+
+    /**
+     * Collects the indices of all points inside a box into {@code out} (which is cleared first).
+     * @return The number of points found.
+     */
+    public int queryBox(BoundingBox box, IntList out) {
+        out.clear();
+        ensureBuilt();
+        if (size == 0) return 0;
+        int r0 = row(box.south);
+        int r1 = row(box.north);
+        if (box.crossesAntimeridian()) {
+            scanRows(box, r0, r1, col(box.west), cols - 1, out);
+            scanRows(box, r0, r1, 0, col(box.east), out);
+        } else {
+            // East = 180 would wrap to column 0; it means "up to the antimeridian".
+            int c1 = box.east >= 180.0 ? cols - 1 : col(box.east);
+            scanRows(box, r0, r1, col(box.west), c1, out);
+        }
+        return out.size();
+    }
+
+    /**
+     * Finds the k nearest points to a location, closest first.
+     * Candidates are ranked with the equirectangular approximation; the returned distances
+     * are exact great-circle miles.
+     * @param outIdx   Receives point indices; its length must be at least k.
+     * @param outMiles Receives distances in miles; its length must be at least k.
+     * @return The number of results written (less than k if the index holds fewer points).
+     */
+    public int nearest(double lat, double lng, int k, int[] outIdx, double[] outMiles) {
+        ensureBuilt();
+        if (k <= 0 || order.length == 0) return 0;
+        KHeap heap = new KHeap(k);
+        int row0 = row(lat);
+        int col0 = col(lng);
+        int seen = 0;
+        double cellHeight = cellDeg * GeoMath.MILES_PER_DEGREE;
+
+        // Rings wider than the grid would visit the same columns twice.
+        int maxRing = Math.min(MAX_RINGS, (cols - 1) / 2);
+        boolean done = false;
+        for (int ring = 0; ring <= maxRing && !done; ring++) {
+            for (int r = row0 - ring; r <= row0 + ring; r++) {
+                if (r < 0 || r >= rows) continue;
+                boolean edgeRow = (r == row0 - ring || r == row0 + ring);
+                int step = edgeRow ? 1 : 2 * ring;
+                for (int c = col0 - ring; c <= col0 + ring; c += Math.max(1, step)) {
+                    seen += scanCell(r, Math.floorMod(c, cols), lat, lng, heap);
+                }
+            }
+            if (seen >= order.length) {
+                done = true;
+            } else if (heap.isFull()) {
+                // Everything not yet scanned is at least `ring` whole cells away.
+                double maxLat = Math.min(89.9, Math.abs(lat) + (ring + 1) * cellDeg);
+                double cellWidth = cellHeight * Math.cos(Math.toRadians(maxLat));
+                done = heap.worst() <= ring * Math.min(cellHeight, cellWidth);
+            }
+            if (!done && ring == maxRing) {
+                heap.clear();
+                for (int i : order) heap.offer(i, GeoMath.approxMiles(lat, lng, lats[i], lngs[i]));
+                done = true;
+            }
+        }
+
+        int n = heap.drainSorted(outIdx);
+        for (int i = 0; i < n; i++) {
+            int idx = outIdx[i];
+            outMiles[i] = GeoMath.haversineMiles(lat, lng, lats[idx], lngs[idx]);
+        }
+        // Re-sort by exact distance; the approximation can swap near-ties.
+        for (int i = 1; i < n; i++) {
+            int idx = outIdx[i];
+            double d = outMiles[i];
+            int j = i - 1;
+            while (j >= 0 && outMiles[j] > d) {
+                outIdx[j + 1] = outIdx[j];
+                outMiles[j + 1] = outMiles[j];
+                j--;
+            }
+            outIdx[j + 1] = idx;
+            outMiles[j + 1] = d;
+        }
+        return n;
+    }
+
+    /**
+     * Packs a grid cell key for the given coordinates. Exposed for tools that bucket points
+     * the same way the index does.
+     */
+    public long cellKey(double lat, double lng) {
+        return (long) row(lat) * cols + col(lng);
+    }
+
+    private int row(double lat) {
+        int r = (int) Math.floor((lat + 90.0) / cellDeg);
+        return Math.max(0, Math.min(rows - 1, r));
+    }
+
+    private int col(double lng) {
+        int c = (int) Math.floor((GeoMath.wrapLongitude(lng) + 180.0) / cellDeg);
+        return Math.max(0, Math.min(cols - 1, c));
+    }
+
+    private void scanRows(BoundingBox box, int r0, int r1, int c0, int c1, IntList out) {
+        for (int r = r0; r <= r1; r++) {
+            long lo = (long) r * cols + c0;
+            long hi = (long) r * cols + c1;
+            for (int j = lowerBound(lo); j < cellKeys.length && cellKeys[j] <= hi; j++) {
+                for (int p = cellStart[j]; p < cellStart[j + 1]; p++) {
+                    int idx = order[p];
+                    if (box.contains(lats[idx], lngs[idx])) out.add(idx);
+                }
+            }
+        }
+    }
+
+    private int scanCell(int r, int c, double lat, double lng, KHeap heap) {
+        int j = lowerBound((long) r * cols + c);
+        if (j >= cellKeys.length || cellKeys[j] != (long) r * cols + c) return 0;
+        for (int p = cellStart[j]; p < cellStart[j + 1]; p++) {
+            int idx = order[p];
+            heap.offer(idx, GeoMath.approxMiles(lat, lng, lats[idx], lngs[idx]));
+        }
+        return cellStart[j + 1] - cellStart[j];
+    }
+
+    private int lowerBound(long key) {
+        int lo = 0, hi = cellKeys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cellKeys[mid] < key) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Builds the grid now rather than on the first query, e.g. before sharing the index
+     * read-only with other threads.
+     */
+    public void build() {
+        ensureBuilt();
+    }
+
+    private void ensureBuilt() {
+        if (!dirty) return;
+        // Pack (cell key, index) into one long so a primitive sort groups points by cell.
+        long[] packed = new long[size];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (Double.isNaN(lats[i]) || Double.isNaN(lngs[i])) continue;
+            packed[n++] = (cellKey(lats[i], lngs[i]) << 32) | i;
+        }
+        Arrays.sort(packed, 0, n);
+
+        order = new int[n];
+        long[] keys = new long[n];
+        int[] starts = new int[n + 1];
+        int cells = 0;
+        long prev = -1;
+        for (int i = 0; i < n; i++) {
+            long key = packed[i] >>> 32;
+            order[i] = (int) packed[i];
+            if (key != prev) {
+                keys[cells] = key;
+                starts[cells] = i;
+                cells++;
+                prev = key;
+            }
+        }
+        starts[cells] = n;
+        cellKeys = Arrays.copyOf(keys, cells);
+        cellStart = Arrays.copyOf(starts, cells + 1);
+        dirty = false;
+    }
+}
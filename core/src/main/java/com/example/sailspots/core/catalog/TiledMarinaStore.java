@@ -0,0 +1,116 @@
+package com.example.sailspots.core.catalog;
+
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.geo.GeoMath;
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.model.MarinaItem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One MarinaStore over many tiles, each a MarinaPack covering a known, non-overlapping box.
+ *
+ * Box queries only touch the tiles they overlap. Nearest queries visit tiles in order of a
+ * lower bound on their distance and stop once no unvisited tile can hold anything closer
+ * than the k found so far. Immutable and thread-safe.
+ */
+public final class TiledMarinaStore implements MarinaStore {
+
+    private final BoundingBox[] bounds;
+    private final MarinaPack[] packs;
+    private final int size;
+
+    /**
+     * @param bounds The area each tile covers; a tile's marinas must all lie inside it.
+     * @param packs  The tiles, in the same order as bounds.
+     */
+    public TiledMarinaStore(List<BoundingBox> bounds, List<MarinaPack> packs) {
+        if (bounds.size() != packs.size()) throw new IllegalArgumentException("bounds and packs differ in size");
+        this.bounds = bounds.toArray(new BoundingBox[0]);
+        this.packs = packs.toArray(new MarinaPack[0]);
+        int n = 0;
+        for (MarinaPack p : this.packs) n += p.size();
+        this.size = n;
+    }
+
+    @Override
+    public int size() { return size; }
+
+    public int tileCount() { return packs.length; }
+
+    @Override
+    public List<MarinaItem> within(BoundingBox box) {
+        List<MarinaItem> out = new ArrayList<>();
+        for (int t = 0; t < packs.length; t++) {
+            if (intersects(box, bounds[t])) out.addAll(packs[t].within(box));
+        }
+        return out;
+    }
+
+    @Override
+    public List<MarinaItem> nearest(GeoPoint from, int k) {
+        if (k <= 0 || size == 0) return new ArrayList<>();
+        int tiles = packs.length;
+        double[] lowerBound = new double[tiles];
+        Integer[] order = new Integer[tiles];
+        for (int t = 0; t < tiles; t++) {
+            lowerBound[t] = minMiles(from.latitude, from.longitude, bounds[t]);
+            order[t] = t;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(lowerBound[a], lowerBound[b]));
+
+        // Candidates from every visited tile, ranked together by one heap.
+        List<MarinaItem> candidates = new ArrayList<>();
+        KHeap heap = new KHeap(k);
+        int[] idx = new int[k];
+        double[] miles = new double[k];
+        for (int t : order) {
+            if (heap.isFull() && lowerBound[t] > heap.worst()) break;
+            int n = packs[t].nearest(from.latitude, from.longitude, k, idx, miles);
+            for (int i = 0; i < n; i++) {
+                if (heap.isFull() && miles[i] >= heap.worst()) break; // Sorted, so the rest are farther.
+                heap.offer(candidates.size(), miles[i]);
+                candidates.add(packs[t].item(idx[i]));
+            }
+        }
+
+        int[] best = new int[k];
+        int n = heap.drainSorted(best);
+        List<MarinaItem> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) out.add(candidates.get(best[i]));
+        return out;
+    }
+
+    @Override
+    public int idOf(String placeId) {
+        for (MarinaPack p : packs) {
+            int id = p.idOf(placeId);
+            if (id != PlaceIdRegistry.NO_ID) return id;
+        }
+        return PlaceIdRegistry.NO_ID;
+    }
+
+    /**
+     * A lower bound on the great-circle distance from a point to anywhere in a box.
+     * Latitude separation alone is exact along a meridian. For longitude, haversine gives
+     * hav(d) >= cos(lat1) cos(lat2) hav(dLng) >= cos^2(maxLat) hav(dLng).
+     */
+    static double minMiles(double lat, double lng, BoundingBox box) {
+        double latGap = Math.max(0, Math.max(box.south - lat, lat - box.north));
+        double lngGap = box.contains(Math.max(box.south, Math.min(box.north, lat)), lng) ? 0
+                : Math.min(GeoMath.angleDelta(lng, box.west), GeoMath.angleDelta(lng, box.east));
+        double maxLat = Math.toRadians(Math.max(Math.abs(lat), Math.max(Math.abs(box.south), Math.abs(box.north))));
+        double byLat = latGap * GeoMath.MILES_PER_DEGREE;
+        double byLng = 2 * GeoMath.EARTH_RADIUS_MILES
+                * Math.asin(Math.min(1, Math.cos(maxLat) * Math.sin(Math.toRadians(lngGap) / 2)));
+        return Math.max(byLat, byLng);
+    }
+
+    private static boolean intersects(BoundingBox a, BoundingBox tile) {
+        if (tile.north < a.south || tile.south > a.north) return false;
+        if (a.crossesAntimeridian()) return tile.east >= a.west || tile.west <= a.east;
+        return tile.east >= a.west && tile.west <= a.east;
+    }
+}
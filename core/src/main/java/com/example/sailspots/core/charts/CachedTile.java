@@ -0,0 +1,54 @@
+package com.example.sailspots.core.charts;
+
+/**
+ * A tile body with the HTTP validators needed to revalidate it. An empty body records that
+ * the server has no tile there, so that is cached too. Immutable.
+ */
+public final class CachedTile {
+
+    private static final byte[] NO_DATA = new byte[0];
+    // Rough per-entry cost of the object, strings and map node, for memory budgets.
+    private static final int OVERHEAD_BYTES = 128;
+
+    public final byte[] data;
+    public final String etag;          // Null if the server sent none.
+    public final String lastModified;  // Null if the server sent none.
+    public final long expiresAt;       // Epoch millis after which it should be revalidated.
+
+    public CachedTile(byte[] data, String etag, String lastModified, long expiresAt) {
+        this.data = data == null ? NO_DATA : data;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * @return A tile recording that the server has nothing at this position.
+     */
+    public static CachedTile missing(long expiresAt) {
+        return new CachedTile(NO_DATA, null, null, expiresAt);
+    }
+
+    public boolean isEmpty() {
+        return data.length == 0;
+    }
+
+    public boolean isFresh(long nowMillis) {
+        return nowMillis < expiresAt;
+    }
+
+    public boolean hasValidators() {
+        return etag != null || lastModified != null;
+    }
+
+    /**
+     * @return The same tile, confirmed current by a 304 until a new expiry.
+     */
+    public CachedTile withExpiry(long expiresAt) {
+        return new CachedTile(data, etag, lastModified, expiresAt);
+    }
+
+    int weight() {
+        return data.length + OVERHEAD_BYTES;
+    }
+}
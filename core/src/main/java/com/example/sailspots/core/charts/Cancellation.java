@@ -0,0 +1,40 @@
+package com.example.sailspots.core.charts;
+
+/**
+ * Lets one thread abandon a blocking request running on another. The worker registers how
+ * to abort (e.g. disconnecting a socket), and cancel() runs that once. Thread-safe.
+ */
+public final class Cancellation {
+
+    private boolean cancelled;
+    private Runnable onCancel;
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void cancel() {
+        Runnable action;
+        synchronized (this) {
+            if (cancelled) return;
+            cancelled = true;
+            action = onCancel;
+            onCancel = null;
+        }
+        if (action != null) action.run();
+    }
+
+    /**
+     * Sets what cancel() does, replacing any earlier action. Runs it right away if already
+     * cancelled.
+     */
+    public void onCancel(Runnable action) {
+        synchronized (this) {
+            if (!cancelled) {
+                onCancel = action;
+                return;
+            }
+        }
+        action.run();
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.sailspots.core.charts;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Chart tiles from memory, then downloaded offline regions, then the disk cache, then the
+ * network.
+ *
+ * Any cached tile is returned at once, even a stale one, so panning over water seen before
+ * never waits on the network. A stale tile is revalidated in the background, which costs a
+ * 304 with no body if it has not changed. Concurrent requests for one tile share a single
+ * network load, and loads for tiles that are no longer wanted can be cancelled.
+ *
+ * Thread-safe. get() blocks; call it from a tile thread, not the main thread.
+ */
+public final class ChartTileCache {
+
+    private final MemoryTileCache memory;
+    private final DiskTileCache disk;
+    private final TileFetcher fetcher;
+    private final Executor background;
+    private final int maxBackgroundLoads;
+
+    private volatile TileLookup offline;
+
+    private final Map<TileKey, Load> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger backgroundLoads = new AtomicInteger();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong offlineHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong downloads = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+
+    /**
+     * @param background         Runs prefetches and revalidations.
+     * @param maxBackgroundLoads The most of those running at once, so they never crowd out a
+     *                           shared pool; extra requests are dropped, not queued.
+     */
+    public ChartTileCache(MemoryTileCache memory, DiskTileCache disk, TileFetcher fetcher,
+                          Executor background, int maxBackgroundLoads) {
+        this.memory = memory;
+        this.disk = disk;
+        this.fetcher = fetcher;
+        this.background = background;
+        this.maxBackgroundLoads = maxBackgroundLoads;
+    }
+
+    /**
+     * Sets tiles to look in before the disk cache, e.g. downloaded regions. Their tiles are
+     * used as they are, never revalidated here; they are refreshed by downloading the region
+     * again.
+     */
+    public void setOfflineTiles(TileLookup offline) {
+        this.offline = offline;
+    }
+
+    /**
+     * Looks in memory and on disk only; a stale hit is revalidated in the background.
+     * @return The cached tile, or null if it must be downloaded.
+     */
+    public CachedTile peek(TileKey key) {
+        CachedTile tile = memory.get(key);
+        if (tile != null) {
+            memoryHits.incrementAndGet();
+        } else if ((tile = findOffline(key)) != null) {
+            offlineHits.incrementAndGet();
+            memory.put(key, tile);
+            return tile;
+        } else {
+            tile = disk.get(key);
+            if (tile == null) return null;
+            diskHits.incrementAndGet();
+            memory.put(key, tile);
+        }
+        if (!tile.isFresh(System.currentTimeMillis())) startBackground(key, tile);
+        return tile;
+    }
+
+    /**
+     * Returns the cached tile or downloads it on the calling thread, joining a load already
+     * in flight for the same tile.
+     * @return The tile, or null if it is unavailable right now: offline, failed, or cancelled.
+     */
+    public CachedTile get(TileKey key) {
+        CachedTile tile = peek(key);
+        if (tile != null) return tile;
+        Load load = new Load(key, null);
+        Load running = inFlight.putIfAbsent(key, load);
+        if (running != null) return running.await();
+        load.run();
+        return load.result;
+    }
+
+    /**
+     * Downloads a tile in the background unless it is cached or already loading.
+     * @return False if it was skipped because too many background loads are running.
+     */
+    public boolean prefetch(TileKey key) {
+        if (inFlight.containsKey(key)) return true;
+        if (memory.get(key) != null) return true;
+        CachedTile onDisk = findOffline(key);
+        if (onDisk == null) onDisk = disk.get(key);
+        if (onDisk != null) {
+            memory.put(key, onDisk); // About to be shown, most likely.
+            return true;
+        }
+        return startBackground(key, null);
+    }
+
+    /**
+     * Cancels the network loads, foreground and background, for tiles {@code wanted} rejects,
+     * e.g. tiles that scrolled off screen. Callers waiting on them get null.
+     * @return How many were cancelled.
+     */
+    public int cancelUnless(Predicate<TileKey> wanted) {
+        int n = 0;
+        for (Load load : inFlight.values()) {
+            if (!wanted.test(load.key) && !load.cancel.isCancelled()) {
+                load.cancel.cancel();
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private CachedTile findOffline(TileKey key) {
+        TileLookup lookup = offline;
+        return lookup == null ? null : lookup.find(key);
+    }
+
+    private boolean startBackground(TileKey key, CachedTile stale) {
+        if (backgroundLoads.incrementAndGet() > maxBackgroundLoads) {
+            backgroundLoads.decrementAndGet();
+            return false;
+        }
+        Load load = new Load(key, stale);
+        if (inFlight.putIfAbsent(key, load) != null) {
+            backgroundLoads.decrementAndGet();
+            return true;
+        }
+        try {
+            background.execute(() -> {
+                try {
+                    load.run();
+                } finally {
+                    backgroundLoads.decrementAndGet();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            backgroundLoads.decrementAndGet();
+            load.finish(null);
+            return false;
+        }
+    }
+
+    private void store(TileKey key, CachedTile tile) {
+        memory.put(key, tile);
+        try {
+            disk.put(key, tile);
+        } catch (IOException e) {
+            // Still served from memory; the next session downloads it again.
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(memoryHits.get(), offlineHits.get(), diskHits.get(), downloads.get(),
+                notModified.get(), failures.get(), cancelled.get(), memory.sizeBytes(), disk.sizeBytes());
+    }
+
+    /**
+     * One network load, shared by everyone asking for the tile while it runs.
+     */
+    private final class Load {
+        final TileKey key;
+        final CachedTile stale;  // Revalidated rather than downloaded again, if not null.
+        final Cancellation cancel = new Cancellation();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile CachedTile result;
+
+        Load(TileKey key, CachedTile stale) {
+            this.key = key;
+            this.stale = stale;
+        }
+
+        void run() {
+            CachedTile tile = null;
+            try {
+                if (!cancel.isCancelled()) {
+                    tile = fetcher.fetch(key, stale, cancel);
+                    if (stale != null && tile.data == stale.data) notModified.incrementAndGet();
+                    else downloads.incrementAndGet();
+                    store(key, tile);
+                }
+            } catch (IOException e) {
+                // A failed revalidation keeps the stale tile, which is still in both caches.
+                if (!cancel.isCancelled()) failures.incrementAndGet();
+            } finally {
+                if (cancel.isCancelled() && tile == null) cancelled.incrementAndGet();
+                finish(tile);
+            }
+        }
+
+        void finish(CachedTile tile) {
+            result = tile;
+            inFlight.remove(key, this);
+            done.countDown();
+        }
+
+        CachedTile await() {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Hit and load counts since the cache was created, and the current cache sizes.
+     */
+    public static final class Stats {
+        public final long memoryHits;
+        public final long offlineHits;
+        public final long diskHits;
+        public final long downloads;
+        public final long notModified;
+        public final long failures;
+        public final long cancelled;
+        public final long memoryBytes;
+        public final long diskBytes;
+
+        Stats(long memoryHits, long offlineHits, long diskHits, long downloads, long notModified,
+              long failures, long cancelled, long memoryBytes, long diskBytes) {
+            this.memoryHits = memoryHits;
+            this.offlineHits = offlineHits;
+            this.diskHits = diskHits;
+            this.downloads = downloads;
+            this.notModified = notModified;
+            this.failures = failures;
+            this.cancelled = cancelled;
+            this.memoryBytes = memoryBytes;
+            this.diskBytes = diskBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "memoryHits=" + memoryHits + " offlineHits=" + offlineHits + " diskHits=" + diskHits
+                    + " downloads=" + downloads
+                    + " notModified=" + notModified + " failures=" + failures + " cancelled=" + cancelled
+                    + " memoryBytes=" + memoryBytes + " diskBytes=" + diskBytes;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.sailspots.core.charts;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The second cache level: one file per tile, least recently used deleted first once the
+ * directory passes a byte budget.
+ *
+ * Each file holds a small header (expiry and HTTP validators) followed by the tile body.
+ * Files are written under a temporary name and renamed into place, so a reader never sees
+ * half a tile. Reads bump the file's modification time, which orders the index when it is
+ * rebuilt by scanning the directory on first use. There is no fsync: this is a cache, and
+ * a file damaged by a crash fails its length check and is dropped like any other miss.
+ *
+ * Thread-safe; file IO happens outside the index lock.
+ */
+public final class DiskTileCache {
+
+    private static final int MAGIC = 0x43545331;  // "CTS1"
+    private static final String SUFFIX = ".tile";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private final File dir;
+    private final long maxBytes;
+    private final AtomicInteger tmpCounter = new AtomicInteger();
+    // File sizes in access order; guarded by "this" and loaded on first use.
+    private LinkedHashMap<TileKey, Long> index;
+    private long bytes;
+
+    public DiskTileCache(File dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return The cached tile, or null if there is none or it could not be read.
+     */
+    public CachedTile get(TileKey key) {
+        synchronized (this) {
+            if (index().get(key) == null) return null;
+        }
+        File file = fileFor(key);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a cached tile: " + file);
+            long expiresAt = in.readLong();
+            String etag = readNullable(in);
+            String lastModified = readNullable(in);
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            if (in.read() != -1) throw new IOException("Trailing bytes in " + file);
+            file.setLastModified(System.currentTimeMillis());
+            return new CachedTile(data, etag, lastModified, expiresAt);
+        } catch (IOException e) {
+            // Evicted under us, truncated by a crash, or from an older format.
+            remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Stores a tile, replacing any older copy, then trims the cache to its budget.
+     */
+    public void put(TileKey key, CachedTile tile) throws IOException {
+        mkdirs(dir);
+        File tmp = new File(dir, name(key) + "." + tmpCounter.incrementAndGet() + TMP_SUFFIX);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeLong(tile.expiresAt);
+            writeNullable(out, tile.etag);
+            writeNullable(out, tile.lastModified);
+            out.writeInt(tile.data.length);
+            out.write(tile.data);
+        }
+        long size = tmp.length();
+        if (!tmp.renameTo(fileFor(key))) {
+            tmp.delete();
+            throw new IOException("Could not move " + tmp + " into the tile cache");
+        }
+
+        List<TileKey> evicted = new ArrayList<>();
+        synchronized (this) {
+            Long old = index().put(key, size);
+            bytes += size - (old == null ? 0 : old);
+            Iterator<Map.Entry<TileKey, Long>> it = index.entrySet().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                Map.Entry<TileKey, Long> eldest = it.next();
+                if (eldest.getKey().equals(key)) continue; // Never evict what was just written.
+                bytes -= eldest.getValue();
+                evicted.add(eldest.getKey());
+                it.remove();
+            }
+        }
+        for (TileKey k : evicted) {
+            fileFor(k).delete();
+        }
+    }
+
+    public void remove(TileKey key) {
+        synchronized (this) {
+            Long old = index().remove(key);
+            if (old != null) bytes -= old;
+        }
+        fileFor(key).delete();
+    }
+
+    public synchronized int size() {
+        return index().size();
+    }
+
+    public synchronized long sizeBytes() {
+        index();
+        return bytes;
+    }
+
+    private LinkedHashMap<TileKey, Long> index() {
+        if (index == null) index = scan();
+        return index;
+    }
+
+    /**
+     * Rebuilds the index from the files on disk, oldest access first, and deletes leftovers
+     * from interrupted writes.
+     */
+    private LinkedHashMap<TileKey, Long> scan() {
+        LinkedHashMap<TileKey, Long> out = new LinkedHashMap<>(256, 0.75f, true);
+        bytes = 0;
+        File[] files = dir.listFiles();
+        if (files == null) return out;
+        long[] modified = new long[files.length];
+        for (int i = 0; i < files.length; i++) modified[i] = files[i].lastModified();
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(modified[a], modified[b]));
+        for (int i : order) {
+            File f = files[i];
+            String name = f.getName();
+            TileKey key = name.endsWith(SUFFIX) ? parse(name.substring(0, name.length() - SUFFIX.length())) : null;
+            if (key == null) {
+                f.delete();
+                continue;
+            }
+            long size = f.length();
+            out.put(key, size);
+            bytes += size;
+        }
+        return out;
+    }
+
+    private File fileFor(TileKey key) {
+        return new File(dir, name(key) + SUFFIX);
+    }
+
+    private static String name(TileKey key) {
+        return key.z + "-" + key.x + "-" + key.y;
+    }
+
+    private static TileKey parse(String name) {
+        String[] parts = name.split("-");
+        if (parts.length != 3) return null;
+        try {
+            return new TileKey(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void mkdirs(File d) throws IOException {
+        if (!d.isDirectory() && !d.mkdirs() && !d.isDirectory()) {
+            throw new IOException("Could not create " + d);
+        }
+    }
+}
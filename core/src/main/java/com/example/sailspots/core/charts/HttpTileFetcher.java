@@ -0,0 +1,123 @@
+package com.example.sailspots.core.charts;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetches tiles from a URL template such as "https://tiles.openseamap.org/seamark/{z}/{x}/{y}.png"
+ * with HttpURLConnection, revalidating cached tiles with If-None-Match and If-Modified-Since.
+ *
+ * A tile stays fresh for the server's max-age or {@code minMaxAgeMillis}, whichever is
+ * longer: chart servers often send lifetimes of minutes meant for browsers, while charts
+ * change over weeks.
+ */
+public final class HttpTileFetcher implements TileFetcher {
+
+    public static final long DEFAULT_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    private static final int CONNECT_TIMEOUT_MS = 10_000;
+    private static final int READ_TIMEOUT_MS = 20_000;
+    private static final int MAX_TILE_BYTES = 1 << 20;
+
+    private final String urlTemplate;
+    private final String userAgent;
+    private final long minMaxAgeMillis;
+
+    /**
+     * @param userAgent Identifies the app; public tile servers require one.
+     */
+    public HttpTileFetcher(String urlTemplate, String userAgent, long minMaxAgeMillis) {
+        if (!urlTemplate.contains("{z}") || !urlTemplate.contains("{x}") || !urlTemplate.contains("{y}")) {
+            throw new IllegalArgumentException("URL template needs {z}, {x} and {y}: " + urlTemplate);
+        }
+        this.urlTemplate = urlTemplate;
+        this.userAgent = userAgent;
+        this.minMaxAgeMillis = minMaxAgeMillis;
+    }
+
+    String urlFor(TileKey key) {
+        return urlTemplate.replace("{z}", Integer.toString(key.z))
+                .replace("{x}", Integer.toString(key.x))
+                .replace("{y}", Integer.toString(key.y));
+    }
+
+    @Override
+    public CachedTile fetch(TileKey key, CachedTile cached, Cancellation cancel) throws IOException {
+        String url = urlFor(key);
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        // A blocked read only ends when its socket closes, so cancelling disconnects.
+        cancel.onCancel(conn::disconnect);
+        try {
+            conn.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            conn.setReadTimeout(READ_TIMEOUT_MS);
+            conn.setUseCaches(false); // DiskTileCache is the cache.
+            conn.setRequestProperty("User-Agent", userAgent);
+            if (cached != null && cached.etag != null) conn.setRequestProperty("If-None-Match", cached.etag);
+            if (cached != null && cached.lastModified != null) {
+                conn.setRequestProperty("If-Modified-Since", cached.lastModified);
+            }
+
+            int code = conn.getResponseCode();
+            long expiresAt = System.currentTimeMillis() + Math.max(minMaxAgeMillis, maxAgeMillis(conn));
+            CachedTile out;
+            if (code == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                out = cached.withExpiry(expiresAt);
+            } else if (code == HttpURLConnection.HTTP_NOT_FOUND || code == HttpURLConnection.HTTP_NO_CONTENT) {
+                out = CachedTile.missing(expiresAt);
+            } else if (code == HttpURLConnection.HTTP_OK) {
+                out = new CachedTile(readBody(conn), conn.getHeaderField("ETag"),
+                        conn.getHeaderField("Last-Modified"), expiresAt);
+            } else {
+                throw new IOException("HTTP " + code + " for " + url);
+            }
+            if (cancel.isCancelled()) throw new InterruptedIOException("Cancelled " + key);
+            return out;
+        } catch (IOException e) {
+            // Disconnecting surfaces as an arbitrary socket error; report it as what it was.
+            if (cancel.isCancelled() && !(e instanceof InterruptedIOException)) {
+                throw new InterruptedIOException("Cancelled " + key);
+            }
+            throw e;
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    private static byte[] readBody(HttpURLConnection conn) throws IOException {
+        int length = conn.getContentLength();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length > 0 ? Math.min(length, MAX_TILE_BYTES) : 16 * 1024);
+        try (InputStream in = conn.getInputStream()) {
+            byte[] buf = new byte[8 * 1024];
+            int r;
+            while ((r = in.read(buf)) > 0) {
+                if (out.size() + r > MAX_TILE_BYTES) throw new IOException("Tile larger than " + MAX_TILE_BYTES + " bytes");
+                out.write(buf, 0, r);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return The max-age from Cache-Control, or 0 if there is none.
+     */
+    static long maxAgeMillis(HttpURLConnection conn) {
+        String cacheControl = conn.getHeaderField("Cache-Control");
+        if (cacheControl == null) return 0;
+        for (String directive : cacheControl.split(",")) {
+            String d = directive.trim();
+            if (d.startsWith("max-age=")) {
+                try {
+                    return TimeUnit.SECONDS.toMillis(Long.parseLong(d.substring("max-age=".length()).trim()));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
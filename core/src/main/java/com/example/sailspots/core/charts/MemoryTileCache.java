@@ -0,0 +1,49 @@
+package com.example.sailspots.core.charts;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The first cache level: recently used tiles held in memory, least recently used evicted
+ * first once their total size passes a byte budget. Thread-safe.
+ */
+public final class MemoryTileCache {
+
+    private final long maxBytes;
+    // Access order, so iteration starts at the least recently used tile.
+    private final LinkedHashMap<TileKey, CachedTile> map = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+
+    public MemoryTileCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized CachedTile get(TileKey key) {
+        return map.get(key);
+    }
+
+    public synchronized void put(TileKey key, CachedTile tile) {
+        CachedTile old = map.put(key, tile);
+        if (old != null) bytes -= old.weight();
+        bytes += tile.weight();
+        Iterator<Map.Entry<TileKey, CachedTile>> it = map.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            bytes -= it.next().getValue().weight();
+            it.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        map.clear();
+        bytes = 0;
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public synchronized long sizeBytes() {
+        return bytes;
+    }
+}
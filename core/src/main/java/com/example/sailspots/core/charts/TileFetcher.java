@@ -0,0 +1,21 @@
+package com.example.sailspots.core.charts;
+
+import java.io.IOException;
+
+/**
+ * Gets tiles from wherever they are published, usually a tile server.
+ */
+public interface TileFetcher {
+
+    /**
+     * Fetches one tile, revalidating {@code cached} instead of downloading it again when the
+     * server supports that. Blocks.
+     * @param cached The copy on hand, possibly stale, or null.
+     * @param cancel Cancelled if the tile is no longer wanted; implementations should abort
+     *               promptly with an IOException.
+     * @return The new tile; {@code cached} with a new expiry if it is still current; or a
+     *         missing tile if the server has none at this position.
+     * @throws IOException On network errors, unexpected responses, or cancellation.
+     */
+    CachedTile fetch(TileKey key, CachedTile cached, Cancellation cancel) throws IOException;
+}
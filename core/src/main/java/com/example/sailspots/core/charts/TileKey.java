@@ -0,0 +1,80 @@
+package com.example.sailspots.core.charts;
+
+import com.example.sailspots.core.geo.BoundingBox;
+
+/**
+ * One square of the Web Mercator ("slippy map") tile grid that Google Maps and most chart
+ * servers share: 2^z by 2^z tiles at zoom z, x growing east from the antimeridian and y
+ * growing south from about 85.05 degrees north.
+ */
+public final class TileKey {
+
+    // Web Mercator stops here, which makes the world square.
+    public static final double MAX_LATITUDE = 85.0511287798;
+
+    public final int z;
+    public final int x;
+    public final int y;
+
+    public TileKey(int z, int x, int y) {
+        if (z < 0 || z > 30) throw new IllegalArgumentException("zoom " + z);
+        int n = 1 << z;
+        if (x < 0 || x >= n || y < 0 || y >= n) throw new IllegalArgumentException(z + "/" + x + "/" + y);
+        this.z = z;
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * @return The tile at zoom z that contains the point.
+     */
+    public static TileKey containing(double lat, double lng, int z) {
+        return new TileKey(z, lngToX(lng, z), latToY(lat, z));
+    }
+
+    static int lngToX(double lng, int z) {
+        int n = 1 << z;
+        int x = (int) Math.floor((lng + 180.0) / 360.0 * n);
+        return Math.floorMod(x, n); // lng = 180 is the same tile column as -180.
+    }
+
+    static int latToY(double lat, int z) {
+        int n = 1 << z;
+        double rad = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, lat)));
+        double y = (1.0 - Math.log(Math.tan(rad) + 1.0 / Math.cos(rad)) / Math.PI) / 2.0 * n;
+        return Math.max(0, Math.min(n - 1, (int) Math.floor(y)));
+    }
+
+    /**
+     * @return The area this tile covers.
+     */
+    public BoundingBox bounds() {
+        int n = 1 << z;
+        return new BoundingBox(yToLat(y + 1, n), x * 360.0 / n - 180.0, yToLat(y, n), (x + 1) * 360.0 / n - 180.0);
+    }
+
+    private static double yToLat(int y, int n) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1.0 - 2.0 * y / n))));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TileKey)) return false;
+        TileKey k = (TileKey) o;
+        return z == k.z && x == k.x && y == k.y;
+    }
+
+    @Override
+    public int hashCode() {
+        return (z * 31 + x) * 1_000_003 + y;
+    }
+
+    /**
+     * @return "z/x/y", the path most tile servers use.
+     */
+    @Override
+    public String toString() {
+        return z + "/" + x + "/" + y;
+    }
+}
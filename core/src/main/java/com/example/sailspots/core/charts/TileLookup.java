@@ -0,0 +1,13 @@
+package com.example.sailspots.core.charts;
+
+/**
+ * Somewhere besides the caches that may already hold a tile, such as a downloaded region.
+ */
+public interface TileLookup {
+
+    /**
+     * @return The tile, or null if this source does not have it. Must be thread-safe and
+     *         must not touch the network.
+     */
+    CachedTile find(TileKey key);
+}
@@ -0,0 +1,121 @@
+package com.example.sailspots.core.charts;
+
+import com.example.sailspots.core.geo.BoundingBox;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A rectangle of tiles at one zoom level, usually the ones on screen. Columns wrap across
+ * the antimeridian, so west may be greater than east. Immutable.
+ */
+public final class TileRange {
+
+    public final int z;
+    public final int west;   // First column.
+    public final int east;   // Last column, inclusive; less than west when the range wraps.
+    public final int north;  // First row.
+    public final int south;  // Last row, inclusive.
+
+    TileRange(int z, int west, int east, int north, int south) {
+        this.z = z;
+        this.west = west;
+        this.east = east;
+        this.north = north;
+        this.south = south;
+    }
+
+    /**
+     * @return The tiles at zoom z that overlap a box.
+     */
+    public static TileRange covering(BoundingBox box, int z) {
+        int n = 1 << z;
+        int west = TileKey.lngToX(box.west, z);
+        // lngToX wraps 180 to column 0, which would make the range wrap too.
+        int east = box.east >= 180.0 ? n - 1 : TileKey.lngToX(box.east, z);
+        if (!box.crossesAntimeridian() && box.east - box.west >= 360.0 - 360.0 / n) {
+            west = 0;
+            east = n - 1;
+        }
+        return new TileRange(z, west, east, TileKey.latToY(box.north, z), TileKey.latToY(box.south, z));
+    }
+
+    /**
+     * @return This range grown by {@code tiles} on every side, clamped at the poles and at
+     *         the width of the world.
+     */
+    public TileRange expand(int tiles) {
+        int n = 1 << z;
+        int north = Math.max(0, this.north - tiles);
+        int south = Math.min(n - 1, this.south + tiles);
+        if (columns() + 2 * tiles >= n) return new TileRange(z, 0, n - 1, north, south);
+        return new TileRange(z, Math.floorMod(west - tiles, n), Math.floorMod(east + tiles, n), north, south);
+    }
+
+    public int columns() {
+        return Math.floorMod(east - west, 1 << z) + 1;
+    }
+
+    public int rows() {
+        return south - north + 1;
+    }
+
+    public boolean contains(TileKey k) {
+        if (k.z == z) return containsColumn(k.x) && k.y >= north && k.y <= south;
+        if (k.z > z) {
+            // A smaller tile: it is in range if the tile containing it at our zoom is.
+            int shift = k.z - z;
+            return containsColumn(k.x >> shift) && (k.y >> shift) >= north && (k.y >> shift) <= south;
+        }
+        // A bigger tile: it is in range if it overlaps any of our tiles.
+        int shift = z - k.z;
+        int rowLo = k.y << shift;
+        int rowHi = ((k.y + 1) << shift) - 1;
+        if (rowHi < north || rowLo > south) return false;
+        int colLo = k.x << shift;
+        int span = 1 << shift;
+        if (columns() >= 1 << z) return true;
+        for (int c = colLo; c < colLo + span; c++) {
+            if (containsColumn(c)) return true;
+        }
+        return false;
+    }
+
+    private boolean containsColumn(int x) {
+        return Math.floorMod(x - west, 1 << z) < columns();
+    }
+
+    /**
+     * @return The tiles in {@code outer} that are not in this range, e.g. the border one tile
+     *         wide around the screen for prefetching.
+     */
+    public List<TileKey> ring(TileRange outer) {
+        List<TileKey> out = new ArrayList<>();
+        int n = 1 << z;
+        for (int r = outer.north; r <= outer.south; r++) {
+            for (int i = 0; i < outer.columns(); i++) {
+                TileKey k = new TileKey(z, (outer.west + i) % n, r);
+                if (!contains(k)) out.add(k);
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TileRange)) return false;
+        TileRange r = (TileRange) o;
+        return z == r.z && west == r.west && east == r.east && north == r.north && south == r.south;
+    }
+
+    @Override
+    public int hashCode() {
+        return (((z * 31 + west) * 31 + east) * 31 + north) * 31 + south;
+    }
+
+    @Override
+    public String toString() {
+        return "TileRange{z=" + z + " x=" + west + ".." + east + " y=" + north + ".." + south + '}';
+    }
+}
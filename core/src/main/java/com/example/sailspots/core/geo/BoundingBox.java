@@ -0,0 +1,72 @@
+package com.example.sailspots.core.geo;
+
+/**
+ * An axis-aligned latitude/longitude box. A box whose west edge is greater than its
+ * east edge crosses the antimeridian.
+ */
+public final class BoundingBox {
+
+    public final double south;
+    public final double west;
+    public final double north;
+    public final double east;
+
+    public BoundingBox(double south, double west, double north, double east) {
+        if (south > north) throw new IllegalArgumentException("south > north");
+        this.south = south;
+        this.west = west;
+        this.north = north;
+        this.east = east;
+    }
+
+    /**
+     * A box covering every point within the given radius of a center point.
+     */
+    public static BoundingBox around(GeoPoint center, double radiusMiles) {
+        double dLat = radiusMiles / GeoMath.MILES_PER_DEGREE;
+        double cos = Math.cos(Math.toRadians(center.latitude));
+        double dLng = cos < 1e-6 ? 180.0 : Math.min(180.0, dLat / cos);
+        double south = Math.max(-90.0, center.latitude - dLat);
+        double north = Math.min(90.0, center.latitude + dLat);
+        if (dLng >= 180.0) return new BoundingBox(south, -180.0, north, 180.0);
+        return new BoundingBox(south, GeoMath.wrapLongitude(center.longitude - dLng),
+                north, GeoMath.wrapLongitude(center.longitude + dLng));
+    }
+
+    /**
+     * Whether this box wraps across the 180th meridian.
+     */
+    public boolean crossesAntimeridian() {
+        return west > east;
+    }
+
+    public boolean contains(double lat, double lng) {
+        if (lat < south || lat > north) return false;
+        return crossesAntimeridian() ? (lng >= west || lng <= east) : (lng >= west && lng <= east);
+    }
+
+    public boolean contains(GeoPoint p) {
+        return contains(p.latitude, p.longitude);
+    }
+
+    /**
+     * Whether the two boxes share any point; either may cross the antimeridian.
+     */
+    public boolean intersects(BoundingBox o) {
+        if (o.north < south || o.south > north) return false;
+        if (crossesAntimeridian() && o.crossesAntimeridian()) return true; // Both contain 180.
+        if (crossesAntimeridian()) return o.east >= west || o.west <= east;
+        if (o.crossesAntimeridian()) return east >= o.west || west <= o.east;
+        return o.east >= west && o.west <= east;
+    }
+
+    public GeoPoint center() {
+        double lngSpan = crossesAntimeridian() ? east + 360.0 - west : east - west;
+        return new GeoPoint((south + north) * 0.5, GeoMath.wrapLongitude(west + lngSpan * 0.5));
+    }
+
+    @Override
+    public String toString() {
+        return "BoundingBox{" + south + ", " + west + ", " + north + ", " + east + '}';
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.sailspots.core.geo;
+
+/**
+ * Distance and bearing math on the WGS84 sphere approximation.
+ * All distances are in statute miles, matching MarinaItem.distanceMiles.
+ */
+public final class GeoMath {
+
+    // Mean Earth radius in statute miles.
+    public static final double EARTH_RADIUS_MILES = 3958.7613;
+
+    // Length of one degree of latitude in miles.
+    public static final double MILES_PER_DEGREE = EARTH_RADIUS_MILES * Math.PI / 180.0;
+
+    // Statute miles per nautical mile.
+    public static final double MILES_PER_NM = 1.150779;
+
+    private GeoMath() { }
+
+    /**
+     * Great-circle distance using the haversine formula. Accurate at any range.
+     */
+    public static double haversineMiles(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double sLat = Math.sin(dLat * 0.5);
+        double sLng = Math.sin(dLng * 0.5);
+        double a = sLat * sLat
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sLng * sLng;
+        return 2.0 * EARTH_RADIUS_MILES * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Great-circle distance between two points.
+     */
+    public static double haversineMiles(GeoPoint a, GeoPoint b) {
+        return haversineMiles(a.latitude, a.longitude, b.latitude, b.longitude);
+    }
+
+    /**
+     * Equirectangular approximation: one cosine, no inverse trig.
+     * Within about 0.1% of haversine for the tens-of-miles ranges used for ranking and pruning.
+     */
+    public static double approxMiles(double lat1, double lng1, double lat2, double lng2) {
+        double x = wrapLongitude(lng2 - lng1) * Math.cos(Math.toRadians((lat1 + lat2) * 0.5));
+        double y = lat2 - lat1;
+        return Math.sqrt(x * x + y * y) * MILES_PER_DEGREE;
+    }
+
+    /**
+     * Initial great-circle bearing from the first point to the second.
+     * @return Degrees clockwise from true north, in [0, 360).
+     */
+    public static double bearingDegrees(double lat1, double lng1, double lat2, double lng2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double y = Math.sin(dLng) * Math.cos(phi2);
+        double x = Math.cos(phi1) * Math.sin(phi2) - Math.sin(phi1) * Math.cos(phi2) * Math.cos(dLng);
+        return normalizeDegrees(Math.toDegrees(Math.atan2(y, x)));
+    }
+
+    /**
+     * Point reached by travelling a distance along a bearing from a start point.
+     */
+    public static GeoPoint destination(double lat, double lng, double bearingDeg, double miles) {
+        double delta = miles / EARTH_RADIUS_MILES;
+        double theta = Math.toRadians(bearingDeg);
+        double phi1 = Math.toRadians(lat);
+        double lambda1 = Math.toRadians(lng);
+        double sinPhi2 = Math.sin(phi1) * Math.cos(delta) + Math.cos(phi1) * Math.sin(delta) * Math.cos(theta);
+        double phi2 = Math.asin(sinPhi2);
+        double lambda2 = lambda1 + Math.atan2(
+                Math.sin(theta) * Math.sin(delta) * Math.cos(phi1),
+                Math.cos(delta) - Math.sin(phi1) * sinPhi2);
+        return new GeoPoint(Math.toDegrees(phi2), wrapLongitude(Math.toDegrees(lambda2)));
+    }
+
+    /**
+     * Wraps a longitude (or longitude difference) into [-180, 180).
+     */
+    public static double wrapLongitude(double lng) {
+        if (lng >= -180.0 && lng < 180.0) return lng;
+        return ((lng + 180.0) % 360.0 + 360.0) % 360.0 - 180.0;
+    }
+
+    /**
+     * Normalizes an angle into [0, 360).
+     */
+    public static double normalizeDegrees(double deg) {
+        double d = deg % 360.0;
+        return d < 0 ? d + 360.0 : d;
+    }
+
+    /**
+     * Smallest absolute difference between two angles, in [0, 180].
+     */
+    public static double angleDelta(double a, double b) {
+        double d = Math.abs(normalizeDegrees(a) - normalizeDegrees(b));
+        return d > 180.0 ? 360.0 - d : d;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.sailspots.core.geo;
+
+/**
+ * An immutable latitude/longitude pair in decimal degrees (WGS84).
+ * This is the plain-JVM stand-in for Android's LatLng so domain code can run anywhere.
+ */
+public final class GeoPoint {
+
+    public final double latitude;
+    public final double longitude;
+
+    /**
+     * @param latitude  Latitude in degrees, -90 to 90.
+     * @param longitude Longitude in degrees, -180 to 180.
+     */
+    public GeoPoint(double latitude, double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof GeoPoint)) return false;
+        GeoPoint p = (GeoPoint) o;
+        return Double.compare(latitude, p.latitude) == 0
+                && Double.compare(longitude, p.longitude) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(latitude) + Double.hashCode(longitude);
+    }
+
+    @Override
+    public String toString() {
+        return "GeoPoint{" + latitude + ", " + longitude + '}';
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.sailspots.core.geo;
+
+/**
+ * Standard base-32 geohashes. Each character splits a cell 32 ways, alternating longitude
+ * and latitude bits, so a hash is also the name of a rectangular tile and every prefix
+ * names the tile containing it. Precision 3 is about 156 x 156 km at the equator, 4 about
+ * 39 x 20 km.
+ */
+public final class Geohash {
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    private Geohash() { }
+
+    /**
+     * @param precision Number of characters, 1 to 12.
+     * @return The geohash of the cell containing the point.
+     */
+    public static String encode(double lat, double lng, int precision) {
+        if (precision < 1 || precision > 12) throw new IllegalArgumentException("precision");
+        double latLo = -90, latHi = 90;
+        double lngLo = -180, lngHi = 180;
+        lng = GeoMath.wrapLongitude(lng);
+        StringBuilder sb = new StringBuilder(precision);
+        boolean evenBit = true; // Bits alternate, starting with longitude.
+        int bit = 0;
+        int ch = 0;
+        while (sb.length() < precision) {
+            if (evenBit) {
+                double mid = (lngLo + lngHi) / 2;
+                if (lng >= mid) {
+                    ch = (ch << 1) | 1;
+                    lngLo = mid;
+                } else {
+                    ch <<= 1;
+                    lngHi = mid;
+                }
+            } else {
+                double mid = (latLo + latHi) / 2;
+                if (lat >= mid) {
+                    ch = (ch << 1) | 1;
+                    latLo = mid;
+                } else {
+                    ch <<= 1;
+                    latHi = mid;
+                }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                sb.append(BASE32.charAt(ch));
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return The cell a geohash names.
+     * @throws IllegalArgumentException If the hash is empty or has a character outside the alphabet.
+     */
+    public static BoundingBox bounds(String hash) {
+        if (hash == null || hash.isEmpty()) throw new IllegalArgumentException("Empty geohash");
+        double latLo = -90, latHi = 90;
+        double lngLo = -180, lngHi = 180;
+        boolean evenBit = true;
+        for (int i = 0; i < hash.length(); i++) {
+            int ch = BASE32.indexOf(hash.charAt(i));
+            if (ch < 0) throw new IllegalArgumentException("Not a geohash: " + hash);
+            for (int mask = 16; mask > 0; mask >>= 1) {
+                if (evenBit) {
+                    double mid = (lngLo + lngHi) / 2;
+                    if ((ch & mask) != 0) lngLo = mid; else lngHi = mid;
+                } else {
+                    double mid = (latLo + latHi) / 2;
+                    if ((ch & mask) != 0) latLo = mid; else latHi = mid;
+                }
+                evenBit = !evenBit;
+            }
+        }
+        return new BoundingBox(latLo, lngLo, latHi, lngHi);
+    }
+}
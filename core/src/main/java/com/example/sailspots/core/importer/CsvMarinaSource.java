@@ -0,0 +1,140 @@
+package com.example.sailspots.core.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads marinas from a UTF-8 CSV export (RFC 4180: quoted fields, "" escapes, CRLF or LF).
+ *
+ * The first row is a header naming the columns; place_id, lat and lng are required, and
+ * name, address, rating and open are picked up when present. Other columns are ignored.
+ * Parsing is a single pass over an 8 KB buffer, so a 100k-row file needs no more memory
+ * than a 10-row one.
+ */
+public final class CsvMarinaSource implements MarinaSource {
+
+    private final CountingInputStream counter;
+    private final Reader reader;
+    private final char[] buf = new char[8192];
+    private int pos;
+    private int limit;
+
+    // The current row's fields; reused for every row.
+    private final List<String> row = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+    // Column index per Fields constant, or -1 if the file has no such column.
+    private final int[] columns = new int[Fields.COUNT];
+    private long line;
+
+    /**
+     * Reads the header row straight away.
+     * @throws IOException If the file is empty or lacks a required column.
+     */
+    public CsvMarinaSource(InputStream in) throws IOException {
+        this.counter = new CountingInputStream(in);
+        this.reader = new InputStreamReader(counter, StandardCharsets.UTF_8);
+        if (!readRow()) throw new IOException("CSV is empty; expected a header row");
+
+        Arrays.fill(columns, -1);
+        for (int i = 0; i < row.size(); i++) {
+            String name = row.get(i);
+            if (i == 0 && name.startsWith("\uFEFF")) name = name.substring(1); // Excel's BOM.
+            int f = Fields.of(name);
+            if (f != Fields.UNKNOWN && columns[f] < 0) columns[f] = i;
+        }
+        if (columns[Fields.PLACE_ID] < 0 || columns[Fields.LATITUDE] < 0 || columns[Fields.LONGITUDE] < 0) {
+            throw new IOException("CSV header needs place_id, lat and lng columns, got " + row);
+        }
+    }
+
+    @Override
+    public boolean next(MarinaRecord out) throws IOException {
+        while (readRow()) {
+            if (row.size() == 1 && row.get(0).isEmpty()) continue; // Blank line.
+            out.clear();
+            for (int f = 0; f < Fields.COUNT; f++) {
+                int col = columns[f];
+                if (col >= 0 && col < row.size()) Fields.set(out, f, row.get(col));
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public long bytesRead() {
+        return counter.count();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // --- Tokenizer ---
+
+    /**
+     * Reads one record into row, joining quoted line breaks.
+     * @return False at end of input.
+     */
+    private boolean readRow() throws IOException {
+        row.clear();
+        field.setLength(0);
+        int c = read();
+        if (c < 0) return false;
+        line++;
+
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c < 0) throw new IOException("Unterminated quoted field at line " + line);
+                if (c == '"') {
+                    int d = read();
+                    if (d == '"') {
+                        field.append('"');
+                    } else {
+                        // Closing quote: handle whatever follows as unquoted input.
+                        quoted = false;
+                        c = d;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                row.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r' || c < 0) {
+                if (c == '\r') {
+                    int d = read();
+                    if (d >= 0 && d != '\n') pos--; // A lone CR ends the row; keep the next char.
+                }
+                row.add(field.toString());
+                return true;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (pos == limit) {
+            limit = reader.read(buf, 0, buf.length);
+            pos = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buf[pos++];
+    }
+}
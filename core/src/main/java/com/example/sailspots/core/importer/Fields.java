@@ -0,0 +1,114 @@
+package com.example.sailspots.core.importer;
+
+import com.example.sailspots.core.model.MarinaItem;
+
+import java.util.Locale;
+
+/**
+ * Column and property names that sources understand, and lenient parsing of their values.
+ * Names are matched ignoring case and punctuation, so "place_id", "placeId" and "Place ID" agree.
+ */
+final class Fields {
+
+    static final int UNKNOWN = -1;
+    static final int NAME = 0;
+    static final int ADDRESS = 1;
+    static final int PLACE_ID = 2;
+    static final int LATITUDE = 3;
+    static final int LONGITUDE = 4;
+    static final int RATING = 5;
+    static final int OPEN = 6;
+    static final int COUNT = 7;
+
+    private Fields() { }
+
+    /**
+     * @return The field a column or property name refers to, or UNKNOWN.
+     */
+    static int of(String name) {
+        if (name == null) return UNKNOWN;
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetterOrDigit(c)) sb.append(Character.toLowerCase(c));
+        }
+        switch (sb.toString()) {
+            case "name":
+                return NAME;
+            case "address":
+            case "addr":
+                return ADDRESS;
+            case "placeid":
+            case "googleplaceid":
+                return PLACE_ID;
+            case "lat":
+            case "latitude":
+                return LATITUDE;
+            case "lng":
+            case "lon":
+            case "long":
+            case "longitude":
+                return LONGITUDE;
+            case "rating":
+                return RATING;
+            case "open":
+            case "opennow":
+                return OPEN;
+            default:
+                return UNKNOWN;
+        }
+    }
+
+    /**
+     * Stores one raw value into the matching record field. Unparseable numbers become NaN.
+     */
+    static void set(MarinaRecord out, int field, String value) {
+        if (value == null) return;
+        switch (field) {
+            case NAME: out.name = value; break;
+            case ADDRESS: out.address = value; break;
+            case PLACE_ID: out.placeId = value.trim(); break;
+            case LATITUDE: out.latitude = parseDouble(value); break;
+            case LONGITUDE: out.longitude = parseDouble(value); break;
+            case RATING: out.rating = parseRating(value); break;
+            case OPEN: out.openStatus = parseOpen(value); break;
+            default: break;
+        }
+    }
+
+    static double parseDouble(String s) {
+        try {
+            return Double.parseDouble(s.trim());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * @return A rating from 0 to 5, or NaN if blank or out of range.
+     */
+    static float parseRating(String s) {
+        double r = parseDouble(s);
+        return (r >= 0 && r <= 5) ? (float) r : Float.NaN;
+    }
+
+    /**
+     * Reads booleans, 1/0, yes/no and open/closed.
+     */
+    static int parseOpen(String s) {
+        switch (s.trim().toLowerCase(Locale.ROOT)) {
+            case "true":
+            case "1":
+            case "yes":
+            case "open":
+                return MarinaItem.OPEN_NOW;
+            case "false":
+            case "0":
+            case "no":
+            case "closed":
+                return MarinaItem.CLOSED_NOW;
+            default:
+                return MarinaItem.OPEN_UNKNOWN;
+        }
+    }
+}
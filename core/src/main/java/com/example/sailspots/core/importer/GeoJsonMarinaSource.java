@@ -0,0 +1,178 @@
+package com.example.sailspots.core.importer;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads marinas from a GeoJSON FeatureCollection, one Feature at a time, with Gson's
+ * streaming JsonReader. No tree of the document is ever built, so memory stays flat
+ * however many features the file holds.
+ *
+ * Each Point feature becomes a record: the place ID comes from properties.place_id (or the
+ * feature's "id"), and name, address, rating and open from the matching properties.
+ * Features with other geometry types are returned without coordinates, so the importer
+ * counts them as invalid.
+ */
+public final class GeoJsonMarinaSource implements MarinaSource {
+
+    private final CountingInputStream counter;
+    private final JsonReader json;
+    private boolean inFeatures;
+    private boolean done;
+
+    public GeoJsonMarinaSource(InputStream in) {
+        this.counter = new CountingInputStream(in);
+        this.json = new JsonReader(new InputStreamReader(counter, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean next(MarinaRecord out) throws IOException {
+        if (done) return false;
+        try {
+            if (!inFeatures) {
+                if (!seekFeatures()) {
+                    done = true;
+                    return false;
+                }
+                inFeatures = true;
+            }
+            if (!json.hasNext()) {
+                json.endArray();
+                done = true;
+                return false;
+            }
+            out.clear();
+            readFeature(out);
+            return true;
+        } catch (IllegalStateException | NumberFormatException e) {
+            // JsonReader reports structural surprises (an array where an object belongs) this way.
+            throw new IOException("Malformed GeoJSON at " + json.getPath(), e);
+        }
+    }
+
+    @Override
+    public long bytesRead() {
+        return counter.count();
+    }
+
+    @Override
+    public void close() throws IOException {
+        json.close();
+    }
+
+    // --- Parsing ---
+
+    /**
+     * Skips top-level members until the "features" array and steps into it.
+     * @return False if the collection has no features.
+     */
+    private boolean seekFeatures() throws IOException {
+        json.beginObject();
+        while (json.hasNext()) {
+            if ("features".equals(json.nextName())) {
+                json.beginArray();
+                return true;
+            }
+            json.skipValue();
+        }
+        json.endObject();
+        return false;
+    }
+
+    private void readFeature(MarinaRecord out) throws IOException {
+        String featureId = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "id":
+                    featureId = readString();
+                    break;
+                case "geometry":
+                    readGeometry(out);
+                    break;
+                case "properties":
+                    readProperties(out);
+                    break;
+                default:
+                    json.skipValue();
+                    break;
+            }
+        }
+        json.endObject();
+        if (out.placeId == null && featureId != null) out.placeId = featureId;
+    }
+
+    private void readGeometry(MarinaRecord out) throws IOException {
+        if (json.peek() == JsonToken.NULL) {
+            json.nextNull();
+            return;
+        }
+        String type = null;
+        double lng = Double.NaN;
+        double lat = Double.NaN;
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if ("type".equals(name)) {
+                type = readString();
+            } else if ("coordinates".equals(name) && json.peek() == JsonToken.BEGIN_ARRAY) {
+                json.beginArray();
+                // A Point is [lng, lat, alt?]; other geometries nest arrays, which are skipped.
+                if (json.hasNext() && json.peek() == JsonToken.NUMBER) lng = json.nextDouble();
+                if (json.hasNext() && json.peek() == JsonToken.NUMBER) lat = json.nextDouble();
+                while (json.hasNext()) json.skipValue();
+                json.endArray();
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        if ("Point".equals(type)) {
+            out.latitude = lat;
+            out.longitude = lng;
+        }
+    }
+
+    private void readProperties(MarinaRecord out) throws IOException {
+        if (json.peek() == JsonToken.NULL) {
+            json.nextNull();
+            return;
+        }
+        json.beginObject();
+        while (json.hasNext()) {
+            int field = Fields.of(json.nextName());
+            // Coordinates come from the geometry, never from properties.
+            if (field == Fields.UNKNOWN || field == Fields.LATITUDE || field == Fields.LONGITUDE) {
+                json.skipValue();
+            } else {
+                Fields.set(out, field, readString());
+            }
+        }
+        json.endObject();
+    }
+
+    /**
+     * Reads a scalar as text: strings as-is, numbers and booleans in JSON form.
+     * @return The text, or null for null, objects and arrays (which are skipped).
+     */
+    private String readString() throws IOException {
+        switch (json.peek()) {
+            case STRING:
+            case NUMBER:
+                return json.nextString();
+            case BOOLEAN:
+                return Boolean.toString(json.nextBoolean());
+            case NULL:
+                json.nextNull();
+                return null;
+            default:
+                json.skipValue();
+                return null;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.sailspots.core.importer;
+
+import com.example.sailspots.core.catalog.MarinaCatalog;
+import com.example.sailspots.core.catalog.PlaceIdRegistry;
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.model.MarinaItem;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Streams a MarinaSource into a MarinaCatalog in fixed-size batches.
+ *
+ * Records are validated, deduplicated by place ID (the first occurrence wins, including
+ * marinas already in the catalog) and added a batch at a time, with a progress callback
+ * after each batch. Besides the catalog itself, memory is one batch plus one bit per place ID.
+ *
+ * Runs on whatever thread calls importFrom(); on the device that is the IO pool. Interrupting
+ * the thread stops the import at the next batch boundary, leaving the batches added so far.
+ */
+public final class MarinaImporter {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /**
+     * Receives progress after every batch, on the importing thread.
+     */
+    public interface ProgressListener {
+        void onProgress(Stats stats);
+    }
+
+    private final MarinaCatalog catalog;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private ProgressListener listener;
+
+    /**
+     * @param catalog The catalog to add to. Only the importing thread may touch it until
+     *                importFrom() returns.
+     */
+    public MarinaImporter(MarinaCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    public MarinaImporter setBatchSize(int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("batchSize");
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public MarinaImporter setProgressListener(ProgressListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Reads the whole source into the catalog, then builds the spatial index so the
+     * catalog can be handed to other threads read-only. Does not close the source.
+     * @param totalBytes The source's length for progress fractions, or -1 if unknown.
+     * @return What was read, added and skipped.
+     * @throws InterruptedIOException If the thread was interrupted between batches.
+     */
+    public Stats importFrom(MarinaSource source, long totalBytes) throws IOException {
+        // Each place ID is interned once, here, and the item carries the result.
+        PlaceIdRegistry registry = PlaceIdRegistry.global();
+        BitSet seen = new BitSet(Math.max(64, registry.size()));
+        for (MarinaItem m : catalog.items()) {
+            int id = m.id != PlaceIdRegistry.NO_ID ? m.id : registry.intern(m.placeId);
+            if (id != PlaceIdRegistry.NO_ID) seen.set(id);
+        }
+
+        MarinaRecord record = new MarinaRecord();
+        List<MarinaItem> batch = new ArrayList<>(batchSize);
+        long read = 0;
+        long added = 0;
+        long duplicates = 0;
+        long invalid = 0;
+
+        while (source.next(record)) {
+            read++;
+            if (!record.isValid()) {
+                invalid++;
+                continue;
+            }
+            int id = registry.intern(record.placeId);
+            if (seen.get(id)) {
+                duplicates++;
+                continue;
+            }
+            seen.set(id);
+            batch.add(new MarinaItem(record.name, record.address, record.placeId, id,
+                    new GeoPoint(record.latitude, record.longitude), 0,
+                    record.rating, record.openStatus, false));
+
+            if (batch.size() == batchSize) {
+                added += flush(batch);
+                report(new Stats(read, added, duplicates, invalid, source.bytesRead(), totalBytes, false));
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Marina import interrupted after " + added + " marinas");
+                }
+            }
+        }
+        added += flush(batch);
+        catalog.index().build();
+
+        Stats done = new Stats(read, added, duplicates, invalid, source.bytesRead(), totalBytes, true);
+        report(done);
+        return done;
+    }
+
+    private int flush(List<MarinaItem> batch) {
+        int n = batch.size();
+        catalog.addAll(batch);
+        batch.clear();
+        return n;
+    }
+
+    private void report(Stats stats) {
+        if (listener != null) listener.onProgress(stats);
+    }
+
+    /**
+     * Counters for an import so far. Immutable.
+     */
+    public static final class Stats {
+        public final long read;         // Records parsed from the source.
+        public final long added;        // Marinas added to the catalog.
+        public final long duplicates;   // Records skipped because their place ID was already seen.
+        public final long invalid;      // Records skipped for a missing place ID or bad coordinates.
+        public final long bytesRead;
+        public final long totalBytes;   // -1 if unknown.
+        public final boolean finished;
+
+        Stats(long read, long added, long duplicates, long invalid,
+              long bytesRead, long totalBytes, boolean finished) {
+            this.read = read;
+            this.added = added;
+            this.duplicates = duplicates;
+            this.invalid = invalid;
+            this.bytesRead = bytesRead;
+            this.totalBytes = totalBytes;
+            this.finished = finished;
+        }
+
+        /**
+         * @return Progress from 0 to 1, or -1 if the total size is unknown.
+         */
+        public float fraction() {
+            if (finished) return 1f;
+            if (totalBytes <= 0) return -1f;
+            return Math.min(1f, (float) bytesRead / totalBytes);
+        }
+
+        @Override
+        public String toString() {
+            return "read=" + read + " added=" + added + " duplicates=" + duplicates
+                    + " invalid=" + invalid + " bytes=" + bytesRead + "/" + totalBytes;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.sailspots.core.importer;
+
+import com.example.sailspots.core.model.MarinaItem;
+
+/**
+ * One marina as read from a dataset, before it is validated and added to a catalog.
+ * Sources refill the same instance for every row, so parsing allocates no per-row holder.
+ */
+public final class MarinaRecord {
+
+    public String name;
+    public String address;
+    public String placeId;
+    public double latitude;
+    public double longitude;
+    public float rating;     // 0-5 stars; NaN if the dataset has none.
+    public int openStatus;   // MarinaItem.OPEN_UNKNOWN, OPEN_NOW or CLOSED_NOW.
+
+    public MarinaRecord() { clear(); }
+
+    /**
+     * Resets every field to "missing" before the next row is read.
+     */
+    public void clear() {
+        name = null;
+        address = null;
+        placeId = null;
+        latitude = Double.NaN;
+        longitude = Double.NaN;
+        rating = Float.NaN;
+        openStatus = MarinaItem.OPEN_UNKNOWN;
+    }
+
+    /**
+     * @return True if the record has a place ID and coordinates on the globe.
+     */
+    public boolean isValid() {
+        return placeId != null && !placeId.isEmpty()
+                && latitude >= -90 && latitude <= 90
+                && longitude >= -180 && longitude <= 180;
+    }
+}
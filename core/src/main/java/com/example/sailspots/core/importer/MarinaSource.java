@@ -0,0 +1,23 @@
+package com.example.sailspots.core.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A dataset read one marina at a time. Implementations parse incrementally from a stream,
+ * so memory use does not grow with the size of the file.
+ */
+public interface MarinaSource extends Closeable {
+
+    /**
+     * Reads the next marina into a record, replacing whatever it held.
+     * @return False once the dataset is exhausted.
+     * @throws IOException If the stream fails or the data is malformed beyond recovery.
+     */
+    boolean next(MarinaRecord out) throws IOException;
+
+    /**
+     * @return How many bytes of the underlying stream have been consumed, for progress.
+     */
+    long bytesRead();
+}
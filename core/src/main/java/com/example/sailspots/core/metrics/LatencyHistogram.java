@@ -0,0 +1,165 @@
+package com.example.sailspots.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-memory histogram of durations (or any non-negative long), in the style of HdrHistogram.
+ *
+ * Buckets are log-linear: each power of two is split into SUB_BUCKETS equal buckets, so any
+ * recorded value is reported within 1/SUB_BUCKETS (6.25%) of its true value, from
+ * nanoseconds up to days, in a few kilobytes. Recording is lock-free and allocation-free,
+ * so it is safe on the main thread and on frame-metrics callbacks.
+ */
+public final class LatencyHistogram {
+
+    // --- Bucket layout ---
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values are clamped below 2^MAX_EXPONENT (about 39 hours in nanoseconds).
+    private static final int MAX_EXPONENT = 47;
+    static final int BUCKET_COUNT = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one value. Negative values count as zero; huge values are clamped.
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        if (value > MAX_VALUE) value = MAX_VALUE;
+        counts.incrementAndGet(bucketIndex(value));
+        total.incrementAndGet();
+        sum.addAndGet(value);
+
+        long seen = max.get();
+        while (value > seen && !max.compareAndSet(seen, value)) {
+            seen = max.get();
+        }
+    }
+
+    /**
+     * @return The number of values recorded so far.
+     */
+    public long count() {
+        return total.get();
+    }
+
+    /**
+     * Copies the current counts. Concurrent records may or may not be included.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long n = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            n += copy[i];
+        }
+        return new Snapshot(copy, n, sum.get(), max.get());
+    }
+
+    /**
+     * Clears every bucket.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) counts.set(i, 0);
+        total.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    // --- Bucket math ---
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int mantissa = (int) (value >>> shift); // In [SUB_BUCKETS, 2 * SUB_BUCKETS).
+        return SUB_BUCKETS + shift * SUB_BUCKETS + (mantissa - SUB_BUCKETS);
+    }
+
+    static long bucketLowerBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int mantissa = SUB_BUCKETS + (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return (long) mantissa << shift;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        return bucketLowerBound(index) + (1L << shift) - 1;
+    }
+
+    /**
+     * An immutable copy of a histogram, for percentiles and for diffing two points in time.
+     */
+    public static final class Snapshot {
+
+        public static final Snapshot EMPTY = new Snapshot(new long[BUCKET_COUNT], 0, 0, 0);
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long count() { return count; }
+
+        /**
+         * @return The largest value recorded, or 0 if empty. For a difference of two
+         *         snapshots this is the later snapshot's all-time maximum.
+         */
+        public long max() { return max; }
+
+        public double mean() { return count == 0 ? 0 : (double) sum / count; }
+
+        /**
+         * @param percentile From 0 to 100, e.g. 50 for the median or 99 for p99.
+         * @return The upper bound of the bucket holding that percentile, capped at max(); 0 if empty.
+         */
+        public long percentile(double percentile) {
+            if (count == 0) return 0;
+            double p = Math.max(0, Math.min(100, percentile));
+            long rank = Math.max(1, (long) Math.ceil(p / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(bucketUpperBound(i), max);
+            }
+            return max;
+        }
+
+        /**
+         * @return How many recorded values were strictly above a threshold, to bucket precision.
+         */
+        public long countAbove(long threshold) {
+            long n = 0;
+            for (int i = counts.length - 1; i >= 0 && bucketLowerBound(i) > threshold; i--) {
+                n += counts[i];
+            }
+            return n;
+        }
+
+        /**
+         * @return What was recorded between an earlier snapshot of the same histogram and this one.
+         */
+        public Snapshot minus(Snapshot earlier) {
+            long[] diff = new long[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                diff[i] = Math.max(0, counts[i] - earlier.counts[i]);
+            }
+            return new Snapshot(diff, Math.max(0, count - earlier.count), Math.max(0, sum - earlier.sum), max);
+        }
+    }
+}
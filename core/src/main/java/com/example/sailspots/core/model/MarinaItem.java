@@ -0,0 +1,175 @@
+package com.example.sailspots.core.model;
+
+import com.example.sailspots.core.catalog.PlaceIdRegistry;
+import com.example.sailspots.core.geo.GeoPoint;
+
+/**
+ * A data model class representing a single marina item in the UI. * This is a lightweight object used for display purposes in the RecyclerView and map.
+ * It has no Android dependencies so catalog and ranking code can run on a plain JVM.
+ */
+public class MarinaItem {
+
+    // --- Open status values ---
+    public static final int OPEN_UNKNOWN = 0;
+    public static final int OPEN_NOW = 1;
+    public static final int CLOSED_NOW = 2;
+
+    // --- Member Variables ---
+    public final String name;
+    public final String address;
+    public final String placeId;
+    public final int id;  // Dense ID from the marina's source; PlaceIdRegistry.NO_ID if there is none.
+    public final GeoPoint latLng;
+    public final double distanceMiles;
+    public final float rating;     // 0-5 stars; NaN if the marina has no rating.
+    public final int openStatus;   // OPEN_UNKNOWN, OPEN_NOW or CLOSED_NOW.
+    public final float approachDepthMetres;  // Controlling depth of the way in; NaN if unknown.
+    private boolean favorite;
+
+    /**
+     * Constructs a new MarinaItem with no dense ID; see the constructor that takes one.
+     *
+     * @param name          The name of the marina.
+     * @param address       The address of the marina.
+     * @param placeId       The Google Places API ID for the marina, used as a unique identifier.
+     * @param latLng        The geographical coordinates (latitude and longitude) of the marina.
+     * @param distanceMiles The distance from the user's current location to the marina in miles.
+     * @param favorite      The initial favorite status of the marina.
+     */
+    public MarinaItem(String name, String address, String placeId, GeoPoint latLng, double distanceMiles, boolean favorite) {
+        this(name, address, placeId, latLng, distanceMiles, Float.NaN, OPEN_UNKNOWN, favorite);
+    }
+
+    /**
+     * Constructs a new MarinaItem with a rating and open status, and no dense ID.
+     *
+     * @param rating     The average rating from 0 to 5, or NaN if unrated.
+     * @param openStatus One of OPEN_UNKNOWN, OPEN_NOW or CLOSED_NOW.
+     */
+    public MarinaItem(String name, String address, String placeId, GeoPoint latLng, double distanceMiles,
+                      float rating, int openStatus, boolean favorite) {
+        this(name, address, placeId, PlaceIdRegistry.NO_ID, latLng, distanceMiles, rating, openStatus, favorite);
+    }
+
+    /**
+     * Constructs a new MarinaItem with its dense ID. Sources assign the ID once, as marinas
+     * enter the app: the importer interns the place ID, and a MarinaPack numbers its rows.
+     *
+     * @param id The dense ID, or PlaceIdRegistry.NO_ID if there is none.
+     */
+    public MarinaItem(String name, String address, String placeId, int id, GeoPoint latLng, double distanceMiles,
+                      float rating, int openStatus, boolean favorite) {
+        this(name, address, placeId, id, latLng, distanceMiles, rating, openStatus, Float.NaN, favorite);
+    }
+
+    private MarinaItem(String name, String address, String placeId, int id, GeoPoint latLng, double distanceMiles,
+                       float rating, int openStatus, float approachDepthMetres, boolean favorite) {
+        this.name = name;
+        this.address = address;
+        this.placeId = placeId;
+        this.id = id;
+        this.latLng = latLng;
+        this.distanceMiles = distanceMiles;
+        this.rating = rating;
+        this.openStatus = openStatus;
+        this.approachDepthMetres = approachDepthMetres;
+        this.favorite = favorite;
+    }
+
+    /**
+     * Creates a copy with a different favorite status.
+     * The dense ID is carried over, so no place ID lookup is needed.
+     * @param favorite The favorite status of the copy.
+     * @return A new MarinaItem.
+     */
+    public MarinaItem withFavorite(boolean favorite) {
+        return new MarinaItem(name, address, placeId, id, latLng, distanceMiles, rating, openStatus,
+                approachDepthMetres, favorite);
+    }
+
+    /**
+     * Creates a copy with a new distance, e.g. after a location fix.
+     * @param distanceMiles The distance of the copy in miles.
+     * @return A new MarinaItem.
+     */
+    public MarinaItem withDistance(double distanceMiles) {
+        return new MarinaItem(name, address, placeId, id, latLng, distanceMiles, rating, openStatus,
+                approachDepthMetres, favorite);
+    }
+
+    /**
+     * Creates a copy with the controlling depth of its approach, from the depth soundings.
+     * @param approachDepthMetres The depth in metres, or NaN if unknown.
+     * @return A new MarinaItem.
+     */
+    public MarinaItem withApproachDepth(float approachDepthMetres) {
+        return new MarinaItem(name, address, placeId, id, latLng, distanceMiles, rating, openStatus,
+                approachDepthMetres, favorite);
+    }
+
+    // --- Getters and Setters ---
+
+    /**
+     * Sets the favorite status of this marina.
+     * @param favorite The new favorite status (true or false).
+     */
+    public void setFavorite(boolean favorite) {
+        this.favorite = favorite;
+    }
+
+    /**
+     * Gets the unique Google Places API ID for this marina.
+     * @return The place ID string.
+     */
+    public String getPlaceId() { return placeId; }
+
+    /**
+     * Gets the dense integer ID its source assigned.
+     * @return The ID, or PlaceIdRegistry.NO_ID if the marina has none.
+     */
+    public int getId() { return id; }
+
+    /**
+     * Gets the name of the marina.
+     * @return The marina's name.
+     */
+    public String getName() { return name; }
+
+    /**
+     * Gets the address of the marina.
+     * @return The marina's address.
+     */
+    public String getAddress() { return address; }
+
+    /**
+     * Gets the distance to the marina in miles.
+     * @return The distance in miles.
+     */
+    public double getDistanceMiles() { return distanceMiles; }
+
+    /**
+     * Gets the average rating of the marina.
+     * @return The rating from 0 to 5, or NaN if unrated.
+     */
+    public float getRating() { return rating; }
+
+    /**
+     * Gets whether the marina is open right now.
+     * @return OPEN_UNKNOWN, OPEN_NOW or CLOSED_NOW.
+     */
+    public int getOpenStatus() { return openStatus; }
+
+    /**
+     * Gets the shallowest depth on the way in to the marina.
+     * @return The depth in metres, or NaN if unknown.
+     */
+    public float getApproachDepthMetres() { return approachDepthMetres; }
+
+    /**
+     * Checks if this marina is currently marked as a favorite.
+     * @return true if the item is a favorite, false otherwise.
+     */
+    public boolean isFavorite() {
+        return favorite;
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.sailspots.core.nmea;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Decodes boat instrument sentences into InstrumentSlots, tokenizing each one in place with
+ * an NmeaSentence so a 10 Hz wind feed costs no allocation.
+ *
+ * Understood, from any talker: wind (MWV, VWR, MWD), depth (DPT, DBT), speed and heading
+ * through the water (VHW, HDG, HDT, HDM), position, course and speed over ground (RMC, GLL,
+ * VTG) and water temperature (MTW). Sentences flagged invalid by their instrument are
+ * skipped; anything else, including AIS, is counted as unsupported. Speeds are converted to
+ * knots and depths to metres whatever unit the instrument uses.
+ *
+ * Not thread-safe: one decoder per feed thread, and one decoder per InstrumentSlots.
+ */
+public final class InstrumentDecoder implements SentenceReader.Handler {
+
+    private static final double FEET = 0.3048;
+    private static final double FATHOMS = 1.8288;
+    private static final double KMH = 1 / 1.852;
+    private static final double MS = 3600 / 1852.0;
+    private static final double MPH = 1609.344 / 1852;
+
+    private static final int MWV = NmeaSentence.type("MWV");
+    private static final int VWR = NmeaSentence.type("VWR");
+    private static final int MWD = NmeaSentence.type("MWD");
+    private static final int DPT = NmeaSentence.type("DPT");
+    private static final int DBT = NmeaSentence.type("DBT");
+    private static final int VHW = NmeaSentence.type("VHW");
+    private static final int HDG = NmeaSentence.type("HDG");
+    private static final int HDT = NmeaSentence.type("HDT");
+    private static final int HDM = NmeaSentence.type("HDM");
+    private static final int RMC = NmeaSentence.type("RMC");
+    private static final int GLL = NmeaSentence.type("GLL");
+    private static final int VTG = NmeaSentence.type("VTG");
+    private static final int MTW = NmeaSentence.type("MTW");
+
+    private final InstrumentSlots slots;
+    private final LongSupplier clock;
+    private final NmeaSentence s = new NmeaSentence();
+    private long now;          // Of the sentence being decoded.
+    private boolean writing;   // Whether it has begun a write to the slots.
+    private boolean sawDpt;    // DPT carries the transducer offset, so DBT is ignored after one.
+
+    private long decoded;
+    private long badChecksums;
+    private long malformed;
+    private long unsupported;
+
+    public InstrumentDecoder(InstrumentSlots slots) {
+        this(slots, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock Stamps each reading's arrival, in milliseconds.
+     */
+    public InstrumentDecoder(InstrumentSlots slots, LongSupplier clock) {
+        this.slots = slots;
+        this.clock = clock;
+    }
+
+    @Override
+    public void onSentence(byte[] buf, int off, int len) {
+        decode(buf, off, len, clock.getAsLong());
+    }
+
+    /**
+     * Decodes one sentence into the slots.
+     * @return True if it was a valid reading of a supported type.
+     */
+    public boolean decode(byte[] buf, int off, int len, long nowMillis) {
+        int result = s.wrap(buf, off, len);
+        if (result != NmeaSentence.OK) {
+            if (result == NmeaSentence.BAD_CHECKSUM) badChecksums++;
+            else malformed++;
+            return false;
+        }
+        int type = s.type();
+        now = nowMillis;
+        boolean used;
+        try {
+            // Not a switch: the type constants are computed from their names.
+            if (type == MWV) used = mwv();
+            else if (type == VWR) used = vwr();
+            else if (type == MWD) used = mwd();
+            else if (type == DPT) used = dpt();
+            else if (type == DBT) used = dbt();
+            else if (type == VHW) used = vhw();
+            else if (type == HDG) used = hdg();
+            else if (type == HDT || type == HDM) used = put(InstrumentSlots.HEADING, s.number(1));
+            else if (type == RMC) used = rmc();
+            else if (type == GLL) used = gll();
+            else if (type == VTG) used = vtg();
+            else if (type == MTW) used = put(InstrumentSlots.WATER_TEMP, s.number(1));
+            else {
+                unsupported++;
+                return false;
+            }
+        } finally {
+            if (writing) {
+                slots.end();
+                writing = false;
+            }
+        }
+        if (used) decoded++;
+        else malformed++;  // Invalid, or every field empty.
+        return used;
+    }
+
+    // --- Sentences, per NMEA 0183 ---
+
+    // $--MWV,angle,R|T,speed,unit,A
+    private boolean mwv() {
+        if (s.charAt(5) != 'A') return false;
+        boolean apparent = s.charAt(2) == 'R';
+        boolean angle = put(apparent ? InstrumentSlots.AWA : InstrumentSlots.TWA, s.number(1));
+        double speed = s.number(3);
+        switch (s.charAt(4)) {
+            case 'N': break;
+            case 'K': speed *= KMH; break;
+            case 'M': speed *= MS; break;
+            case 'S': speed *= MPH; break;
+            default: speed = Double.NaN;
+        }
+        return put(apparent ? InstrumentSlots.AWS : InstrumentSlots.TWS, speed) | angle;
+    }
+
+    // $--VWR,angle,L|R,knots,N,m/s,M,km/h,K: apparent wind, the angle off either bow.
+    private boolean vwr() {
+        double angle = s.number(1);
+        if (s.charAt(2) == 'L') angle = 360 - angle;
+        double speed = s.number(3);
+        if (Double.isNaN(speed)) speed = s.number(5) * MS;
+        if (Double.isNaN(speed)) speed = s.number(7) * KMH;
+        return put(InstrumentSlots.AWA, angle) | put(InstrumentSlots.AWS, speed);
+    }
+
+    // $--MWD,true,T,magnetic,M,knots,N,m/s,M
+    private boolean mwd() {
+        double speed = s.number(5);
+        if (Double.isNaN(speed)) speed = s.number(7) * MS;
+        return put(InstrumentSlots.TWD, s.number(1)) | put(InstrumentSlots.TWS, speed);
+    }
+
+    // $--DPT,depth,offset[,range]: offset is to the waterline if positive, the keel if negative.
+    private boolean dpt() {
+        double offset = s.number(2);
+        sawDpt = true;
+        return put(InstrumentSlots.DEPTH, s.number(1) + (Double.isNaN(offset) ? 0 : offset));
+    }
+
+    // $--DBT,feet,f,metres,M,fathoms,F
+    private boolean dbt() {
+        if (sawDpt) return true;
+        double depth = s.number(3);
+        if (Double.isNaN(depth)) depth = s.number(1) * FEET;
+        if (Double.isNaN(depth)) depth = s.number(5) * FATHOMS;
+        return put(InstrumentSlots.DEPTH, depth);
+    }
+
+    // $--VHW,true,T,magnetic,M,knots,N,km/h,K
+    private boolean vhw() {
+        double speed = s.number(5);
+        if (Double.isNaN(speed)) speed = s.number(7) * KMH;
+        return put(InstrumentSlots.STW, speed) | put(InstrumentSlots.HEADING, s.number(1));
+    }
+
+    // $--HDG,magnetic,deviation,E|W,variation,E|W
+    private boolean hdg() {
+        return put(InstrumentSlots.HEADING, normalize(s.number(1) + east(2) + east(4)));
+    }
+
+    // $--RMC,time,A|V,lat,N|S,lng,E|W,sog,cog,date,...
+    private boolean rmc() {
+        if (s.charAt(2) != 'A') return false;
+        return fix(3) | put(InstrumentSlots.SOG, s.number(7)) | put(InstrumentSlots.COG, s.number(8));
+    }
+
+    // $--GLL,lat,N|S,lng,E|W,time,A|V
+    private boolean gll() {
+        if (s.charAt(6) != 'A') return false;
+        return fix(1);
+    }
+
+    // $--VTG,true,T,magnetic,M,knots,N,km/h,K
+    private boolean vtg() {
+        double speed = s.number(5);
+        if (Double.isNaN(speed)) speed = s.number(7) * KMH;
+        return put(InstrumentSlots.COG, s.number(1)) | put(InstrumentSlots.SOG, speed);
+    }
+
+    private boolean fix(int field) {
+        double lat = s.coordinate(field);
+        double lng = s.coordinate(field + 2);
+        if (Double.isNaN(lat) || Double.isNaN(lng)) return false;
+        return put(InstrumentSlots.LAT, lat) | put(InstrumentSlots.LNG, lng);
+    }
+
+    // A correction in degrees, east positive; 0 if the instrument leaves it out.
+    private double east(int field) {
+        double v = s.number(field);
+        if (Double.isNaN(v)) return 0;
+        return s.charAt(field + 1) == 'W' ? -v : v;
+    }
+
+    private static double normalize(double degrees) {
+        degrees %= 360;
+        return degrees < 0 ? degrees + 360 : degrees;
+    }
+
+    // Opens the slots' write on the first value, so sentences that change nothing bump nothing.
+    private boolean put(int quantity, double value) {
+        if (Double.isNaN(value)) return false;
+        if (!writing) {
+            slots.begin(now);
+            writing = true;
+        }
+        slots.put(quantity, value);
+        return true;
+    }
+
+    // --- Stats ---
+
+    public long decoded() { return decoded; }
+
+    public long badChecksums() { return badChecksums; }
+
+    public long malformed() { return malformed; }
+
+    public long unsupported() { return unsupported; }
+
+    @Override
+    public String toString() {
+        return "InstrumentDecoder{" + decoded + " decoded, " + badChecksums + " bad checksums, " + malformed
+                + " malformed, " + unsupported + " unsupported}";
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.sailspots.core.nmea;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The latest value of each boat instrument reading, written by one feed thread and read by
+ * any number of others without locks: the feed overwrites a slot per quantity as sentences
+ * arrive, however fast, and the UI copies whatever is there when it draws a frame.
+ *
+ * Values that arrive together (apparent wind angle and speed, a fix's latitude and
+ * longitude) are written between begin() and end(), which bump a sequence number before and
+ * after, so snapshot() can retry until it copies a set no write was in the middle of.
+ * Single writer only: one InstrumentDecoder per slots.
+ */
+public final class InstrumentSlots {
+
+    // --- Quantities; angles in degrees, speeds in knots, depths in metres ---
+    /** Apparent wind angle, 0-360 clockwise from the bow. */
+    public static final int AWA = 0;
+    public static final int AWS = 1;
+    /** True wind angle, 0-360 clockwise from the bow. */
+    public static final int TWA = 2;
+    public static final int TWS = 3;
+    /** True wind direction, where it blows from. */
+    public static final int TWD = 4;
+    /** Below the transducer, corrected by the instrument's offset if it sends one. */
+    public static final int DEPTH = 5;
+    /** Speed through the water, from the log. */
+    public static final int STW = 6;
+    public static final int SOG = 7;
+    public static final int COG = 8;
+    /** True heading, or magnetic when the compass sends no variation. */
+    public static final int HEADING = 9;
+    /** Degrees Celsius. */
+    public static final int WATER_TEMP = 10;
+    public static final int LAT = 11;
+    public static final int LNG = 12;
+    public static final int COUNT = 13;
+
+    private final AtomicLongArray values = new AtomicLongArray(COUNT);  // Double bits.
+    private final AtomicLongArray times = new AtomicLongArray(COUNT);   // 0 for never.
+    private final AtomicInteger sequence = new AtomicInteger();         // Odd during a write.
+    private long writeTime;
+
+    /**
+     * A reader's copy of every slot; reuse one per reader.
+     */
+    public static final class Snapshot {
+        public final double[] values = new double[COUNT];
+        public final long[] times = new long[COUNT];
+        private int sequence = -1;
+
+        /**
+         * @param maxAgeMillis How old a reading may be before the instrument counts as off.
+         * @return The quantity's value, or NaN if it was never sent or is too old.
+         */
+        public double get(int quantity, long nowMillis, long maxAgeMillis) {
+            long t = times[quantity];
+            return t == 0 || nowMillis - t > maxAgeMillis ? Double.NaN : values[quantity];
+        }
+    }
+
+    // --- Writer ---
+
+    /**
+     * Starts writing one sentence's worth of values, stamped with nowMillis.
+     */
+    public void begin(long nowMillis) {
+        writeTime = nowMillis;
+        sequence.incrementAndGet();
+    }
+
+    public void put(int quantity, double value) {
+        if (Double.isNaN(value)) return;  // A field the sentence left empty.
+        values.set(quantity, Double.doubleToRawLongBits(value));
+        times.set(quantity, writeTime);
+    }
+
+    public void end() {
+        sequence.incrementAndGet();
+    }
+
+    // --- Readers ---
+
+    /**
+     * @return The quantity's latest value, or NaN if it has never been sent.
+     */
+    public double latest(int quantity) {
+        return times.get(quantity) == 0 ? Double.NaN : Double.longBitsToDouble(values.get(quantity));
+    }
+
+    /**
+     * Copies every slot into out, unless nothing was written since out was last filled.
+     * @return Whether out changed.
+     */
+    public boolean snapshot(Snapshot out) {
+        while (true) {
+            int before = sequence.get();
+            if (before == out.sequence) return false;
+            if ((before & 1) != 0) continue;  // A write is under way; it takes nanoseconds.
+            for (int q = 0; q < COUNT; q++) {
+                out.values[q] = Double.longBitsToDouble(values.get(q));
+                out.times[q] = times.get(q);
+            }
+            if (sequence.get() == before) {
+                out.sequence = before;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return How many sentences' worth of values have been written; changes on every write.
+     */
+    public int writes() {
+        return sequence.get() >>> 1;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.sailspots.core.nmea;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Plays back a recorded NMEA log, for tests, benchmarks, and trying the app without a boat.
+ * The log is one sentence per line, each optionally preceded by its arrival time in epoch
+ * milliseconds and a space or tab, as data loggers and "nc host 10110 | ts" style captures
+ * write them; an untimed log plays at UNTIMED_RATE sentences a second.
+ *
+ * The log is read into memory once and indexed, so playback hands out slices of one array
+ * as SentenceReader does, without allocation. main() serves it over TCP, looping, for the
+ * app to connect to as it would to a boat's gateway (from the emulator, tcp://10.0.2.2:10110).
+ *
+ * Usage: NmeaReplay log.nmea [port] [speed]
+ */
+public final class NmeaReplay {
+
+    // A typical multiplexer's output: 10 Hz wind plus a few sentences a second of the rest.
+    public static final int UNTIMED_RATE = 20;
+    public static final int DEFAULT_PORT = 10110;
+
+    private final byte[] log;
+    private final int[] starts;
+    private final int[] ends;
+    private final long[] times;  // Milliseconds from the first sentence.
+    private final boolean timed;
+
+    private NmeaReplay(byte[] log, int[] starts, int[] ends, long[] times, boolean timed) {
+        this.log = log;
+        this.starts = starts;
+        this.ends = ends;
+        this.times = times;
+        this.timed = timed;
+    }
+
+    public static NmeaReplay read(File file) throws IOException {
+        return parse(Files.readAllBytes(file.toPath()));
+    }
+
+    /**
+     * Indexes a log's lines; blank lines are skipped, and the log is not copied.
+     */
+    public static NmeaReplay parse(byte[] log) {
+        int lines = 0;
+        for (byte b : log) if (b == '\n') lines++;
+        int[] starts = new int[lines + 1];
+        int[] ends = new int[lines + 1];
+        long[] stamps = new long[lines + 1];
+        int n = 0;
+        boolean timed = true;
+        for (int i = 0; i < log.length; ) {
+            int end = i;
+            while (end < log.length && log[end] != '\n' && log[end] != '\r') end++;
+            int start = i;
+            long stamp = -1;
+            if (start < end && log[start] >= '0' && log[start] <= '9') {
+                stamp = 0;
+                while (start < end && log[start] >= '0' && log[start] <= '9') stamp = stamp * 10 + log[start++] - '0';
+                while (start < end && (log[start] == ' ' || log[start] == '\t')) start++;
+            }
+            if (start < end) {
+                timed &= stamp >= 0;
+                starts[n] = start;
+                ends[n] = end;
+                stamps[n++] = stamp;
+            }
+            i = end + 1;
+        }
+        long[] times = new long[n];
+        for (int k = 0; k < n; k++) {
+            // Relative to the first; a clock that stepped back holds at the previous time.
+            times[k] = timed ? Math.max(k > 0 ? times[k - 1] : 0, stamps[k] - stamps[0]) : k * 1000L / UNTIMED_RATE;
+        }
+        return new NmeaReplay(log, Arrays.copyOf(starts, n), Arrays.copyOf(ends, n), times, timed);
+    }
+
+    public int sentences() { return starts.length; }
+
+    /**
+     * @return From the first sentence to the last, at recorded pace.
+     */
+    public long durationMillis() {
+        return times.length == 0 ? 0 : times[times.length - 1];
+    }
+
+    /**
+     * Hands every sentence to out as fast as it takes them.
+     * @return How many there were.
+     */
+    public int play(SentenceReader.Handler out) {
+        for (int k = 0; k < starts.length; k++) out.onSentence(log, starts[k], ends[k] - starts[k]);
+        return starts.length;
+    }
+
+    /**
+     * Hands every sentence to out at its recorded time.
+     * @param speed 2 plays twice as fast as recorded.
+     */
+    public void play(SentenceReader.Handler out, double speed) throws InterruptedException {
+        long started = System.nanoTime();
+        for (int k = 0; k < starts.length; k++) {
+            long waitMillis = (long) (times[k] / speed) - (System.nanoTime() - started) / 1_000_000;
+            if (waitMillis > 0) Thread.sleep(waitMillis);
+            out.onSentence(log, starts[k], ends[k] - starts[k]);
+        }
+    }
+
+    /**
+     * Serves the log to one TCP client at a time, over and over, until interrupted.
+     */
+    public void serve(int port, double speed) throws IOException, InterruptedException {
+        try (ServerSocket server = new ServerSocket(port)) {
+            System.out.println("Replaying " + this + " on port " + server.getLocalPort());
+            while (!Thread.currentThread().isInterrupted()) {
+                try (Socket client = server.accept(); OutputStream stream = client.getOutputStream()) {
+                    client.setTcpNoDelay(true);
+                    System.out.println("Client " + client.getRemoteSocketAddress());
+                    byte[] line = new byte[SentenceReader.MAX_LINE + 2];
+                    SentenceReader.Handler send = (buf, off, len) -> {
+                        if (len > SentenceReader.MAX_LINE) return;  // No reader would take it.
+                        System.arraycopy(buf, off, line, 0, len);
+                        line[len] = '\r';
+                        line[len + 1] = '\n';
+                        try {
+                            stream.write(line, 0, len + 2);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    };
+                    while (true) play(send, speed);
+                } catch (IOException | UncheckedIOException e) {
+                    System.out.println("Client gone: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "NmeaReplay{" + sentences() + " sentences over " + durationMillis() / 1000 + " s"
+                + (timed ? "" : ", untimed") + "}";
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: NmeaReplay log.nmea [port] [speed]");
+            System.exit(2);
+        }
+        NmeaReplay replay = read(new File(args[0]));
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+        double speed = args.length > 2 ? Double.parseDouble(args[2]) : 1;
+        replay.serve(port, speed);
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.sailspots.core.nmea;
+
+/**
+ * A view of one NMEA 0183 sentence inside someone else's buffer, such as SentenceReader's:
+ * wrap() checks the checksum and notes where each comma-separated field starts and ends, and
+ * fields are then read as numbers or characters in place. Nothing is copied or allocated, so
+ * one instance can tokenize a 10 Hz instrument feed indefinitely.
+ *
+ * Field 0 is the address ("GPRMC", "IIMWV"); data fields are numbered from 1 as in the
+ * standard. An NMEA 4.0 tag block in front of the sentence is skipped. The view is only
+ * valid while the wrapped bytes are, i.e. until the Handler it was wrapped in returns.
+ */
+public final class NmeaSentence {
+
+    // wrap() results.
+    public static final int OK = 0;
+    public static final int MALFORMED = 1;
+    public static final int BAD_CHECKSUM = 2;
+
+    // More than any instrument sentence has; extra fields are ignored.
+    private static final int MAX_FIELDS = 24;
+    // Exact powers of ten; dividing by one rounds correctly for up to 15 significant digits.
+    private static final double[] POW10 = {
+            1, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+
+    private byte[] buf;
+    private final int[] starts = new int[MAX_FIELDS];
+    private final int[] ends = new int[MAX_FIELDS];
+    private int count;
+
+    /**
+     * Points this view at one sentence: "$" or "!", fields, then "*" and two hex digits.
+     * @return OK, MALFORMED, or BAD_CHECKSUM; the fields are only readable after OK.
+     */
+    public int wrap(byte[] buf, int off, int len) {
+        this.buf = buf;
+        count = 0;
+        int end = off + len;
+        int start = off;
+        if (start < end && buf[start] == '\\') {
+            // A tag block: "\s:source,c:time*hh\" before the sentence proper.
+            start++;
+            while (start < end && buf[start] != '\\') start++;
+            start++;
+        }
+        if (end - start < 7 || (buf[start] != '$' && buf[start] != '!')) return MALFORMED;
+        if (!checksumOk(buf, start, end)) return BAD_CHECKSUM;  // A missing checksum is no better.
+        int from = start + 1;
+        for (int i = from; count < MAX_FIELDS; i++) {
+            byte b = buf[i];
+            if (b == ',' || b == '*') {
+                starts[count] = from;
+                ends[count++] = i;
+                from = i + 1;
+                if (b == '*') break;
+            }
+        }
+        return OK;
+    }
+
+    /**
+     * @return How many fields there are, counting the address.
+     */
+    public int fields() {
+        return count;
+    }
+
+    /**
+     * @return The sentence type packed as in type(), or 0 for a proprietary or odd address.
+     */
+    public int type() {
+        if (count == 0 || ends[0] - starts[0] != 5 || buf[starts[0]] == 'P') return 0;
+        int s = starts[0] + 2;
+        return buf[s] << 16 | buf[s + 1] << 8 | buf[s + 2];
+    }
+
+    /**
+     * @return id ("MWV") packed into an int, for switching on type().
+     */
+    public static int type(String id) {
+        return id.charAt(0) << 16 | id.charAt(1) << 8 | id.charAt(2);
+    }
+
+    public boolean isEmpty(int field) {
+        return field >= count || ends[field] == starts[field];
+    }
+
+    /**
+     * @return The field's first character, e.g. a unit or status flag; 0 if it is empty.
+     */
+    public char charAt(int field) {
+        return isEmpty(field) ? 0 : (char) buf[starts[field]];
+    }
+
+    /**
+     * Parses a decimal field such as "-12.50" in place.
+     * @return Its value, or NaN if it is empty or not a number.
+     */
+    public double number(int field) {
+        if (isEmpty(field)) return Double.NaN;
+        int i = starts[field];
+        int end = ends[field];
+        boolean negative = buf[i] == '-';
+        if (negative || buf[i] == '+') i++;
+        long mantissa = 0;
+        boolean any = false;
+        int digits = 0;
+        int decimals = -1;  // Digits after the point; -1 until there is one.
+        for (; i < end; i++) {
+            byte b = buf[i];
+            if (b >= '0' && b <= '9') {
+                any = true;
+                if (digits < 15) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (decimals >= 0) decimals++;
+                    if (mantissa != 0) digits++;
+                } else if (decimals < 0) {
+                    return Double.NaN;  // Beyond any instrument's range.
+                }
+            } else if (b == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (!any) return Double.NaN;
+        double v = decimals > 0 ? mantissa / POW10[decimals] : mantissa;
+        return negative ? -v : v;
+    }
+
+    /**
+     * Parses a position such as "4124.8963" with hemisphere "N" in the next field, as
+     * latitudes (ddmm.mmmm) and longitudes (dddmm.mmmm) are sent.
+     * @return Signed decimal degrees, or NaN if either field is missing.
+     */
+    public double coordinate(int field) {
+        double v = number(field);
+        char hemisphere = charAt(field + 1);
+        if (Double.isNaN(v) || hemisphere == 0) return Double.NaN;
+        double degrees = Math.floor(v / 100);
+        double decimal = degrees + (v - degrees * 100) / 60;
+        return hemisphere == 'S' || hemisphere == 'W' ? -decimal : decimal;
+    }
+
+    // --- Checksum ---
+
+    private static int hex(byte b) {
+        if (b >= '0' && b <= '9') return b - '0';
+        if (b >= 'A' && b <= 'F') return b - 'A' + 10;
+        if (b >= 'a' && b <= 'f') return b - 'a' + 10;
+        return -1;
+    }
+
+    /**
+     * Checks the sentence in buf[start, end) that begins with '$' or '!' at start: the XOR of
+     * everything between it and the '*' must match the two hex digits after the '*'.
+     */
+    public static boolean checksumOk(byte[] buf, int start, int end) {
+        int sum = 0;
+        for (int i = start + 1; i < end; i++) {
+            if (buf[i] == '*') {
+                if (i + 2 >= end) return false;
+                int hi = hex(buf[i + 1]);
+                int lo = hex(buf[i + 2]);
+                return hi >= 0 && lo >= 0 && (hi << 4 | lo) == sum;
+            }
+            sum ^= buf[i];
+        }
+        return false;
+    }
+}
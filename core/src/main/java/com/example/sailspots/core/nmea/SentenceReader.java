@@ -0,0 +1,204 @@
+package com.example.sailspots.core.nmea;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Reads NMEA 0183 sentences (instrument data, AIS) from a TCP or UDP source without
+ * blocking, as boat Wi-Fi gateways and AIS receivers send them, and hands each line to a
+ * Handler straight out of the receive buffer: nothing is copied or allocated per sentence.
+ *
+ * run() loops on a Selector on the caller's thread until close() is called from any other
+ * thread or a TCP source closes the connection. Lines end at CR or LF; blank lines are
+ * skipped, and a line longer than MAX_LINE (noise, or a source that is not NMEA) is dropped
+ * and counted. A UDP datagram ends its last line even without a line ending.
+ */
+public final class SentenceReader implements Closeable {
+
+    /** Receives sentences; the bytes are only valid until onSentence returns. */
+    public interface Handler {
+        void onSentence(byte[] buf, int off, int len);
+    }
+
+    // NMEA allows 82 characters; AIS and tag blocks run longer in practice.
+    public static final int MAX_LINE = 512;
+    private static final int BUFFER_BYTES = 16 * 1024;
+    private static final long CONNECT_TIMEOUT_MILLIS = 10_000;
+
+    private final SelectableChannel channel;
+    private final InetSocketAddress address;  // Remote for TCP, local for UDP.
+    private final Handler handler;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private final byte[] bytes = buffer.array();
+    private final Selector selector;
+    private volatile boolean closed;
+    private volatile boolean running;
+    private long sentences;
+    private long bytesRead;
+    private long overlong;
+
+    private SentenceReader(SelectableChannel channel, InetSocketAddress address, Handler handler) throws IOException {
+        this.channel = channel;
+        this.address = address;
+        this.handler = handler;
+        this.selector = Selector.open();
+    }
+
+    /**
+     * @return A reader that connects to host:port, e.g. a gateway's NMEA over TCP on 10110.
+     */
+    public static SentenceReader tcp(String host, int port, Handler handler) throws IOException {
+        return new SentenceReader(SocketChannel.open(), new InetSocketAddress(host, port), handler);
+    }
+
+    /**
+     * @return A reader that listens for datagrams on a local port, e.g. a broadcast NMEA feed.
+     */
+    public static SentenceReader udp(int port, Handler handler) throws IOException {
+        return new SentenceReader(DatagramChannel.open(), new InetSocketAddress(port), handler);
+    }
+
+    /**
+     * Connects or binds, then delivers sentences until closed or the TCP source disconnects.
+     * @throws IOException If the source cannot be reached or the connection fails; a close()
+     *                     from another thread ends the loop quietly instead.
+     */
+    public void run() throws IOException {
+        running = true;
+        try {
+            channel.configureBlocking(false);
+            SelectionKey key;
+            if (channel instanceof SocketChannel) {
+                SocketChannel socket = (SocketChannel) channel;
+                key = socket.connect(address)
+                        ? socket.register(selector, SelectionKey.OP_READ)
+                        : socket.register(selector, SelectionKey.OP_CONNECT);
+            } else {
+                ((DatagramChannel) channel).bind(address);
+                key = channel.register(selector, SelectionKey.OP_READ);
+            }
+            long connectBy = System.currentTimeMillis() + CONNECT_TIMEOUT_MILLIS;
+            while (!closed) {
+                selector.select(1000);
+                if (closed) break;
+                if (key.isValid() && key.isConnectable()) {
+                    if (((SocketChannel) channel).finishConnect()) key.interestOps(SelectionKey.OP_READ);
+                } else if ((key.interestOps() & SelectionKey.OP_CONNECT) != 0
+                        && System.currentTimeMillis() > connectBy) {
+                    throw new IOException("Timed out connecting to " + address);
+                }
+                if (key.isValid() && key.isReadable() && !read()) break;
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (!closed) throw e instanceof IOException ? (IOException) e : new IOException(e);
+        } finally {
+            closed = true;
+            release();
+        }
+    }
+
+    /**
+     * Reads what has arrived and hands on the complete lines.
+     * @return False once a TCP source has closed the connection.
+     */
+    private boolean read() throws IOException {
+        if (channel instanceof DatagramChannel) {
+            DatagramChannel udp = (DatagramChannel) channel;
+            while (true) {
+                buffer.clear();
+                if (udp.receive(buffer) == null) return true;
+                bytesRead += buffer.position();
+                int end = scan(0, buffer.position());
+                if (end < buffer.position()) line(end, buffer.position());  // A datagram ends its line.
+            }
+        }
+        SocketChannel tcp = (SocketChannel) channel;
+        while (true) {
+            int n = tcp.read(buffer);
+            if (n < 0) return false;
+            if (n == 0) return true;
+            bytesRead += n;
+            int end = scan(0, buffer.position());
+            int rest = buffer.position() - end;
+            if (rest >= MAX_LINE) {
+                overlong++;  // No line ending in sight; drop it rather than grow.
+                rest = 0;
+            }
+            System.arraycopy(bytes, end, bytes, 0, rest);
+            buffer.position(rest);
+        }
+    }
+
+    /**
+     * Hands on every complete line in bytes[from, to).
+     * @return Where the incomplete tail starts.
+     */
+    private int scan(int from, int to) {
+        int start = from;
+        for (int i = from; i < to; i++) {
+            byte b = bytes[i];
+            if (b == '\n' || b == '\r') {
+                line(start, i);
+                start = i + 1;
+            }
+        }
+        return start;
+    }
+
+    private void line(int start, int end) {
+        int len = end - start;
+        if (len == 0) return;
+        if (len > MAX_LINE) {
+            overlong++;
+            return;
+        }
+        sentences++;
+        handler.onSentence(bytes, start, len);
+    }
+
+    /**
+     * Stops run() and releases the socket. Safe from any thread, and more than once.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+        if (!running) release();  // Otherwise run() releases on its way out.
+    }
+
+    private synchronized void release() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Closing anyway.
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+            // Closing anyway.
+        }
+    }
+
+    // --- Stats; read them from the run() thread or after it returns ---
+
+    public long sentences() { return sentences; }
+
+    public long bytesRead() { return bytesRead; }
+
+    public long overlong() { return overlong; }
+
+    @Override
+    public String toString() {
+        return "SentenceReader{" + address + ", " + sentences + " sentences, " + bytesRead + " bytes, "
+                + overlong + " overlong}";
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.sailspots.core.offline;
+
+import com.example.sailspots.core.geo.BoundingBox;
+
+/**
+ * An area the user downloaded for use without a connection, with its download progress and
+ * the disk space it takes. Immutable; the with* methods return updated copies.
+ */
+public final class OfflineRegion {
+
+    public enum State {
+        QUEUED,       // Waiting for the download job to start or resume.
+        DOWNLOADING,
+        COMPLETE,
+        FAILED        // Gave up; the tiles fetched so far stay usable.
+    }
+
+    public final String id;
+    public final String name;
+    public final BoundingBox box;
+    public final int minZoom;
+    public final int maxZoom;
+    public final State state;
+    public final int tilesTotal;
+    public final int tilesDone;
+    public final long bytes;            // On disk now.
+    public final long estimatedBytes;   // Expected once complete.
+    public final long createdAt;        // Epoch millis.
+    public final long lastUsedAt;       // Epoch millis; orders eviction.
+
+    public OfflineRegion(String id, String name, BoundingBox box, int minZoom, int maxZoom, State state,
+                         int tilesTotal, int tilesDone, long bytes, long estimatedBytes,
+                         long createdAt, long lastUsedAt) {
+        if (id == null || id.isEmpty()) throw new IllegalArgumentException("id");
+        this.id = id;
+        this.name = name == null ? "" : name;
+        this.box = box;
+        this.minZoom = minZoom;
+        this.maxZoom = maxZoom;
+        this.state = state;
+        this.tilesTotal = tilesTotal;
+        this.tilesDone = tilesDone;
+        this.bytes = bytes;
+        this.estimatedBytes = estimatedBytes;
+        this.createdAt = createdAt;
+        this.lastUsedAt = lastUsedAt;
+    }
+
+    /**
+     * A region about to be downloaded for the first time.
+     */
+    public static OfflineRegion plan(String id, String name, RegionPlan plan, long now) {
+        return new OfflineRegion(id, name, plan.box, plan.minZoom, plan.maxZoom, State.QUEUED,
+                plan.chartTiles, 0, 0, plan.estimatedBytes, now, now);
+    }
+
+    public OfflineRegion withState(State state) {
+        return new OfflineRegion(id, name, box, minZoom, maxZoom, state, tilesTotal, tilesDone, bytes,
+                estimatedBytes, createdAt, lastUsedAt);
+    }
+
+    public OfflineRegion withProgress(int tilesDone, int tilesTotal, long bytes) {
+        return new OfflineRegion(id, name, box, minZoom, maxZoom, state, tilesTotal, tilesDone, bytes,
+                estimatedBytes, createdAt, lastUsedAt);
+    }
+
+    public OfflineRegion withLastUsed(long lastUsedAt) {
+        return new OfflineRegion(id, name, box, minZoom, maxZoom, state, tilesTotal, tilesDone, bytes,
+                estimatedBytes, createdAt, lastUsedAt);
+    }
+
+    /**
+     * @return How far the download is, from 0 to 1.
+     */
+    public double fraction() {
+        return tilesTotal == 0 ? (state == State.COMPLETE ? 1 : 0) : (double) tilesDone / tilesTotal;
+    }
+
+    /**
+     * @return True if a chart tile falls inside this region's area and zoom levels.
+     */
+    public boolean covers(int zoom, BoundingBox tileBounds) {
+        return zoom >= minZoom && zoom <= maxZoom && box.intersects(tileBounds);
+    }
+
+    @Override
+    public String toString() {
+        return "OfflineRegion{" + id + " '" + name + "' " + state + " " + tilesDone + "/" + tilesTotal
+                + " " + bytes + " bytes}";
+    }
+}
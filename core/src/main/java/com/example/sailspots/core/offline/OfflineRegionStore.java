@@ -0,0 +1,302 @@
+package com.example.sailspots.core.offline;
+
+import com.example.sailspots.core.charts.CachedTile;
+import com.example.sailspots.core.charts.DiskTileCache;
+import com.example.sailspots.core.charts.TileKey;
+import com.example.sailspots.core.charts.TileLookup;
+import com.example.sailspots.core.geo.BoundingBox;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The downloaded regions on this device and the space they may use.
+ *
+ * Layout: regions.json lists the regions, and each region's chart tiles live in a directory
+ * named by its ID. Overlapping regions each keep their own copy of shared tiles, so deleting
+ * one never damages another. When a new download needs room, whole regions are evicted,
+ * least recently used first; a region counts as used when the map is looked at inside it.
+ *
+ * Also a TileLookup, so ChartTileCache finds region tiles before going to the network.
+ * Thread-safe.
+ */
+public final class OfflineRegionStore implements TileLookup {
+
+    private static final String INDEX = "regions.json";
+    // Viewing a region refreshes its last-used time at most this often, to limit writes.
+    private static final long TOUCH_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final File dir;
+    private long budgetBytes;
+    private LinkedHashMap<String, OfflineRegion> regions;  // Guarded by "this"; loaded on first use.
+    // What find() reads, without taking the lock; replaced on every change.
+    private volatile List<OfflineRegion> snapshot;
+    private final Map<String, DiskTileCache> tiles = new ConcurrentHashMap<>();
+
+    public OfflineRegionStore(File dir, long budgetBytes) {
+        this.dir = dir;
+        this.budgetBytes = budgetBytes;
+    }
+
+    public synchronized long budgetBytes() {
+        return budgetBytes;
+    }
+
+    public synchronized void setBudgetBytes(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * @return Every region, oldest first.
+     */
+    public synchronized List<OfflineRegion> regions() {
+        return new ArrayList<>(index().values());
+    }
+
+    public synchronized OfflineRegion get(String id) {
+        return index().get(id);
+    }
+
+    public synchronized long usedBytes() {
+        long n = 0;
+        for (OfflineRegion r : index().values()) n += r.bytes;
+        return n;
+    }
+
+    /**
+     * Adds or updates a region.
+     */
+    public synchronized void put(OfflineRegion region) throws IOException {
+        LinkedHashMap<String, OfflineRegion> updated = new LinkedHashMap<>(index());
+        updated.put(region.id, region);
+        save(updated);
+    }
+
+    /**
+     * Deletes a region and its tiles.
+     */
+    public synchronized void remove(String id) throws IOException {
+        if (!index().containsKey(id)) return;
+        LinkedHashMap<String, OfflineRegion> updated = new LinkedHashMap<>(index());
+        updated.remove(id);
+        save(updated); // The index first, so a crash can only leave an orphaned directory.
+        tiles.remove(id);
+        deleteTree(new File(dir, id));
+    }
+
+    /**
+     * @return Where a region's chart tiles are kept. Not size-bounded itself; the budget
+     *         applies to whole regions.
+     */
+    public DiskTileCache tiles(String id) {
+        return tiles.computeIfAbsent(id, k -> new DiskTileCache(new File(dir, k), Long.MAX_VALUE));
+    }
+
+    /**
+     * @return True if {@code bytes} more would fit once every region that can be evicted is.
+     *         Regions still downloading are never evicted.
+     */
+    public synchronized boolean canFit(long bytes) {
+        long pinned = 0;
+        for (OfflineRegion r : index().values()) {
+            if (!evictable(r, null)) pinned += r.bytes;
+        }
+        return pinned + bytes <= budgetBytes;
+    }
+
+    /**
+     * Evicts the least recently used finished regions until {@code incomingBytes} more fit
+     * in the budget, or nothing else can go.
+     * @param keepId A region never to evict, usually the one making room.
+     * @return The regions evicted.
+     */
+    public synchronized List<OfflineRegion> evictToFit(long incomingBytes, String keepId) throws IOException {
+        List<OfflineRegion> byUse = new ArrayList<>(index().values());
+        byUse.sort((a, b) -> Long.compare(a.lastUsedAt, b.lastUsedAt));
+        List<OfflineRegion> evicted = new ArrayList<>();
+        long used = usedBytes();
+        for (OfflineRegion r : byUse) {
+            if (used + incomingBytes <= budgetBytes) break;
+            if (!evictable(r, keepId)) continue;
+            remove(r.id);
+            used -= r.bytes;
+            evicted.add(r);
+        }
+        return evicted;
+    }
+
+    private static boolean evictable(OfflineRegion r, String keepId) {
+        return !r.id.equals(keepId)
+                && (r.state == OfflineRegion.State.COMPLETE || r.state == OfflineRegion.State.FAILED);
+    }
+
+    /**
+     * Marks the regions containing a point as just used, e.g. where the map camera settled.
+     */
+    public synchronized void touch(double lat, double lng, long now) throws IOException {
+        LinkedHashMap<String, OfflineRegion> updated = null;
+        for (OfflineRegion r : index().values()) {
+            if (r.box.contains(lat, lng) && now - r.lastUsedAt >= TOUCH_INTERVAL_MILLIS) {
+                if (updated == null) updated = new LinkedHashMap<>(index());
+                updated.put(r.id, r.withLastUsed(now));
+            }
+        }
+        if (updated != null) save(updated);
+    }
+
+    @Override
+    public CachedTile find(TileKey key) {
+        List<OfflineRegion> current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                index();
+                current = snapshot;
+            }
+        }
+        if (current.isEmpty()) return null;
+        BoundingBox bounds = key.bounds();
+        for (OfflineRegion r : current) {
+            if (!r.covers(key.z, bounds)) continue;
+            CachedTile tile = tiles(r.id).get(key);
+            if (tile != null) return tile;
+        }
+        return null;
+    }
+
+    // --- Persistence ---
+
+    private LinkedHashMap<String, OfflineRegion> index() {
+        if (regions == null) {
+            regions = load();
+            snapshot = Collections.unmodifiableList(new ArrayList<>(regions.values()));
+        }
+        return regions;
+    }
+
+    private LinkedHashMap<String, OfflineRegion> load() {
+        LinkedHashMap<String, OfflineRegion> out = new LinkedHashMap<>();
+        File file = new File(dir, INDEX);
+        if (!file.isFile()) return out;
+        try (JsonReader json = new JsonReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            json.beginObject();
+            while (json.hasNext()) {
+                if (!"regions".equals(json.nextName())) {
+                    json.skipValue();
+                    continue;
+                }
+                json.beginArray();
+                while (json.hasNext()) {
+                    OfflineRegion r = readRegion(json);
+                    out.put(r.id, r);
+                }
+                json.endArray();
+            }
+            json.endObject();
+        } catch (IOException | IllegalStateException | IllegalArgumentException e) {
+            // Tiles without an index cannot be found or evicted; start over rather than leak them.
+            out.clear();
+            File[] leftovers = dir.listFiles(File::isDirectory);
+            if (leftovers != null) for (File d : leftovers) deleteTree(d);
+        }
+        return out;
+    }
+
+    private static OfflineRegion readRegion(JsonReader json) throws IOException {
+        String id = null;
+        String name = null;
+        double south = 0, west = 0, north = 0, east = 0;
+        int minZoom = 0, maxZoom = 0, tilesTotal = 0, tilesDone = 0;
+        OfflineRegion.State state = OfflineRegion.State.QUEUED;
+        long bytes = 0, estimatedBytes = 0, createdAt = 0, lastUsedAt = 0;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "id": id = json.nextString(); break;
+                case "name": name = json.nextString(); break;
+                case "south": south = json.nextDouble(); break;
+                case "west": west = json.nextDouble(); break;
+                case "north": north = json.nextDouble(); break;
+                case "east": east = json.nextDouble(); break;
+                case "minZoom": minZoom = json.nextInt(); break;
+                case "maxZoom": maxZoom = json.nextInt(); break;
+                case "state": state = OfflineRegion.State.valueOf(json.nextString()); break;
+                case "tilesTotal": tilesTotal = json.nextInt(); break;
+                case "tilesDone": tilesDone = json.nextInt(); break;
+                case "bytes": bytes = json.nextLong(); break;
+                case "estimatedBytes": estimatedBytes = json.nextLong(); break;
+                case "createdAt": createdAt = json.nextLong(); break;
+                case "lastUsedAt": lastUsedAt = json.nextLong(); break;
+                default: json.skipValue(); break;
+            }
+        }
+        json.endObject();
+        return new OfflineRegion(id, name, new BoundingBox(south, west, north, east), minZoom, maxZoom,
+                state, tilesTotal, tilesDone, bytes, estimatedBytes, createdAt, lastUsedAt);
+    }
+
+    /**
+     * Writes the index to a temporary file and renames it into place.
+     */
+    private void save(LinkedHashMap<String, OfflineRegion> updated) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("Could not create " + dir);
+        }
+        File tmp = new File(dir, INDEX + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            JsonWriter json = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            json.setIndent(" ");
+            json.beginObject();
+            json.name("regions").beginArray();
+            for (OfflineRegion r : updated.values()) {
+                json.beginObject();
+                json.name("id").value(r.id);
+                json.name("name").value(r.name);
+                json.name("south").value(r.box.south);
+                json.name("west").value(r.box.west);
+                json.name("north").value(r.box.north);
+                json.name("east").value(r.box.east);
+                json.name("minZoom").value(r.minZoom);
+                json.name("maxZoom").value(r.maxZoom);
+                json.name("state").value(r.state.name());
+                json.name("tilesTotal").value(r.tilesTotal);
+                json.name("tilesDone").value(r.tilesDone);
+                json.name("bytes").value(r.bytes);
+                json.name("estimatedBytes").value(r.estimatedBytes);
+                json.name("createdAt").value(r.createdAt);
+                json.name("lastUsedAt").value(r.lastUsedAt);
+                json.endObject();
+            }
+            json.endArray();
+            json.endObject();
+            json.flush();
+            out.getFD().sync();
+        }
+        if (!tmp.renameTo(new File(dir, INDEX))) {
+            tmp.delete();
+            throw new IOException("Could not save " + INDEX);
+        }
+        regions = updated;
+        snapshot = Collections.unmodifiableList(new ArrayList<>(updated.values()));
+    }
+
+    private static void deleteTree(File f) {
+        File[] children = f.listFiles();
+        if (children != null) for (File c : children) deleteTree(c);
+        f.delete();
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.sailspots.core.offline;
+
+import com.example.sailspots.core.charts.CachedTile;
+import com.example.sailspots.core.charts.Cancellation;
+import com.example.sailspots.core.charts.DiskTileCache;
+import com.example.sailspots.core.charts.TileFetcher;
+import com.example.sailspots.core.charts.TileKey;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Downloads a region's chart tiles into its DiskTileCache.
+ *
+ * Resumable: tiles already on disk and still fresh are skipped, so running it again after
+ * an interruption fetches only what is missing, and a refresh of a finished region costs a
+ * 304 per stale tile. At most {@code maxConcurrent} requests are in flight; as in
+ * TileSyncEngine, a fixed set of workers walks the tile list by a shared index, with the
+ * calling thread as one of them. download() blocks, so call it from a background thread.
+ */
+public final class RegionDownloader {
+
+    /**
+     * Receives progress from the worker threads; keep it cheap.
+     */
+    public interface ProgressListener {
+        void onProgress(int done, int total, long bytes);
+    }
+
+    private final TileFetcher fetcher;
+    private final Executor executor;
+    private final int maxConcurrent;
+    private ProgressListener listener;
+
+    public RegionDownloader(TileFetcher fetcher, Executor executor, int maxConcurrent) {
+        if (maxConcurrent < 1) throw new IllegalArgumentException("maxConcurrent");
+        this.fetcher = fetcher;
+        this.executor = executor;
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public RegionDownloader setProgressListener(ProgressListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Fetches every tile in {@code tiles} that {@code into} lacks or holds stale.
+     * @param cancel Stops the download, aborting requests in flight.
+     */
+    public Result download(List<TileKey> tiles, DiskTileCache into, Cancellation cancel) {
+        final int total = tiles.size();
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger done = new AtomicInteger();
+        final AtomicInteger downloaded = new AtomicInteger();
+        final AtomicInteger kept = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicLong bytes = new AtomicLong();
+        // Requests in flight, so cancelling the download can abort each of them.
+        final Set<Cancellation> active = ConcurrentHashMap.newKeySet();
+        cancel.onCancel(() -> {
+            for (Cancellation c : active) c.cancel();
+        });
+
+        Runnable worker = () -> {
+            int i;
+            while (!cancel.isCancelled() && (i = next.getAndIncrement()) < total) {
+                TileKey key = tiles.get(i);
+                CachedTile have = into.get(key);
+                long now = System.currentTimeMillis();
+                if (have != null && have.isFresh(now)) {
+                    kept.incrementAndGet();
+                    bytes.addAndGet(have.data.length);
+                } else {
+                    Cancellation request = new Cancellation();
+                    active.add(request);
+                    if (cancel.isCancelled()) request.cancel();
+                    try {
+                        CachedTile got = fetcher.fetch(key, have, request);
+                        into.put(key, got);
+                        downloaded.incrementAndGet();
+                        bytes.addAndGet(got.data.length);
+                    } catch (IOException e) {
+                        if (!cancel.isCancelled()) failed.incrementAndGet();
+                    } finally {
+                        active.remove(request);
+                    }
+                }
+                int d = done.incrementAndGet();
+                if (listener != null) listener.onProgress(d, total, bytes.get());
+            }
+        };
+
+        int workers = Math.min(maxConcurrent, total);
+        CountDownLatch finished = new CountDownLatch(Math.max(0, workers - 1));
+        for (int w = 1; w < workers; w++) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        worker.run();
+                    } finally {
+                        finished.countDown();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                finished.countDown(); // The pool is saturated; the other workers pick up its share.
+            }
+        }
+        if (workers > 0) worker.run();
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            cancel.cancel();
+            Thread.currentThread().interrupt();
+        }
+        return new Result(total, downloaded.get(), kept.get(), failed.get(), done.get(), bytes.get(),
+                cancel.isCancelled());
+    }
+
+    /**
+     * What one download did.
+     */
+    public static final class Result {
+        public final int total;
+        public final int downloaded;   // Fetched or revalidated.
+        public final int kept;         // Already on disk and fresh.
+        public final int failed;
+        public final int done;         // Attempted, whatever the outcome.
+        public final long bytes;       // Tile data now held for the attempted tiles.
+        public final boolean cancelled;
+
+        Result(int total, int downloaded, int kept, int failed, int done, long bytes, boolean cancelled) {
+            this.total = total;
+            this.downloaded = downloaded;
+            this.kept = kept;
+            this.failed = failed;
+            this.done = done;
+            this.bytes = bytes;
+            this.cancelled = cancelled;
+        }
+
+        /**
+         * @return True if every tile is now on disk.
+         */
+        public boolean complete() {
+            return !cancelled && failed == 0 && done == total;
+        }
+
+        @Override
+        public String toString() {
+            return "downloaded=" + downloaded + " kept=" + kept + " failed=" + failed + " done=" + done
+                    + "/" + total + " bytes=" + bytes + (cancelled ? " cancelled" : "");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.sailspots.core.offline;
+
+import com.example.sailspots.core.charts.TileKey;
+import com.example.sailspots.core.charts.TileRange;
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.geo.Geohash;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What downloading a region involves: the chart tiles for each zoom level, and an estimate
+ * of the space they take. Lets the UI show the size before anything is fetched.
+ */
+public final class RegionPlan {
+
+    // Seamark tiles are mostly transparent PNGs; observed averages replace this when known.
+    public static final long DEFAULT_TILE_BYTES = 6 * 1024;
+
+    public final BoundingBox box;
+    public final int minZoom;
+    public final int maxZoom;     // May be lower than asked for, to stay under the tile limit.
+    public final int chartTiles;
+    public final long estimatedBytes;
+
+    private RegionPlan(BoundingBox box, int minZoom, int maxZoom, int chartTiles, long estimatedBytes) {
+        this.box = box;
+        this.minZoom = minZoom;
+        this.maxZoom = maxZoom;
+        this.chartTiles = chartTiles;
+        this.estimatedBytes = estimatedBytes;
+    }
+
+    /**
+     * Plans a download of a box from {@code minZoom} to {@code maxZoom}, dropping the most
+     * detailed levels while the tile count is over {@code maxTiles}. Each level has about
+     * four times the tiles of the one before, so that is where the count comes from.
+     * @param avgTileBytes Expected size of a tile, e.g. measured from earlier downloads.
+     */
+    public static RegionPlan of(BoundingBox box, int minZoom, int maxZoom, int maxTiles, long avgTileBytes) {
+        if (minZoom > maxZoom) throw new IllegalArgumentException("minZoom > maxZoom");
+        long total = 0;
+        int z = minZoom;
+        for (; z <= maxZoom; z++) {
+            long level = count(box, z);
+            if (z > minZoom && total + level > maxTiles) break;
+            total += level;
+        }
+        return new RegionPlan(box, minZoom, z - 1, (int) Math.min(Integer.MAX_VALUE, total),
+                total * avgTileBytes);
+    }
+
+    private static long count(BoundingBox box, int z) {
+        TileRange r = TileRange.covering(box, z);
+        return (long) r.columns() * r.rows();
+    }
+
+    /**
+     * @return Every chart tile in the plan, coarsest level first, so an interrupted download
+     *         still leaves the overview levels complete.
+     */
+    public List<TileKey> chartTileKeys() {
+        List<TileKey> out = new ArrayList<>(chartTiles);
+        for (int z = minZoom; z <= maxZoom; z++) {
+            TileRange r = TileRange.covering(box, z);
+            int n = 1 << z;
+            for (int row = r.north; row <= r.south; row++) {
+                for (int i = 0; i < r.columns(); i++) {
+                    out.add(new TileKey(z, (r.west + i) % n, row));
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * @return True if a catalog tile, named by its geohash, overlaps the region.
+     */
+    public boolean coversCatalogTile(String geohash) {
+        try {
+            return box.intersects(Geohash.bounds(geohash));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.sailspots.core.routing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A boat's polar diagram: its speed through the water for each true wind angle and speed.
+ *
+ * The table is read from the usual ".pol" layout (a header row of wind speeds, then one row
+ * per wind angle) and resampled once into a dense grid of whole degrees and whole knots, so
+ * a lookup is a bilinear blend of four neighbors with no searching. Routing looks up tens
+ * of millions of speeds per passage. Immutable and thread-safe.
+ *
+ * Angles outside the table give 0 (inside the no-go zone); wind below the lightest column
+ * scales down to 0 knots at calm, and wind above the strongest holds that column's speeds.
+ */
+public final class BoatPolar {
+
+    static final int MAX_TWS = 60;
+
+    // Boat speed in knots at [twa * (MAX_TWS + 1) + tws], twa 0-180 and tws 0-MAX_TWS.
+    private final float[] dense = new float[181 * (MAX_TWS + 1)];
+    public final String name;
+
+    /**
+     * @param angles True wind angles in degrees, ascending, within 0-180.
+     * @param speeds True wind speeds in knots, ascending.
+     * @param knots  Boat speeds, one row per angle with one column per wind speed.
+     */
+    public BoatPolar(String name, double[] angles, double[] speeds, double[][] knots) {
+        if (angles.length == 0 || speeds.length == 0 || knots.length != angles.length) {
+            throw new IllegalArgumentException("Polar table is empty or ragged");
+        }
+        this.name = name;
+        for (int twa = 0; twa <= 180; twa++) {
+            for (int tws = 0; tws <= MAX_TWS; tws++) {
+                dense[twa * (MAX_TWS + 1) + tws] = (float) table(angles, speeds, knots, twa, tws);
+            }
+        }
+    }
+
+    /**
+     * Interpolates the sparse table; used once per dense cell.
+     */
+    private static double table(double[] angles, double[] speeds, double[][] knots, double twa, double tws) {
+        if (twa < angles[0] || twa > angles[angles.length - 1]) return 0;
+        int a = 0;
+        while (a + 1 < angles.length && angles[a + 1] <= twa) a++;
+        double fa = a + 1 < angles.length ? (twa - angles[a]) / (angles[a + 1] - angles[a]) : 0;
+        double atA = row(speeds, knots[a], tws);
+        double atB = a + 1 < angles.length ? row(speeds, knots[a + 1], tws) : atA;
+        return atA + fa * (atB - atA);
+    }
+
+    private static double row(double[] speeds, double[] knots, double tws) {
+        if (knots.length != speeds.length) throw new IllegalArgumentException("Polar row is ragged");
+        if (tws <= speeds[0]) return speeds[0] <= 0 ? knots[0] : knots[0] * tws / speeds[0];
+        if (tws >= speeds[speeds.length - 1]) return knots[knots.length - 1];
+        int s = 0;
+        while (speeds[s + 1] <= tws) s++;
+        double fs = (tws - speeds[s]) / (speeds[s + 1] - speeds[s]);
+        return knots[s] + fs * (knots[s + 1] - knots[s]);
+    }
+
+    /**
+     * @param twaDegrees True wind angle off the bow, either side; any value is folded to 0-180.
+     * @param twsKnots   True wind speed.
+     * @return Boat speed in knots.
+     */
+    public double boatSpeed(double twaDegrees, double twsKnots) {
+        double twa = Math.abs(twaDegrees) % 360;
+        if (twa > 180) twa = 360 - twa;
+        double tws = Math.max(0, Math.min(MAX_TWS, twsKnots));
+        int a = Math.min((int) twa, 179);
+        int s = Math.min((int) tws, MAX_TWS - 1);
+        double fa = twa - a;
+        double fs = tws - s;
+        int i = a * (MAX_TWS + 1) + s;
+        double low = dense[i] + fs * (dense[i + 1] - dense[i]);
+        double high = dense[i + MAX_TWS + 1] + fs * (dense[i + MAX_TWS + 2] - dense[i + MAX_TWS + 1]);
+        return low + fa * (high - low);
+    }
+
+    /**
+     * Reads a polar in the ".pol" layout: "TWA\TWS" then the wind speeds, then one line per
+     * angle. Columns may be split by tabs, semicolons or spaces; blank lines are skipped.
+     * @throws IOException If the text is not a polar table.
+     */
+    public static BoatPolar parse(String name, Reader in) throws IOException {
+        BufferedReader reader = new BufferedReader(in);
+        double[] speeds = null;
+        List<Double> angles = new ArrayList<>();
+        List<double[]> rows = new ArrayList<>();
+        String line;
+        int lineNo = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            String[] cells = line.trim().split("[\\t; ]+");
+            if (cells.length < 2) continue;
+            try {
+                if (speeds == null) {
+                    speeds = new double[cells.length - 1];
+                    for (int i = 1; i < cells.length; i++) speeds[i - 1] = Double.parseDouble(cells[i]);
+                    continue;
+                }
+                if (cells.length != speeds.length + 1) throw new IOException("Line " + lineNo + " has "
+                        + (cells.length - 1) + " speeds, expected " + speeds.length);
+                angles.add(Double.parseDouble(cells[0]));
+                double[] row = new double[speeds.length];
+                for (int i = 1; i < cells.length; i++) row[i - 1] = Double.parseDouble(cells[i]);
+                rows.add(row);
+            } catch (NumberFormatException e) {
+                throw new IOException("Line " + lineNo + " of the polar is not numeric", e);
+            }
+        }
+        if (speeds == null || rows.isEmpty()) throw new IOException("No polar table found");
+        double[] a = new double[angles.size()];
+        for (int i = 0; i < a.length; i++) a[i] = angles.get(i);
+        return new BoatPolar(name, a, speeds, rows.toArray(new double[0][]));
+    }
+
+    /**
+     * A generic 38-foot cruising sloop, close-hauled at about 40 degrees.
+     */
+    public static BoatPolar cruiser() {
+        double[] speeds = {6, 8, 10, 12, 14, 16, 20, 25};
+        double[] angles = {0, 30, 38, 45, 52, 60, 75, 90, 110, 120, 135, 150, 165, 180};
+        double[][] knots = {
+                {0, 0, 0, 0, 0, 0, 0, 0},
+                {0, 0, 0, 0, 0, 0, 0, 0},
+                {3.9, 4.9, 5.6, 6.0, 6.2, 6.3, 6.4, 6.3},
+                {4.4, 5.4, 6.0, 6.4, 6.6, 6.7, 6.8, 6.8},
+                {4.8, 5.8, 6.4, 6.8, 7.0, 7.1, 7.2, 7.2},
+                {5.0, 6.0, 6.7, 7.0, 7.2, 7.3, 7.5, 7.5},
+                {5.2, 6.2, 6.9, 7.2, 7.4, 7.6, 7.8, 7.9},
+                {5.3, 6.4, 7.0, 7.3, 7.5, 7.7, 8.0, 8.2},
+                {5.1, 6.3, 7.0, 7.4, 7.7, 7.9, 8.3, 8.7},
+                {4.9, 6.1, 6.9, 7.4, 7.7, 8.0, 8.5, 9.0},
+                {4.3, 5.6, 6.5, 7.1, 7.5, 7.9, 8.6, 9.3},
+                {3.6, 4.8, 5.8, 6.6, 7.1, 7.5, 8.2, 9.0},
+                {3.1, 4.2, 5.2, 6.0, 6.6, 7.1, 7.8, 8.6},
+                {2.9, 3.9, 4.9, 5.7, 6.3, 6.8, 7.5, 8.3},
+        };
+        return new BoatPolar("Cruiser 38", angles, speeds, knots);
+    }
+
+    @Override
+    public String toString() {
+        return "BoatPolar{" + name + '}';
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.sailspots.core.routing;
+
+import java.util.Arrays;
+
+/**
+ * The best cost found so far for each cell a search has touched, in an open-addressing
+ * hash map from int cell to float. A fine grid has millions of cells but a search touches a
+ * few thousand, so this is far smaller than an array over the grid. Not thread-safe.
+ */
+final class CellCosts {
+
+    private static final int EMPTY = -1;
+
+    private int[] cells;
+    private float[] costs;
+    private int size;
+    private int mask;
+
+    CellCosts() {
+        cells = new int[1024];
+        costs = new float[1024];
+        Arrays.fill(cells, EMPTY);
+        mask = cells.length - 1;
+    }
+
+    int size() { return size; }
+
+    /**
+     * @return The cost stored for a cell, or +Infinity if it has none.
+     */
+    float get(int cell) {
+        for (int i = mix(cell) & mask; ; i = (i + 1) & mask) {
+            if (cells[i] == cell) return costs[i];
+            if (cells[i] == EMPTY) return Float.POSITIVE_INFINITY;
+        }
+    }
+
+    void put(int cell, float cost) {
+        int i = mix(cell) & mask;
+        for (; cells[i] != EMPTY; i = (i + 1) & mask) {
+            if (cells[i] == cell) {
+                costs[i] = cost;
+                return;
+            }
+        }
+        cells[i] = cell;
+        costs[i] = cost;
+        if (++size * 2 > cells.length) grow();
+    }
+
+    private void grow() {
+        int[] oldCells = cells;
+        float[] oldCosts = costs;
+        cells = new int[oldCells.length * 2];
+        costs = new float[oldCells.length * 2];
+        Arrays.fill(cells, EMPTY);
+        mask = cells.length - 1;
+        for (int j = 0; j < oldCells.length; j++) {
+            if (oldCells[j] == EMPTY) continue;
+            int i = mix(oldCells[j]) & mask;
+            while (cells[i] != EMPTY) i = (i + 1) & mask;
+            cells[i] = oldCells[j];
+            costs[i] = oldCosts[j];
+        }
+    }
+
+    // Neighboring cells differ by 1 or a row width; spread them over the table.
+    private static int mix(int cell) {
+        int h = cell * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.sailspots.core.routing;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of grid cells keyed by float priority, for Dijkstra searches.
+ * Cells are not decreased in place: a cell is pushed again with its better key and the
+ * stale entry is skipped when it comes out. Not thread-safe; one per search.
+ */
+final class CellQueue {
+
+    private int[] cells = new int[256];
+    private float[] keys = new float[256];
+    private int size;
+
+    boolean isEmpty() { return size == 0; }
+
+    int size() { return size; }
+
+    void clear() { size = 0; }
+
+    void push(int cell, float key) {
+        if (size == cells.length) {
+            cells = Arrays.copyOf(cells, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key) break;
+            cells[i] = cells[parent];
+            keys[i] = keys[parent];
+            i = parent;
+        }
+        cells[i] = cell;
+        keys[i] = key;
+    }
+
+    /**
+     * @return The key of the cell pop() would return next.
+     */
+    float peekKey() { return keys[0]; }
+
+    /**
+     * Removes the cell with the smallest key.
+     */
+    int pop() {
+        int top = cells[0];
+        int lastCell = cells[--size];
+        float lastKey = keys[size];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+            if (lastKey <= keys[child]) break;
+            cells[i] = cells[child];
+            keys[i] = keys[child];
+            i = child;
+        }
+        cells[i] = lastCell;
+        keys[i] = lastKey;
+        return top;
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.sailspots.core.routing;
+
+import com.example.sailspots.core.geo.GeoMath;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Water depths from a directory of one-degree DepthTiles, named like "n41w072.depth" for the
+ * tile whose south-west corner is 41N 72W.
+ *
+ * Tiles are memory-mapped the first time a query touches them and kept in least recently
+ * used order; once the mapped tiles add up to more than the budget, the oldest are dropped
+ * (their mappings go with the garbage collector). A tile's cells are only paged in where
+ * they are read, so a query along one channel costs a few pages, not a whole tile.
+ *
+ * Queries never fail: a point with no tile, or no survey data, has NaN depth, and callers
+ * treat unknown depth as navigable. Thread-safe.
+ */
+public final class DepthStore {
+
+    public static final String EXTENSION = ".depth";
+    // Sampling step along a segment when no tile tells the resolution: about 100 m.
+    private static final double DEFAULT_STEP_DEGREES = 0.001;
+    // Tile keys remembered as absent; cleared past this, since a voyage only crosses a few.
+    private static final int MAX_MISSING = 4096;
+    // Cells either way from a marina searched for its approach; bounds a query's work.
+    private static final int MAX_APPROACH_CELLS = 256;
+
+    private final File dir;
+    private final long budgetBytes;
+    // Tiles by key, least recently used first. Guarded by this.
+    private final LinkedHashMap<Integer, DepthTile> tiles = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<Integer> missing = new HashSet<>();
+    private long mappedBytes;
+    private long loads;
+    private long evictions;
+
+    /**
+     * @param budgetBytes Most bytes of tiles to keep mapped at once; at least one tile is
+     *                    always kept, however large.
+     */
+    public DepthStore(File dir, long budgetBytes) {
+        this.dir = dir;
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * @return The file name of the tile whose south-west corner is at the given whole degrees.
+     */
+    public static String name(int south, int west) {
+        return String.format(Locale.US, "%s%02d%s%03d%s", south < 0 ? "s" : "n", Math.abs(south),
+                west < 0 ? "w" : "e", Math.abs(west), EXTENSION);
+    }
+
+    private static int key(int south, int west) {
+        return (south + 90) * 360 + (west + 180);
+    }
+
+    /**
+     * @return The tile covering a point, mapping it if needed, or null if there is none.
+     */
+    DepthTile tile(double lat, double lng) {
+        if (!(lat >= -90 && lat < 90)) return null;
+        int south = (int) Math.floor(lat);
+        int west = (int) Math.floor(GeoMath.wrapLongitude(lng));
+        int key = key(south, west);
+        synchronized (this) {
+            DepthTile tile = tiles.get(key);
+            if (tile != null || missing.contains(key)) return tile;
+            File file = new File(dir, name(south, west));
+            if (file.isFile()) {
+                try {
+                    tile = DepthTile.open(file);
+                } catch (IOException e) {
+                    // A damaged tile reads as no data, like a missing one.
+                    tile = null;
+                }
+            }
+            if (tile == null) {
+                if (missing.size() >= MAX_MISSING) missing.clear();
+                missing.add(key);
+                return null;
+            }
+            tiles.put(key, tile);
+            mappedBytes += tile.bytes();
+            loads++;
+            Iterator<DepthTile> eldest = tiles.values().iterator();
+            while (mappedBytes > budgetBytes && tiles.size() > 1) {
+                DepthTile old = eldest.next();
+                eldest.remove();
+                mappedBytes -= old.bytes();
+                evictions++;
+            }
+            return tile;
+        }
+    }
+
+    /**
+     * @return The depth in metres at a point (that of the cell holding it), negative above
+     *         datum, or NaN where unknown.
+     */
+    public double depth(double lat, double lng) {
+        DepthTile tile = tile(lat, lng);
+        return tile == null ? Double.NaN : tile.depth(lat, lng);
+    }
+
+    /**
+     * Samples a straight segment every half cell, looking tiles up only when it leaves one.
+     * @return The least depth in metres along it, or NaN if no point on it has data.
+     */
+    public double shallowest(double lat1, double lng1, double lat2, double lng2) {
+        DepthTile tile = tile(lat1, lng1);
+        double step = (tile != null ? tile.cellDegrees : DEFAULT_STEP_DEGREES) / 2;
+        double span = Math.max(Math.abs(lat2 - lat1), Math.abs(lng2 - lng1));
+        int samples = (int) Math.min(1 << 16, Math.ceil(span / step));
+        double least = Double.NaN;
+        for (int i = 0; i <= samples; i++) {
+            double f = samples == 0 ? 0 : (double) i / samples;
+            double lat = lat1 + f * (lat2 - lat1);
+            double lng = lng1 + f * (lng2 - lng1);
+            if (tile == null || !tile.contains(lat, lng)) tile = tile(lat, lng);
+            if (tile == null) continue;
+            double d = tile.depth(lat, lng);
+            if (!Double.isNaN(d) && !(d >= least)) least = d;
+        }
+        return least;
+    }
+
+    /**
+     * Finds the controlling depth of the way out from a marina: the deepest route from its
+     * berths to deep water or to the edge of the search, measured by the shallowest point on
+     * it. A marina behind a 1.5 m bar gets 1.5 however deep its basin is.
+     *
+     * This is a widest-path search (Dijkstra keyed on the shallowest depth so far, deepest
+     * first) over a raster at the resolution of the marina's tile, sampled as it goes, so
+     * only the cells it reaches are read.
+     * @param snapMiles  How far from the pin to look for the first water, since pins sit on docks.
+     * @param radiusMiles How far the search goes before calling the approach open water.
+     * @param deepMetres Depth beyond which any approach counts as clear.
+     * @return The controlling depth in metres, or NaN if there is no data around the marina.
+     */
+    public double approachDepth(double lat, double lng, double snapMiles, double radiusMiles, double deepMetres) {
+        DepthTile tile = tile(lat, lng);
+        if (tile == null) return Double.NaN;
+        double cell = tile.cellDegrees;
+        double cellMilesY = cell * GeoMath.MILES_PER_DEGREE;
+        double cellMilesX = cellMilesY * Math.cos(Math.toRadians(lat));
+        int rx = (int) Math.min(MAX_APPROACH_CELLS, Math.ceil(radiusMiles / cellMilesX));
+        int ry = (int) Math.min(MAX_APPROACH_CELLS, Math.ceil(radiusMiles / cellMilesY));
+        int w = 2 * rx + 1;
+        int h = 2 * ry + 1;
+        // The cell centres of a local raster around the marina's cell.
+        double lat0 = tile.south + (tile.row(lat) - ry + 0.5) * cell;
+        double lng0 = tile.west + (tile.col(lng) - rx + 0.5) * cell;
+
+        float[] depth = new float[w * h];
+        Arrays.fill(depth, Float.NEGATIVE_INFINITY);  // Not sampled yet.
+        float[] best = new float[w * h];
+        Arrays.fill(best, Float.NEGATIVE_INFINITY);
+        CellQueue open = new CellQueue();  // A min-heap, so keys are negated depths.
+
+        int sx = (int) Math.min(rx, Math.ceil(snapMiles / cellMilesX));
+        int sy = (int) Math.min(ry, Math.ceil(snapMiles / cellMilesY));
+        DepthTile[] last = {tile};
+        for (int r = ry - sy; r <= ry + sy; r++) {
+            for (int c = rx - sx; c <= rx + sx; c++) {
+                float d = sample(depth, last, w, c, r, lat0, lng0, cell);
+                if (!(d > 0)) continue;
+                best[r * w + c] = d;
+                open.push(r * w + c, -d);
+            }
+        }
+        while (!open.isEmpty()) {
+            float bottleneck = -open.peekKey();
+            int i = open.pop();
+            if (bottleneck < best[i]) continue;  // A stale entry; reached deeper since.
+            int c = i % w;
+            int r = i / w;
+            if (depth[i] >= deepMetres || c == 0 || r == 0 || c == w - 1 || r == h - 1) return bottleneck;
+            for (int k = 0; k < 4; k++) {
+                int nc = c + (k == 0 ? 1 : k == 1 ? -1 : 0);
+                int nr = r + (k == 2 ? 1 : k == 3 ? -1 : 0);
+                float d = sample(depth, last, w, nc, nr, lat0, lng0, cell);
+                if (!(d > 0)) continue;  // Dry, or no data: not a way out we know of.
+                float next = Math.min(bottleneck, d);
+                int j = nr * w + nc;
+                if (next > best[j]) {
+                    best[j] = next;
+                    open.push(j, -next);
+                }
+            }
+        }
+        // Water all around is enclosed, or the survey stops short: no known way out.
+        return Double.NaN;
+    }
+
+    // Depth of a local raster cell, sampled on first use; NaN (as a float) without data.
+    private float sample(float[] depth, DepthTile[] last, int w, int c, int r,
+                         double lat0, double lng0, double cell) {
+        int i = r * w + c;
+        if (depth[i] != Float.NEGATIVE_INFINITY) return depth[i];
+        double lat = lat0 + r * cell;
+        double lng = lng0 + c * cell;
+        DepthTile t = last[0];
+        if (!t.contains(lat, lng)) {
+            t = tile(lat, lng);
+            if (t == null) return depth[i] = Float.NaN;
+            last[0] = t;
+        }
+        return depth[i] = (float) t.depth(lat, lng);
+    }
+
+    // --- Stats ---
+
+    public long budgetBytes() { return budgetBytes; }
+
+    public synchronized long mappedBytes() { return mappedBytes; }
+
+    public synchronized int tilesMapped() { return tiles.size(); }
+
+    public synchronized long loads() { return loads; }
+
+    public synchronized long evictions() { return evictions; }
+
+    @Override
+    public synchronized String toString() {
+        return "DepthStore{" + tiles.size() + " tiles, " + mappedBytes + " of " + budgetBytes
+                + " bytes mapped, " + loads + " loads, " + evictions + " evictions}";
+    }
+}
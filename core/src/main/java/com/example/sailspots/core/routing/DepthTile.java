@@ -0,0 +1,142 @@
+package com.example.sailspots.core.routing;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * One tile of a bathymetry raster: water depth on a regular grid, row 0 along the south edge,
+ * two bytes a cell.
+ *
+ * Cells hold the depth below chart datum in decimetres, so a short covers 0.1 m steps down to
+ * 3276 m; anything deeper is stored as the maximum, which is deep enough for any keel.
+ * Negative values are heights above datum (drying banks, land); NO_DATA marks cells the
+ * survey does not cover. Tiles are built by DepthTool and memory-mapped by DepthStore.
+ * Immutable and thread-safe.
+ *
+ * Layout (little-endian): magic "SSDT", version, south, west and cell size as doubles,
+ * columns and rows as ints, then the cells as shorts, row by row.
+ */
+public final class DepthTile {
+
+    // --- Format ---
+    static final int MAGIC = 0x54445353; // "SSDT" read as a little-endian int.
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 40;
+    public static final short NO_DATA = Short.MIN_VALUE;
+
+    public final double south;
+    public final double west;
+    public final double cellDegrees;
+    public final int cols;
+    public final int rows;
+    private final ShortBuffer cells;
+
+    private DepthTile(double south, double west, double cellDegrees, int cols, int rows, ShortBuffer cells) {
+        this.south = south;
+        this.west = west;
+        this.cellDegrees = cellDegrees;
+        this.cols = cols;
+        this.rows = rows;
+        this.cells = cells;
+    }
+
+    /**
+     * @return The depth in metres at a cell, negative above datum, or NaN where there is no data.
+     */
+    public double depth(int col, int row) {
+        if (col < 0 || row < 0 || col >= cols || row >= rows) return Double.NaN;
+        short v = cells.get(row * cols + col);
+        return v == NO_DATA ? Double.NaN : v / 10.0;
+    }
+
+    /**
+     * @return The depth in metres of the cell holding a point, or NaN off the tile or without data.
+     */
+    public double depth(double lat, double lng) {
+        return depth(col(lng), row(lat));
+    }
+
+    public int col(double lng) { return (int) Math.floor((lng - west) / cellDegrees); }
+
+    public int row(double lat) { return (int) Math.floor((lat - south) / cellDegrees); }
+
+    public boolean contains(double lat, double lng) {
+        return lat >= south && lng >= west && lat < south + rows * cellDegrees && lng < west + cols * cellDegrees;
+    }
+
+    /**
+     * @return The bytes the tile occupies, mapped or on disk.
+     */
+    public long bytes() {
+        return HEADER_BYTES + 2L * cols * rows;
+    }
+
+    /**
+     * @return A depth in metres as a cell value, clamped to the range a cell holds.
+     */
+    public static short encode(double metres) {
+        if (Double.isNaN(metres)) return NO_DATA;
+        long dm = Math.round(metres * 10);
+        return (short) Math.max(Short.MIN_VALUE + 1, Math.min(Short.MAX_VALUE, dm));
+    }
+
+    // --- File format ---
+
+    /**
+     * Writes a tile.
+     * @param cells Cell values from encode(), row by row from the south.
+     */
+    public static void write(double south, double west, double cellDegrees, int cols, int rows,
+                             short[] cells, OutputStream out) throws IOException {
+        if (cells.length != cols * rows) throw new IllegalArgumentException("cells");
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + 2 * cells.length).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MAGIC).putInt(VERSION).putDouble(south).putDouble(west).putDouble(cellDegrees)
+                .putInt(cols).putInt(rows);
+        for (short v : cells) buf.putShort(v);
+        out.write(buf.array());
+    }
+
+    /**
+     * Memory-maps a tile file. The mapping stays valid after this returns.
+     * @throws IOException If the file cannot be read or is not a depth tile.
+     */
+    public static DepthTile open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            return wrap(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads a tile from a buffer, which is shared, not copied.
+     * @throws IOException If the buffer does not hold a valid depth tile.
+     */
+    public static DepthTile wrap(ByteBuffer buffer) throws IOException {
+        ByteBuffer buf = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.capacity() < HEADER_BYTES || buf.getInt(0) != MAGIC) throw new IOException("Not a depth tile");
+        if (buf.getInt(4) != VERSION) throw new IOException("Unsupported depth tile version " + buf.getInt(4));
+        double south = buf.getDouble(8);
+        double west = buf.getDouble(16);
+        double cellDegrees = buf.getDouble(24);
+        int cols = buf.getInt(32);
+        int rows = buf.getInt(36);
+        if (cols <= 0 || rows <= 0 || !(cellDegrees > 0)
+                || HEADER_BYTES + 2L * cols * rows > buf.capacity()) {
+            throw new IOException("Corrupt depth tile");
+        }
+        buf.position(HEADER_BYTES).limit(HEADER_BYTES + 2 * cols * rows);
+        ShortBuffer cells = buf.slice().order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+        return new DepthTile(south, west, cellDegrees, cols, rows, cells);
+    }
+
+    @Override
+    public String toString() {
+        return "DepthTile{" + cols + "x" + rows + " cells of " + cellDegrees + " deg at " + south + ", " + west + '}';
+    }
+}
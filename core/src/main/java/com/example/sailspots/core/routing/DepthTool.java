@@ -0,0 +1,159 @@
+package com.example.sailspots.core.routing;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Command-line builder of depth tiles from a bathymetry grid, run by the :core:depthTiles
+ * Gradle task. The input is an ESRI ASCII grid (.asc), the plain export of GEBCO, NOAA's
+ * coastal relief models and most GIS tools, with elevations positive up as they publish
+ * them; pass "depth" as the last argument for a grid already in depths.
+ *
+ * The grid is streamed one degree of latitude at a time, so a whole coast converts in a few
+ * megabytes of heap. Its cell size must divide a degree, e.g. 1/240 (GEBCO's 15 arc seconds)
+ * or 1/1200 (3 arc seconds).
+ *
+ * Usage: DepthTool grid.asc output-dir [depth]
+ */
+public final class DepthTool {
+
+    private DepthTool() { }
+
+    /**
+     * Converts a grid into tiles in a directory.
+     * @param depths True if the grid holds depths (positive down) rather than elevations.
+     * @return How many tiles were written.
+     */
+    public static int convert(Reader in, File outDir, boolean depths) throws IOException {
+        Tokens tokens = new Tokens(in);
+        int ncols = -1, nrows = -1;
+        double x = Double.NaN, y = Double.NaN, cell = Double.NaN, noData = Double.NaN;
+        boolean center = false;
+        String token;
+        // The header is "key value" lines, up to the first number where a key would be.
+        while ((token = tokens.next()) != null && Character.isLetter(token.charAt(0))) {
+            String key = token.toLowerCase(Locale.ROOT);
+            double value = Double.parseDouble(tokens.nextRequired());
+            switch (key) {
+                case "ncols": ncols = (int) value; break;
+                case "nrows": nrows = (int) value; break;
+                case "xllcorner": x = value; break;
+                case "yllcorner": y = value; break;
+                case "xllcenter": x = value; center = true; break;
+                case "yllcenter": y = value; center = true; break;
+                case "cellsize": cell = value; break;
+                case "nodata_value": noData = value; break;
+                default: throw new IOException("Unknown grid header " + token);
+            }
+        }
+        if (ncols <= 0 || nrows <= 0 || Double.isNaN(x) || Double.isNaN(y) || !(cell > 0)) {
+            throw new IOException("Incomplete grid header");
+        }
+        int perDegree = (int) Math.round(1 / cell);
+        if (Math.abs(perDegree * cell - 1) > 1e-6) throw new IOException("Cell size " + cell + " does not divide a degree");
+        double west = center ? x : x + cell / 2;    // Centre of the first column.
+        double south = center ? y : y + cell / 2;   // Centre of the last (southmost) row.
+
+        if (!outDir.isDirectory() && !outDir.mkdirs()) throw new IOException("Cannot create " + outDir);
+        // The tiles of the current band of latitude, by west edge.
+        Map<Integer, short[]> band = new TreeMap<>();
+        int bandSouth = Integer.MIN_VALUE;
+        int written = 0;
+        for (int r = 0; r < nrows; r++) {
+            double lat = south + (nrows - 1 - r) * cell;  // Rows run north to south.
+            int tileSouth = (int) Math.floor(lat);
+            if (tileSouth != bandSouth) {
+                written += flush(band, bandSouth, perDegree, cell, outDir);
+                bandSouth = tileSouth;
+            }
+            int tileRow = Math.min(perDegree - 1, (int) Math.floor((lat - tileSouth) * perDegree));
+            for (int c = 0; c < ncols; c++) {
+                if (token == null) throw new IOException("Grid ends at row " + r + ", column " + c);
+                double v = Double.parseDouble(token);
+                token = tokens.next();
+                if (v == noData || Double.isNaN(v)) continue;
+                double lng = west + c * cell;
+                int tileWest = (int) Math.floor(lng);
+                int tileCol = Math.min(perDegree - 1, (int) Math.floor((lng - tileWest) * perDegree));
+                short[] cells = band.get(tileWest);
+                if (cells == null) {
+                    cells = new short[perDegree * perDegree];
+                    Arrays.fill(cells, DepthTile.NO_DATA);
+                    band.put(tileWest, cells);
+                }
+                cells[tileRow * perDegree + tileCol] = DepthTile.encode(depths ? v : -v);
+            }
+        }
+        written += flush(band, bandSouth, perDegree, cell, outDir);
+        return written;
+    }
+
+    private static int flush(Map<Integer, short[]> band, int south, int perDegree, double cell, File outDir)
+            throws IOException {
+        int n = 0;
+        for (Map.Entry<Integer, short[]> e : band.entrySet()) {
+            File file = new File(outDir, DepthStore.name(south, e.getKey()));
+            try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file))) {
+                DepthTile.write(south, e.getKey(), cell, perDegree, perDegree, e.getValue(), os);
+            }
+            n++;
+        }
+        band.clear();
+        return n;
+    }
+
+    /**
+     * Splits text on whitespace, wherever the line breaks fall.
+     */
+    private static final class Tokens {
+        private final Reader in;
+        private final StringBuilder sb = new StringBuilder(16);
+
+        Tokens(Reader in) { this.in = in; }
+
+        String next() throws IOException {
+            sb.setLength(0);
+            int ch;
+            while ((ch = in.read()) != -1 && Character.isWhitespace(ch)) { }
+            while (ch != -1 && !Character.isWhitespace(ch)) {
+                sb.append((char) ch);
+                ch = in.read();
+            }
+            return sb.length() == 0 ? null : sb.toString();
+        }
+
+        String nextRequired() throws IOException {
+            String s = next();
+            if (s == null) throw new IOException("Grid header ends early");
+            return s;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: DepthTool grid.asc output-dir [depth]");
+            System.exit(2);
+        }
+        File in = new File(args[0]);
+        File out = new File(args[1]);
+        boolean depths = args.length > 2 && args[2].equals("depth");
+        int tiles;
+        try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(in), StandardCharsets.US_ASCII),
+                1 << 16)) {
+            tiles = convert(reader, out, depths);
+        }
+        System.out.println("Wrote " + tiles + " depth tiles to " + out);
+    }
+}
@@ -0,0 +1,406 @@
+package com.example.sailspots.core.routing;
+
+import com.example.sailspots.core.geo.GeoMath;
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.weather.WindField;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds the fastest passage between two points under a wind forecast with the isochrone
+ * method: starting from the departure point, it repeatedly finds every place the boat can
+ * reach within one more time step, and keeps only the outermost of them.
+ *
+ * Each step, every point of the current front tries each heading within HEADING_SPAN of its
+ * course to the destination. The boat speed for the heading comes from the polar and the
+ * wind sampled there at that time; a segment that crosses land on the optional WaterGrid, or
+ * water shallower than the draft on the optional DepthStore, is dropped. The candidates are
+ * then pruned: bearings from the start are split into SECTORS, and a sector keeps only its
+ * candidate farthest from the start, and only if that is farther than the previous front got
+ * in the sector. Everything else is dominated, since a point behind another can reach nothing
+ * sooner. The front stays at most SECTORS points however many steps pass.
+ *
+ * Expansion is the bulk of the work and runs on a ForkJoinPool: the front is split in halves
+ * down to LEAF_POINTS-point leaves, each leaf prunes its own candidates into sectors, and the
+ * halves merge sector by sector on the way back up.
+ *
+ * The search ends in the first step where some point can sail straight to the destination
+ * within the step. Because sector pruning is by distance from the start, a destination
+ * tucked behind a headland that needs a detour away from it can be missed; the result then
+ * says it was not reached and ends at the closest point found.
+ */
+public final class IsochroneRouter {
+
+    public static final int DEFAULT_STEP_MINUTES = 30;
+    public static final int DEFAULT_MAX_HOURS = 48;
+    public static final int DEFAULT_HEADING_STEP = 5;
+
+    // Half-degree sectors of bearing from the start; the most points a front can hold.
+    static final int SECTORS = 720;
+    // Headings tried either side of the course to the destination.
+    private static final double HEADING_SPAN = 120;
+    // Front points expanded by one fork/join leaf; below this, splitting costs more than it saves.
+    private static final int LEAF_POINTS = 16;
+    // Close enough to call it arrived, whatever the wind.
+    private static final double ARRIVAL_MILES = 0.25;
+
+    private final BoatPolar polar;
+    private final WindField wind;
+    private final ForkJoinPool pool;
+    private WaterGrid water;
+    private DepthStore depth;
+    private double minDepthMetres;
+    private int stepMinutes = DEFAULT_STEP_MINUTES;
+    private int maxHours = DEFAULT_MAX_HOURS;
+    private int headingStep = DEFAULT_HEADING_STEP;
+    private volatile boolean cancelled;
+
+    /**
+     * @param pool Runs the expansion of each front; its parallelism bounds the threads used.
+     */
+    public IsochroneRouter(BoatPolar polar, WindField wind, ForkJoinPool pool) {
+        this.polar = polar;
+        this.wind = wind;
+        this.pool = pool;
+    }
+
+    /**
+     * @param water Land to route around, or null to treat everywhere as open water.
+     */
+    public IsochroneRouter setWater(WaterGrid water) {
+        this.water = water;
+        return this;
+    }
+
+    /**
+     * @param depth          Soundings to keep the keel off the bottom, or null to ignore depth.
+     * @param minDepthMetres The least depth a segment may cross: the draft plus a margin.
+     *                       Where the soundings have no data the water is taken as deep enough.
+     */
+    public IsochroneRouter setDepth(DepthStore depth, double minDepthMetres) {
+        this.depth = depth;
+        this.minDepthMetres = minDepthMetres;
+        return this;
+    }
+
+    public IsochroneRouter setStepMinutes(int minutes) {
+        if (minutes < 1) throw new IllegalArgumentException("minutes");
+        this.stepMinutes = minutes;
+        return this;
+    }
+
+    public IsochroneRouter setMaxHours(int hours) {
+        this.maxHours = hours;
+        return this;
+    }
+
+    public IsochroneRouter setHeadingStep(int degrees) {
+        if (degrees < 1 || degrees > 90) throw new IllegalArgumentException("degrees");
+        this.headingStep = degrees;
+        return this;
+    }
+
+    /**
+     * Stops a running route() after the step in progress; it returns the best so far.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Plans a passage. Blocks, so call it from a background thread.
+     */
+    public Route route(GeoPoint from, GeoPoint to, long departMillis) {
+        cancelled = false;
+        long stepMillis = stepMinutes * 60_000L;
+        int maxSteps = (int) Math.ceil(maxHours * 60.0 / stepMinutes);
+        int headings = (360 + headingStep - 1) / headingStep;
+        double[] sin = new double[headings];
+        double[] cos = new double[headings];
+        for (int h = 0; h < headings; h++) {
+            sin[h] = Math.sin(Math.toRadians(h * headingStep));
+            cos[h] = Math.cos(Math.toRadians(h * headingStep));
+        }
+
+        Node origin = new Node(from.latitude, from.longitude, null, 0, 0);
+        Node[] front = {origin};
+        double[] reached = new double[SECTORS];  // How far from the start each sector's front got.
+        Node closest = origin;
+        double closestMiles = GeoMath.approxMiles(from.latitude, from.longitude, to.latitude, to.longitude);
+        long candidates = 0;
+        int step = 0;
+        for (; step < maxSteps && front.length > 0 && !cancelled; step++) {
+            Step s = new Step(from, to, departMillis + step * stepMillis, stepMinutes / 60.0,
+                    headingStep, sin, cos, reached);
+            Frontier next = pool.invoke(new Expand(s, front, 0, front.length));
+            candidates += next.candidates;
+            if (next.closest != null && next.closestMiles < closestMiles) {
+                closest = next.closest;
+                closestMiles = next.closestMiles;
+            }
+            if (next.arrivalFrom != null) {
+                long arrival = departMillis + step * stepMillis + Math.round(next.arrivalHours * 3_600_000);
+                return Route.build(next.arrivalFrom, to, departMillis, stepMillis, arrival, true, step + 1, candidates);
+            }
+            front = next.front(reached);
+        }
+        return Route.build(closest, null, departMillis, stepMillis,
+                departMillis + closest.step * stepMillis, false, step, candidates);
+    }
+
+    // --- Expansion ---
+
+    /**
+     * One reachable point and how it was reached.
+     */
+    private static final class Node {
+        final double lat;
+        final double lng;
+        final Node parent;
+        final int step;          // Time steps from departure.
+        final double startMiles; // Straight-line distance from the start, the pruning key.
+
+        Node(double lat, double lng, Node parent, int step, double startMiles) {
+            this.lat = lat;
+            this.lng = lng;
+            this.parent = parent;
+            this.step = step;
+            this.startMiles = startMiles;
+        }
+    }
+
+    /**
+     * What every leaf of one step shares.
+     */
+    private static final class Step {
+        final GeoPoint start;
+        final GeoPoint dest;
+        final long timeMillis;
+        final double hours;
+        final int headingStep;
+        final double[] sin;
+        final double[] cos;
+        final double[] reached;
+
+        Step(GeoPoint start, GeoPoint dest, long timeMillis, double hours, int headingStep,
+             double[] sin, double[] cos, double[] reached) {
+            this.start = start;
+            this.dest = dest;
+            this.timeMillis = timeMillis;
+            this.hours = hours;
+            this.headingStep = headingStep;
+            this.sin = sin;
+            this.cos = cos;
+            this.reached = reached;
+        }
+    }
+
+    /**
+     * The pruned candidates of part of a front: the farthest per sector, plus the earliest
+     * arrival and the point nearest the destination.
+     */
+    private static final class Frontier {
+        final Node[] best = new Node[SECTORS];
+        Node arrivalFrom;
+        double arrivalHours = Double.POSITIVE_INFINITY;
+        Node closest;
+        double closestMiles = Double.POSITIVE_INFINITY;
+        long candidates;
+
+        void offer(int sector, Node n) {
+            Node b = best[sector];
+            if (b == null || n.startMiles > b.startMiles) best[sector] = n;
+        }
+
+        Frontier merge(Frontier o) {
+            for (int i = 0; i < SECTORS; i++) if (o.best[i] != null) offer(i, o.best[i]);
+            if (o.arrivalHours < arrivalHours) {
+                arrivalHours = o.arrivalHours;
+                arrivalFrom = o.arrivalFrom;
+            }
+            if (o.closestMiles < closestMiles) {
+                closestMiles = o.closestMiles;
+                closest = o.closest;
+            }
+            candidates += o.candidates;
+            return this;
+        }
+
+        /**
+         * @return The surviving points, recording how far each sector got.
+         */
+        Node[] front(double[] reached) {
+            List<Node> out = new ArrayList<>();
+            for (int i = 0; i < SECTORS; i++) {
+                if (best[i] == null) continue;
+                reached[i] = best[i].startMiles;
+                out.add(best[i]);
+            }
+            return out.toArray(new Node[0]);
+        }
+    }
+
+    private final class Expand extends RecursiveTask<Frontier> {
+        private static final long serialVersionUID = 1L;  // ForkJoinTask is Serializable; never serialized.
+        private final Step s;
+        private final Node[] front;
+        private final int lo;
+        private final int hi;
+
+        Expand(Step s, Node[] front, int lo, int hi) {
+            this.s = s;
+            this.front = front;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Frontier compute() {
+            if (hi - lo > LEAF_POINTS) {
+                int mid = (lo + hi) >>> 1;
+                Expand left = new Expand(s, front, lo, mid);
+                left.fork();
+                Frontier right = new Expand(s, front, mid, hi).compute();
+                return left.join().merge(right);
+            }
+            Frontier out = new Frontier();
+            double[] w = new double[2];
+            for (int i = lo; i < hi; i++) expand(front[i], w, out);
+            return out;
+        }
+
+        private void expand(Node n, double[] w, Frontier out) {
+            if (!wind.sample(n.lat, n.lng, s.timeMillis, w)) return; // No forecast here.
+            double tws = w[0];
+            double windFrom = w[1];
+            double course = GeoMath.bearingDegrees(n.lat, n.lng, s.dest.latitude, s.dest.longitude);
+            double toDest = GeoMath.approxMiles(n.lat, n.lng, s.dest.latitude, s.dest.longitude);
+            if (toDest < out.closestMiles) {
+                out.closestMiles = toDest;
+                out.closest = n;
+            }
+
+            // Can it finish this step by sailing straight there?
+            double direct = polar.boatSpeed(GeoMath.angleDelta(course, windFrom), tws) * GeoMath.MILES_PER_NM;
+            double hours = toDest <= ARRIVAL_MILES ? 0 : direct > 0 ? toDest / direct : Double.POSITIVE_INFINITY;
+            if (hours <= s.hours && hours < out.arrivalHours
+                    && clear(n.lat, n.lng, s.dest.latitude, s.dest.longitude)) {
+                out.arrivalHours = hours;
+                out.arrivalFrom = n;
+            }
+
+            double milesPerDegLng = GeoMath.MILES_PER_DEGREE * Math.cos(Math.toRadians(n.lat));
+            for (int h = 0; h < s.sin.length; h++) {
+                double heading = h * s.headingStep;
+                if (GeoMath.angleDelta(heading, course) > HEADING_SPAN) continue;
+                double knots = polar.boatSpeed(GeoMath.angleDelta(heading, windFrom), tws);
+                if (knots <= 0.05) continue; // In irons.
+                out.candidates++;
+                double miles = knots * GeoMath.MILES_PER_NM * s.hours;
+                // A step is a few miles at most, so a flat-earth move is accurate enough.
+                double lat = n.lat + miles * s.cos[h] / GeoMath.MILES_PER_DEGREE;
+                double lng = n.lng + miles * s.sin[h] / milesPerDegLng;
+                double startMiles = GeoMath.approxMiles(s.start.latitude, s.start.longitude, lat, lng);
+                int sector = sector(s.start, lat, lng);
+                if (startMiles <= s.reached[sector]) continue; // Behind the last front: dominated.
+                Node b = out.best[sector];
+                if (b != null && b.startMiles >= startMiles) continue;
+                if (!clear(n.lat, n.lng, lat, lng)) continue;
+                out.offer(sector, new Node(lat, lng, n, n.step + 1, startMiles));
+            }
+        }
+    }
+
+    private static int sector(GeoPoint start, double lat, double lng) {
+        double x = (lng - start.longitude) * Math.cos(Math.toRadians(start.latitude));
+        double y = lat - start.latitude;
+        double bearing = Math.toDegrees(Math.atan2(x, y));
+        if (bearing < 0) bearing += 360;
+        return Math.min(SECTORS - 1, (int) (bearing * SECTORS / 360));
+    }
+
+    /**
+     * @return False if the straight segment crosses land on the water grid, or known water
+     *         too shallow for the boat.
+     */
+    private boolean clear(double lat1, double lng1, double lat2, double lng2) {
+        if (depth != null && depth.shallowest(lat1, lng1, lat2, lng2) < minDepthMetres) return false;
+        WaterGrid g = water;
+        if (g == null) return true;
+        double cells = Math.max(Math.abs(lat2 - lat1), Math.abs(lng2 - lng1)) / g.cellDegrees;
+        int samples = (int) Math.ceil(cells) + 1;
+        for (int i = 0; i <= samples; i++) {
+            double f = (double) i / samples;
+            int c = g.col(lng1 + f * (lng2 - lng1));
+            int r = g.row(lat1 + f * (lat2 - lat1));
+            // Off the grid is open sea as far as the grid knows.
+            if (g.contains(c, r) && !g.isWater(c, r)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * A planned passage: the boat's position at each time step, then the destination.
+     */
+    public static final class Route {
+        public final List<GeoPoint> points;
+        public final long[] times;        // Epoch millis at each point.
+        public final boolean reached;     // False if it ends at the closest point found instead.
+        public final int isochrones;      // Fronts expanded.
+        public final long candidates;     // Headings evaluated over all fronts.
+
+        private Route(List<GeoPoint> points, long[] times, boolean reached, int isochrones, long candidates) {
+            this.points = Collections.unmodifiableList(points);
+            this.times = times;
+            this.reached = reached;
+            this.isochrones = isochrones;
+            this.candidates = candidates;
+        }
+
+        static Route build(Node last, GeoPoint dest, long departMillis, long stepMillis, long arrival,
+                           boolean reached, int isochrones, long candidates) {
+            List<GeoPoint> points = new ArrayList<>();
+            List<Long> times = new ArrayList<>();
+            for (Node n = last; n != null; n = n.parent) {
+                points.add(new GeoPoint(n.lat, n.lng));
+                times.add(departMillis + n.step * stepMillis);
+            }
+            Collections.reverse(points);
+            Collections.reverse(times);
+            if (dest != null) {
+                points.add(dest);
+                times.add(arrival);
+            }
+            long[] t = new long[times.size()];
+            for (int i = 0; i < t.length; i++) t[i] = times.get(i);
+            return new Route(points, t, reached, isochrones, candidates);
+        }
+
+        public long departMillis() { return times[0]; }
+
+        public long arrivalMillis() { return times[times.length - 1]; }
+
+        public double hours() { return (arrivalMillis() - departMillis()) / 3_600_000.0; }
+
+        /**
+         * @return The length of the route as sailed, in nautical miles.
+         */
+        public double nauticalMiles() {
+            double miles = 0;
+            for (int i = 1; i < points.size(); i++) miles += GeoMath.haversineMiles(points.get(i - 1), points.get(i));
+            return miles / GeoMath.MILES_PER_NM;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "Route{%s %.1f h, %.1f nm, %d legs, %d isochrones, %d candidates}",
+                    reached ? "reached in" : "not reached,", hours(), nauticalMiles(), points.size() - 1,
+                    isochrones, candidates);
+        }
+    }
+}
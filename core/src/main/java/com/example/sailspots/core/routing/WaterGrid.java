@@ -0,0 +1,333 @@
+package com.example.sailspots.core.routing;
+
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.geo.GeoMath;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A raster of navigable water over a region: one bit per cell, row 0 along the south edge.
+ *
+ * Grids come in levels. Each coarser level halves the resolution, and a coarse cell is water
+ * if any of its four children is, so a channel one fine cell wide stays open all the way up.
+ * Coarse levels therefore allow every route the fine one does, plus a few that cut corners.
+ *
+ * Grids are built from land polygons by WaterGridTool and saved with all their levels in the
+ * "water grid" format, so the device only maps the file. Longitudes do not wrap: a grid
+ * covers one region that does not cross the antimeridian. Immutable and thread-safe.
+ *
+ * Layout (little-endian): magic "SSWG", version, level count, then per level, finest first:
+ * south, west and cell size as doubles, columns and rows as ints, then the bits as longs.
+ */
+public final class WaterGrid {
+
+    // --- Format ---
+    static final int MAGIC = 0x47575353; // "SSWG" read as a little-endian int.
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int LEVEL_HEADER_BYTES = 32;
+
+    public final double south;
+    public final double west;
+    public final double cellDegrees;
+    public final int cols;
+    public final int rows;
+    private final LongBuffer bits;  // Bit (row * cols + col) is set for water.
+    private final double[] cellMilesX;  // East-west size of a cell in each row.
+
+    private WaterGrid(double south, double west, double cellDegrees, int cols, int rows, LongBuffer bits) {
+        this.south = south;
+        this.west = west;
+        this.cellDegrees = cellDegrees;
+        this.cols = cols;
+        this.rows = rows;
+        this.bits = bits;
+        this.cellMilesX = new double[rows];
+        for (int r = 0; r < rows; r++) {
+            cellMilesX[r] = cellDegrees * GeoMath.MILES_PER_DEGREE * Math.cos(Math.toRadians(latitude(r)));
+        }
+    }
+
+    static long words(int cols, int rows) {
+        return ((long) cols * rows + 63) >>> 6;
+    }
+
+    /**
+     * Rasterizes land polygons into a grid where every cell whose center is not on land is water.
+     * @param land Polygons, each a list of rings as {lng, lat, lng, lat, ...} the way GeoJSON
+     *             orders them: the outer ring first, then any holes (lakes count as water).
+     */
+    public static WaterGrid fromLand(BoundingBox box, double cellDegrees, Iterable<List<double[]>> land) {
+        if (box.crossesAntimeridian()) throw new IllegalArgumentException("Grids cannot cross the antimeridian");
+        if (!(cellDegrees > 0)) throw new IllegalArgumentException("cellDegrees");
+        int cols = (int) Math.ceil((box.east - box.west) / cellDegrees);
+        int rows = (int) Math.ceil((box.north - box.south) / cellDegrees);
+        if ((long) cols * rows > Integer.MAX_VALUE) throw new IllegalArgumentException("Grid too large");
+        long[] water = new long[(int) words(cols, rows)];
+        Arrays.fill(water, -1L);
+        int tail = (cols * rows) & 63;
+        if (tail != 0) water[water.length - 1] = (1L << tail) - 1;
+
+        // Even-odd fill of each polygon along the row centers, cleared from the water bits.
+        double[] crossings = new double[64];
+        for (List<double[]> polygon : land) {
+            if (polygon.isEmpty()) continue;
+            double[] outer = polygon.get(0);
+            double minLat = Double.MAX_VALUE;
+            double maxLat = -Double.MAX_VALUE;
+            for (int i = 1; i < outer.length; i += 2) {
+                minLat = Math.min(minLat, outer[i]);
+                maxLat = Math.max(maxLat, outer[i]);
+            }
+            int r0 = Math.max(0, (int) Math.floor((minLat - box.south) / cellDegrees - 0.5));
+            int r1 = Math.min(rows - 1, (int) Math.ceil((maxLat - box.south) / cellDegrees - 0.5));
+            for (int r = r0; r <= r1; r++) {
+                double lat = box.south + (r + 0.5) * cellDegrees;
+                int n = 0;
+                for (double[] ring : polygon) {
+                    for (int i = 0, j = ring.length - 2; i < ring.length; j = i, i += 2) {
+                        double lat1 = ring[j + 1];
+                        double lat2 = ring[i + 1];
+                        if ((lat1 > lat) == (lat2 > lat)) continue;
+                        if (n == crossings.length) crossings = Arrays.copyOf(crossings, n * 2);
+                        crossings[n++] = ring[j] + (lat - lat1) / (lat2 - lat1) * (ring[i] - ring[j]);
+                    }
+                }
+                Arrays.sort(crossings, 0, n);
+                for (int k = 0; k + 1 < n; k += 2) {
+                    // Cells whose centers lie between a pair of crossings are land.
+                    int c0 = Math.max(0, (int) Math.ceil((crossings[k] - box.west) / cellDegrees - 0.5));
+                    int c1 = Math.min(cols - 1, (int) Math.floor((crossings[k + 1] - box.west) / cellDegrees - 0.5));
+                    for (int c = c0; c <= c1; c++) {
+                        int i = r * cols + c;
+                        water[i >>> 6] &= ~(1L << i);
+                    }
+                }
+            }
+        }
+        return new WaterGrid(box.south, box.west, cellDegrees, cols, rows, LongBuffer.wrap(water));
+    }
+
+    /**
+     * @return This grid at half the resolution; a cell is water if any of its children is.
+     */
+    public WaterGrid coarser() {
+        int cCols = (cols + 1) / 2;
+        int cRows = (rows + 1) / 2;
+        long[] water = new long[(int) words(cCols, cRows)];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (!isWater(c, r)) continue;
+                int i = (r / 2) * cCols + c / 2;
+                water[i >>> 6] |= 1L << i;
+            }
+        }
+        return new WaterGrid(south, west, cellDegrees * 2, cCols, cRows, LongBuffer.wrap(water));
+    }
+
+    /**
+     * @return This grid followed by ever coarser levels, down to one of at most {@code maxCells}.
+     */
+    public List<WaterGrid> withLevels(int maxCells) {
+        List<WaterGrid> levels = new ArrayList<>();
+        levels.add(this);
+        WaterGrid g = this;
+        while ((long) g.cols * g.rows > maxCells && (g.cols > 1 || g.rows > 1)) {
+            g = g.coarser();
+            levels.add(g);
+        }
+        return levels;
+    }
+
+    // --- Cells ---
+
+    public int cellCount() { return cols * rows; }
+
+    public boolean isWater(int col, int row) {
+        if (col < 0 || row < 0 || col >= cols || row >= rows) return false;
+        int i = row * cols + col;
+        return (bits.get(i >>> 6) & (1L << i)) != 0;
+    }
+
+    public boolean isWater(int cell) {
+        return (bits.get(cell >>> 6) & (1L << cell)) != 0;
+    }
+
+    /**
+     * @return The column holding a longitude; may be outside the grid.
+     */
+    public int col(double lng) { return (int) Math.floor((lng - west) / cellDegrees); }
+
+    /**
+     * @return The row holding a latitude; may be outside the grid.
+     */
+    public int row(double lat) { return (int) Math.floor((lat - south) / cellDegrees); }
+
+    public boolean contains(int col, int row) {
+        return col >= 0 && row >= 0 && col < cols && row < rows;
+    }
+
+    public double latitude(int row) { return south + (row + 0.5) * cellDegrees; }
+
+    public double longitude(int col) { return west + (col + 0.5) * cellDegrees; }
+
+    /**
+     * @return The east-west width of a cell in the given row, in miles.
+     */
+    double cellMilesX(int row) { return cellMilesX[row]; }
+
+    /**
+     * @return The north-south height of any cell, in miles.
+     */
+    double cellMilesY() { return cellDegrees * GeoMath.MILES_PER_DEGREE; }
+
+    /**
+     * Finds the water cell nearest a point, e.g. for a marina whose pin sits on the dock.
+     * @param maxRing How many rings of cells around the point's own cell to search.
+     * @return The cell index, or -1 if the point is outside the grid or no water is that close.
+     */
+    public int nearestWater(double lat, double lng, int maxRing) {
+        int c0 = col(lng);
+        int r0 = row(lat);
+        if (!contains(c0, r0)) return -1;
+        if (isWater(c0, r0)) return r0 * cols + c0;
+        int best = -1;
+        double bestMiles = Double.MAX_VALUE;
+        for (int ring = 1; ring <= maxRing; ring++) {
+            for (int r = r0 - ring; r <= r0 + ring; r++) {
+                int step = (r == r0 - ring || r == r0 + ring) ? 1 : 2 * ring;
+                for (int c = c0 - ring; c <= c0 + ring; c += step) {
+                    if (!isWater(c, r)) continue;
+                    double miles = GeoMath.approxMiles(lat, lng, latitude(r), longitude(c));
+                    if (miles < bestMiles) {
+                        bestMiles = miles;
+                        best = r * cols + c;
+                    }
+                }
+            }
+            // Later rings may hold a slightly closer diagonal cell; within a cell, that is fine for a pin.
+            if (best >= 0) return best;
+        }
+        return -1;
+    }
+
+    /**
+     * Measures which way open water lies from a point: the mean direction to the water cells
+     * within a radius. A marina in a bay facing west gets a bearing near 270.
+     * @param out Receives the bearing in degrees in out[0], and in out[1] how one-sided the
+     *            water is, from 0 (water all around, or none) to 1 (all of it one way); a
+     *            straight shore gives about a third.
+     * @return False if the point is off the grid or there is no water within the radius.
+     */
+    public boolean seaward(double lat, double lng, double radiusMiles, double[] out) {
+        int c0 = col(lng);
+        int r0 = row(lat);
+        if (!contains(c0, r0)) return false;
+        double my = cellMilesY();
+        double mx = cellMilesX(r0);
+        int ry = Math.min(64, (int) Math.ceil(radiusMiles / my));
+        int rx = Math.min(64, (int) Math.ceil(radiusMiles / mx));
+        double sumX = 0;
+        double sumY = 0;
+        int cells = 0;
+        int water = 0;
+        for (int r = r0 - ry; r <= r0 + ry; r++) {
+            for (int c = c0 - rx; c <= c0 + rx; c++) {
+                if (!contains(c, r) || (r == r0 && c == c0)) continue;
+                double dx = (c - c0) * mx;
+                double dy = (r - r0) * my;
+                double d = Math.sqrt(dx * dx + dy * dy);
+                if (d > radiusMiles) continue;
+                cells++;
+                if (!isWater(c, r)) continue;
+                water++;
+                sumX += dx / d;
+                sumY += dy / d;
+            }
+        }
+        if (water == 0) return false;
+        double bearing = Math.toDegrees(Math.atan2(sumX, sumY));
+        out[0] = bearing < 0 ? bearing + 360 : bearing;
+        out[1] = Math.min(1, Math.sqrt(sumX * sumX + sumY * sumY) / cells);
+        return true;
+    }
+
+    // --- File format ---
+
+    /**
+     * Writes levels, finest first, in the water grid format.
+     */
+    public static void write(List<WaterGrid> levels, OutputStream out) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(levels.size()).putInt(0);
+        out.write(header.array());
+        for (WaterGrid g : levels) {
+            long words = words(g.cols, g.rows);
+            ByteBuffer level = ByteBuffer.allocate(LEVEL_HEADER_BYTES + (int) (8 * words)).order(ByteOrder.LITTLE_ENDIAN);
+            level.putDouble(g.south).putDouble(g.west).putDouble(g.cellDegrees).putInt(g.cols).putInt(g.rows);
+            for (int w = 0; w < words; w++) level.putLong(g.bits.get(w));
+            out.write(level.array());
+        }
+    }
+
+    /**
+     * Memory-maps a water grid file. The mapping stays valid after this returns.
+     * @return Its levels, finest first.
+     * @throws IOException If the file cannot be read or is not a valid water grid.
+     */
+    public static List<WaterGrid> open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            return wrap(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads the levels of a water grid from a buffer, which is shared, not copied.
+     * @throws IOException If the buffer does not hold a valid water grid.
+     */
+    public static List<WaterGrid> wrap(ByteBuffer buffer) throws IOException {
+        ByteBuffer buf = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.capacity() < HEADER_BYTES || buf.getInt(0) != MAGIC) throw new IOException("Not a water grid");
+        if (buf.getInt(4) != VERSION) throw new IOException("Unsupported water grid version " + buf.getInt(4));
+        int count = buf.getInt(8);
+        List<WaterGrid> levels = new ArrayList<>(count);
+        long at = HEADER_BYTES;
+        for (int l = 0; l < count; l++) {
+            if (at + LEVEL_HEADER_BYTES > buf.capacity()) throw new IOException("Corrupt water grid: level " + l);
+            int p = (int) at;
+            double south = buf.getDouble(p);
+            double west = buf.getDouble(p + 8);
+            double cellDegrees = buf.getDouble(p + 16);
+            int cols = buf.getInt(p + 24);
+            int rows = buf.getInt(p + 28);
+            long words = words(cols, rows);
+            if (cols <= 0 || rows <= 0 || !(cellDegrees > 0)
+                    || at + LEVEL_HEADER_BYTES + 8 * words > buf.capacity()) {
+                throw new IOException("Corrupt water grid: level " + l);
+            }
+            buf.position(p + LEVEL_HEADER_BYTES).limit((int) (p + LEVEL_HEADER_BYTES + 8 * words));
+            LongBuffer bits = buf.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            buf.clear();
+            levels.add(new WaterGrid(south, west, cellDegrees, cols, rows, bits));
+            at += LEVEL_HEADER_BYTES + 8 * words;
+        }
+        if (levels.isEmpty()) throw new IOException("Corrupt water grid: no levels");
+        return levels;
+    }
+
+    @Override
+    public String toString() {
+        return "WaterGrid{" + cols + "x" + rows + " cells of " + cellDegrees + " deg at " + south + ", " + west + '}';
+    }
+}
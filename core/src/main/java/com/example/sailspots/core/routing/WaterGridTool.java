@@ -0,0 +1,155 @@
+package com.example.sailspots.core.routing;
+
+import com.example.sailspots.core.geo.BoundingBox;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command-line builder of a water grid from coastline data, run by the :core:waterGrid
+ * Gradle task. The input is GeoJSON land polygons (Polygon or MultiPolygon features), e.g.
+ * the OpenStreetMap land polygons or Natural Earth's land layer clipped to the region.
+ *
+ * Usage: WaterGridTool land.geojson output.grid south west north east [cellDegrees]
+ */
+public final class WaterGridTool {
+
+    // About a third of a mile: narrow enough for most harbor entrances.
+    public static final double DEFAULT_CELL_DEGREES = 0.005;
+    // The coarsest level a router searches whole; about a millisecond per 10k cells.
+    public static final int COARSE_MAX_CELLS = 1 << 18;
+
+    private WaterGridTool() { }
+
+    /**
+     * Reads the land polygons of a GeoJSON document that overlap a box, streaming it with
+     * JsonReader. Each polygon is a list of rings as {lng, lat, lng, lat, ...}.
+     */
+    public static List<List<double[]>> readLand(InputStream in, BoundingBox box) throws IOException {
+        List<List<double[]>> polygons = new ArrayList<>();
+        try (JsonReader json = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            readObject(json, box, polygons);
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Malformed GeoJSON", e);
+        }
+        return polygons;
+    }
+
+    // Walks any object, collecting the polygons under every "coordinates" key it meets.
+    private static void readObject(JsonReader json, BoundingBox box, List<List<double[]>> out) throws IOException {
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            JsonToken token = json.peek();
+            if (name.equals("coordinates") && token == JsonToken.BEGIN_ARRAY) {
+                collect(readNested(json), box, out);
+            } else if (token == JsonToken.BEGIN_OBJECT) {
+                readObject(json, box, out);
+            } else if (token == JsonToken.BEGIN_ARRAY && (name.equals("features") || name.equals("geometries"))) {
+                json.beginArray();
+                while (json.hasNext()) {
+                    if (json.peek() == JsonToken.BEGIN_OBJECT) readObject(json, box, out); else json.skipValue();
+                }
+                json.endArray();
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+    }
+
+    /**
+     * @return A double[] for an array of numbers, otherwise a List of nested values.
+     */
+    private static Object readNested(JsonReader json) throws IOException {
+        json.beginArray();
+        if (json.peek() == JsonToken.NUMBER) {
+            double[] point = new double[2];
+            for (int i = 0; json.hasNext(); i++) {
+                double v = json.nextDouble();
+                if (i < 2) point[i] = v; // Drop any altitude.
+            }
+            json.endArray();
+            return point;
+        }
+        List<Object> items = new ArrayList<>();
+        while (json.hasNext()) items.add(readNested(json));
+        json.endArray();
+        return items;
+    }
+
+    /**
+     * Adds a Polygon's rings (depth 3) or each polygon of a MultiPolygon (depth 4).
+     */
+    @SuppressWarnings("unchecked")
+    private static void collect(Object coordinates, BoundingBox box, List<List<double[]>> out) {
+        if (!(coordinates instanceof List) || ((List<?>) coordinates).isEmpty()) return;
+        List<Object> list = (List<Object>) coordinates;
+        Object first = list.get(0);
+        if (!(first instanceof List) || ((List<?>) first).isEmpty()) return;
+        if (((List<?>) first).get(0) instanceof List) {
+            for (Object polygon : list) collect(polygon, box, out); // MultiPolygon.
+            return;
+        }
+        List<double[]> rings = new ArrayList<>();
+        for (Object ring : list) {
+            List<Object> points = (List<Object>) ring;
+            double[] flat = new double[points.size() * 2];
+            for (int i = 0; i < points.size(); i++) {
+                double[] p = (double[]) points.get(i);
+                flat[2 * i] = p[0];
+                flat[2 * i + 1] = p[1];
+            }
+            rings.add(flat);
+        }
+        if (overlaps(rings.get(0), box)) out.add(rings);
+    }
+
+    private static boolean overlaps(double[] ring, BoundingBox box) {
+        double s = Double.MAX_VALUE, w = Double.MAX_VALUE, n = -Double.MAX_VALUE, e = -Double.MAX_VALUE;
+        for (int i = 0; i + 1 < ring.length; i += 2) {
+            w = Math.min(w, ring[i]);
+            e = Math.max(e, ring[i]);
+            s = Math.min(s, ring[i + 1]);
+            n = Math.max(n, ring[i + 1]);
+        }
+        return ring.length >= 6 && box.intersects(new BoundingBox(s, w, n, e));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 6) {
+            System.err.println("Usage: WaterGridTool land.geojson output.grid south west north east [cellDegrees]");
+            System.exit(2);
+        }
+        File in = new File(args[0]);
+        File out = new File(args[1]);
+        BoundingBox box = new BoundingBox(Double.parseDouble(args[2]), Double.parseDouble(args[3]),
+                Double.parseDouble(args[4]), Double.parseDouble(args[5]));
+        double cellDegrees = args.length > 6 ? Double.parseDouble(args[6]) : DEFAULT_CELL_DEGREES;
+
+        List<List<double[]>> land;
+        try (InputStream is = new BufferedInputStream(new FileInputStream(in))) {
+            land = readLand(is, box);
+        }
+        System.out.println("Read " + land.size() + " land polygons overlapping " + box);
+
+        List<WaterGrid> levels = WaterGrid.fromLand(box, cellDegrees, land).withLevels(COARSE_MAX_CELLS);
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(out))) {
+            WaterGrid.write(levels, os);
+        }
+        for (WaterGrid level : levels) System.out.println("  " + level);
+        System.out.println("Wrote " + levels.size() + " levels to " + out + " (" + out.length() + " bytes)");
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.sailspots.core.routing;
+
+import com.example.sailspots.core.geo.GeoMath;
+import com.example.sailspots.core.geo.GeoPoint;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sailing distances over a WaterGrid: how far a boat goes by water from one point to many
+ * marinas at once, around headlands and peninsulas instead of across them.
+ *
+ * A query works coarse to fine:
+ * 1. A Dijkstra search from the start over the coarsest level, until every marina's coarse
+ *    cell is settled, gives a rough distance to each. Marinas it cannot reach are unreachable
+ *    on the fine level too, since coarse levels only ever open more water, so the fine
+ *    search never has to flood a whole sea to prove one is cut off.
+ * 2. One multi-target Dijkstra search from the start over the finest level then settles each
+ *    reachable marina's cell. Every cell within the farthest marina is settled once, however
+ *    many marinas there are, which is what makes ranking a whole list cheap; separate A*
+ *    searches per marina would cover the same water again for each.
+ *
+ * The fine search stops after MAX_SETTLED cells; marinas it has not reached by then keep
+ * their coarse distance and are flagged approximate. A marina only the coarse level connects,
+ * such as one on a lake behind a thin strip of land, is unreachable once the fine search runs
+ * out of water. Routes move between the eight neighbors of a cell without cutting corners of
+ * land. Queries block and use one thread, so run them on a bounded background pool.
+ * Thread-safe: queries share only the read-only grids.
+ */
+public final class WaterRouter {
+
+    // How far (in fine cells) a marina or start point may sit from open water, e.g. up a creek.
+    public static final int DEFAULT_SNAP_RINGS = 6;
+    // Fine cells one query may settle: about 140 miles in every direction at 0.005 degrees,
+    // and a few hundred milliseconds on a phone at worst.
+    private static final int MAX_SETTLED = 500_000;
+
+    private static final int[] DC = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] DR = {0, 0, 1, -1, 1, -1, 1, -1};
+
+    private final WaterGrid fine;
+    private final WaterGrid coarse;
+    private final int factor;  // Fine cells per coarse cell along each axis.
+    private final int snapRings;
+
+    /**
+     * @param levels The grid's levels, finest first, as written by WaterGridTool.
+     */
+    public WaterRouter(List<WaterGrid> levels) {
+        this(levels, DEFAULT_SNAP_RINGS);
+    }
+
+    public WaterRouter(List<WaterGrid> levels, int snapRings) {
+        if (levels.isEmpty()) throw new IllegalArgumentException("No grid levels");
+        this.fine = levels.get(0);
+        this.coarse = levels.get(levels.size() - 1);
+        this.factor = (int) Math.round(coarse.cellDegrees / fine.cellDegrees);
+        this.snapRings = snapRings;
+    }
+
+    public WaterGrid fineGrid() { return fine; }
+
+    /**
+     * Computes the sailing distance from one point to each of many. Blocks until done.
+     */
+    public Result distances(GeoPoint from, List<GeoPoint> to) {
+        int n = to.size();
+        double[] miles = new double[n];
+        boolean[] approximate = new boolean[n];
+        Arrays.fill(miles, Double.NaN);
+        int start = fine.nearestWater(from.latitude, from.longitude, snapRings);
+        if (start < 0 || n == 0) return new Result(miles, approximate, 0);
+        double startSnap = GeoMath.approxMiles(from.latitude, from.longitude,
+                fine.latitude(start / fine.cols), fine.longitude(start % fine.cols));
+
+        // Snap each target to water; the snap distances are added to the route at the end.
+        int[] targets = new int[n];
+        double[] snap = new double[n];
+        for (int i = 0; i < n; i++) {
+            GeoPoint p = to.get(i);
+            targets[i] = p == null ? -1 : fine.nearestWater(p.latitude, p.longitude, snapRings);
+            if (targets[i] < 0) continue; // Outside the grid or far inland: unknown.
+            snap[i] = startSnap + GeoMath.approxMiles(p.latitude, p.longitude,
+                    fine.latitude(targets[i] / fine.cols), fine.longitude(targets[i] % fine.cols));
+        }
+
+        // --- Coarse: rough distances, and which targets can be reached at all ---
+        float[] rough = coarseDistances(start, targets);
+
+        // --- Fine: one search from the start until every reachable target is settled ---
+        // Targets sorted by cell, so a settled cell is matched with a binary search.
+        long[] byCell = new long[n];
+        int wanted = 0;
+        for (int i = 0; i < n; i++) {
+            if (targets[i] < 0) continue;
+            if (rough[i] == Float.POSITIVE_INFINITY) {
+                miles[i] = Double.POSITIVE_INFINITY;
+                continue;
+            }
+            byCell[wanted++] = ((long) targets[i] << 32) | i;
+        }
+        Arrays.sort(byCell, 0, wanted);
+        int pending = wanted;
+        int settled = 0;
+        if (pending > 0) {
+            CellCosts dist = new CellCosts();
+            CellQueue open = new CellQueue();
+            dist.put(start, 0);
+            open.push(start, 0);
+            float milesY = (float) fine.cellMilesY();
+            while (!open.isEmpty() && pending > 0 && settled < MAX_SETTLED) {
+                float d = open.peekKey();
+                int cell = open.pop();
+                if (d > dist.get(cell)) continue; // A stale entry; the cell was settled cheaper.
+                settled++;
+                int at = Arrays.binarySearch(byCell, 0, wanted, (long) cell << 32);
+                for (at = at < 0 ? -at - 1 : at; at < wanted && (int) (byCell[at] >>> 32) == cell; at++) {
+                    int i = (int) byCell[at];
+                    miles[i] = d + snap[i];
+                    pending--;
+                }
+                int col = cell % fine.cols;
+                int row = cell / fine.cols;
+                float milesX = (float) fine.cellMilesX(row);
+                float diagonal = (float) Math.sqrt(milesX * milesX + milesY * milesY);
+                for (int k = 0; k < 8; k++) {
+                    int c = col + DC[k];
+                    int r = row + DR[k];
+                    if (!fine.isWater(c, r)) continue;
+                    if (k >= 4 && !(fine.isWater(c, row) && fine.isWater(col, r))) continue;
+                    float next = d + (k < 2 ? milesX : k < 4 ? milesY : diagonal);
+                    int neighbor = r * fine.cols + c;
+                    if (next < dist.get(neighbor)) {
+                        dist.put(neighbor, next);
+                        open.push(neighbor, next);
+                    }
+                }
+            }
+        }
+        // Unsettled targets. If the fine search ran out of water, they are joined only through
+        // gaps the coarse level opened; if it ran out of budget, the coarse distance stands in.
+        boolean exhausted = pending > 0 && settled < MAX_SETTLED;
+        for (int j = 0; j < wanted; j++) {
+            int i = (int) byCell[j];
+            if (!Double.isNaN(miles[i])) continue;
+            if (exhausted) {
+                miles[i] = Double.POSITIVE_INFINITY;
+            } else {
+                miles[i] = rough[i] + snap[i];
+                approximate[i] = true;
+            }
+        }
+        return new Result(miles, approximate, settled);
+    }
+
+    /**
+     * Dijkstra over the coarse level from the start, until every target's cell is settled.
+     * @return Miles from the start to each target's coarse cell; +Infinity if not reachable.
+     */
+    private float[] coarseDistances(int start, int[] targets) {
+        float[] dist = new float[coarse.cellCount()];
+        Arrays.fill(dist, Float.POSITIVE_INFINITY);
+        boolean[] wanted = new boolean[dist.length];
+        int pending = 0;
+        for (int t : targets) {
+            if (t < 0) continue;
+            int c = coarseCell(t);
+            if (!wanted[c]) {
+                wanted[c] = true;
+                pending++;
+            }
+        }
+        CellQueue open = new CellQueue();
+        int origin = coarseCell(start);
+        dist[origin] = 0;
+        open.push(origin, 0);
+        float milesY = (float) coarse.cellMilesY();
+        while (!open.isEmpty() && pending > 0) {
+            float d = open.peekKey();
+            int cell = open.pop();
+            if (d > dist[cell]) continue; // A stale entry; the cell was settled cheaper.
+            if (wanted[cell]) {
+                wanted[cell] = false;
+                pending--;
+            }
+            int col = cell % coarse.cols;
+            int row = cell / coarse.cols;
+            float milesX = (float) coarse.cellMilesX(row);
+            float diagonal = (float) Math.sqrt(milesX * milesX + milesY * milesY);
+            for (int k = 0; k < 8; k++) {
+                int c = col + DC[k];
+                int r = row + DR[k];
+                if (!coarse.isWater(c, r)) continue;
+                if (k >= 4 && !(coarse.isWater(c, row) && coarse.isWater(col, r))) continue;
+                float next = d + (k < 2 ? milesX : k < 4 ? milesY : diagonal);
+                int neighbor = r * coarse.cols + c;
+                if (next < dist[neighbor]) {
+                    dist[neighbor] = next;
+                    open.push(neighbor, next);
+                }
+            }
+        }
+        float[] out = new float[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            out[i] = targets[i] < 0 ? Float.POSITIVE_INFINITY : dist[coarseCell(targets[i])];
+        }
+        return out;
+    }
+
+    private int coarseCell(int fineCell) {
+        int col = (fineCell % fine.cols) / factor;
+        int row = (fineCell / fine.cols) / factor;
+        return row * coarse.cols + col;
+    }
+
+    /**
+     * The distances one query found, in the order of its targets.
+     */
+    public static final class Result {
+        private final double[] miles;
+        private final boolean[] approximate;
+        public final long cellsSettled;  // Fine cells the search settled.
+
+        Result(double[] miles, boolean[] approximate, long cellsSettled) {
+            this.miles = miles;
+            this.approximate = approximate;
+            this.cellsSettled = cellsSettled;
+        }
+
+        public int size() { return miles.length; }
+
+        /**
+         * @return Sailing miles to target i; +Infinity if no water route reaches it, or NaN if
+         *         it or the start is outside the grid (callers then fall back to a straight line).
+         */
+        public double miles(int i) { return miles[i]; }
+
+        public boolean isKnown(int i) { return !Double.isNaN(miles[i]); }
+
+        public boolean isReachable(int i) { return isKnown(i) && miles[i] != Double.POSITIVE_INFINITY; }
+
+        /**
+         * @return True if the fine search did not reach target i and the coarse distance stands in.
+         */
+        public boolean isApproximate(int i) { return approximate[i]; }
+
+        @Override
+        public String toString() {
+            int reachable = 0;
+            for (int i = 0; i < miles.length; i++) if (isReachable(i)) reachable++;
+            return "targets=" + miles.length + " reachable=" + reachable + " settled=" + cellsSettled;
+        }
+    }
+}
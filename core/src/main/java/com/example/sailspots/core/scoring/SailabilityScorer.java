@@ -0,0 +1,329 @@
+package com.example.sailspots.core.scoring;
+
+import com.example.sailspots.core.geo.GeoMath;
+import com.example.sailspots.core.model.MarinaItem;
+import com.example.sailspots.core.routing.WaterGrid;
+import com.example.sailspots.core.weather.WindField;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Ranks spots by how good the sailing is there right now. Each spot gets a score from 0 to 1,
+ * a weighted mean of five components, each also 0 to 1:
+ *
+ * - wind: full marks from 8 to 18 knots, falling to nothing in a calm or a near-gale;
+ * - direction: the wind against the way open water lies from the spot. Cross-shore is best,
+ *   onshore a little worse, offshore much worse. Weighted by how one-sided the water is, so it
+ *   barely counts in the middle of a lake;
+ * - distance: halves about every 17 miles;
+ * - tide: higher water is better;
+ * - rating: the stars out of five. An unrated spot counts as three, so it neither leads nor
+ *   trails on rating alone.
+ *
+ * Wind, direction or tide that cannot be known (no forecast there, no tide source) drops out
+ * and the others are weighted up to fill its place.
+ *
+ * Inputs are set separately and each change bumps its version. Every spot keeps its sampled
+ * components with the version they came from, keyed by its dense ID, so a new wind field
+ * resamples wind only, and a pan that adds a few spots computes exposure for those alone.
+ * The exposure scan of the water grid is the costly part, and it only changes with the grid.
+ * Stale components are refreshed on the ForkJoinPool in CHUNK-spot leaves.
+ *
+ * Not thread-safe: keep one scorer per caller and use it from one thread at a time.
+ */
+public final class SailabilityScorer {
+
+    // --- Weights ---
+    static final double WIND_WEIGHT = 0.35;
+    static final double DIRECTION_WEIGHT = 0.15;
+    static final double DISTANCE_WEIGHT = 0.25;
+    static final double TIDE_WEIGHT = 0.10;
+    static final double RATING_WEIGHT = 0.15;
+
+    private static final float UNRATED_STARS = 3;
+    // Distance at which the distance component falls to 1/e.
+    private static final double DISTANCE_SCALE_MILES = 25;
+    // How far around a spot to look for open water.
+    static final double EXPOSURE_MILES = 3;
+    // Spots refreshed by one fork/join leaf.
+    private static final int CHUNK = 64;
+    // Spots remembered before the cache starts over; a few screens' worth.
+    private static final int MAX_CACHED = 8192;
+
+    private final ForkJoinPool pool;
+    private final Map<Integer, Spot> cache = new HashMap<>();
+    private WindField wind;
+    private long windTime;
+    private TideSource tide;
+    private WaterGrid water;
+    private int windVersion;
+    private int tideVersion;
+    private int waterVersion;
+    private int passes;
+
+    /**
+     * @param pool Refreshes stale components; its parallelism bounds the threads used.
+     */
+    public SailabilityScorer(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // --- Inputs ---
+
+    /**
+     * @param wind The wind to score against, or null if there is no forecast.
+     * @param timeMillis When to sample it.
+     */
+    public SailabilityScorer setWind(WindField wind, long timeMillis) {
+        if (wind != this.wind || timeMillis != windTime) {
+            this.wind = wind;
+            this.windTime = timeMillis;
+            windVersion++;
+        }
+        return this;
+    }
+
+    /**
+     * @param tide The tide, or null if unknown.
+     */
+    public SailabilityScorer setTide(TideSource tide) {
+        if (tide != this.tide) {
+            this.tide = tide;
+            tideVersion++;
+        }
+        return this;
+    }
+
+    /**
+     * @param water The grid to measure exposure on, or null to leave direction out.
+     */
+    public SailabilityScorer setWater(WaterGrid water) {
+        if (water != this.water) {
+            this.water = water;
+            waterVersion++;
+        }
+        return this;
+    }
+
+    // --- Scoring ---
+
+    /**
+     * Scores spots against the current inputs. Blocks, so call it from a background thread.
+     * @return The spots, best first; ties keep their order.
+     */
+    public Ranking score(List<MarinaItem> items) {
+        if (cache.size() > MAX_CACHED) cache.clear();
+        int n = items.size();
+        Spot[] spots = new Spot[n];
+        Spot[] stale = new Spot[n];  // Each at most once, even if listed twice.
+        int staleCount = 0;
+        int pass = ++passes;
+        int exposures = 0;
+        int winds = 0;
+        int tides = 0;
+        for (int i = 0; i < n; i++) {
+            MarinaItem item = items.get(i);
+            Spot s = item.id >= 0 ? cache.get(item.id) : null;
+            if (s == null || s.lat != item.latLng.latitude || s.lng != item.latLng.longitude) {
+                s = new Spot(item.latLng.latitude, item.latLng.longitude);
+                if (item.id >= 0) cache.put(item.id, s);
+            }
+            spots[i] = s;
+            if (s.pass == pass) continue;
+            s.pass = pass;
+            boolean exposure = s.waterVersion != waterVersion;
+            boolean wind = s.windVersion != windVersion;
+            boolean tide = s.tideVersion != tideVersion;
+            if (exposure) exposures++;
+            if (wind) winds++;
+            if (tide) tides++;
+            if (exposure || wind || tide) stale[staleCount++] = s;
+        }
+        if (staleCount > 0) pool.invoke(new Refresh(this, stale, 0, staleCount));
+
+        double[] scores = new double[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            scores[i] = spots[i].score(items.get(i));
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+        List<MarinaItem> sorted = new ArrayList<>(n);
+        double[] sortedScores = new double[n];
+        for (int k = 0; k < n; k++) {
+            sorted.add(items.get(order[k]));
+            sortedScores[k] = scores[order[k]];
+        }
+        return new Ranking(Collections.unmodifiableList(sorted), sortedScores, exposures, winds, tides);
+    }
+
+    /**
+     * @return Full marks from 8 to 18 knots, ramping up from 3 and down to nothing at 28.
+     */
+    static double windScore(double knots) {
+        if (knots < 3 || knots > 28) return 0;
+        if (knots < 8) return (knots - 3) / 5;
+        if (knots > 18) return (28 - knots) / 10;
+        return 1;
+    }
+
+    /**
+     * @param offWater Degrees between where the wind blows from and the way open water lies:
+     *                 0 is straight onshore, 180 straight offshore.
+     * @return 0.8 onshore, 1 cross-shore, 0.4 offshore, varying smoothly between.
+     */
+    static double directionScore(double offWater) {
+        double c = Math.cos(Math.toRadians(offWater));
+        return c >= 0 ? 1 - 0.2 * c : 1 + 0.6 * c;
+    }
+
+    // --- Spots ---
+
+    /**
+     * A spot's sampled components and the input versions they came from. Written by one leaf
+     * during a refresh and read by score() after it, which the pool's join orders.
+     */
+    private static final class Spot {
+        final double lat;
+        final double lng;
+        int waterVersion = -1;
+        int windVersion = -1;
+        int tideVersion = -1;
+        int pass;                     // The score() call that last queued it.
+        double seaward = Double.NaN;  // Bearing to open water.
+        double exposure;              // 0 (sheltered or surrounded) to 1 (open one way).
+        double windKnots = Double.NaN;
+        double windFrom = Double.NaN;
+        double tideLevel = Double.NaN;
+
+        Spot(double lat, double lng) {
+            this.lat = lat;
+            this.lng = lng;
+        }
+
+        double score(MarinaItem item) {
+            double sum = 0;
+            double weights = 0;
+            if (!Double.isNaN(windKnots)) {
+                sum += WIND_WEIGHT * windScore(windKnots);
+                weights += WIND_WEIGHT;
+                if (!Double.isNaN(seaward) && exposure > 0) {
+                    double w = DIRECTION_WEIGHT * exposure;
+                    sum += w * directionScore(Math.abs(GeoMath.angleDelta(windFrom, seaward)));
+                    weights += w;
+                }
+            }
+            if (!Double.isNaN(item.distanceMiles) && item.distanceMiles >= 0) {
+                sum += DISTANCE_WEIGHT * Math.exp(-item.distanceMiles / DISTANCE_SCALE_MILES);
+                weights += DISTANCE_WEIGHT;
+            }
+            if (!Double.isNaN(tideLevel)) {
+                sum += TIDE_WEIGHT * (0.4 + 0.6 * Math.max(0, Math.min(1, tideLevel)));
+                weights += TIDE_WEIGHT;
+            }
+            float stars = Float.isNaN(item.rating) ? UNRATED_STARS : item.rating;
+            sum += RATING_WEIGHT * Math.max(0, Math.min(1, stars / 5.0));
+            weights += RATING_WEIGHT;
+            return weights > 0 ? sum / weights : 0;
+        }
+    }
+
+    /**
+     * Refreshes the stale components of a range of distinct spots, halving until CHUNK or fewer.
+     */
+    private static final class Refresh extends RecursiveAction {
+        private static final long serialVersionUID = 1L;  // ForkJoinTask is Serializable; never serialized.
+        private final SailabilityScorer scorer;
+        private final Spot[] spots;
+        private final int from;
+        private final int to;
+
+        Refresh(SailabilityScorer scorer, Spot[] spots, int from, int to) {
+            this.scorer = scorer;
+            this.spots = spots;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Refresh(scorer, spots, from, mid), new Refresh(scorer, spots, mid, to));
+                return;
+            }
+            SailabilityScorer sc = scorer;
+            double[] out = new double[2];
+            for (int i = from; i < to; i++) {
+                Spot s = spots[i];
+                if (s.waterVersion != sc.waterVersion) {
+                    if (sc.water != null && sc.water.seaward(s.lat, s.lng, EXPOSURE_MILES, out)) {
+                        s.seaward = out[0];
+                        s.exposure = out[1];
+                    } else {
+                        s.seaward = Double.NaN;
+                        s.exposure = 0;
+                    }
+                    s.waterVersion = sc.waterVersion;
+                }
+                if (s.windVersion != sc.windVersion) {
+                    if (sc.wind != null && sc.wind.sample(s.lat, s.lng, sc.windTime, out)) {
+                        s.windKnots = out[0];
+                        s.windFrom = out[1];
+                    } else {
+                        s.windKnots = Double.NaN;
+                        s.windFrom = Double.NaN;
+                    }
+                    s.windVersion = sc.windVersion;
+                }
+                if (s.tideVersion != sc.tideVersion) {
+                    s.tideLevel = sc.tide != null ? sc.tide.level(s.lat, s.lng, sc.windTime) : Double.NaN;
+                    s.tideVersion = sc.tideVersion;
+                }
+            }
+        }
+    }
+
+    // --- Results ---
+
+    /**
+     * Spots best first, with their scores and how much of the work was redone.
+     */
+    public static final class Ranking {
+        public final List<MarinaItem> sorted;
+        private final double[] scores;
+        public final int exposuresComputed;
+        public final int windSampled;
+        public final int tideSampled;
+
+        Ranking(List<MarinaItem> sorted, double[] scores, int exposuresComputed, int windSampled, int tideSampled) {
+            this.sorted = sorted;
+            this.scores = scores;
+            this.exposuresComputed = exposuresComputed;
+            this.windSampled = windSampled;
+            this.tideSampled = tideSampled;
+        }
+
+        /**
+         * @return The score of the spot at a position in sorted, from 0 to 1.
+         */
+        public double score(int index) {
+            return scores[index];
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "Ranking[%d spots, best %.2f, %d exposures, %d wind, %d tide]",
+                    sorted.size(), scores.length > 0 ? scores[0] : Double.NaN,
+                    exposuresComputed, windSampled, tideSampled);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.sailspots.core.scoring;
+
+/**
+ * The state of the tide at a place and time, for ranking spots by conditions.
+ * Implementations must be thread-safe: the scorer samples them from many threads at once.
+ */
+public interface TideSource {
+
+    /**
+     * @return Where the water stands between low (0) and high (1) water, or NaN if unknown.
+     */
+    double level(double lat, double lng, long timeMillis);
+}
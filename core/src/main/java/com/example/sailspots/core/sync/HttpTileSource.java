@@ -0,0 +1,62 @@
+package com.example.sailspots.core.sync;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Fetches tiles over HTTP(S) with HttpURLConnection, which is built into both Android and the JVM.
+ *
+ * Layout under the base URL:
+ * - manifest.json: the TileManifest;
+ * - tiles/{id}.pack?v={version}: one tile. The version makes each revision a distinct URL,
+ *   so HTTP caches and CDNs never serve a stale tile.
+ */
+public final class HttpTileSource implements TileSource {
+
+    private static final int CONNECT_TIMEOUT_MS = 15_000;
+    private static final int READ_TIMEOUT_MS = 30_000;
+
+    private final String baseUrl;
+
+    /**
+     * @param baseUrl The directory holding manifest.json, e.g. "https://example.com/catalog/".
+     */
+    public HttpTileSource(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+    }
+
+    @Override
+    public TileManifest fetchManifest() throws IOException {
+        try (InputStream in = get(baseUrl + "manifest.json")) {
+            return TileManifest.read(in);
+        }
+    }
+
+    @Override
+    public InputStream openTile(TileManifest.Entry entry) throws IOException {
+        return get(baseUrl + "tiles/" + entry.id + ".pack?v=" + entry.version);
+    }
+
+    /**
+     * Starts a GET and returns its body. Closing the stream returns the connection to the pool.
+     * @throws IOException On network errors and non-200 responses.
+     */
+    private static InputStream get(String url) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        conn.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        conn.setReadTimeout(READ_TIMEOUT_MS);
+        // Asked for explicitly so the JVM and Android behave alike; we decode it ourselves.
+        conn.setRequestProperty("Accept-Encoding", "gzip");
+        int code = conn.getResponseCode();
+        if (code != HttpURLConnection.HTTP_OK) {
+            conn.disconnect();
+            throw new IOException("HTTP " + code + " for " + url);
+        }
+        InputStream body = new BufferedInputStream(conn.getInputStream());
+        return "gzip".equalsIgnoreCase(conn.getContentEncoding()) ? new GZIPInputStream(body) : body;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.sailspots.core.sync;
+
+import com.example.sailspots.core.catalog.MarinaPack;
+import com.example.sailspots.core.catalog.MarinaStore;
+import com.example.sailspots.core.catalog.TiledMarinaStore;
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.geo.Geohash;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The tiles on this device: a directory holding manifest.json, tiles/{id}.pack and a tmp/
+ * directory for downloads in progress.
+ *
+ * Every change is atomic. A tile is written and fsynced under tmp/, then renamed over the
+ * old file, which is atomic within one filesystem, so readers see either the old or the new
+ * tile, never a partial one. The manifest is replaced the same way, right after. A crash
+ * between the two leaves the old version in the manifest, so the tile is simply fetched again.
+ *
+ * Thread-safe.
+ */
+public final class LocalTileStore {
+
+    private static final String MANIFEST = "manifest.json";
+
+    private final File dir;
+    private final File tilesDir;
+    private final File tmpDir;
+    private TileManifest manifest;  // Guarded by "this"; loaded on first use.
+    private int tmpCounter;
+
+    public LocalTileStore(File dir) {
+        this.dir = dir;
+        this.tilesDir = new File(dir, "tiles");
+        this.tmpDir = new File(dir, "tmp");
+    }
+
+    /**
+     * @return The manifest of the tiles on disk; EMPTY if there are none yet.
+     */
+    public synchronized TileManifest manifest() {
+        if (manifest == null) manifest = load();
+        return manifest;
+    }
+
+    /**
+     * @return Where a tile's pack lives. It exists only if the manifest lists the tile.
+     */
+    public File tileFile(String id) {
+        return new File(tilesDir, id + ".pack");
+    }
+
+    /**
+     * Maps every tile in the manifest into one store. Tiles replaced by a later sync stay
+     * readable through the returned store; reopen it to see the new versions.
+     * @return The store, or null if there are no tiles yet.
+     * @throws IOException If a listed tile cannot be mapped.
+     */
+    public MarinaStore openStore() throws IOException {
+        TileManifest current = manifest();
+        if (current.size() == 0) return null;
+        List<BoundingBox> bounds = new ArrayList<>(current.size());
+        List<MarinaPack> packs = new ArrayList<>(current.size());
+        for (TileManifest.Entry e : current.entries()) {
+            bounds.add(Geohash.bounds(e.id));
+            packs.add(MarinaPack.open(tileFile(e.id)));
+        }
+        return new TiledMarinaStore(bounds, packs);
+    }
+
+    /**
+     * @return A fresh file for downloading one tile, on the same filesystem as the tiles.
+     */
+    synchronized File newTempFile(String id) throws IOException {
+        mkdirs(tmpDir);
+        return new File(tmpDir, id + "." + (tmpCounter++) + ".tmp");
+    }
+
+    /**
+     * Moves a verified, fsynced download into place and records it in the manifest.
+     */
+    synchronized void apply(TileManifest.Entry entry, File verified) throws IOException {
+        mkdirs(tilesDir);
+        rename(verified, tileFile(entry.id));
+        saveManifest(manifest().with(entry));
+    }
+
+    /**
+     * Drops a tile. The manifest is updated first, so a crash can only leave an orphan file.
+     */
+    synchronized void remove(String id) throws IOException {
+        saveManifest(manifest().without(id));
+        File file = tileFile(id);
+        if (file.exists() && !file.delete()) throw new IOException("Could not delete " + file);
+    }
+
+    /**
+     * Deletes leftovers from interrupted downloads. Call before a sync, not during one.
+     */
+    synchronized void clearTemp() {
+        File[] files = tmpDir.listFiles();
+        if (files == null) return;
+        for (File f : files) {
+            f.delete();
+        }
+    }
+
+    private TileManifest load() {
+        File file = new File(dir, MANIFEST);
+        if (!file.isFile()) return TileManifest.EMPTY;
+        try (InputStream in = new FileInputStream(file)) {
+            return TileManifest.read(in);
+        } catch (IOException e) {
+            // An unreadable manifest just means a full re-sync; the tiles are replaced one by one.
+            return TileManifest.EMPTY;
+        }
+    }
+
+    private void saveManifest(TileManifest updated) throws IOException {
+        mkdirs(tmpDir);
+        File tmp = new File(tmpDir, MANIFEST + "." + (tmpCounter++) + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            updated.write(out);
+            out.getFD().sync();
+        }
+        rename(tmp, new File(dir, MANIFEST));
+        manifest = updated;
+    }
+
+    /**
+     * Atomically replaces {@code to}. java.nio.file.Files.move is not available on older
+     * Android versions; File.renameTo is rename(2) there and on other POSIX systems.
+     */
+    private static void rename(File from, File to) throws IOException {
+        if (!from.renameTo(to)) {
+            from.delete();
+            throw new IOException("Could not move " + from + " to " + to);
+        }
+    }
+
+    private static void mkdirs(File d) throws IOException {
+        if (!d.isDirectory() && !d.mkdirs() && !d.isDirectory()) {
+            throw new IOException("Could not create " + d);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.sailspots.core.sync;
+
+import com.example.sailspots.core.catalog.MarinaCatalog;
+import com.example.sailspots.core.catalog.MarinaPackWriter;
+import com.example.sailspots.core.catalog.SpatialGridIndex;
+import com.example.sailspots.core.geo.Geohash;
+import com.example.sailspots.core.importer.CsvMarinaSource;
+import com.example.sailspots.core.importer.GeoJsonMarinaSource;
+import com.example.sailspots.core.importer.MarinaImporter;
+import com.example.sailspots.core.importer.MarinaSource;
+import com.example.sailspots.core.model.MarinaItem;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Splits a catalog into geohash tiles and publishes them in the layout HttpTileSource reads:
+ * manifest.json plus tiles/{id}.pack. Runs where the catalog is built, not on the device.
+ *
+ * Versions carry over from the previous manifest in the output directory and go up only
+ * for tiles whose content hash changed, so clients re-download just those.
+ *
+ * Usage: MarinaTiler input.(geojson|csv) outputDir [precision]
+ */
+public final class MarinaTiler {
+
+    public static final int DEFAULT_PRECISION = 3;
+
+    private MarinaTiler() { }
+
+    /**
+     * Writes every tile and the manifest into {@code outDir}, replacing tiles that vanished.
+     * @return The new manifest.
+     */
+    public static TileManifest publish(Collection<MarinaItem> marinas, int precision, File outDir)
+            throws IOException {
+        Map<String, List<MarinaItem>> byTile = new TreeMap<>();
+        for (MarinaItem m : marinas) {
+            if (m.latLng == null) continue;
+            String id = Geohash.encode(m.latLng.latitude, m.latLng.longitude, precision);
+            byTile.computeIfAbsent(id, k -> new ArrayList<>()).add(m);
+        }
+
+        File manifestFile = new File(outDir, "manifest.json");
+        TileManifest previous = TileManifest.EMPTY;
+        if (manifestFile.isFile()) {
+            try (InputStream in = new FileInputStream(manifestFile)) {
+                previous = TileManifest.read(in);
+            }
+        }
+
+        File tilesDir = new File(outDir, "tiles");
+        if (!tilesDir.isDirectory() && !tilesDir.mkdirs()) throw new IOException("Could not create " + tilesDir);
+        TileManifest manifest = TileManifest.EMPTY;
+        for (Map.Entry<String, List<MarinaItem>> tile : byTile.entrySet()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            MarinaPackWriter.write(tile.getValue(), SpatialGridIndex.DEFAULT_CELL_DEGREES, bytes);
+            byte[] content = bytes.toByteArray();
+            String sha = TileSyncEngine.hex(TileSyncEngine.sha256().digest(content));
+
+            TileManifest.Entry old = previous.get(tile.getKey());
+            long version = (old == null) ? 1 : old.sha256.equalsIgnoreCase(sha) ? old.version : old.version + 1;
+            manifest = manifest.with(new TileManifest.Entry(tile.getKey(), version, sha, content.length));
+            try (OutputStream out = new FileOutputStream(new File(tilesDir, tile.getKey() + ".pack"))) {
+                out.write(content);
+            }
+        }
+        for (TileManifest.Entry gone : previous.entries()) {
+            if (manifest.get(gone.id) == null) new File(tilesDir, gone.id + ".pack").delete();
+        }
+        try (OutputStream out = new FileOutputStream(manifestFile)) {
+            manifest.write(out);
+        }
+        return manifest;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: MarinaTiler input.(geojson|csv) outputDir [precision]");
+            System.exit(2);
+        }
+        File in = new File(args[0]);
+        File outDir = new File(args[1]);
+        int precision = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PRECISION;
+
+        MarinaCatalog catalog = new MarinaCatalog();
+        try (MarinaSource source = in.getName().endsWith(".csv")
+                ? new CsvMarinaSource(new BufferedInputStream(new FileInputStream(in)))
+                : new GeoJsonMarinaSource(new BufferedInputStream(new FileInputStream(in)))) {
+            System.out.println("Imported " + in + ": " + new MarinaImporter(catalog).importFrom(source, in.length()));
+        }
+        TileManifest manifest = publish(catalog.items(), precision, outDir);
+        System.out.println("Published " + manifest.size() + " tiles to " + outDir);
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.sailspots.core.sync;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The list of catalog tiles, each with a version and the SHA-256 of its content.
+ * Tile IDs are geohashes; a tile's file is a MarinaPack of the marinas inside that cell.
+ *
+ * The same manifest format is served by the remote and kept next to the local tiles:
+ * {"tiles": [{"id": "dr5", "version": 3, "sha256": "ab12...", "bytes": 48213}, ...]}
+ *
+ * Immutable; with() and without() return modified copies.
+ */
+public final class TileManifest {
+
+    public static final TileManifest EMPTY = new TileManifest(new TreeMap<>());
+
+    /**
+     * One tile's metadata.
+     */
+    public static final class Entry {
+        public final String id;
+        public final long version;
+        public final String sha256;  // Lowercase hex.
+        public final long bytes;
+
+        public Entry(String id, long version, String sha256, long bytes) {
+            if (id == null || id.isEmpty()) throw new IllegalArgumentException("id");
+            if (sha256 == null) throw new IllegalArgumentException("sha256");
+            this.id = id;
+            this.version = version;
+            this.sha256 = sha256;
+            this.bytes = bytes;
+        }
+
+        /**
+         * @return True if the two describe the same tile content.
+         */
+        public boolean sameContent(Entry other) {
+            return other != null && id.equals(other.id) && sha256.equalsIgnoreCase(other.sha256);
+        }
+
+        @Override
+        public String toString() {
+            return id + "@" + version;
+        }
+    }
+
+    private final Map<String, Entry> entries;  // Sorted by ID.
+
+    private TileManifest(TreeMap<String, Entry> entries) {
+        this.entries = Collections.unmodifiableMap(entries);
+    }
+
+    public Entry get(String id) { return entries.get(id); }
+
+    public Collection<Entry> entries() { return entries.values(); }
+
+    public int size() { return entries.size(); }
+
+    public TileManifest with(Entry entry) {
+        TreeMap<String, Entry> copy = new TreeMap<>(entries);
+        copy.put(entry.id, entry);
+        return new TileManifest(copy);
+    }
+
+    public TileManifest without(String id) {
+        if (!entries.containsKey(id)) return this;
+        TreeMap<String, Entry> copy = new TreeMap<>(entries);
+        copy.remove(id);
+        return new TileManifest(copy);
+    }
+
+    // --- JSON ---
+
+    /**
+     * Parses a manifest. Unknown fields are ignored so the server can add more.
+     * @throws IOException If the JSON is malformed or an entry lacks an id or sha256.
+     */
+    public static TileManifest read(InputStream in) throws IOException {
+        JsonReader json = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        TreeMap<String, Entry> entries = new TreeMap<>();
+        try {
+            json.beginObject();
+            while (json.hasNext()) {
+                if (!"tiles".equals(json.nextName())) {
+                    json.skipValue();
+                    continue;
+                }
+                json.beginArray();
+                while (json.hasNext()) {
+                    Entry e = readEntry(json);
+                    entries.put(e.id, e);
+                }
+                json.endArray();
+            }
+            json.endObject();
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            throw new IOException("Malformed tile manifest at " + json.getPath(), e);
+        }
+        return new TileManifest(entries);
+    }
+
+    private static Entry readEntry(JsonReader json) throws IOException {
+        String id = null;
+        String sha256 = null;
+        long version = 0;
+        long bytes = -1;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "id": id = json.nextString(); break;
+                case "version": version = json.nextLong(); break;
+                case "sha256": sha256 = json.nextString(); break;
+                case "bytes": bytes = json.nextLong(); break;
+                default: json.skipValue(); break;
+            }
+        }
+        json.endObject();
+        return new Entry(id, version, sha256, bytes);
+    }
+
+    /**
+     * Writes the manifest as UTF-8 JSON. Does not close the stream.
+     */
+    public void write(OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        JsonWriter json = new JsonWriter(writer);
+        json.setIndent(" ");
+        json.beginObject();
+        json.name("tiles").beginArray();
+        for (Entry e : entries.values()) {
+            json.beginObject();
+            json.name("id").value(e.id);
+            json.name("version").value(e.version);
+            json.name("sha256").value(e.sha256);
+            json.name("bytes").value(e.bytes);
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.sailspots.core.sync;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Where tiles come from: a server in the app, a local HTTP stand-in in tests.
+ */
+public interface TileSource {
+
+    /**
+     * Downloads the current remote manifest.
+     */
+    TileManifest fetchManifest() throws IOException;
+
+    /**
+     * Opens one tile's content. The caller closes the stream.
+     * @param entry The tile and version to fetch, from fetchManifest().
+     */
+    InputStream openTile(TileManifest.Entry entry) throws IOException;
+}
@@ -0,0 +1,251 @@
+package com.example.sailspots.core.sync;
+
+import com.example.sailspots.core.catalog.MarinaPack;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Brings the local tiles up to date with a remote manifest, downloading only what changed.
+ *
+ * A sync fetches the remote manifest, diffs it against the local one by content hash, and
+ * then downloads the new and changed tiles with at most {@code maxConcurrent} requests in
+ * flight. Each download is hashed while it streams to a temp file, checked against the
+ * manifest's SHA-256 and opened as a MarinaPack before it is applied atomically by the
+ * LocalTileStore. Tiles the remote no longer lists are deleted.
+ *
+ * A tile that fails keeps its old version and is retried by the next sync; the others still
+ * apply. sync() blocks, so call it from a background thread.
+ */
+public final class TileSyncEngine {
+
+    private static final int BUFFER_BYTES = 16 * 1024;
+    private static final int ATTEMPTS = 2;
+
+    /**
+     * Receives progress after each tile, on the thread that applied it.
+     */
+    public interface ProgressListener {
+        void onTileDone(TileManifest.Entry entry, int done, int total);
+    }
+
+    private final TileSource remote;
+    private final LocalTileStore local;
+    private final Executor executor;
+    private final int maxConcurrent;
+    private ProgressListener listener;
+    private volatile boolean cancelled;
+
+    /**
+     * @param executor      Runs the extra download workers. The calling thread is one of the
+     *                      workers, so a sync makes progress even if the pool is busy.
+     * @param maxConcurrent The most tile downloads in flight at once.
+     */
+    public TileSyncEngine(TileSource remote, LocalTileStore local, Executor executor, int maxConcurrent) {
+        if (maxConcurrent < 1) throw new IllegalArgumentException("maxConcurrent");
+        this.remote = remote;
+        this.local = local;
+        this.executor = executor;
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public TileSyncEngine setProgressListener(ProgressListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Stops a running sync after the tiles already in flight. Tiles applied so far stay.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Runs one sync of every tile.
+     * @throws IOException If the remote manifest cannot be fetched; nothing local changes then.
+     */
+    public Result sync() throws IOException {
+        return sync(id -> true);
+    }
+
+    /**
+     * Runs one sync of just the tiles {@code only} accepts, e.g. those covering an offline
+     * region. Other tiles are neither fetched nor removed.
+     * @throws IOException If the remote manifest cannot be fetched; nothing local changes then.
+     */
+    public Result sync(Predicate<String> only) throws IOException {
+        cancelled = false;
+        local.clearTemp();
+        TileManifest remoteManifest = remote.fetchManifest();
+        TileManifest localManifest = local.manifest();
+
+        // --- Diff ---
+        ConcurrentLinkedQueue<TileManifest.Entry> todo = new ConcurrentLinkedQueue<>();
+        int unchanged = 0;
+        for (TileManifest.Entry e : remoteManifest.entries()) {
+            if (!only.test(e.id)) continue;
+            if (e.sameContent(localManifest.get(e.id))) unchanged++; else todo.add(e);
+        }
+        int removed = 0;
+        for (TileManifest.Entry e : localManifest.entries()) {
+            if (only.test(e.id) && remoteManifest.get(e.id) == null) {
+                local.remove(e.id);
+                removed++;
+            }
+        }
+
+        // --- Fetch: a fixed set of workers drain one queue, which bounds concurrency
+        // without flooding a shared pool's queue with one task per tile. ---
+        final int total = todo.size();
+        final AtomicInteger done = new AtomicInteger();
+        final AtomicLong bytes = new AtomicLong();
+        final Map<String, IOException> failed = Collections.synchronizedMap(new LinkedHashMap<>());
+        int workers = Math.min(maxConcurrent, total);
+        final CountDownLatch finished = new CountDownLatch(Math.max(0, workers - 1));
+        Runnable worker = () -> {
+            TileManifest.Entry e;
+            while (!cancelled && (e = todo.poll()) != null) {
+                try {
+                    bytes.addAndGet(fetchWithRetry(e));
+                } catch (IOException ex) {
+                    failed.put(e.id, ex);
+                }
+                if (listener != null) listener.onTileDone(e, done.incrementAndGet(), total);
+            }
+        };
+        for (int i = 1; i < workers; i++) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        worker.run();
+                    } finally {
+                        finished.countDown();
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                finished.countDown(); // The pool is saturated; the other workers pick up its share.
+            }
+        }
+        if (workers > 0) worker.run();
+        try {
+            finished.await();
+        } catch (InterruptedException ex) {
+            cancelled = true;
+            Thread.currentThread().interrupt();
+        }
+
+        int skipped = cancelled ? todo.size() : 0;
+        return new Result(total - failed.size() - skipped, unchanged, removed, skipped,
+                bytes.get(), new LinkedHashMap<>(failed));
+    }
+
+    private long fetchWithRetry(TileManifest.Entry e) throws IOException {
+        IOException last = null;
+        for (int attempt = 0; attempt < ATTEMPTS && !cancelled; attempt++) {
+            try {
+                return fetch(e);
+            } catch (IOException ex) {
+                last = ex;
+            }
+        }
+        throw last != null ? last : new IOException("Sync cancelled before " + e);
+    }
+
+    /**
+     * Downloads, verifies and applies one tile.
+     * @return The bytes downloaded.
+     */
+    private long fetch(TileManifest.Entry e) throws IOException {
+        File tmp = local.newTempFile(e.id);
+        try {
+            MessageDigest sha = sha256();
+            long n = 0;
+            try (InputStream in = remote.openTile(e);
+                 FileOutputStream out = new FileOutputStream(tmp)) {
+                byte[] buf = new byte[BUFFER_BYTES];
+                int r;
+                while ((r = in.read(buf)) > 0) {
+                    sha.update(buf, 0, r);
+                    out.write(buf, 0, r);
+                    n += r;
+                }
+                out.getFD().sync();
+            }
+            String hash = hex(sha.digest());
+            if (!hash.equalsIgnoreCase(e.sha256) || (e.bytes >= 0 && n != e.bytes)) {
+                throw new IOException("Tile " + e + " failed verification: got " + n + " bytes, sha256 " + hash);
+            }
+            MarinaPack.open(tmp); // Throws if the content is not a readable pack.
+            local.apply(e, tmp);
+            return n;
+        } finally {
+            if (tmp.exists()) tmp.delete(); // Only left behind if something failed.
+        }
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required on every Java platform", e);
+        }
+    }
+
+    static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * What one sync did.
+     */
+    public static final class Result {
+        public final int fetched;
+        public final int unchanged;
+        public final int removed;
+        public final int skipped;     // Not attempted because the sync was cancelled.
+        public final long bytesDownloaded;
+        public final Map<String, IOException> failed;  // By tile ID.
+
+        Result(int fetched, int unchanged, int removed, int skipped, long bytesDownloaded,
+               Map<String, IOException> failed) {
+            this.fetched = fetched;
+            this.unchanged = unchanged;
+            this.removed = removed;
+            this.skipped = skipped;
+            this.bytesDownloaded = bytesDownloaded;
+            this.failed = Collections.unmodifiableMap(failed);
+        }
+
+        /**
+         * @return True if local tiles changed, so open stores should be reopened.
+         */
+        public boolean changed() {
+            return fetched > 0 || removed > 0;
+        }
+
+        @Override
+        public String toString() {
+            return "fetched=" + fetched + " unchanged=" + unchanged + " removed=" + removed
+                    + " failed=" + failed.size() + " skipped=" + skipped + " bytes=" + bytesDownloaded;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.sailspots.core.track;
+
+import com.example.sailspots.core.geo.GeoPoint;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A recorded track read back from its file: the fixes in time order. Immutable.
+ *
+ * Layout (little-endian): magic "SSTK", version, and the start time in milliseconds, then
+ * one record per fix of three zigzag varints: milliseconds since the previous fix (the
+ * start time for the first), and the change in latitude and longitude in millionths of a
+ * degree (about 11 cm) since the previous fix (since 0 for the first).
+ *
+ * Sailing at 1 Hz, consecutive fixes differ by a second and a few dozen millionths, so a
+ * record is usually 4 or 5 bytes: a day is about 400 KB. Records are only ever appended,
+ * so a file cut short by a crash loses at most its last, partly written record; reading
+ * stops there and validBytes() says where the writer should carry on from.
+ */
+public final class Track {
+
+    // --- Format ---
+    static final int MAGIC = 0x4B545353; // "SSTK" read as a little-endian int.
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final double E6 = 1e6;
+
+    public final long startMillis;
+    private final long[] times;
+    private final int[] lats;
+    private final int[] lngs;
+    private final long validBytes;
+
+    private Track(long startMillis, long[] times, int[] lats, int[] lngs, long validBytes) {
+        this.startMillis = startMillis;
+        this.times = times;
+        this.lats = lats;
+        this.lngs = lngs;
+        this.validBytes = validBytes;
+    }
+
+    static int toE6(double degrees) {
+        return (int) Math.round(degrees * E6);
+    }
+
+    public int size() { return times.length; }
+
+    public long time(int i) { return times[i]; }
+
+    public double latitude(int i) { return lats[i] / E6; }
+
+    public double longitude(int i) { return lngs[i] / E6; }
+
+    public GeoPoint point(int i) { return new GeoPoint(latitude(i), longitude(i)); }
+
+    int latE6(int i) { return lats[i]; }
+
+    int lngE6(int i) { return lngs[i]; }
+
+    /**
+     * @return The length of the file up to the end of its last whole record.
+     */
+    public long validBytes() { return validBytes; }
+
+    // --- Reading ---
+
+    public static Track read(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @throws IOException If the buffer does not start with a track header.
+     */
+    public static Track read(ByteBuffer buffer) throws IOException {
+        ByteBuffer b = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (b.remaining() < HEADER_BYTES || b.getInt() != MAGIC) throw new IOException("Not a track file");
+        int version = b.getInt();
+        if (version != VERSION) throw new IOException("Unsupported track version " + version);
+        long start = b.getLong();
+
+        // Most records are 4 or 5 bytes; grow if the guess is short.
+        int guess = Math.max(16, b.remaining() / 4);
+        long[] times = new long[guess];
+        int[] lats = new int[guess];
+        int[] lngs = new int[guess];
+        int n = 0;
+        long t = start;
+        int lat = 0;
+        int lng = 0;
+        int valid = b.position();
+        long[] record = new long[3];
+        while (readRecord(b, record)) {
+            if (n == times.length) {
+                times = Arrays.copyOf(times, n * 2);
+                lats = Arrays.copyOf(lats, n * 2);
+                lngs = Arrays.copyOf(lngs, n * 2);
+            }
+            t += record[0];
+            lat += (int) record[1];
+            lng += (int) record[2];
+            times[n] = t;
+            lats[n] = lat;
+            lngs[n] = lng;
+            n++;
+            valid = b.position();
+        }
+        return new Track(start, Arrays.copyOf(times, n), Arrays.copyOf(lats, n), Arrays.copyOf(lngs, n),
+                valid - buffer.position());
+    }
+
+    /**
+     * Reads one record's three values, or returns false, leaving the position anywhere, if the
+     * buffer ends inside it.
+     */
+    private static boolean readRecord(ByteBuffer b, long[] out) {
+        for (int k = 0; k < 3; k++) {
+            long v = 0;
+            int shift = 0;
+            while (true) {
+                if (!b.hasRemaining() || shift > 63) return false;
+                int x = b.get() & 0xFF;
+                v |= (long) (x & 0x7F) << shift;
+                if (x < 0x80) break;
+                shift += 7;
+            }
+            out[k] = (v >>> 1) ^ -(v & 1);  // Zigzag back to signed.
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "Track{" + size() + " fixes from " + startMillis + ", " + validBytes + " bytes}";
+    }
+}
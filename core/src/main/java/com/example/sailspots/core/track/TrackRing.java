@@ -0,0 +1,84 @@
+package com.example.sailspots.core.track;
+
+/**
+ * A fixed-size ring of GPS fixes in primitive arrays, between the thread that receives
+ * locations and the one that writes them out. Recording allocates nothing per fix.
+ *
+ * Safe for one producer calling offer() and one consumer calling drain() at the same time;
+ * the counters are volatile, so a slot is published before it is counted and freed only
+ * after it is read.
+ */
+public final class TrackRing {
+
+    /** Receives drained fixes, oldest first. */
+    public interface Consumer {
+        void accept(long timeMillis, int latE6, int lngE6);
+    }
+
+    private final long[] times;
+    private final int[] lats;
+    private final int[] lngs;
+    private final int mask;
+    private volatile long written;  // Fixes offered and kept, ever.
+    private volatile long read;     // Fixes drained, ever.
+    private volatile long dropped;  // Written by the producer only.
+
+    /**
+     * @param capacity Fixes held between drains; rounded up to a power of two.
+     */
+    public TrackRing(int capacity) {
+        if (capacity < 1 || capacity > (1 << 24)) throw new IllegalArgumentException("capacity");
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+        times = new long[size];
+        lats = new int[size];
+        lngs = new int[size];
+        mask = size - 1;
+    }
+
+    public int capacity() { return times.length; }
+
+    /**
+     * Adds a fix. Producer thread only.
+     * @return False if the ring is full; the fix is dropped and counted.
+     */
+    public boolean offer(long timeMillis, double lat, double lng) {
+        long w = written;
+        if (w - read == times.length) {
+            dropped++;
+            return false;
+        }
+        int slot = (int) (w & mask);
+        times[slot] = timeMillis;
+        lats[slot] = Track.toE6(lat);
+        lngs[slot] = Track.toE6(lng);
+        written = w + 1;
+        return true;
+    }
+
+    /**
+     * Hands every fix offered so far to the consumer and frees their slots. Consumer thread only.
+     * @return How many fixes were drained.
+     */
+    public int drain(Consumer consumer) {
+        long r = read;
+        long w = written;
+        for (long i = r; i < w; i++) {
+            int slot = (int) (i & mask);
+            consumer.accept(times[slot], lats[slot], lngs[slot]);
+        }
+        read = w;
+        return (int) (w - r);
+    }
+
+    public int size() {
+        return (int) (written - read);
+    }
+
+    /**
+     * @return Fixes lost because the ring was full when they arrived.
+     */
+    public long dropped() {
+        return dropped;
+    }
+}
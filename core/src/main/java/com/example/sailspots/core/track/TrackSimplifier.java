@@ -0,0 +1,179 @@
+package com.example.sailspots.core.track;
+
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.util.IntList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Simplifies a track for display as it is recorded, with Douglas-Peucker run over a sliding
+ * window instead of the whole track.
+ *
+ * Fixes collect in a window that starts at the last point kept. When the window fills,
+ * Douglas-Peucker keeps the points that matter in it, and all but the last of those are
+ * committed for good; the window restarts from the second-to-last kept point, so the curve
+ * still being sailed can change shape. A straight run keeps only its ends. Each fix is
+ * therefore processed a bounded number of times, and a day at 1 Hz shrinks to a few
+ * thousand points that a map polyline redraws smoothly.
+ *
+ * Points are kept within the tolerance of the original track in each window, and within
+ * about twice it where a straight run is collapsed. Not thread-safe.
+ */
+public final class TrackSimplifier {
+
+    // Fixes per Douglas-Peucker pass: big enough to see a tack, small enough to stay cheap.
+    static final int WINDOW = 256;
+    // Metres per millionth of a degree of latitude.
+    private static final double METRES_PER_E6 = 0.111_195;
+
+    private final double toleranceE6;
+    private final IntList keptLat = new IntList(1024);
+    private final IntList keptLng = new IntList(1024);
+    private final int[] winLat = new int[WINDOW];
+    private final int[] winLng = new int[WINDOW];
+    private int winSize;  // winLat[0] is the last committed point, once there is one.
+    private double lngScale = Double.NaN;  // cos(latitude), fixed at the first fix.
+    private long fixes;
+
+    // Douglas-Peucker scratch, reused between passes.
+    private final boolean[] keep = new boolean[WINDOW];
+    private final int[] stack = new int[2 * WINDOW];
+
+    /**
+     * @param toleranceMetres How far the simplified line may stray from the fixes.
+     */
+    public TrackSimplifier(double toleranceMetres) {
+        this.toleranceE6 = toleranceMetres / METRES_PER_E6;
+    }
+
+    public void add(double lat, double lng) {
+        addE6(Track.toE6(lat), Track.toE6(lng));
+    }
+
+    /**
+     * Adds a fix in millionths of a degree, as TrackRing hands them out.
+     */
+    public void addE6(int latE6, int lngE6) {
+        fixes++;
+        if (Double.isNaN(lngScale)) {
+            lngScale = Math.cos(Math.toRadians(latE6 / Track.E6));
+            keptLat.add(latE6);
+            keptLng.add(lngE6);
+            winLat[0] = latE6;
+            winLng[0] = lngE6;
+            winSize = 1;
+            return;
+        }
+        winLat[winSize] = latE6;
+        winLng[winSize] = lngE6;
+        winSize++;
+        if (winSize == WINDOW) slide();
+    }
+
+    /**
+     * Commits the settled part of a full window and restarts it from the last kept points.
+     */
+    private void slide() {
+        int kept = simplify(winSize);
+        int last = winSize - 1;
+        if (kept <= 2) {
+            // A straight run: keep only its ends and let it keep growing.
+            winLat[1] = winLat[last];
+            winLng[1] = winLng[last];
+            winSize = 2;
+            return;
+        }
+        // Commit the kept points up to the second-to-last and restart the window from it.
+        int secondLast = last - 1;
+        while (!keep[secondLast]) secondLast--;
+        for (int i = 1; i <= secondLast; i++) {
+            if (!keep[i]) continue;
+            keptLat.add(winLat[i]);
+            keptLng.add(winLng[i]);
+        }
+        int n = winSize - secondLast;
+        System.arraycopy(winLat, secondLast, winLat, 0, n);
+        System.arraycopy(winLng, secondLast, winLng, 0, n);
+        winSize = n;
+    }
+
+    /**
+     * Marks in keep[] the window points Douglas-Peucker keeps, ends included.
+     * @return How many were kept.
+     */
+    private int simplify(int n) {
+        for (int i = 0; i < n; i++) keep[i] = false;
+        keep[0] = true;
+        keep[n - 1] = true;
+        int kept = n > 1 ? 2 : 1;
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        double tol2 = toleranceE6 * toleranceE6;
+        while (top > 0) {
+            int b = stack[--top];
+            int a = stack[--top];
+            int worst = -1;
+            double worstD2 = tol2;
+            for (int i = a + 1; i < b; i++) {
+                double d2 = segmentDistance2(i, a, b);
+                if (d2 > worstD2) {
+                    worstD2 = d2;
+                    worst = i;
+                }
+            }
+            if (worst < 0) continue;
+            keep[worst] = true;
+            kept++;
+            stack[top++] = a;
+            stack[top++] = worst;
+            stack[top++] = worst;
+            stack[top++] = b;
+        }
+        return kept;
+    }
+
+    /**
+     * @return The squared distance, in millionths of a degree of latitude, from window point
+     *         p to the segment from a to b, on a plane scaled to be true near the track.
+     */
+    private double segmentDistance2(int p, int a, int b) {
+        double ax = winLng[a] * lngScale;
+        double ay = winLat[a];
+        double dx = winLng[b] * lngScale - ax;
+        double dy = winLat[b] - ay;
+        double px = winLng[p] * lngScale - ax;
+        double py = winLat[p] - ay;
+        double len2 = dx * dx + dy * dy;
+        double t = len2 == 0 ? 0 : Math.max(0, Math.min(1, (px * dx + py * dy) / len2));
+        double ex = px - t * dx;
+        double ey = py - t * dy;
+        return ex * ex + ey * ey;
+    }
+
+    /**
+     * @return The simplified track so far: the committed points, then the open window
+     *         simplified on its own.
+     */
+    public List<GeoPoint> points() {
+        List<GeoPoint> out = new ArrayList<>(keptLat.size() + 32);
+        for (int i = 0; i < keptLat.size(); i++) {
+            out.add(new GeoPoint(keptLat.get(i) / Track.E6, keptLng.get(i) / Track.E6));
+        }
+        if (winSize > 1) {
+            simplify(winSize);
+            for (int i = 1; i < winSize; i++) {
+                if (keep[i]) out.add(new GeoPoint(winLat[i] / Track.E6, winLng[i] / Track.E6));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * @return Fixes added, before simplification.
+     */
+    public long fixes() {
+        return fixes;
+    }
+}
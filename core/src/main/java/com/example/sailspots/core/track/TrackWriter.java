@@ -0,0 +1,129 @@
+package com.example.sailspots.core.track;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Appends fixes to a track file in the format read by Track.
+ *
+ * Fixes are encoded into a memory buffer as they arrive and reach the file on flush(), so
+ * accept() never blocks on disk and can drain a TrackRing directly. Not thread-safe: one
+ * thread appends and flushes.
+ */
+public final class TrackWriter implements TrackRing.Consumer, Closeable {
+
+    private final FileOutputStream out;
+    private byte[] pending = new byte[4096];
+    private int pendingBytes;
+    private long lastTime;
+    private int lastLat;
+    private int lastLng;
+    private long fixes;
+    private long bytes;
+
+    private TrackWriter(FileOutputStream out, long lastTime, int lastLat, int lastLng, long fixes, long bytes) {
+        this.out = out;
+        this.lastTime = lastTime;
+        this.lastLat = lastLat;
+        this.lastLng = lastLng;
+        this.fixes = fixes;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Starts a new track file, replacing any file already there.
+     */
+    public static TrackWriter create(File file, long startMillis) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(Track.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(Track.MAGIC).putInt(Track.VERSION).putLong(startMillis);
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(header.array());
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+        return new TrackWriter(out, startMillis, 0, 0, 0, Track.HEADER_BYTES);
+    }
+
+    /**
+     * Carries on a track file after a restart, dropping a last record cut short by a crash.
+     * @throws IOException If the file is not a track.
+     */
+    public static TrackWriter resume(File file) throws IOException {
+        Track track = Track.read(file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(track.validBytes());
+        }
+        int n = track.size();
+        FileOutputStream out = new FileOutputStream(file, true);
+        return n == 0
+                ? new TrackWriter(out, track.startMillis, 0, 0, 0, track.validBytes())
+                : new TrackWriter(out, track.time(n - 1), track.latE6(n - 1), track.lngE6(n - 1), n, track.validBytes());
+    }
+
+    public void append(long timeMillis, double lat, double lng) {
+        accept(timeMillis, Track.toE6(lat), Track.toE6(lng));
+    }
+
+    @Override
+    public void accept(long timeMillis, int latE6, int lngE6) {
+        if (pending.length - pendingBytes < 30) pending = Arrays.copyOf(pending, pending.length * 2);
+        putVarint(timeMillis - lastTime);
+        putVarint((long) latE6 - lastLat);
+        putVarint((long) lngE6 - lastLng);
+        lastTime = timeMillis;
+        lastLat = latE6;
+        lastLng = lngE6;
+        fixes++;
+    }
+
+    private void putVarint(long signed) {
+        long v = (signed << 1) ^ (signed >> 63);  // Zigzag, so small negatives stay short.
+        while ((v & ~0x7FL) != 0) {
+            pending[pendingBytes++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        pending[pendingBytes++] = (byte) v;
+    }
+
+    /**
+     * Writes the fixes appended since the last flush to the file.
+     */
+    public void flush() throws IOException {
+        if (pendingBytes == 0) return;
+        out.write(pending, 0, pendingBytes);
+        bytes += pendingBytes;
+        pendingBytes = 0;
+    }
+
+    /**
+     * Flushes and waits for the data to reach the storage device, e.g. when recording stops.
+     */
+    public void sync() throws IOException {
+        flush();
+        out.getFD().sync();
+    }
+
+    public long fixes() { return fixes; }
+
+    /**
+     * @return The file's length once flushed.
+     */
+    public long bytes() { return bytes + pendingBytes; }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.sailspots.core.util;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive ints. Used for query results and ID sets so hot paths
+ * do not box every element into an Integer.
+ */
+public final class IntList {
+
+    private int[] data;
+    private int size;
+
+    public IntList() { this(16); }
+
+    public IntList(int initialCapacity) {
+        data = new int[Math.max(1, initialCapacity)];
+    }
+
+    public void add(int value) {
+        if (size == data.length) data = Arrays.copyOf(data, data.length * 2);
+        data[size++] = value;
+    }
+
+    public int get(int i) {
+        if (i >= size) throw new IndexOutOfBoundsException(i + " >= " + size);
+        return data[i];
+    }
+
+    public void set(int i, int value) {
+        if (i >= size) throw new IndexOutOfBoundsException(i + " >= " + size);
+        data[i] = value;
+    }
+
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    /**
+     * Empties the list but keeps its backing array so it can be reused without allocating.
+     */
+    public void clear() { size = 0; }
+
+    public void sort() { Arrays.sort(data, 0, size); }
+
+    public int[] toArray() { return Arrays.copyOf(data, size); }
+}
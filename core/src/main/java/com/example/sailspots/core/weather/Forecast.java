@@ -0,0 +1,111 @@
+package com.example.sailspots.core.weather;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The fields decoded from a forecast file, on one regular latitude/longitude grid at a series
+ * of forecast times. Each field is a float grid per time, row-major from the south-west corner,
+ * with NaN where the file has no value. Immutable and thread-safe.
+ *
+ * One decode serves any number of places: sampling is a bilinear blend of four cells and a
+ * linear one between times, with no allocation, so reading the forecast for every favorite
+ * costs microseconds once the file is decoded.
+ */
+public final class Forecast {
+
+    public final double south;
+    public final double west;
+    public final double latStep;
+    public final double lngStep;
+    public final int cols;
+    public final int rows;
+    public final long referenceMillis;  // When the model run started.
+    private final long[] times;
+    private final Map<Grib2Parameter, float[][]> fields;
+
+    Forecast(double south, double west, double latStep, double lngStep, int cols, int rows,
+             long referenceMillis, long[] times, Map<Grib2Parameter, float[][]> fields) {
+        this.south = south;
+        this.west = west;
+        this.latStep = latStep;
+        this.lngStep = lngStep;
+        this.cols = cols;
+        this.rows = rows;
+        this.referenceMillis = referenceMillis;
+        this.times = times;
+        this.fields = new EnumMap<>(fields);
+    }
+
+    public Set<Grib2Parameter> parameters() {
+        return Collections.unmodifiableSet(fields.keySet());
+    }
+
+    public boolean has(Grib2Parameter p) {
+        return fields.containsKey(p);
+    }
+
+    public int timeCount() { return times.length; }
+
+    public long time(int i) { return times[i]; }
+
+    public double north() { return south + (rows - 1) * latStep; }
+
+    public double east() { return west + (cols - 1) * lngStep; }
+
+    /**
+     * @return The grid of a field at one forecast time; shared, so do not modify it.
+     */
+    public float[] grid(Grib2Parameter p, int timeIndex) {
+        float[][] steps = fields.get(p);
+        if (steps == null) throw new IllegalArgumentException(p + " was not decoded");
+        return steps[timeIndex];
+    }
+
+    /**
+     * @param lng Any longitude; it is wrapped onto the grid's.
+     * @return The field's value there and then, in the file's units, or NaN if the field was
+     *         not decoded, the point is off the grid, or the file has no value there.
+     */
+    public double sample(Grib2Parameter p, double lat, double lng, long timeMillis) {
+        float[][] steps = fields.get(p);
+        if (steps == null) return Double.NaN;
+        double y = (lat - south) / latStep;
+        double x = wrapX(lng);
+        if (!(y >= 0 && y <= rows - 1 && x >= 0 && x <= cols - 1)) return Double.NaN;
+        int r = Math.min((int) y, Math.max(0, rows - 2));
+        int c = Math.min((int) x, Math.max(0, cols - 2));
+        double fy = y - r;
+        double fx = x - c;
+        int t0 = GridWindField.timeIndex(times, timeMillis);
+        double ft = GridWindField.timeFraction(times, t0, timeMillis);
+        double value = GridWindField.bilinear(steps[t0], cols, rows, r, c, fx, fy);
+        if (ft > 0) value += ft * (GridWindField.bilinear(steps[t0 + 1], cols, rows, r, c, fx, fy) - value);
+        return value;
+    }
+
+    private double wrapX(double lng) {
+        double x = (lng - west) / lngStep;
+        if (x < 0) x += 360 / lngStep;
+        else if (x > cols - 1) x -= 360 / lngStep;
+        return x;
+    }
+
+    /**
+     * @return The 10 m wind as a WindField for routing, or null if it was not decoded.
+     */
+    public GridWindField windField() {
+        float[][] u = fields.get(Grib2Parameter.WIND_U);
+        float[][] v = fields.get(Grib2Parameter.WIND_V);
+        if (u == null || v == null) return null;
+        return new GridWindField(south, west, latStep, lngStep, cols, rows, times, u, v);
+    }
+
+    @Override
+    public String toString() {
+        return "Forecast{" + cols + "x" + rows + " from " + south + ", " + west + " by " + latStep + "/" + lngStep
+                + ", " + times.length + " times, " + fields.keySet() + "}";
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.sailspots.core.weather;
+
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.geo.GeoMath;
+import com.example.sailspots.core.geo.GeoPoint;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A square of forecast fetched and decoded as one piece: DEGREES on a side, with its south
+ * and west edges on whole multiples of DEGREES. Places in the same tile share one download
+ * and one decode, however many there are. Immutable.
+ */
+public final class ForecastTile {
+
+    public static final int DEGREES = 5;
+    // Rows run from the south pole; the last one takes the north pole too.
+    private static final int ROWS = 180 / DEGREES;
+    private static final int COLS = 360 / DEGREES;
+
+    public final int row;  // 0 at the south pole.
+    public final int col;  // 0 at the antimeridian, going east.
+
+    private ForecastTile(int row, int col) {
+        this.row = row;
+        this.col = col;
+    }
+
+    public static ForecastTile of(double lat, double lng) {
+        int row = (int) Math.floor((lat + 90) / DEGREES);
+        int col = (int) Math.floor((GeoMath.wrapLongitude(lng) + 180) / DEGREES);
+        return new ForecastTile(Math.max(0, Math.min(ROWS - 1, row)), Math.max(0, Math.min(COLS - 1, col)));
+    }
+
+    /**
+     * Groups items by the tile they fall in, keeping the order tiles and items first appear in.
+     */
+    public static <T> Map<ForecastTile, List<T>> group(Iterable<T> items, Function<T, GeoPoint> position) {
+        Map<ForecastTile, List<T>> tiles = new LinkedHashMap<>();
+        for (T item : items) {
+            GeoPoint p = position.apply(item);
+            tiles.computeIfAbsent(of(p.latitude, p.longitude), t -> new ArrayList<>()).add(item);
+        }
+        return tiles;
+    }
+
+    public double south() { return row * DEGREES - 90; }
+
+    public double west() { return col * DEGREES - 180; }
+
+    /**
+     * @return The tile's area, edges included; forecast grid points on them belong to both
+     *         neighbours, so a place on an edge interpolates within either.
+     */
+    public BoundingBox box() {
+        return new BoundingBox(south(), west(), south() + DEGREES, west() + DEGREES);
+    }
+
+    /**
+     * @return A name for files and logs, e.g. "n40w075" for the tile whose south-west corner
+     *         is 40N 75W.
+     */
+    public String key() {
+        int lat = (int) south();
+        int lng = (int) west();
+        return String.format(Locale.US, "%c%02d%c%03d", lat < 0 ? 's' : 'n', Math.abs(lat),
+                lng < 0 ? 'w' : 'e', Math.abs(lng));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ForecastTile)) return false;
+        ForecastTile t = (ForecastTile) o;
+        return row == t.row && col == t.col;
+    }
+
+    @Override
+    public int hashCode() {
+        return row * COLS + col;
+    }
+
+    @Override
+    public String toString() {
+        return "ForecastTile{" + key() + "}";
+    }
+}
@@ -0,0 +1,692 @@
+package com.example.sailspots.core.weather;
+
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.geo.GeoMath;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Reads wind, gust and pressure forecasts out of GRIB2 files, such as NOAA's GFS or ECMWF's
+ * open data, into a Forecast.
+ *
+ * The file is memory-mapped and walked one section at a time. Only the section headers of
+ * each field are read until one matches a wanted parameter; the data of every other field is
+ * skipped by length without being touched. Wanted fields are unpacked straight into float
+ * grids covering just the requested region, so a 50 MB global file costs a few hundred KB of
+ * heap for a coastal cruising area.
+ *
+ * Supported: regular latitude/longitude grids (template 3.0) in any row order; forecasts at a
+ * point in time or over an interval (templates 4.0, 4.1, 4.8, 4.11); simple packing (5.0) and
+ * complex packing with or without spatial differencing (5.2, 5.3), which together cover GFS and
+ * ECMWF's open data; and bitmaps. Other grids and packings are reported as IOExceptions when
+ * a wanted field uses them. GRIB1 messages are skipped.
+ *
+ * Not thread-safe; use one decoder per decode.
+ */
+public final class Grib2Decoder {
+
+    private static final int MAGIC = 0x47524942;  // "GRIB"
+    private static final int END = 0x37373737;    // "7777"
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private final Set<Grib2Parameter> wanted;
+    private final BoundingBox region;
+    private int decoded;
+    private int skipped;
+
+    /**
+     * @param region The area to keep, or null for the whole grid.
+     */
+    public Grib2Decoder(Set<Grib2Parameter> wanted, BoundingBox region) {
+        this.wanted = EnumSet.copyOf(wanted);
+        this.region = region;
+    }
+
+    /** Fields unpacked by the last decode. */
+    public int fieldsDecoded() { return decoded; }
+
+    /** Fields passed over by the last decode without reading their data. */
+    public int fieldsSkipped() { return skipped; }
+
+    /**
+     * Maps the file and decodes it. Files must be under 2 GB.
+     * @throws IOException If the file cannot be read, is not GRIB2, holds none of the wanted
+     *                     fields, or stores one in a layout this decoder does not support.
+     */
+    public Forecast decode(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException(file + " is over 2 GB");
+            return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Decodes every GRIB2 message in the buffer, which is read but not modified.
+     */
+    public Forecast decode(ByteBuffer buffer) throws IOException {
+        ByteBuffer buf = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        decoded = 0;
+        skipped = 0;
+        Output out = new Output();
+        int pos = 0;
+        int limit = buf.limit();
+        while ((pos = findMagic(buf, pos)) >= 0) {
+            int edition = buf.get(pos + 7) & 0xff;
+            if (edition == 1) {
+                pos += uint24(buf, pos + 4);
+                continue;
+            }
+            if (edition != 2) throw new IOException("Unknown GRIB edition " + edition + " at byte " + pos);
+            long length = buf.getLong(pos + 8);
+            if (length < 20 || pos + length > limit || buf.getInt((int) (pos + length - 4)) != END) {
+                throw new IOException("GRIB message at byte " + pos + " is truncated");
+            }
+            message(buf, pos, (int) (pos + length - 4), buf.get(pos + 6) & 0xff, out);
+            pos += (int) length;
+        }
+        if (out.grid == null) throw new IOException("None of " + wanted + " found");
+        return out.build();
+    }
+
+    private static int findMagic(ByteBuffer buf, int from) {
+        for (int i = from; i + 16 <= buf.limit(); i++) {
+            if (buf.getInt(i) == MAGIC) return i;
+        }
+        return -1;
+    }
+
+    // --- Sections ---
+
+    /**
+     * Walks the sections of one message. Sections 2 to 7 may repeat, each repetition
+     * replacing what it redefines, so one message can hold many fields.
+     */
+    private void message(ByteBuffer buf, int start, int end, int discipline, Output out) throws IOException {
+        long reference = 0;
+        Grid grid = null;
+        Grib2Parameter param = null;
+        long validTime = 0;
+        int packing = -1;        // Offset of section 5.
+        int bitmap = -1;         // Offset of the bitmap bits, or -1 for none.
+        int s = start + 16;
+        while (s < end) {
+            int length = buf.getInt(s);
+            int number = buf.get(s + 4) & 0xff;
+            if (length < 5 || s + length > end) throw new IOException("Bad section " + number + " at byte " + s);
+            switch (number) {
+                case 1:
+                    reference = dateTime(buf, s + 12);
+                    break;
+                case 3:
+                    grid = new Grid(buf, s);
+                    break;
+                case 4:
+                    param = product(buf, s, discipline);
+                    if (param != null) validTime = validTime(buf, s, reference);
+                    if (validTime == Long.MIN_VALUE) param = null;
+                    break;
+                case 5:
+                    packing = s;
+                    break;
+                case 6:
+                    int indicator = buf.get(s + 5) & 0xff;
+                    if (indicator == 0) bitmap = s + 6;
+                    else if (indicator == 255) bitmap = -1;
+                    // 254 keeps the previous bitmap.
+                    break;
+                case 7:
+                    if (param == null || out.has(param, validTime)) {
+                        skipped++;
+                        break;
+                    }
+                    if (grid == null || packing < 0) throw new IOException("Field at byte " + s + " has no grid or packing");
+                    out.add(param, validTime, reference, grid, region, buf, packing, bitmap, s + 5);
+                    decoded++;
+                    break;
+                default:
+                    break;  // Section 2 is local use.
+            }
+            s += length;
+        }
+    }
+
+    /**
+     * @return The wanted parameter section 4 describes, or null.
+     */
+    private Grib2Parameter product(ByteBuffer buf, int s, int discipline) {
+        int category = buf.get(s + 9) & 0xff;
+        int number = buf.get(s + 10) & 0xff;
+        int surfaceType = buf.get(s + 22) & 0xff;
+        int scale = signed8(buf.get(s + 23));
+        int scaled = signed32(buf.getInt(s + 24));
+        double surfaceValue = scale == -127 ? 0 : scaled / Math.pow(10, scale);
+        Grib2Parameter p = Grib2Parameter.find(discipline, category, number, surfaceType, surfaceValue);
+        return p != null && wanted.contains(p) ? p : null;
+    }
+
+    /**
+     * @return When the field applies: the end of the interval for statistics such as gusts,
+     *         or Long.MIN_VALUE for product templates this decoder does not read.
+     */
+    private static long validTime(ByteBuffer buf, int s, long reference) {
+        int template = buf.getShort(s + 7) & 0xffff;
+        switch (template) {
+            case 0:
+            case 1:
+                return reference + signed32(buf.getInt(s + 18)) * unitMillis(buf.get(s + 17) & 0xff);
+            case 8:
+                return dateTime(buf, s + 34);
+            case 11:
+                return dateTime(buf, s + 37);
+            default:
+                return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * @return The length of a unit of code table 4.4, or 0 for units without a fixed length.
+     */
+    private static long unitMillis(int unit) {
+        switch (unit) {
+            case 0: return 60_000L;
+            case 1: return 3_600_000L;
+            case 2: return MILLIS_PER_DAY;
+            case 10: return 3 * 3_600_000L;
+            case 11: return 6 * 3_600_000L;
+            case 12: return 12 * 3_600_000L;
+            case 13: return 1_000L;
+            default: return 0;
+        }
+    }
+
+    /**
+     * Reads the 7-octet year, month, day, hour, minute, second used throughout GRIB2, in UTC.
+     */
+    private static long dateTime(ByteBuffer buf, int at) {
+        int year = buf.getShort(at) & 0xffff;
+        int month = buf.get(at + 2) & 0xff;
+        int day = buf.get(at + 3) & 0xff;
+        int hour = buf.get(at + 4) & 0xff;
+        int minute = buf.get(at + 5) & 0xff;
+        int second = buf.get(at + 6) & 0xff;
+        return daysFromCivil(year, month, day) * MILLIS_PER_DAY + ((hour * 60L + minute) * 60 + second) * 1000;
+    }
+
+    /**
+     * Days since 1970-01-01 in the proleptic Gregorian calendar (H. Hinnant's algorithm);
+     * avoids java.time, which older Android versions lack.
+     */
+    static long daysFromCivil(int y, int m, int d) {
+        y -= m <= 2 ? 1 : 0;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yoe = y - era * 400;
+        int doy = (153 * (m + (m > 2 ? -3 : 9)) + 2) / 5 + d - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097L + doe - 719468;
+    }
+
+    // GRIB2 stores negative numbers as sign and magnitude, not two's complement.
+
+    private static int signed8(byte b) {
+        return (b & 0x80) != 0 ? -(b & 0x7f) : b;
+    }
+
+    private static int signed16(short v) {
+        return (v & 0x8000) != 0 ? -(v & 0x7fff) : v;
+    }
+
+    private static int signed32(int v) {
+        return v < 0 ? -(v & 0x7fffffff) : v;
+    }
+
+    private static int signedN(ByteBuffer buf, int at, int octets) {
+        long v = 0;
+        for (int i = 0; i < octets; i++) v = (v << 8) | (buf.get(at + i) & 0xff);
+        long sign = 1L << (octets * 8 - 1);
+        return (int) ((v & sign) != 0 ? -(v & (sign - 1)) : v);
+    }
+
+    private static int uint24(ByteBuffer buf, int at) {
+        return (buf.get(at) & 0xff) << 16 | (buf.get(at + 1) & 0xff) << 8 | (buf.get(at + 2) & 0xff);
+    }
+
+    // --- Grid ---
+
+    /**
+     * A grid definition (section 3). Only template 3.0 can be cropped and unpacked; others are
+     * kept so the error names them if a wanted field uses one.
+     */
+    private static final class Grid {
+        final int template;
+        final int ni;
+        final int nj;
+        final double south;
+        final double west;
+        final double di;
+        final double dj;
+        final boolean eastToWest;   // Scanning mode bit 1: points run east to west.
+        final boolean southToNorth; // Scanning mode bit 2: rows run south to north.
+        final int scanMode;
+
+        Grid(ByteBuffer buf, int s) {
+            template = buf.getShort(s + 12) & 0xffff;
+            if (template != 0) {
+                ni = nj = scanMode = 0;
+                south = west = di = dj = 0;
+                eastToWest = southToNorth = false;
+                return;
+            }
+            ni = buf.getInt(s + 30);
+            nj = buf.getInt(s + 34);
+            long basic = buf.getInt(s + 38) & 0xffffffffL;
+            long subdivisions = buf.getInt(s + 42) & 0xffffffffL;
+            double unit = basic == 0 || basic == 0xffffffffL || subdivisions == 0xffffffffL
+                    ? 1e-6 : (double) basic / subdivisions;
+            double la1 = signed32(buf.getInt(s + 46)) * unit;
+            double lo1 = signed32(buf.getInt(s + 50)) * unit;
+            double la2 = signed32(buf.getInt(s + 55)) * unit;
+            double lo2 = signed32(buf.getInt(s + 59)) * unit;
+            int rawDi = buf.getInt(s + 63);
+            int rawDj = buf.getInt(s + 67);
+            scanMode = buf.get(s + 71) & 0xff;
+            eastToWest = (scanMode & 0x80) != 0;
+            southToNorth = (scanMode & 0x40) != 0;
+            // Increments may be left out ("missing", all ones); the corners still define them.
+            double spanLng = GeoMath.normalizeDegrees(eastToWest ? lo1 - lo2 : lo2 - lo1);
+            di = rawDi == -1 ? spanLng / Math.max(1, ni - 1) : (rawDi & 0xffffffffL) * unit;
+            dj = rawDj == -1 ? Math.abs(la2 - la1) / Math.max(1, nj - 1) : (rawDj & 0xffffffffL) * unit;
+            south = Math.min(la1, la2);
+            west = eastToWest ? lo2 : lo1;
+        }
+
+        boolean global() {
+            return ni * di > 359.999;
+        }
+
+        void check() throws IOException {
+            if (template != 0) throw new IOException("Grid template 3." + template + " is not supported");
+            if ((scanMode & 0x30) != 0) throw new IOException("Scanning mode " + scanMode + " is not supported");
+            if (ni < 1 || nj < 1 || di <= 0 || dj <= 0) throw new IOException("Empty grid " + ni + "x" + nj);
+        }
+
+        boolean sameAs(Grid o) {
+            return template == o.template && ni == o.ni && nj == o.nj && scanMode == o.scanMode
+                    && Math.abs(south - o.south) < 1e-6 && Math.abs(west - o.west) < 1e-6
+                    && Math.abs(di - o.di) < 1e-9 && Math.abs(dj - o.dj) < 1e-9;
+        }
+    }
+
+    /**
+     * Where the cropped region sits in the grid: output row r is grid row r0 + r counted from
+     * the south, output column c is grid column c0 + c from the west (wrapping on global grids).
+     */
+    private static final class Crop {
+        final int r0;
+        final int rows;
+        final int c0;
+        final int cols;
+        final int[] rowOf;  // Per row in file order: the output row's first index, or -1.
+        final int[] colOf;  // Per point of a row in file order: the output column, or -1.
+        final int lastPoint; // The last grid point inside the crop, in file order.
+
+        Crop(Grid g, BoundingBox region) throws IOException {
+            if (region == null) {
+                r0 = 0;
+                rows = g.nj;
+                c0 = 0;
+                cols = g.ni;
+            } else {
+                int top = Math.min(g.nj - 1, (int) Math.ceil((region.north - g.south) / g.dj - 1e-9));
+                r0 = Math.max(0, (int) Math.floor((region.south - g.south) / g.dj + 1e-9));
+                rows = top - r0 + 1;
+                double width = region.east - region.west + (region.crossesAntimeridian() ? 360 : 0);
+                double offset = GeoMath.normalizeDegrees(region.west - g.west);
+                int first;
+                int last;
+                if (g.global()) {
+                    first = (int) Math.floor(offset / g.di + 1e-9);
+                    last = (int) Math.ceil((offset + width) / g.di - 1e-9);
+                    if (last - first + 1 > g.ni) last = first + g.ni - 1;
+                } else {
+                    // Regions starting west of the grid come out just under 360 degrees east of it.
+                    if (offset > (g.ni - 1) * g.di && offset + width > 360) offset -= 360;
+                    first = Math.max(0, (int) Math.floor(offset / g.di + 1e-9));
+                    last = Math.min(g.ni - 1, (int) Math.ceil((offset + width) / g.di - 1e-9));
+                }
+                c0 = first;
+                cols = last - first + 1;
+            }
+            if (rows < 1 || cols < 1) throw new IOException(region + " is outside the forecast grid");
+
+            rowOf = new int[g.nj];
+            for (int j = 0; j < g.nj; j++) {
+                int fromSouth = g.southToNorth ? j : g.nj - 1 - j;
+                int r = fromSouth - r0;
+                rowOf[j] = r >= 0 && r < rows ? r * cols : -1;
+            }
+            colOf = new int[g.ni];
+            for (int i = 0; i < g.ni; i++) {
+                int fromWest = g.eastToWest ? g.ni - 1 - i : i;
+                int c = fromWest - c0;
+                if (c < 0 && g.global()) c += g.ni;
+                colOf[i] = c >= 0 && c < cols ? c : -1;
+            }
+            int lastRow = g.nj - 1;
+            while (rowOf[lastRow] < 0) lastRow--;
+            int lastCol = g.ni - 1;
+            while (colOf[lastCol] < 0) lastCol--;
+            lastPoint = lastRow * g.ni + lastCol;
+        }
+    }
+
+    // --- Unpacking ---
+
+    /**
+     * Fields collected so far, all on the grid of the first.
+     */
+    private static final class Output {
+        Grid grid;
+        Crop crop;
+        long reference;
+        final TreeMap<Long, EnumMap<Grib2Parameter, float[]>> byTime = new TreeMap<>();
+
+        boolean has(Grib2Parameter p, long time) {
+            EnumMap<Grib2Parameter, float[]> at = byTime.get(time);
+            return at != null && at.containsKey(p);
+        }
+
+        void add(Grib2Parameter p, long time, long ref, Grid g, BoundingBox region, ByteBuffer buf,
+                 int packing, int bitmap, int data) throws IOException {
+            g.check();
+            if (grid == null) {
+                grid = g;
+                crop = new Crop(g, region);
+                reference = ref;
+            } else if (!grid.sameAs(g)) {
+                throw new IOException(p + " is on a different grid from the fields before it");
+            }
+            float[] values = new float[crop.rows * crop.cols];
+            Arrays.fill(values, Float.NaN);
+            unpack(buf, packing, bitmap, data, grid, crop, values);
+            byTime.computeIfAbsent(time, t -> new EnumMap<>(Grib2Parameter.class)).put(p, values);
+        }
+
+        Forecast build() {
+            long[] times = new long[byTime.size()];
+            Map<Grib2Parameter, float[][]> fields = new EnumMap<>(Grib2Parameter.class);
+            float[] none = new float[crop.rows * crop.cols];
+            Arrays.fill(none, Float.NaN);
+            int t = 0;
+            for (Map.Entry<Long, EnumMap<Grib2Parameter, float[]>> e : byTime.entrySet()) {
+                times[t] = e.getKey();
+                for (Map.Entry<Grib2Parameter, float[]> f : e.getValue().entrySet()) {
+                    fields.computeIfAbsent(f.getKey(), k -> new float[times.length][])[t] = f.getValue();
+                }
+                t++;
+            }
+            // A field missing at some time, like gusts at the analysis hour, reads as NaN there.
+            for (float[][] steps : fields.values()) {
+                for (int i = 0; i < steps.length; i++) if (steps[i] == null) steps[i] = none;
+            }
+            double west = GeoMath.wrapLongitude(grid.west + crop.c0 * grid.di);
+            return new Forecast(grid.south + crop.r0 * grid.dj, west, grid.dj, grid.di, crop.cols, crop.rows,
+                    reference, times, fields);
+        }
+    }
+
+    private static void unpack(ByteBuffer buf, int s5, int bitmap, int data, Grid g, Crop crop, float[] out)
+            throws IOException {
+        int count = buf.getInt(s5 + 5);
+        int template = buf.getShort(s5 + 9) & 0xffff;
+        float reference = buf.getFloat(s5 + 11);
+        double binaryScale = Math.pow(2, signed16(buf.getShort(s5 + 15)));
+        double decimalScale = Math.pow(10, -signed16(buf.getShort(s5 + 17)));
+        int bits = buf.get(s5 + 19) & 0xff;
+        if (bits > 31) throw new IOException(bits + "-bit packing is not supported");
+        Scale scale = new Scale(reference, binaryScale, decimalScale);
+
+        switch (template) {
+            case 0:
+                if (bitmap < 0 && count == g.ni * g.nj) {
+                    unpackSimpleCropped(buf, data, bits, g, crop, scale, out);
+                } else {
+                    BitReader in = new BitReader(buf, data);
+                    Sink sink = new Sink(buf, bitmap, g, crop, out);
+                    for (int n = 0; n < count && !sink.done(); n++) sink.put(scale.apply(in.read(bits)));
+                }
+                break;
+            case 2:
+            case 3:
+                unpackComplex(buf, s5, template, bits, data, count, scale, new Sink(buf, bitmap, g, crop, out));
+                break;
+            default:
+                throw new IOException("Data packing 5." + template + " is not supported");
+        }
+    }
+
+    /**
+     * Simple packing without a bitmap puts point k at bit k * bits, so only the rows and
+     * columns in the crop are read.
+     */
+    private static void unpackSimpleCropped(ByteBuffer buf, int data, int bits, Grid g, Crop crop, Scale scale,
+                                            float[] out) {
+        if (bits == 0) {
+            Arrays.fill(out, scale.apply(0));
+            return;
+        }
+        BitReader in = new BitReader(buf, data);
+        for (int j = 0; j < g.nj; j++) {
+            int row = crop.rowOf[j];
+            if (row < 0) continue;
+            long next = -1;
+            for (int i = 0; i < g.ni; i++) {
+                int col = crop.colOf[i];
+                if (col < 0) continue;
+                long k = (long) j * g.ni + i;
+                if (k != next) in.seek(k * bits);
+                out[row + col] = scale.apply(in.read(bits));
+                next = k + 1;
+            }
+        }
+    }
+
+    /**
+     * Complex packing (5.2) splits the values into groups, each with its own reference and bit
+     * width; spatial differencing (5.3) additionally stores first or second differences of
+     * neighboring values, which must be summed back in order.
+     */
+    private static void unpackComplex(ByteBuffer buf, int s5, int template, int bits, int data, int count,
+                                      Scale scale, Sink sink) throws IOException {
+        int missingMode = buf.get(s5 + 22) & 0xff;
+        int groups = buf.getInt(s5 + 31);
+        int widthRef = buf.get(s5 + 35) & 0xff;
+        int widthBits = buf.get(s5 + 36) & 0xff;
+        int lengthRef = buf.getInt(s5 + 37);
+        int lengthIncrement = buf.get(s5 + 41) & 0xff;
+        int lastLength = buf.getInt(s5 + 42);
+        int lengthBits = buf.get(s5 + 46) & 0xff;
+        int order = template == 3 ? buf.get(s5 + 47) & 0xff : 0;
+        int octets = template == 3 ? buf.get(s5 + 48) & 0xff : 0;
+        if (order > 2) throw new IOException("Spatial differencing of order " + order + " is not supported");
+        if (missingMode > 2) throw new IOException("Missing value management " + missingMode + " is not supported");
+
+        int at = data;
+        int first = 0;
+        int second = 0;
+        int minimum = 0;
+        if (order > 0) {
+            first = signedN(buf, at, octets);
+            at += octets;
+            if (order == 2) {
+                second = signedN(buf, at, octets);
+                at += octets;
+            }
+            minimum = signedN(buf, at, octets);
+            at += octets;
+        }
+
+        BitReader in = new BitReader(buf, at);
+        int[] refs = new int[groups];
+        for (int g = 0; g < groups; g++) refs[g] = in.read(bits);
+        in.align();
+        int[] widths = new int[groups];
+        for (int g = 0; g < groups; g++) widths[g] = widthRef + in.read(widthBits);
+        in.align();
+        int[] lengths = new int[groups];
+        for (int g = 0; g < groups; g++) lengths[g] = lengthRef + lengthIncrement * in.read(lengthBits);
+        in.align();
+        if (groups > 0) lengths[groups - 1] = lastLength;
+
+        int primaryMissing = bits == 0 ? 0 : (1 << bits) - 1;
+        int seen = 0;     // Non-missing values so far, for undoing the differences.
+        long prev = 0;
+        long prev2 = 0;
+        int written = 0;
+        for (int g = 0; g < groups; g++) {
+            int width = widths[g];
+            if (width > 31) throw new IOException("Group of " + width + "-bit values");
+            int groupMissing = width == 0 ? 0 : (1 << width) - 1;
+            boolean allMissing = width == 0 && missingMode > 0 && bits > 0
+                    && (refs[g] == primaryMissing || (missingMode == 2 && refs[g] == primaryMissing - 1));
+            if (sink.done()) return;  // Past the crop; the rest of the field is never needed.
+            for (int n = 0; n < lengths[g] && written < count; n++, written++) {
+                int raw = in.read(width);
+                if (allMissing || (missingMode > 0 && width > 0
+                        && (raw == groupMissing || (missingMode == 2 && raw == groupMissing - 1)))) {
+                    sink.put(Float.NaN);
+                    continue;
+                }
+                long x = refs[g] + raw;
+                if (order == 1) {
+                    x = seen == 0 ? first : x + minimum + prev;
+                } else if (order == 2) {
+                    x = seen == 0 ? first : seen == 1 ? second : x + minimum + 2 * prev - prev2;
+                }
+                prev2 = prev;
+                prev = x;
+                seen++;
+                sink.put(scale.apply(x));
+            }
+        }
+        if (written < count) throw new IOException("Complex packing ended after " + written + " of " + count + " values");
+    }
+
+    /**
+     * Converts packed integers to values: (R + X * 2^E) / 10^D.
+     */
+    private static final class Scale {
+        final double reference;
+        final double binary;
+        final double decimal;
+
+        Scale(double reference, double binary, double decimal) {
+            this.reference = reference;
+            this.binary = binary;
+            this.decimal = decimal;
+        }
+
+        float apply(long x) {
+            return (float) ((reference + x * binary) * decimal);
+        }
+    }
+
+    /**
+     * Places unpacked values, in file order, onto the grid points the bitmap marks present,
+     * keeping only those inside the crop.
+     */
+    private static final class Sink {
+        private final ByteBuffer buf;
+        private final int bitmap;
+        private final Grid g;
+        private final Crop crop;
+        private final float[] out;
+        private int point;  // Next grid point, in file order.
+        private int i;      // Its column and row in the file.
+        private int j;
+
+        Sink(ByteBuffer buf, int bitmap, Grid g, Crop crop, float[] out) {
+            this.buf = buf;
+            this.bitmap = bitmap;
+            this.g = g;
+            this.crop = crop;
+            this.out = out;
+        }
+
+        void put(float value) {
+            int total = g.ni * g.nj;
+            if (bitmap >= 0) {
+                // Points the bitmap leaves out have no value and stay NaN.
+                while (point < total && (buf.get(bitmap + (point >>> 3)) & (0x80 >>> (point & 7))) == 0) point++;
+            }
+            if (point >= total) return;
+            if (point != j * g.ni + i) {
+                j = point / g.ni;
+                i = point % g.ni;
+            }
+            int row = crop.rowOf[j];
+            int col = crop.colOf[i];
+            if (row >= 0 && col >= 0) out[row + col] = value;
+            point++;
+            if (++i == g.ni) {
+                i = 0;
+                j++;
+            }
+        }
+
+        boolean done() {
+            return point > crop.lastPoint;
+        }
+    }
+
+    /**
+     * Reads big-endian bit fields of up to 31 bits.
+     */
+    private static final class BitReader {
+        private final ByteBuffer buf;
+        private final int base;
+        private int pos;
+        private long acc;
+        private int accBits;
+
+        BitReader(ByteBuffer buf, int base) {
+            this.buf = buf;
+            this.base = base;
+            this.pos = base;
+        }
+
+        int read(int n) {
+            if (n == 0) return 0;
+            while (accBits < n) {
+                acc = (acc << 8) | (buf.get(pos++) & 0xff);
+                accBits += 8;
+            }
+            accBits -= n;
+            return (int) ((acc >>> accBits) & ((1L << n) - 1));
+        }
+
+        /** Skips to the next byte boundary. */
+        void align() {
+            accBits -= accBits & 7;
+        }
+
+        /** Moves to a bit offset from the start. */
+        void seek(long bit) {
+            pos = base + (int) (bit >>> 3);
+            acc = 0;
+            accBits = 0;
+            read((int) (bit & 7));
+        }
+    }
+}
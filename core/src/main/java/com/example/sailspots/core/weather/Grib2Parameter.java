@@ -0,0 +1,44 @@
+package com.example.sailspots.core.weather;
+
+/**
+ * The forecast fields the app reads from GRIB2 files, identified the way GRIB2 does: by
+ * discipline, parameter category and number (code tables 0.0 and 4.2), and the level they
+ * apply at (code table 4.5). These are the codes NOAA's GFS and ECMWF's open data use.
+ */
+public enum Grib2Parameter {
+    /** Eastward wind 10 m above ground, m/s. */
+    WIND_U(0, 2, 2, 103, 10),
+    /** Northward wind 10 m above ground, m/s. */
+    WIND_V(0, 2, 3, 103, 10),
+    /** Wind gust at the surface, m/s. */
+    GUST(0, 2, 22, 1, 0),
+    /** Pressure reduced to mean sea level, Pa. */
+    PRESSURE(0, 3, 1, 101, 0);
+
+    public final int discipline;
+    public final int category;
+    public final int number;
+    public final int surfaceType;
+    public final double surfaceValue;
+
+    Grib2Parameter(int discipline, int category, int number, int surfaceType, double surfaceValue) {
+        this.discipline = discipline;
+        this.category = category;
+        this.number = number;
+        this.surfaceType = surfaceType;
+        this.surfaceValue = surfaceValue;
+    }
+
+    /**
+     * @return The parameter for these codes, or null if it is not one the app reads.
+     */
+    static Grib2Parameter find(int discipline, int category, int number, int surfaceType, double surfaceValue) {
+        for (Grib2Parameter p : values()) {
+            if (p.discipline == discipline && p.category == category && p.number == number
+                    && p.surfaceType == surfaceType && Math.abs(p.surfaceValue - surfaceValue) < 1e-6) {
+                return p;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.sailspots.core.weather;
+
+import java.util.Arrays;
+
+/**
+ * Wind on a regular latitude/longitude grid at a series of forecast times, the shape of a
+ * GRIB wind forecast. Stored as u (toward east) and v (toward north) components in m/s, so
+ * interpolation never has to average directions across north.
+ *
+ * Samples are bilinear in space and linear in time. Times before the first step or after
+ * the last hold the nearest step; NaN cells count as no data. Immutable and thread-safe.
+ */
+public final class GridWindField implements WindField {
+
+    public static final double KNOTS_PER_MPS = 1.943844;
+
+    public final double south;
+    public final double west;
+    public final double latStep;
+    public final double lngStep;
+    public final int cols;
+    public final int rows;
+    private final long[] times;
+    private final float[][] u;  // [time][row * cols + col], row 0 at the south edge.
+    private final float[][] v;
+
+    /**
+     * @param times Forecast times in epoch millis, ascending.
+     * @param u     For each time, eastward wind in m/s, row-major from the south-west corner.
+     * @param v     For each time, northward wind in m/s, in the same layout.
+     */
+    public GridWindField(double south, double west, double latStep, double lngStep, int cols, int rows,
+                         long[] times, float[][] u, float[][] v) {
+        if (times.length == 0 || u.length != times.length || v.length != times.length) {
+            throw new IllegalArgumentException("Need u and v for every time");
+        }
+        for (int t = 0; t < times.length; t++) {
+            if (u[t].length != cols * rows || v[t].length != cols * rows) {
+                throw new IllegalArgumentException("Step " + t + " is not " + cols + "x" + rows);
+            }
+            if (t > 0 && times[t] <= times[t - 1]) throw new IllegalArgumentException("Times not ascending");
+        }
+        this.south = south;
+        this.west = west;
+        this.latStep = latStep;
+        this.lngStep = lngStep;
+        this.cols = cols;
+        this.rows = rows;
+        this.times = times.clone();
+        this.u = u;
+        this.v = v;
+    }
+
+    public int timeCount() { return times.length; }
+
+    public long time(int i) { return times[i]; }
+
+    public double north() { return south + (rows - 1) * latStep; }
+
+    public double east() { return west + (cols - 1) * lngStep; }
+
+    @Override
+    public boolean sample(double lat, double lng, long timeMillis, double[] out) {
+        double y = (lat - south) / latStep;
+        double x = (lng - west) / lngStep;
+        if (!(y >= 0 && y <= rows - 1 && x >= 0 && x <= cols - 1)) return false;
+        int r = Math.min((int) y, Math.max(0, rows - 2));
+        int c = Math.min((int) x, Math.max(0, cols - 2));
+        double fy = y - r;
+        double fx = x - c;
+
+        int t0 = timeIndex(times, timeMillis);
+        double ft = timeFraction(times, t0, timeMillis);
+        double uu = bilinear(u[t0], cols, rows, r, c, fx, fy);
+        double vv = bilinear(v[t0], cols, rows, r, c, fx, fy);
+        if (ft > 0) {
+            uu += ft * (bilinear(u[t0 + 1], cols, rows, r, c, fx, fy) - uu);
+            vv += ft * (bilinear(v[t0 + 1], cols, rows, r, c, fx, fy) - vv);
+        }
+        if (Double.isNaN(uu) || Double.isNaN(vv)) return false;  // Masked out, e.g. over land.
+        out[0] = Math.sqrt(uu * uu + vv * vv) * KNOTS_PER_MPS;
+        // Meteorological convention: the direction the wind comes from.
+        double from = Math.toDegrees(Math.atan2(-uu, -vv));
+        out[1] = from < 0 ? from + 360 : from;
+        return true;
+    }
+
+    /**
+     * @return The step at or before the time, or the first step if it is earlier.
+     */
+    static int timeIndex(long[] times, long timeMillis) {
+        int t = Arrays.binarySearch(times, timeMillis);
+        return t >= 0 ? t : Math.max(0, -t - 2);
+    }
+
+    /**
+     * @return How far the time is from step t0 toward the next, 0 outside the forecast.
+     */
+    static double timeFraction(long[] times, int t0, long timeMillis) {
+        if (t0 + 1 >= times.length || timeMillis <= times[t0]) return 0;
+        return (double) (timeMillis - times[t0]) / (times[t0 + 1] - times[t0]);
+    }
+
+    /**
+     * Blends the four cells around (c + fx, r + fy) of a row-major grid.
+     */
+    static double bilinear(float[] grid, int cols, int rows, int r, int c, double fx, double fy) {
+        int i = r * cols + c;
+        double south0 = grid[i];
+        double south1 = cols > 1 ? grid[i + 1] : south0;
+        double north0 = rows > 1 ? grid[i + cols] : south0;
+        double north1 = cols > 1 && rows > 1 ? grid[i + cols + 1] : north0;
+        double s = south0 + fx * (south1 - south0);
+        double n = north0 + fx * (north1 - north0);
+        return s + fy * (n - s);
+    }
+
+    @Override
+    public String toString() {
+        return "GridWindField{" + cols + "x" + rows + " from " + south + ", " + west + ", "
+                + times.length + " times}";
+    }
+}
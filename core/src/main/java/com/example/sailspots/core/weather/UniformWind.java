@@ -0,0 +1,29 @@
+package com.example.sailspots.core.weather;
+
+import com.example.sailspots.core.geo.GeoMath;
+
+/**
+ * The same wind everywhere, at all times. Stands in for a forecast when there is none.
+ */
+public final class UniformWind implements WindField {
+
+    public final double knots;
+    public final double fromDegrees;
+
+    public UniformWind(double knots, double fromDegrees) {
+        this.knots = knots;
+        this.fromDegrees = GeoMath.normalizeDegrees(fromDegrees);
+    }
+
+    @Override
+    public boolean sample(double lat, double lng, long timeMillis, double[] out) {
+        out[0] = knots;
+        out[1] = fromDegrees;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "UniformWind{" + knots + " kt from " + fromDegrees + '}';
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.sailspots.core.weather;
+
+/**
+ * Wind over an area and a span of time, e.g. a forecast or a steady breeze for planning.
+ * Implementations must be thread-safe: routing samples them from many threads at once.
+ */
+public interface WindField {
+
+    /**
+     * Samples the wind at a point and time.
+     * @param out Receives the true wind speed in knots at [0] and the direction it blows
+     *            from, in degrees clockwise from true north, at [1].
+     * @return False if the point or time is outside the field; {@code out} is then unchanged.
+     */
+    boolean sample(double lat, double lng, long timeMillis, double[] out);
+}
@@ -0,0 +1,96 @@
+package com.example.sailspots.core.weather;
+
+import java.util.Locale;
+
+/**
+ * The wind and gust speeds a sailor wants to hear about, and the check of a forecast against
+ * them. Either threshold may be off (NaN). Immutable.
+ */
+public final class WindThresholds {
+
+    public static final WindThresholds OFF = new WindThresholds(Double.NaN, Double.NaN);
+
+    public final double windKnots;
+    public final double gustKnots;
+
+    /**
+     * @param windKnots Sustained wind to alert at, or NaN for no wind alerts.
+     * @param gustKnots Gusts to alert at, or NaN for no gust alerts.
+     */
+    public WindThresholds(double windKnots, double gustKnots) {
+        this.windKnots = windKnots;
+        this.gustKnots = gustKnots;
+    }
+
+    public boolean enabled() {
+        return !Double.isNaN(windKnots) || !Double.isNaN(gustKnots);
+    }
+
+    /**
+     * Looks through the forecast steps between two times for wind or gusts at or over the
+     * thresholds at a place.
+     * @return What crossed a threshold, with the peaks over the whole span, or null if nothing
+     *         did or the forecast has no wind there then.
+     */
+    public Exceedance check(Forecast forecast, double lat, double lng, long fromMillis, long toMillis) {
+        if (!enabled()) return null;
+        GridWindField field = forecast.windField();
+        boolean gusts = forecast.has(Grib2Parameter.GUST);
+        double[] wind = new double[2];
+        long first = Long.MIN_VALUE;
+        double peakWind = Double.NaN;
+        double peakFrom = Double.NaN;
+        double peakGust = Double.NaN;
+        boolean overWind = false;
+        boolean overGust = false;
+        for (int i = 0; i < forecast.timeCount(); i++) {
+            long t = forecast.time(i);
+            if (t < fromMillis || t > toMillis) continue;
+            boolean over = false;
+            if (field != null && field.sample(lat, lng, t, wind)) {
+                if (!(wind[0] <= peakWind)) {
+                    peakWind = wind[0];
+                    peakFrom = wind[1];
+                }
+                if (wind[0] >= windKnots) over = overWind = true;
+            }
+            if (gusts) {
+                double gust = forecast.sample(Grib2Parameter.GUST, lat, lng, t) * GridWindField.KNOTS_PER_MPS;
+                if (!Double.isNaN(gust)) {
+                    if (!(gust <= peakGust)) peakGust = gust;
+                    if (gust >= gustKnots) over = overGust = true;
+                }
+            }
+            if (over && first == Long.MIN_VALUE) first = t;
+        }
+        if (first == Long.MIN_VALUE) return null;
+        return new Exceedance(first, peakWind, peakFrom, peakGust, overWind, overGust);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "WindThresholds{wind %.0f kt, gusts %.0f kt}", windKnots, gustKnots);
+    }
+
+    /**
+     * A forecast over a threshold at one place.
+     */
+    public static final class Exceedance {
+        public final long firstMillis;   // The first forecast step over a threshold.
+        public final double windKnots;   // Peak sustained wind over the span; NaN if none.
+        public final double windFrom;    // Where the peak wind blows from, in degrees.
+        public final double gustKnots;   // Peak gust over the span; NaN if the forecast has none.
+        public final boolean wind;       // Whether the wind threshold was reached.
+        public final boolean gust;       // Whether the gust threshold was reached.
+
+        Exceedance(long firstMillis, double windKnots, double windFrom, double gustKnots,
+                   boolean wind, boolean gust) {
+            this.firstMillis = firstMillis;
+            this.windKnots = windKnots;
+            this.windFrom = windFrom;
+            this.gustKnots = gustKnots;
+            this.wind = wind;
+            this.gust = gust;
+        }
+    }
+}
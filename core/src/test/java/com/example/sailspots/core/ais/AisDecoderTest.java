@@ -0,0 +1,211 @@
+package com.example.sailspots.core.ais;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.sailspots.core.nmea.SentenceReader;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AisDecoderTest {
+
+    private static boolean decode(AisDecoder decoder, String sentence, long now) {
+        byte[] b = sentence.getBytes(StandardCharsets.US_ASCII);
+        return decoder.decode(b, 0, b.length, now);
+    }
+
+    @Test
+    public void decodesPositionAndStaticReports() {
+        AisTargets targets = new AisTargets(16);
+        AisDecoder decoder = new AisDecoder(targets);
+        assertTrue(decode(decoder, "!AIVDM,1,1,,A,13u?etPv2;0n:dDPwUM1U1Cb069D,0*24", 1000));
+        AisTargets.Changes changes = new AisTargets.Changes(16);
+        assertEquals(1, targets.drain(changes));
+        assertEquals(265547250, changes.mmsi[0]);
+        assertEquals(AisTargets.CHANGED_POSITION, changes.flags[0]);
+        assertEquals(57.660353, changes.lat[0], 1e-6);
+        assertEquals(11.832977, changes.lng[0], 1e-6);
+        assertEquals(13.9f, changes.sog[0], 1e-6);
+        assertEquals(40.4f, changes.cog[0], 1e-6);
+        assertEquals(41, changes.heading[0]);
+
+        // A type 5 over two sentences, with a tag block in front of the first.
+        assertFalse(decode(decoder, "\\s:2573345,c:1241544035*7A\\!AIVDM,2,1,1,A,"
+                + "55?MbV02;H;s<HtKR20EHE:0@T4@Dn2222222216L961O5Gf0NSQEp6ClRp8,0*1C", 2000));
+        assertTrue(decode(decoder, "!AIVDM,2,2,1,A,88888888880,2*25", 2000));
+        assertEquals("EVER DIADEM", targets.name(351759000));
+        assertEquals(70, targets.shipType(351759000));
+        assertTrue(Double.isNaN(targets.lat(351759000)));  // Named, but no position yet.
+        assertEquals(2, decoder.messages());
+    }
+
+    @Test
+    public void dropsBadSentences() {
+        AisTargets targets = new AisTargets(16);
+        AisDecoder decoder = new AisDecoder(targets);
+        assertFalse(decode(decoder, "!AIVDM,1,1,,A,13u?etPv2;0n:dDPwUM1U1Cb069D,0*25", 0));
+        assertFalse(decode(decoder, "!AIVDM,1,1,,A,13u?etPv2;0n:dDPwUM1U1Cb069D,0", 0));
+        assertEquals(2, decoder.badChecksums());
+        // A second part with no first.
+        assertFalse(decode(decoder, "!AIVDM,2,2,1,A,88888888880,2*25", 0));
+        assertEquals(1, decoder.partsDropped());
+        assertEquals(0, targets.size());
+    }
+
+    @Test
+    public void simulatedTrafficRoundTrips() {
+        AisSimulator sim = new AisSimulator(41.5, -71.3, 5, 300, 7);
+        AisTargets targets = new AisTargets(512);
+        AisDecoder decoder = new AisDecoder(targets, () -> 0);
+        int sent = sim.step(1, decoder);
+        // One position each, a type 5 in two parts for each ship, type 24 A and B for each yacht.
+        assertEquals(300 + 75 * 2 + 225 * 2, sent);
+        assertEquals(300 + 75 + 225 * 2, decoder.messages());
+        assertEquals(0, decoder.malformed() + decoder.badChecksums() + decoder.unsupported());
+        assertEquals(300, targets.size());
+        for (int i = 0; i < sim.vessels(); i++) {
+            int mmsi = sim.mmsi(i);
+            assertEquals(sim.lat(i), targets.lat(mmsi), 1e-6);
+            assertEquals(sim.lng(i), targets.lng(mmsi), 1e-6);
+            assertEquals(sim.name(i), targets.name(mmsi));
+            assertEquals(sim.shipType(i), targets.shipType(mmsi));
+        }
+    }
+
+    @Test
+    public void conflatesUpdatesBetweenDrains() {
+        AisTargets targets = new AisTargets(4);
+        int[] signals = new int[1];
+        targets.setListener(() -> signals[0]++);
+        AisTargets.Changes changes = new AisTargets.Changes(4);
+
+        targets.position(111, 0, 41.0, -71.0, 5, 90, 90);
+        targets.position(111, 1, 41.1, -71.1, 6, 91, 91);
+        targets.staticData(111, 1, "SEA BREEZE".toCharArray(), 10, 36);
+        targets.position(222, 1, 42.0, -72.0, Float.NaN, Float.NaN, AisTargets.NO_HEADING);
+        targets.position(111, 2, 41.2, -71.2, 7, 92, 92);
+        assertEquals(1, signals[0]);  // Only the first change of a clean table signals.
+
+        assertEquals(2, targets.drain(changes));
+        assertEquals(111, changes.mmsi[0]);
+        assertEquals(AisTargets.CHANGED_POSITION | AisTargets.CHANGED_STATIC, changes.flags[0]);
+        assertEquals(41.2, changes.lat[0], 0);
+        assertEquals(222, changes.mmsi[1]);
+        assertEquals(0, targets.drain(changes));
+
+        // The same name again changes nothing.
+        targets.staticData(111, 3, "SEA BREEZE".toCharArray(), 10, 36);
+        assertEquals(0, targets.drain(changes));
+
+        assertEquals(1, targets.expire(2));
+        assertEquals(2, signals[0]);
+        assertEquals(0, targets.drain(changes));
+        assertEquals(1, changes.removedCount);
+        assertEquals(222, changes.removed[0]);
+        assertNull(targets.name(222));
+        assertEquals("SEA BREEZE", targets.name(111));
+
+        // A new reader gets everything still known.
+        targets.replay();
+        assertEquals(3, signals[0]);
+        assertEquals(1, targets.drain(changes));
+        assertEquals(41.2, changes.lat[0], 0);
+    }
+
+    @Test
+    public void silentFeedStillExpiresItsTargets() {
+        // Twenty vessels heard once, then the source drops and nothing else ever arrives.
+        AisSimulator sim = new AisSimulator(41.5, -71.3, 5, 20, 9);
+        AisTargets targets = new AisTargets(32);
+        sim.step(1, new AisDecoder(targets, () -> 0));
+        int[] signals = new int[1];
+        targets.setListener(() -> signals[0]++);
+        AisTargets.Changes changes = new AisTargets.Changes(32);
+        assertEquals(20, targets.drain(changes));
+
+        // The map's expiry timer is all that runs: too soon removes nothing and asks for no frame.
+        long expireMillis = 6 * 60_000;
+        assertEquals(0, targets.expire(60_000 - expireMillis));
+        assertEquals(0, signals[0]);
+        // Once they are old enough, the timer alone removes them and asks for the frame that draws it.
+        assertEquals(20, targets.expire(expireMillis + 1 - expireMillis));
+        assertEquals(1, signals[0]);
+        assertEquals(0, targets.drain(changes));
+        assertEquals(20, changes.removedCount);
+        assertEquals(0, targets.size());
+    }
+
+    @Test
+    public void evictsTheStalestWhenFull() {
+        AisTargets targets = new AisTargets(8);
+        for (int v = 1; v <= 100; v++) targets.position(v * 7919, v, v / 10.0, 0, 0, 0, 0);
+        assertEquals(8, targets.size());
+        assertEquals(92, targets.evictions());
+        for (int v = 93; v <= 100; v++) assertEquals(v / 10.0, targets.lat(v * 7919), 0);
+        assertTrue(Double.isNaN(targets.lat(92 * 7919)));
+    }
+
+    @Test
+    public void readsSentencesOverTcp() throws Exception {
+        AisSimulator sim = new AisSimulator(41.5, -71.3, 5, 50, 3);
+        List<byte[]> lines = new ArrayList<>();
+        for (int s = 0; s < 3; s++) {
+            sim.step(1, (buf, off, len) -> {
+                byte[] line = new byte[len + 2];
+                System.arraycopy(buf, off, line, 0, len);
+                line[len] = '\r';
+                line[len + 1] = '\n';
+                lines.add(line);
+            });
+        }
+        AisTargets targets = new AisTargets(64);
+        AisDecoder decoder = new AisDecoder(targets);
+        try (ServerSocket server = new ServerSocket(0)) {
+            SentenceReader reader = SentenceReader.tcp("127.0.0.1", server.getLocalPort(), decoder);
+            Thread feed = new Thread(() -> {
+                try {
+                    reader.run();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            feed.start();
+            try (Socket client = server.accept(); OutputStream out = client.getOutputStream()) {
+                // Odd-sized writes, so sentences straddle reads.
+                byte[] all = concat(lines);
+                for (int off = 0; off < all.length; off += 97) {
+                    out.write(all, off, Math.min(97, all.length - off));
+                    out.flush();
+                }
+            }
+            feed.join(5000);
+            assertFalse(feed.isAlive());
+            assertEquals(lines.size(), reader.sentences());
+        }
+        assertEquals(0, decoder.badChecksums() + decoder.malformed());
+        assertEquals(50, targets.size());
+        for (int i = 0; i < sim.vessels(); i++) assertEquals(sim.lat(i), targets.lat(sim.mmsi(i)), 1e-6);
+    }
+
+    private static byte[] concat(List<byte[]> parts) {
+        int n = 0;
+        for (byte[] p : parts) n += p.length;
+        byte[] all = new byte[n];
+        n = 0;
+        for (byte[] p : parts) {
+            System.arraycopy(p, 0, all, n, p.length);
+            n += p.length;
+        }
+        return all;
+    }
+}
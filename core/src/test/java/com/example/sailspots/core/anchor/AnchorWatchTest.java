@@ -0,0 +1,102 @@
+package com.example.sailspots.core.anchor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class AnchorWatchTest {
+
+    private static final double LAT = 41.49;
+    private static final double LNG = -71.32;
+    private static final double METRES_PER_DEGREE = 111_195;
+    private static final long START = 1_720_000_000_000L;
+
+    private static double lat(double north) {
+        return LAT + north / METRES_PER_DEGREE;
+    }
+
+    private static double lng(double east) {
+        return LNG + east / (METRES_PER_DEGREE * Math.cos(Math.toRadians(LAT)));
+    }
+
+    @Test
+    public void aQuietNightSamplesSlowlyAndIgnoresOutliers() {
+        AnchorWatch watch = new AnchorWatch(LAT, LNG, 50, START);
+        Random random = new Random(47);
+        long t = START;
+        int outliers = 0;
+        int slowFixes = 0;
+        while (t < START + 8 * 3_600_000L) {
+            // Swinging through 90 degrees on 30 m of rode every twenty minutes, with 4 m GPS noise.
+            double angle = Math.toRadians(45 * Math.sin(2 * Math.PI * (t - START) / 1_200_000.0));
+            double east = 30 * Math.sin(angle) + random.nextGaussian() * 4;
+            double north = 30 * Math.cos(angle) + random.nextGaussian() * 4;
+            if (random.nextInt(40) == 0) {
+                east += 200;  // Multipath off the breakwater.
+                outliers++;
+            }
+            watch.onWakeup();
+            watch.onFix(t, lat(north), lng(east), 5);
+            assertFalse("alarm at " + (t - START) / 1000 + " s", watch.alarm());
+            if (watch.intervalMillis() == AnchorWatch.SLOW_MILLIS) slowFixes++;
+            t += watch.intervalMillis();
+        }
+        assertTrue(outliers > 0);
+        assertTrue(watch.rejected() >= outliers);
+        // Every 5 s would be 720 an hour.
+        double perHour = watch.fixesPerHour(t);
+        assertTrue(perHour + " fixes an hour", perHour < 120);
+        assertEquals(perHour, watch.wakeupsPerHour(t), 1e-9);
+        assertTrue(slowFixes + " of " + watch.fixes() + " slow", slowFixes > watch.fixes() / 2);
+        assertEquals(30, watch.distanceMetres(), 8);
+    }
+
+    @Test
+    public void draggingRaisesTheAlarmSoonAfterLeavingTheCircle() {
+        AnchorWatch watch = new AnchorWatch(LAT, LNG, 50, START);
+        Random random = new Random(7);
+        long t = START;
+        double north = 30;
+        double dragFrom = START + 3_600_000L;
+        double trueDistanceAtAlarm = Double.NaN;
+        while (t < START + 3 * 3_600_000L) {
+            // Holds for an hour, then drags downwind at half a knot.
+            if (t > dragFrom) north = 30 + 0.257 * (t - dragFrom) / 1000.0;
+            watch.onFix(t, lat(north + random.nextGaussian() * 4), lng(random.nextGaussian() * 4), 5);
+            if (watch.alarm()) {
+                trueDistanceAtAlarm = north;
+                break;
+            }
+            t += watch.intervalMillis();
+        }
+        assertEquals(AnchorWatch.State.DRAGGING, watch.state());
+        // Sampling sped up near the edge, so the alarm comes within a few metres of it.
+        assertTrue("alarm at " + trueDistanceAtAlarm + " m", trueDistanceAtAlarm < 60);
+        assertEquals(AnchorWatch.FAST_MILLIS, watch.intervalMillis());
+
+        watch.acknowledge();
+        assertFalse(watch.alarm());
+        watch.onFix(t + 5000, lat(north + 2), LNG, 5);
+        watch.onFix(t + 10000, lat(north + 4), LNG, 5);
+        assertTrue(watch.alarm());
+    }
+
+    @Test
+    public void aRealJumpIsAcceptedAfterAFewRejections() {
+        PositionFilter filter = new PositionFilter();
+        for (int i = 0; i < 20; i++) assertTrue(filter.update(i * 5000L, 0, 0, 3));
+        long t = 100_000;
+        int rejected = 0;
+        while (!filter.update(t, 300, 0, 3)) {
+            rejected++;
+            t += 5000;
+        }
+        assertEquals(PositionFilter.MAX_REJECTED, rejected);
+        assertEquals(300, filter.east(), 1e-9);
+        assertTrue(filter.update(t + 5000, 301, 0, 3));
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.sailspots.core.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.geo.GeoMath;
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.model.MarinaItem;
+import com.example.sailspots.core.util.IntList;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks the catalog's spatial queries, clustering and search against brute force.
+ */
+public class MarinaCatalogTest {
+
+    private static MarinaCatalog randomCatalog(int n, long seed) {
+        Random rnd = new Random(seed);
+        MarinaCatalog catalog = new MarinaCatalog();
+        for (int i = 0; i < n; i++) {
+            GeoPoint p = new GeoPoint(40.0 + rnd.nextDouble() * 2, -75.0 + rnd.nextDouble() * 2);
+            catalog.add(new MarinaItem("Marina " + i, i + " Dock St", "id" + i, p, 0, false));
+        }
+        return catalog;
+    }
+
+    @Test
+    public void queryBox_matchesLinearScan() {
+        MarinaCatalog catalog = randomCatalog(5000, 1);
+        BoundingBox box = new BoundingBox(40.5, -74.6, 40.9, -74.1);
+        IntList hits = new IntList();
+        catalog.index().queryBox(box, hits);
+
+        int expected = 0;
+        for (MarinaItem m : catalog.items()) if (box.contains(m.latLng)) expected++;
+        assertEquals(expected, hits.size());
+    }
+
+    @Test
+    public void nearest_matchesLinearScan() {
+        MarinaCatalog catalog = randomCatalog(5000, 2);
+        SpatialGridIndex index = catalog.index();
+        Random rnd = new Random(3);
+        for (int q = 0; q < 50; q++) {
+            double lat = 39.5 + rnd.nextDouble() * 3;
+            double lng = -75.5 + rnd.nextDouble() * 3;
+            int[] idx = new int[10];
+            double[] miles = new double[10];
+            assertEquals(10, index.nearest(lat, lng, 10, idx, miles));
+
+            double[] all = new double[index.size()];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = GeoMath.haversineMiles(lat, lng, index.latitude(i), index.longitude(i));
+            }
+            Arrays.sort(all);
+            for (int i = 0; i < 10; i++) assertEquals(all[i], miles[i], 1e-6);
+        }
+    }
+
+    @Test
+    public void clusters_coverEveryPointOnce() {
+        MarinaCatalog catalog = randomCatalog(2000, 4);
+        BoundingBox box = new BoundingBox(40.0, -75.0, 42.0, -73.0);
+        List<MarinaClusterer.Cluster> clusters = new MarinaClusterer(64).cluster(catalog.index(), box, 9);
+        int total = 0;
+        for (MarinaClusterer.Cluster c : clusters) total += c.size();
+        assertEquals(2000, total);
+        assertTrue(clusters.size() < 2000);
+    }
+
+    @Test
+    public void search_ranksNameStartAboveAddressMatch() {
+        MarinaCatalog catalog = new MarinaCatalog();
+        catalog.add(new MarinaItem("Hudson Marina", "123 River Rd", "a", new GeoPoint(40.70, -74.01), 0, false));
+        catalog.add(new MarinaItem("Pier 40", "353 Hudson St", "b", new GeoPoint(40.73, -74.01), 0, false));
+        catalog.add(new MarinaItem("ONE°15 Brooklyn Marina", "159 Bridge Park Dr", "c", new GeoPoint(40.69, -74.00), 0, false));
+
+        List<MarinaSearch.Hit> hits = new MarinaSearch(catalog).search("hudson", null, 10);
+        assertEquals(2, hits.size());
+        assertEquals("a", hits.get(0).item.placeId);
+        assertEquals("b", hits.get(1).item.placeId);
+
+        hits = new MarinaSearch(catalog).search("one 15", null, 10);
+        assertEquals("c", hits.get(0).item.placeId);
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.sailspots.core.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.model.MarinaItem;
+import com.example.sailspots.core.util.IntList;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Round-trips catalogs through the marina pack format and checks queries against the heap catalog.
+ */
+public class MarinaPackTest {
+
+    private static MarinaCatalog randomCatalog(int n, long seed) {
+        Random rnd = new Random(seed);
+        MarinaCatalog catalog = new MarinaCatalog();
+        for (int i = 0; i < n; i++) {
+            GeoPoint p = new GeoPoint(40.0 + rnd.nextDouble() * 2, -75.0 + rnd.nextDouble() * 2);
+            float rating = (i % 3 == 0) ? Float.NaN : rnd.nextInt(51) / 10f;
+            catalog.add(new MarinaItem("Marina " + i, (i % 7) + " Dock St", "pack" + i, p, 0,
+                    rating, i % 3, false));
+        }
+        return catalog;
+    }
+
+    private static byte[] pack(MarinaCatalog catalog) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MarinaPackWriter.write(catalog.items(), SpatialGridIndex.DEFAULT_CELL_DEGREES, out);
+        return out.toByteArray();
+    }
+
+    private static Set<String> placeIds(List<MarinaItem> items) {
+        Set<String> ids = new HashSet<>();
+        for (MarinaItem m : items) ids.add(m.placeId);
+        return ids;
+    }
+
+    @Test
+    public void columnsRoundTrip() throws IOException {
+        MarinaCatalog catalog = new MarinaCatalog();
+        catalog.add(new MarinaItem("ONE°15 Brooklyn Marina", null, "pk-a", new GeoPoint(40.697, -73.999),
+                0, 4.7f, MarinaItem.OPEN_NOW, false));
+        catalog.add(new MarinaItem("No Coordinates", "x", "pk-b", null, 0, false));
+        catalog.add(new MarinaItem("Date Line", "Pier 1", "pk-c", new GeoPoint(-16.5, 179.99),
+                0, Float.NaN, MarinaItem.CLOSED_NOW, false));
+
+        MarinaPack pack = MarinaPack.wrap(ByteBuffer.wrap(pack(catalog)));
+        assertEquals(2, pack.size());
+
+        MarinaItem a = pack.nearest(new GeoPoint(40.7, -74.0), 1).get(0);
+        assertEquals("ONE°15 Brooklyn Marina", a.name);
+        assertEquals("", a.address);
+        assertEquals("pk-a", a.placeId);
+        assertEquals(40.697, a.latLng.latitude, 1e-7);
+        assertEquals(-73.999, a.latLng.longitude, 1e-7);
+        assertEquals(4.7f, a.rating, 1e-6f);
+        assertEquals(MarinaItem.OPEN_NOW, a.openStatus);
+
+        MarinaItem c = pack.nearest(new GeoPoint(-16.5, -179.99), 1).get(0);
+        assertEquals("pk-c", c.placeId);
+        assertTrue(Float.isNaN(c.rating));
+        assertEquals(MarinaItem.CLOSED_NOW, c.openStatus);
+    }
+
+    @Test
+    public void queriesMatchTheHeapCatalog() throws IOException {
+        MarinaCatalog catalog = randomCatalog(5000, 7);
+        MarinaPack pack = MarinaPack.wrap(ByteBuffer.wrap(pack(catalog)));
+        assertEquals(catalog.size(), pack.size());
+
+        BoundingBox box = new BoundingBox(40.5, -74.6, 40.9, -74.1);
+        assertEquals(placeIds(catalog.within(box)), placeIds(pack.within(box)));
+
+        Random rnd = new Random(3);
+        for (int q = 0; q < 50; q++) {
+            GeoPoint from = new GeoPoint(39.5 + rnd.nextDouble() * 3, -75.5 + rnd.nextDouble() * 3);
+            List<MarinaItem> expected = catalog.nearest(from, 10);
+            List<MarinaItem> actual = pack.nearest(from, 10);
+            List<String> e = new ArrayList<>();
+            List<String> a = new ArrayList<>();
+            for (MarinaItem m : expected) e.add(m.placeId);
+            for (MarinaItem m : actual) a.add(m.placeId);
+            assertEquals(e, a);
+        }
+        int[] idx = new int[10];
+        double[] miles = new double[10];
+        assertEquals(10, pack.nearest(-40, 100, 10, idx, miles)); // Far from every marina.
+    }
+
+    @Test
+    public void numbersRowsAndFindsThemByPlaceId() throws IOException {
+        MarinaCatalog catalog = randomCatalog(500, 5);
+        byte[] bytes = pack(catalog);
+        MarinaPack pack = MarinaPack.wrap(ByteBuffer.wrap(bytes));
+        PlaceIdRegistry registry = PlaceIdRegistry.global();
+        int interned = registry.size();
+
+        Set<Integer> ids = new HashSet<>();
+        for (MarinaItem m : pack.within(new BoundingBox(-90, -180, 90, 180))) {
+            assertTrue(ids.add(m.id));
+            assertEquals(m.id, pack.idOf(m.placeId));
+        }
+        assertEquals(500, ids.size());
+        assertEquals(interned, registry.size());  // Queries intern nothing.
+        assertEquals(PlaceIdRegistry.NO_ID, pack.idOf("not-in-pack"));
+        assertEquals(-1, pack.rowOf(null));
+
+        // A second mapping gets its own block, so items from both never share an ID.
+        MarinaPack again = MarinaPack.wrap(ByteBuffer.wrap(bytes));
+        assertTrue(again.idOf("pack7") != pack.idOf("pack7"));
+
+        // Version 1 packs have no place ID index and are searched row by row.
+        ByteBuffer v1 = ByteBuffer.wrap(bytes.clone()).order(ByteOrder.LITTLE_ENDIAN);
+        v1.putInt(MarinaPack.H_VERSION, MarinaPack.VERSION_WITHOUT_INDEX);
+        MarinaPack old = MarinaPack.wrap(v1);
+        assertEquals(pack.rowOf("pack321"), old.rowOf("pack321"));
+        assertEquals(-1, old.rowOf("pack500"));
+    }
+
+    @Test
+    public void mapsAFile() throws IOException {
+        File file = File.createTempFile("marinas", ".pack");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(pack(randomCatalog(100, 11)));
+        }
+        MarinaPack pack = MarinaPack.open(file);
+        assertEquals(100, pack.size());
+        IntList hits = new IntList();
+        assertEquals(100, pack.queryBox(new BoundingBox(-90, -180, 90, 180), hits));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        MarinaPack.wrap(ByteBuffer.wrap(new byte[128]));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.sailspots.core.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.model.MarinaItem;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class PlaceIdRegistryTest {
+
+    @Test
+    public void intern_assignsDenseStableIds() {
+        PlaceIdRegistry registry = new PlaceIdRegistry();
+        assertEquals(0, registry.intern("ChIJa"));
+        assertEquals(1, registry.intern("ChIJb"));
+        assertEquals(0, registry.intern("ChIJa"));
+        assertEquals(PlaceIdRegistry.NO_ID, registry.intern(null));
+        assertEquals(PlaceIdRegistry.NO_ID, registry.idOf("ChIJc"));
+        assertEquals("ChIJb", registry.placeIdOf(1));
+        assertNull(registry.placeIdOf(2));
+        assertEquals(2, registry.size());
+
+        // A reserved block takes the next IDs but stores no place IDs.
+        assertEquals(2, registry.reserve(3));
+        assertNull(registry.placeIdOf(3));
+        assertEquals(5, registry.intern("ChIJc"));
+        assertEquals("ChIJc", registry.placeIdOf(5));
+        assertEquals("ChIJb", registry.placeIdOf(1));
+        assertEquals(6, registry.size());
+    }
+
+    @Test
+    public void favoriteSet_testsMembershipByDenseId() {
+        PlaceIdRegistry registry = new PlaceIdRegistry();
+        int a = registry.intern("ChIJa");
+        int b = registry.intern("ChIJb");
+        FavoriteSet favorites = FavoriteSet.fromPlaceIds(Arrays.asList("ChIJb", "ChIJz"), registry);
+        assertFalse(favorites.contains(a));
+        assertTrue(favorites.contains(b));
+        assertTrue(favorites.contains(registry.idOf("ChIJz")));
+        assertFalse(favorites.contains(PlaceIdRegistry.NO_ID));
+        assertEquals(2, favorites.size());
+
+        // Against a store, favorites it holds take the store's IDs and nothing is interned.
+        MarinaStore store = new MarinaStore() {
+            @Override public int size() { return 1; }
+            @Override public List<MarinaItem> within(BoundingBox box) { return Collections.emptyList(); }
+            @Override public List<MarinaItem> nearest(GeoPoint from, int k) { return Collections.emptyList(); }
+            @Override public int idOf(String placeId) { return "ChIJb".equals(placeId) ? 40 : PlaceIdRegistry.NO_ID; }
+        };
+        int interned = registry.size();
+        FavoriteSet resolved = favorites.resolveIn(store, registry);
+        assertTrue(resolved.contains(40));
+        assertFalse(resolved.contains(b));
+        assertTrue(resolved.contains(registry.idOf("ChIJz")));
+        assertEquals(interned, registry.size());
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.sailspots.core.charts;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.sailspots.core.geo.BoundingBox;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Loads chart tiles through both cache levels from a local HTTP server standing in for the
+ * chart tile server.
+ */
+public class ChartTileCacheTest {
+
+    private File cacheDir;
+    private HttpServer server;
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> conditional = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch slowStarted = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws IOException {
+        cacheDir = Files.createTempDirectory("charts").toFile();
+        // Every tile's body is its path; ETags are stable, so revalidation always gets a 304.
+        // Row 9 has no tiles, and tile 12/0/1 answers only after a long delay.
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            requests.add(path);
+            String etag = "\"" + path.hashCode() + "\"";
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            try {
+                if (ifNoneMatch != null) conditional.add(path);
+                // Only the first request stalls: the JDK's HttpURLConnection quietly retries a GET
+                // whose connection drops, which Android's does not.
+                if (path.equals("/12/0/1.png") && slowStarted.getCount() > 0) {
+                    slowStarted.countDown();
+                    Thread.sleep(10_000);
+                }
+                if (path.endsWith("/9.png")) {
+                    exchange.sendResponseHeaders(404, -1);
+                } else if (etag.equals(ifNoneMatch)) {
+                    exchange.getResponseHeaders().set("Cache-Control", "max-age=60");
+                    exchange.sendResponseHeaders(304, -1);
+                } else {
+                    byte[] body = path.getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("ETag", etag);
+                    exchange.getResponseHeaders().set("Cache-Control", "max-age=60");
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                }
+            } catch (InterruptedException | IOException e) {
+                // The client went away.
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private ChartTileCache cache(long minMaxAgeMillis, long diskBytes) {
+        String template = "http://127.0.0.1:" + server.getAddress().getPort() + "/{z}/{x}/{y}.png";
+        return new ChartTileCache(new MemoryTileCache(1 << 20), new DiskTileCache(cacheDir, diskBytes),
+                new HttpTileFetcher(template, "SailSpots-test", minMaxAgeMillis), Runnable::run, 2);
+    }
+
+    private static byte[] body(String path) {
+        return path.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void viewedTilesNeverHitTheNetworkAgain() {
+        ChartTileCache cache = cache(HttpTileFetcher.DEFAULT_MAX_AGE_MILLIS, 1 << 20);
+        TileKey key = new TileKey(10, 300, 385);
+        assertArrayEquals(body("/10/300/385.png"), cache.get(key).data);
+        assertArrayEquals(body("/10/300/385.png"), cache.get(key).data);
+        assertTrue(cache.get(new TileKey(10, 300, 9)).isEmpty()); // 404s are cached as missing.
+        cache.get(new TileKey(10, 300, 9));
+        assertEquals(2, requests.size());
+        assertEquals(2, cache.stats().memoryHits);
+
+        // A new session starts with an empty memory cache but finds the tiles on disk.
+        ChartTileCache next = cache(HttpTileFetcher.DEFAULT_MAX_AGE_MILLIS, 1 << 20);
+        assertArrayEquals(body("/10/300/385.png"), next.get(key).data);
+        assertTrue(next.get(new TileKey(10, 300, 9)).isEmpty());
+        assertEquals(2, next.stats().diskHits);
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    public void staleTilesAreServedAndRevalidated() {
+        TileKey key = new TileKey(11, 600, 770);
+        ChartTileCache cache = cache(0, 1 << 20); // Expires as soon as the server's max-age allows.
+        cache.get(key);
+        assertTrue(conditional.isEmpty());
+
+        // Pretend a minute passed by writing the tile back already expired.
+        CachedTile expired = cache.peek(key).withExpiry(0);
+        ChartTileCache later = cache(0, 1 << 20);
+        try {
+            new DiskTileCache(cacheDir, 1 << 20).put(key, expired);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        CachedTile served = later.get(key);
+        assertArrayEquals(body("/11/600/770.png"), served.data);
+        assertEquals(Collections.singletonList("/11/600/770.png"), conditional);
+        assertEquals(1, later.stats().notModified);
+        assertTrue(later.peek(key).isFresh(System.currentTimeMillis()));
+    }
+
+    @Test
+    public void diskCacheStaysWithinItsBudget() throws IOException {
+        DiskTileCache disk = new DiskTileCache(cacheDir, 10_000);
+        byte[] data = new byte[1_000];
+        for (int i = 0; i < 30; i++) {
+            disk.put(new TileKey(12, i, 5), new CachedTile(data, null, null, Long.MAX_VALUE));
+            disk.get(new TileKey(12, 0, 5)); // Keep the first tile in use.
+        }
+        assertTrue(disk.sizeBytes() <= 10_000);
+        assertNotNull(disk.get(new TileKey(12, 0, 5)));
+        assertNotNull(disk.get(new TileKey(12, 29, 5)));
+        assertNull(disk.get(new TileKey(12, 1, 5)));
+
+        // The rebuilt index agrees with what is on disk.
+        DiskTileCache reopened = new DiskTileCache(cacheDir, 10_000);
+        assertEquals(disk.size(), reopened.size());
+        assertEquals(disk.sizeBytes(), reopened.sizeBytes());
+    }
+
+    @Test
+    public void offscreenLoadsAreCancelled() throws InterruptedException {
+        ChartTileCache cache = cache(HttpTileFetcher.DEFAULT_MAX_AGE_MILLIS, 1 << 20);
+        TileKey slow = new TileKey(12, 0, 1);
+        AtomicReference<CachedTile> result = new AtomicReference<>(CachedTile.missing(0));
+        CountDownLatch done = new CountDownLatch(1);
+        Thread tileThread = new Thread(() -> {
+            result.set(cache.get(slow));
+            done.countDown();
+        });
+        tileThread.start();
+        assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+
+        TileRange visible = TileRange.covering(new TileKey(12, 2000, 1500).bounds(), 12).expand(1);
+        assertEquals(1, cache.cancelUnless(visible::contains));
+        assertTrue("cancel should not wait for the server", done.await(2, TimeUnit.SECONDS));
+        assertNull(result.get());
+        assertEquals(1, cache.stats().cancelled);
+    }
+
+    @Test
+    public void rangesWrapAndCoverOtherZooms() {
+        TileKey nyc = TileKey.containing(40.7128, -74.0060, 12);
+        assertEquals(1205, nyc.x);
+        assertEquals(1540, nyc.y);
+        assertTrue(nyc.bounds().contains(40.7128, -74.0060));
+
+        TileRange screen = TileRange.covering(new BoundingBox(40.6, -74.1, 40.8, -73.9), 12);
+        assertTrue(screen.contains(nyc));
+        assertTrue(screen.contains(new TileKey(13, nyc.x * 2 + 1, nyc.y * 2)));
+        assertTrue(screen.contains(new TileKey(11, nyc.x / 2, nyc.y / 2)));
+        TileRange around = screen.expand(1);
+        List<TileKey> ring = screen.ring(around);
+        assertEquals(around.columns() * around.rows() - screen.columns() * screen.rows(), ring.size());
+        for (TileKey k : ring) assertFalse(screen.contains(k));
+
+        // Across the antimeridian: the last and first columns are both in range.
+        TileRange fiji = TileRange.covering(new BoundingBox(-18, 179, -16, -179), 6);
+        assertTrue(fiji.contains(new TileKey(6, 63, 34)));
+        assertTrue(fiji.contains(new TileKey(6, 0, 34)));
+        assertFalse(fiji.contains(new TileKey(6, 32, 34)));
+        assertEquals(2, fiji.columns());
+    }
+}
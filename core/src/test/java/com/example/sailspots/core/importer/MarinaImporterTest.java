@@ -0,0 +1,157 @@
+package com.example.sailspots.core.importer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.sailspots.core.catalog.MarinaCatalog;
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.model.MarinaItem;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs both dataset formats through the importer, including a large generated stream.
+ */
+public class MarinaImporterTest {
+
+    private static InputStream utf8(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void csv_quotedFieldsDuplicatesAndBadRows() throws IOException {
+        String csv = "\uFEFFName,Place ID,Lat,Lng,Address,Rating,Open\r\n"
+                + "\"Harbor, North\",csv-a,40.7,-74.0,\"1 \"\"Pier\"\" Rd\",4.5,yes\r\n"
+                + "Duplicate,csv-a,41.0,-73.0,,,\r\n"
+                + "\r\n"
+                + "No Coordinates,csv-b,,,,,\n"
+                + "Multi,csv-c,40.8,-74.1,\"Line 1\nLine 2\",9,closed\n"
+                + "Off The Globe,csv-d,95,0,,,";
+        MarinaCatalog catalog = new MarinaCatalog();
+        MarinaImporter.Stats stats;
+        try (CsvMarinaSource source = new CsvMarinaSource(utf8(csv))) {
+            stats = new MarinaImporter(catalog).importFrom(source, -1);
+        }
+
+        assertEquals(5, stats.read);
+        assertEquals(2, stats.added);
+        assertEquals(1, stats.duplicates);
+        assertEquals(2, stats.invalid);
+
+        MarinaItem first = catalog.get(0);
+        assertEquals("Harbor, North", first.name);
+        assertEquals("1 \"Pier\" Rd", first.address);
+        assertEquals(4.5f, first.rating, 0f);
+        assertEquals(MarinaItem.OPEN_NOW, first.openStatus);
+
+        MarinaItem multi = catalog.get(1);
+        assertEquals("Line 1\nLine 2", multi.address);
+        assertTrue(Float.isNaN(multi.rating)); // 9 stars is out of range.
+        assertEquals(MarinaItem.CLOSED_NOW, multi.openStatus);
+    }
+
+    @Test(expected = IOException.class)
+    public void csv_missingRequiredColumn() throws IOException {
+        new CsvMarinaSource(utf8("name,lat,lng\nA,1,2\n"));
+    }
+
+    @Test
+    public void geoJson_pointsOnlyAndDedupedAgainstCatalog() throws IOException {
+        String json = "{\"type\":\"FeatureCollection\",\"name\":\"test\",\"features\":["
+                + "{\"type\":\"Feature\",\"properties\":{\"name\":\"A\",\"place_id\":\"gj-a\",\"rating\":3.5,"
+                + "\"open_now\":false,\"tags\":{\"x\":[1,2]}},"
+                + "\"geometry\":{\"coordinates\":[-74.0,40.7,3.0],\"type\":\"Point\"}},"
+                + "{\"type\":\"Feature\",\"id\":\"gj-b\",\"properties\":null,"
+                + "\"geometry\":{\"type\":\"Point\",\"coordinates\":[-73.9,40.6]}},"
+                + "{\"type\":\"Feature\",\"properties\":{\"placeId\":\"gj-c\"},"
+                + "\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[-74,40],[-73,41]]}},"
+                + "{\"type\":\"Feature\",\"properties\":{\"place_id\":\"gj-existing\"},"
+                + "\"geometry\":{\"type\":\"Point\",\"coordinates\":[-74.1,40.5]}}"
+                + "]}";
+        MarinaCatalog catalog = new MarinaCatalog();
+        catalog.add(new MarinaItem("Existing", "", "gj-existing", new GeoPoint(40.5, -74.1), 0, false));
+
+        MarinaImporter.Stats stats;
+        try (GeoJsonMarinaSource source = new GeoJsonMarinaSource(utf8(json))) {
+            stats = new MarinaImporter(catalog).importFrom(source, json.length());
+        }
+
+        assertEquals(4, stats.read);
+        assertEquals(2, stats.added);
+        assertEquals(1, stats.duplicates);
+        assertEquals(1, stats.invalid);
+        assertEquals(3, catalog.size());
+
+        MarinaItem a = catalog.get(1);
+        assertEquals("gj-a", a.placeId);
+        assertEquals(40.7, a.latLng.latitude, 0);
+        assertEquals(-74.0, a.latLng.longitude, 0);
+        assertEquals(MarinaItem.CLOSED_NOW, a.openStatus);
+        assertEquals("gj-b", catalog.get(2).placeId);
+    }
+
+    @Test
+    public void largeStream_importsInBatchesWithProgress() throws IOException {
+        final int rows = 100_000;
+        MarinaCatalog catalog = new MarinaCatalog();
+        List<MarinaImporter.Stats> progress = new ArrayList<>();
+
+        MarinaImporter.Stats stats;
+        try (CsvMarinaSource source = new CsvMarinaSource(new GeneratedCsv(rows))) {
+            stats = new MarinaImporter(catalog)
+                    .setBatchSize(5000)
+                    .setProgressListener(progress::add)
+                    .importFrom(source, -1);
+        }
+
+        // Every tenth row repeats the previous row's place ID.
+        assertEquals(rows, stats.read);
+        assertEquals(rows / 10, stats.duplicates);
+        assertEquals(rows - rows / 10, stats.added);
+        assertEquals(rows - rows / 10, catalog.size());
+
+        assertEquals(stats.added / 5000 + 1, progress.size());
+        for (int i = 1; i < progress.size(); i++) {
+            assertTrue(progress.get(i).added >= progress.get(i - 1).added);
+            assertTrue(progress.get(i).bytesRead >= progress.get(i - 1).bytesRead);
+        }
+        assertTrue(progress.get(progress.size() - 1).finished);
+
+        List<MarinaItem> near = catalog.nearest(new GeoPoint(40.0, -74.0), 1);
+        assertEquals("big-0", near.get(0).placeId);
+    }
+
+    /**
+     * A CSV of any length, produced on the fly so the test's input takes no memory either.
+     */
+    private static final class GeneratedCsv extends InputStream {
+        private final int rows;
+        private int row = -1;
+        private byte[] line = "name,place_id,lat,lng\n".getBytes(StandardCharsets.UTF_8);
+        private int pos;
+
+        GeneratedCsv(int rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int read() {
+            if (pos == line.length) {
+                if (++row >= rows) return -1;
+                int id = (row % 10 == 9) ? row - 1 : row;
+                String s = "Marina " + row + ",big-" + id + ","
+                        + (40.0 + (row % 1000) * 0.001) + "," + (-74.0 - (row / 1000) * 0.001) + "\n";
+                line = s.getBytes(StandardCharsets.UTF_8);
+                pos = 0;
+            }
+            return line[pos++];
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.sailspots.core.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverEveryValueWithinRelativeError() {
+        long[] samples = {0, 1, 15, 16, 17, 31, 32, 1000, 16_666_667, 1L << 40};
+        for (long v : samples) {
+            int i = LatencyHistogram.bucketIndex(v);
+            assertTrue(i >= 0 && i < LatencyHistogram.BUCKET_COUNT);
+            assertTrue(v >= LatencyHistogram.bucketLowerBound(i));
+            assertTrue(v <= LatencyHistogram.bucketUpperBound(i));
+            long width = LatencyHistogram.bucketUpperBound(i) - LatencyHistogram.bucketLowerBound(i);
+            assertTrue("bucket too wide for " + v, width <= Math.max(0, v / 16));
+        }
+    }
+
+    @Test
+    public void percentilesOfUniformValues() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int ms = 1; ms <= 100; ms++) h.record(ms * 1_000_000L);
+
+        LatencyHistogram.Snapshot s = h.snapshot();
+        assertEquals(100, s.count());
+        assertEquals(100_000_000L, s.max());
+        assertEquals(50_000_000L, s.percentile(50), 50_000_000L / 16);
+        assertEquals(99_000_000L, s.percentile(99), 99_000_000L / 16);
+        assertEquals(100_000_000L, s.percentile(100));
+        assertEquals(50, s.countAbove(50_000_000L), 4);
+    }
+
+    @Test
+    public void minusGivesTheInterval() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(10);
+        LatencyHistogram.Snapshot first = h.snapshot();
+        h.record(1000);
+        h.record(1000);
+
+        LatencyHistogram.Snapshot interval = h.snapshot().minus(first);
+        assertEquals(2, interval.count());
+        assertEquals(1000, interval.percentile(50), 1000 / 16);
+        assertEquals(0, LatencyHistogram.Snapshot.EMPTY.percentile(99));
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.sailspots.core.nmea;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class InstrumentDecoderTest {
+
+    private static final double EPS = 1e-9;
+
+    private static boolean decode(InstrumentDecoder decoder, String sentence) {
+        byte[] b = sentence.getBytes(StandardCharsets.US_ASCII);
+        return decoder.decode(b, 0, b.length, 1000);
+    }
+
+    @Test
+    public void tokenizesInPlace() {
+        // A sentence in the middle of a larger buffer, as SentenceReader hands them on.
+        byte[] buf = "xx$GPRMC,123519,A,4807.038,N,01131.000,W,022.4,,230394,003.1,W*5Eyy"
+                .getBytes(StandardCharsets.US_ASCII);
+        NmeaSentence s = new NmeaSentence();
+        assertEquals(NmeaSentence.OK, s.wrap(buf, 2, buf.length - 4));
+        assertEquals(NmeaSentence.type("RMC"), s.type());
+        assertEquals(12, s.fields());
+        assertEquals('A', s.charAt(2));
+        assertEquals(22.4, s.number(7), EPS);
+        assertTrue(s.isEmpty(8));
+        assertTrue(Double.isNaN(s.number(8)));
+        assertTrue(Double.isNaN(s.number(2)));  // Not a number.
+        assertEquals(48 + 7.038 / 60, s.coordinate(3), EPS);
+        assertEquals(-(11 + 31.0 / 60), s.coordinate(5), EPS);
+        assertTrue(s.isEmpty(20));
+
+        byte[] tagged = "\\s:gw1,c:1697650000*17\\$SDDPT,-0.5,+1.25*62".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(NmeaSentence.OK, s.wrap(tagged, 0, tagged.length));
+        assertEquals(-0.5, s.number(1), EPS);
+        assertEquals(1.25, s.number(2), EPS);
+
+        byte[] bad = "$SDDPT,-0.5,+1.25*4B".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(NmeaSentence.BAD_CHECKSUM, s.wrap(bad, 0, bad.length));
+        byte[] unchecked = "$SDDPT,-0.5,+1.25".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(NmeaSentence.BAD_CHECKSUM, s.wrap(unchecked, 0, unchecked.length));
+        byte[] noise = "hello".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(NmeaSentence.MALFORMED, s.wrap(noise, 0, noise.length));
+    }
+
+    @Test
+    public void convertsUnitsAndConventions() {
+        InstrumentSlots slots = new InstrumentSlots();
+        InstrumentDecoder decoder = new InstrumentDecoder(slots);
+        assertTrue(decode(decoder, "$WIMWV,45.0,R,10.0,M,A*20"));
+        assertEquals(45, slots.latest(InstrumentSlots.AWA), EPS);
+        assertEquals(10 * 3600 / 1852.0, slots.latest(InstrumentSlots.AWS), EPS);
+        // Apparent wind 30 degrees off the port bow.
+        assertTrue(decode(decoder, "$IIVWR,30.0,L,12.5,N,,,,*54"));
+        assertEquals(330, slots.latest(InstrumentSlots.AWA), EPS);
+        assertEquals(12.5, slots.latest(InstrumentSlots.AWS), EPS);
+        // Invalid wind is ignored.
+        assertFalse(decode(decoder, "$WIMWV,90.0,R,20.0,N,V*3F"));
+        assertEquals(12.5, slots.latest(InstrumentSlots.AWS), EPS);
+
+        assertTrue(decode(decoder, "$SDDBT,20.0,f,,M,,F*34"));  // Feet only.
+        assertEquals(6.096, slots.latest(InstrumentSlots.DEPTH), EPS);
+        assertTrue(decode(decoder, "$SDDPT,5.0,-1.5*7B"));       // Under the keel.
+        assertEquals(3.5, slots.latest(InstrumentSlots.DEPTH), EPS);
+
+        // Magnetic 350, 2 east deviation, 14.5 west variation: 337.5 true.
+        assertTrue(decode(decoder, "$HCHDG,350.0,2.0,E,14.5,W*64"));
+        assertEquals(337.5, slots.latest(InstrumentSlots.HEADING), EPS);
+        assertTrue(decode(decoder, "$VWVHW,,T,,M,,N,11.112,K*48"));
+        assertEquals(6, slots.latest(InstrumentSlots.STW), EPS);
+
+        assertFalse(decode(decoder, "$GPRMC,123519,V,4807.038,N,01131.000,E,022.4,084.4,230394,,*06"));
+        assertTrue(Double.isNaN(slots.latest(InstrumentSlots.LAT)));
+        assertFalse(decode(decoder, "$PGRME,15.0,M,45.0,M,25.0,M*1C"));
+        assertEquals(1, decoder.unsupported());
+        assertEquals(2, decoder.malformed());
+    }
+
+    @Test
+    public void replaysARecordedLog() throws Exception {
+        NmeaReplay replay = NmeaReplay.read(new File(getClass().getResource("/nmea/sample.nmea").toURI()));
+        assertEquals(363, replay.sentences());
+        assertEquals(19_906, replay.durationMillis());
+
+        InstrumentSlots slots = new InstrumentSlots();
+        InstrumentDecoder decoder = new InstrumentDecoder(slots, () -> 5000);
+        assertEquals(363, replay.play(decoder));
+        // 20 s of 10 Hz apparent wind and 1 Hz everything else, plus an AIS report, a
+        // proprietary sentence and one corrupted in transit.
+        assertEquals(360, decoder.decoded());
+        assertEquals(1, decoder.badChecksums());
+        assertEquals(2, decoder.unsupported());
+        assertEquals(0, decoder.malformed());
+
+        InstrumentSlots.Snapshot snap = new InstrumentSlots.Snapshot();
+        assertTrue(slots.snapshot(snap));
+        assertFalse(slots.snapshot(snap));  // Nothing new since.
+        assertEquals(40.6, snap.get(InstrumentSlots.AWA, 6000, 2000), EPS);
+        assertEquals(14.0, snap.get(InstrumentSlots.AWS, 6000, 2000), EPS);
+        assertEquals(53.9, snap.get(InstrumentSlots.TWA, 6000, 2000), EPS);
+        assertEquals(266.9, snap.get(InstrumentSlots.TWD, 6000, 2000), EPS);
+        assertEquals(11.9, snap.get(InstrumentSlots.TWS, 6000, 2000), EPS);
+        assertEquals(8.3, snap.get(InstrumentSlots.DEPTH, 6000, 2000), EPS);  // DPT with its offset, not DBT.
+        assertEquals(6.2, snap.get(InstrumentSlots.STW, 6000, 2000), EPS);
+        assertEquals(203.2, snap.get(InstrumentSlots.HEADING, 6000, 2000), EPS);
+        assertEquals(41 + 29.346 / 60, snap.get(InstrumentSlots.LAT, 6000, 2000), EPS);
+        assertEquals(-(71 + 19.47 / 60), snap.get(InstrumentSlots.LNG, 6000, 2000), EPS);
+        assertEquals(6.1, snap.get(InstrumentSlots.SOG, 6000, 2000), EPS);
+        assertEquals(201.8, snap.get(InstrumentSlots.COG, 6000, 2000), EPS);
+        assertEquals(17.5, snap.get(InstrumentSlots.WATER_TEMP, 6000, 2000), EPS);
+        // An instrument silent too long reads as off.
+        assertTrue(Double.isNaN(snap.get(InstrumentSlots.AWS, 9000, 2000)));
+
+        // At recorded pace, sped up 40 times: about half a second.
+        long started = System.nanoTime();
+        int[] count = new int[1];
+        replay.play((buf, off, len) -> count[0]++, 40);
+        assertEquals(363, count[0]);
+        assertTrue((System.nanoTime() - started) / 1_000_000 >= 19_906 / 40);
+    }
+
+    @Test
+    public void snapshotsNeverTearAWrite() throws Exception {
+        InstrumentSlots slots = new InstrumentSlots();
+        AtomicBoolean stop = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            for (long i = 1; !stop.get(); i++) {
+                slots.begin(i);
+                slots.put(InstrumentSlots.LAT, i);
+                slots.put(InstrumentSlots.LNG, -i);
+                slots.end();
+            }
+        });
+        writer.start();
+        InstrumentSlots.Snapshot snap = new InstrumentSlots.Snapshot();
+        int seen = 0;
+        try {
+            for (int k = 0; k < 200_000; k++) {
+                if (!slots.snapshot(snap)) continue;
+                double lat = snap.values[InstrumentSlots.LAT];
+                assertEquals(lat, -snap.values[InstrumentSlots.LNG], 0);
+                if (lat != 0) assertEquals((long) lat, snap.times[InstrumentSlots.LNG]);
+                seen++;
+            }
+        } finally {
+            stop.set(true);
+            writer.join();
+        }
+        assertTrue(seen > 1);
+    }
+}
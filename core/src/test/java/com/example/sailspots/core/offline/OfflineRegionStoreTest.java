@@ -0,0 +1,131 @@
+package com.example.sailspots.core.offline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.sailspots.core.charts.CachedTile;
+import com.example.sailspots.core.charts.Cancellation;
+import com.example.sailspots.core.charts.TileFetcher;
+import com.example.sailspots.core.charts.TileKey;
+import com.example.sailspots.core.geo.BoundingBox;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class OfflineRegionStoreTest {
+
+    // Around New York Harbor, about 25 x 30 km.
+    private static final BoundingBox HARBOR = new BoundingBox(40.5, -74.2, 40.75, -73.9);
+    private static final BoundingBox BAY = new BoundingBox(37.4, -122.6, 38.2, -121.9);
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("regions").toFile();
+    }
+
+    @Test
+    public void planDropsDetailToStayUnderTheLimit() {
+        RegionPlan full = RegionPlan.of(HARBOR, 9, 16, 100_000, RegionPlan.DEFAULT_TILE_BYTES);
+        assertEquals(16, full.maxZoom);
+        assertEquals(full.chartTiles, full.chartTileKeys().size());
+        assertEquals(full.chartTiles * RegionPlan.DEFAULT_TILE_BYTES, full.estimatedBytes);
+
+        RegionPlan capped = RegionPlan.of(HARBOR, 9, 16, 500, RegionPlan.DEFAULT_TILE_BYTES);
+        assertTrue(capped.maxZoom < 16);
+        assertTrue(capped.chartTiles <= 500);
+        List<TileKey> keys = capped.chartTileKeys();
+        assertEquals(9, keys.get(0).z); // Coarsest first.
+        assertTrue(capped.coversCatalogTile("dr5"));
+        assertFalse(capped.coversCatalogTile("9q8"));
+    }
+
+    @Test
+    public void downloadResumesWhereItStopped() throws IOException {
+        OfflineRegionStore store = new OfflineRegionStore(dir, 1L << 30);
+        RegionPlan plan = RegionPlan.of(HARBOR, 9, 13, 10_000, 100);
+        OfflineRegion region = OfflineRegion.plan("harbor", "Harbor", plan, 1);
+        store.put(region);
+
+        AtomicInteger fetches = new AtomicInteger();
+        Cancellation cancel = new Cancellation();
+        TileFetcher fetcher = (key, cached, c) -> {
+            if (fetches.incrementAndGet() == 10) cancel.cancel(); // The job is stopped mid-way.
+            if (c.isCancelled()) throw new IOException("cancelled");
+            return new CachedTile(new byte[100], "\"" + key + "\"", null, Long.MAX_VALUE);
+        };
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            RegionDownloader downloader = new RegionDownloader(fetcher, pool, 3);
+            RegionDownloader.Result first = downloader.download(plan.chartTileKeys(), store.tiles("harbor"), cancel);
+            assertTrue(first.cancelled);
+            assertFalse(first.complete());
+            int fetchedFirst = first.downloaded;
+
+            fetches.set(-1_000_000); // No more cancelling.
+            RegionDownloader.Result second = downloader.download(plan.chartTileKeys(), store.tiles("harbor"),
+                    new Cancellation());
+            assertTrue(second.complete());
+            assertEquals(fetchedFirst, second.kept);
+            assertEquals(plan.chartTiles - fetchedFirst, second.downloaded);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Region tiles are found through the store; tiles outside the region are not.
+        TileKey inside = TileKey.containing(40.6, -74.0, 12);
+        assertNotNull(store.find(inside));
+        assertNull(store.find(TileKey.containing(37.8, -122.4, 12)));
+        assertNull(store.find(TileKey.containing(40.6, -74.0, 14))); // Beyond its zoom levels.
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedFinishedRegions() throws IOException {
+        OfflineRegionStore store = new OfflineRegionStore(dir, 1000);
+        store.put(region("a", HARBOR, OfflineRegion.State.COMPLETE, 400, 10));
+        store.put(region("b", BAY, OfflineRegion.State.COMPLETE, 300, 20));
+        store.put(region("c", BAY, OfflineRegion.State.DOWNLOADING, 200, 5));
+        store.tiles("a").put(new TileKey(10, 1, 1), new CachedTile(new byte[10], null, null, 0));
+
+        // Looking at the map inside "a" makes "b" the least recently used.
+        store.touch(40.6, -74.0, 10 + 2 * 60 * 60 * 1000L);
+        assertTrue(store.canFit(800));
+        assertFalse(store.canFit(801)); // "c" is still downloading, so it stays.
+
+        List<OfflineRegion> evicted = store.evictToFit(350, "new");
+        assertEquals(Collections.singletonList("b"), ids(evicted));
+        assertEquals(600, store.usedBytes());
+        assertEquals(Collections.singletonList("a"), ids(store.evictToFit(700, "new")));
+        assertFalse(new File(dir, "a").exists());
+
+        // The index survives a restart.
+        OfflineRegionStore reopened = new OfflineRegionStore(dir, 1000);
+        assertEquals(Collections.singletonList("c"), ids(reopened.regions()));
+        assertEquals(OfflineRegion.State.DOWNLOADING, reopened.get("c").state);
+    }
+
+    private static OfflineRegion region(String id, BoundingBox box, OfflineRegion.State state, long bytes,
+                                        long lastUsed) {
+        return new OfflineRegion(id, id, box, 9, 12, state, 10, 10, bytes, bytes, lastUsed, lastUsed);
+    }
+
+    private static List<String> ids(List<OfflineRegion> regions) {
+        List<String> out = new ArrayList<>();
+        for (OfflineRegion r : regions) out.add(r.id);
+        return out;
+    }
+}
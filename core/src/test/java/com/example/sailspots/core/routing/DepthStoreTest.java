@@ -0,0 +1,128 @@
+package com.example.sailspots.core.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+
+public class DepthStoreTest {
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    interface Bathymetry {
+        double depth(double lat, double lng);
+    }
+
+    // Writes the one-degree tile at (south, west) with cells sampled from a function.
+    private static void writeTile(File dir, int south, int west, int perDegree, Bathymetry b) throws IOException {
+        double cell = 1.0 / perDegree;
+        short[] cells = new short[perDegree * perDegree];
+        for (int r = 0; r < perDegree; r++) {
+            for (int c = 0; c < perDegree; c++) {
+                cells[r * perDegree + c] = DepthTile.encode(b.depth(south + (r + 0.5) * cell, west + (c + 0.5) * cell));
+            }
+        }
+        try (OutputStream out = new FileOutputStream(new File(dir, DepthStore.name(south, west)))) {
+            DepthTile.write(south, west, cell, perDegree, perDegree, cells, out);
+        }
+    }
+
+    /**
+     * A bay from 41.48N to 41.52N opening east, its head at 71.5W: a marina basin 3 m deep,
+     * closed by a 1.5 m bar from 71.46W to 71.44W, and 20 m outside. With a channel, a 5 m
+     * cut through the bar at 41.51N.
+     */
+    private static Bathymetry harbor(boolean channel) {
+        return (lat, lng) -> {
+            if (lng < -71.5 || (lng < -71.44 && Math.abs(lat - 41.5) > 0.02)) return -5;
+            if (lng < -71.46) return 3;
+            if (lng < -71.44) return channel && lat > 41.505 && lat < 41.515 ? 5 : 1.5;
+            return 20;
+        };
+    }
+
+    @Test
+    public void samplesPointsAndSegmentsAcrossTiles() throws IOException {
+        File dir = tmp.newFolder();
+        Bathymetry bar = (lat, lng) -> lng > -71.0 && lng < -70.98 ? 2 : 15;
+        writeTile(dir, 41, -72, 200, bar);
+        writeTile(dir, 41, -71, 200, bar);
+        DepthStore store = new DepthStore(dir, 1 << 20);
+
+        assertEquals(15, store.depth(41.5, -71.5), 1e-9);
+        assertEquals(2, store.depth(41.5, -70.99), 1e-9);
+        assertTrue(Double.isNaN(store.depth(43.5, -71.5)));
+        assertEquals(15, store.shallowest(41.5, -71.9, 41.5, -71.01), 1e-9);
+        assertEquals(2, store.shallowest(41.5, -71.9, 41.2, -70.5), 1e-9);
+        // Half off the tiles: only the part with data counts.
+        assertEquals(15, store.shallowest(41.5, -71.5, 42.5, -71.5), 1e-9);
+        assertTrue(Double.isNaN(store.shallowest(43.1, -71.5, 43.9, -71.5)));
+        assertEquals(2, store.tilesMapped());
+    }
+
+    @Test
+    public void approachDepthIsTheShallowestPointOnTheDeepestWayOut() throws IOException {
+        File dir = tmp.newFolder();
+        writeTile(dir, 41, -72, 1000, harbor(false));
+        DepthStore store = new DepthStore(dir, 4 << 20);
+        // The pin sits on the dock, just inside the shore.
+        assertEquals(1.5, store.approachDepth(41.5, -71.501, 0.2, 3, 10), 1e-6);
+
+        File dug = tmp.newFolder();
+        writeTile(dug, 41, -72, 1000, harbor(true));
+        DepthStore dredged = new DepthStore(dug, 4 << 20);
+        assertEquals(3, dredged.approachDepth(41.5, -71.501, 0.2, 3, 10), 1e-6);
+
+        // Far inland, or off the survey, there is no answer.
+        assertTrue(Double.isNaN(store.approachDepth(41.5, -71.9, 0.2, 3, 10)));
+        assertTrue(Double.isNaN(store.approachDepth(44.5, -71.5, 0.2, 3, 10)));
+    }
+
+    @Test
+    public void keepsMappedTilesWithinTheBudget() throws IOException {
+        File dir = tmp.newFolder();
+        for (int w = -74; w < -70; w++) writeTile(dir, 41, w, 100, (lat, lng) -> 10);
+        long tileBytes = DepthTile.HEADER_BYTES + 2 * 100 * 100;
+        DepthStore store = new DepthStore(dir, 2 * tileBytes + 100);
+        for (int w = -74; w < -70; w++) assertEquals(10, store.depth(41.5, w + 0.5), 1e-9);
+        assertEquals(2, store.tilesMapped());
+        assertTrue(store.mappedBytes() <= store.budgetBytes());
+        assertEquals(4, store.loads());
+        assertEquals(2, store.evictions());
+        // The most recent two are still mapped; the first comes back with a new load.
+        store.depth(41.5, -70.5);
+        assertEquals(4, store.loads());
+        store.depth(41.5, -73.5);
+        assertEquals(5, store.loads());
+    }
+
+    @Test
+    public void convertsAnAsciiGrid() throws IOException {
+        // Two rows of cells per degree over 41N-42.5N, 72W-70W; elevations, so depths are negated.
+        String grid = "ncols 4\nnrows 3\nxllcorner -72\nyllcorner 41\ncellsize 0.5\nNODATA_value -9999\n"
+                + "-1 -2 -9999 -4\n"   // 42.0-42.5N
+                + "-5 -6 -7 -8\n"      // 41.5-42.0N
+                + "3 -10.25\n-11 -12\n";  // 41.0-41.5N, wrapped over two lines
+        File dir = tmp.newFolder();
+        assertEquals(4, DepthTool.convert(new StringReader(grid), dir, false));
+        DepthStore store = new DepthStore(dir, 1 << 20);
+        assertEquals(1, store.depth(42.25, -71.75), 1e-9);
+        assertTrue(Double.isNaN(store.depth(42.25, -70.75)));
+        assertEquals(8, store.depth(41.75, -70.25), 1e-9);
+        assertEquals(-3, store.depth(41.25, -71.75), 1e-9);
+        assertEquals(10.3, store.depth(41.25, -71.25), 1e-9);  // Rounded to decimetres.
+        // The 42N band has only its south half of rows filled.
+        assertTrue(Double.isNaN(store.depth(42.75, -71.75)));
+        assertNull(store.tile(43.5, -71.5));
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.sailspots.core.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.geo.GeoMath;
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.weather.GridWindField;
+import com.example.sailspots.core.weather.UniformWind;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Plans passages near the equator in a steady 12 knot northerly, where a degree is 60 nm
+ * either way and the expected times follow from the polar alone.
+ */
+public class IsochroneRouterTest {
+
+    private static final long DEPART = 1_700_000_000_000L;
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final BoatPolar polar = BoatPolar.cruiser();
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private IsochroneRouter router() {
+        return new IsochroneRouter(polar, new UniformWind(12, 0), pool);
+    }
+
+    private static double nm(GeoPoint a, GeoPoint b) {
+        return GeoMath.haversineMiles(a, b) / GeoMath.MILES_PER_NM;
+    }
+
+    @Test
+    public void beamReachTakesDistanceOverPolarSpeed() {
+        GeoPoint from = new GeoPoint(0, 0);
+        GeoPoint to = new GeoPoint(0, 0.5);
+        IsochroneRouter.Route route = router().route(from, to, DEPART);
+        assertTrue(route.toString(), route.reached);
+        double expected = nm(from, to) / polar.boatSpeed(90, 12);
+        assertEquals(expected, route.hours(), 0.02 * expected);
+        assertEquals(DEPART, route.departMillis());
+        assertEquals(to, route.points.get(route.points.size() - 1));
+    }
+
+    @Test
+    public void upwindLegTacks() {
+        GeoPoint from = new GeoPoint(0, 0);
+        GeoPoint to = new GeoPoint(0.33, 0);
+        IsochroneRouter.Route route = router().route(from, to, DEPART);
+        assertTrue(route.toString(), route.reached);
+        // Slower than the best close-hauled speed over the straight line, but not absurdly so.
+        double bestVmg = 0;
+        for (int twa = 30; twa <= 90; twa++) {
+            bestVmg = Math.max(bestVmg, polar.boatSpeed(twa, 12) * Math.cos(Math.toRadians(twa)));
+        }
+        double straight = nm(from, to);
+        assertTrue(route.toString(), route.hours() >= 0.98 * straight / bestVmg);
+        assertTrue(route.toString(), route.hours() <= 1.15 * straight / bestVmg);
+        double widest = 0;
+        for (GeoPoint p : route.points) widest = Math.max(widest, Math.abs(p.longitude));
+        assertTrue("never left the rhumb line", widest > 0.03);
+    }
+
+    @Test
+    public void sailsAroundAnIsland() {
+        BoundingBox sea = new BoundingBox(-0.5, -0.5, 0.5, 0.5);
+        List<double[]> island = Collections.singletonList(
+                new double[]{-0.03, -0.2, 0.03, -0.2, 0.03, 0.2, -0.03, 0.2, -0.03, -0.2});
+        WaterGrid water = WaterGrid.fromLand(sea, 0.005, Collections.singletonList(island));
+
+        GeoPoint from = new GeoPoint(0, -0.3);
+        GeoPoint to = new GeoPoint(0, 0.3);
+        IsochroneRouter.Route route = router().setWater(water).route(from, to, DEPART);
+        assertTrue(route.toString(), route.reached);
+        for (GeoPoint p : route.points) {
+            assertTrue(p + " is on the island", water.isWater(water.col(p.longitude), water.row(p.latitude)));
+        }
+        assertTrue(route.nauticalMiles() > nm(from, to) * 1.05);
+    }
+
+    @Test
+    public void polarAndWindGridInterpolate() throws IOException {
+        BoatPolar parsed = BoatPolar.parse("test", new StringReader(
+                "TWA\\TWS\t10\t20\n40\t5\t6\n90\t7\t9\n\n180;5;8\n"));
+        assertEquals(7, parsed.boatSpeed(90, 10), 1e-6);
+        assertEquals(8, parsed.boatSpeed(90, 15), 1e-6);
+        assertEquals(8, parsed.boatSpeed(-90, 15), 1e-6);   // Either tack.
+        assertEquals(8, parsed.boatSpeed(270, 15), 1e-6);
+        assertEquals(3.5, parsed.boatSpeed(90, 5), 1e-6);   // Scales to calm below the table.
+        assertEquals(9, parsed.boatSpeed(90, 40), 1e-6);    // Holds above it.
+        assertEquals(0, parsed.boatSpeed(30, 15), 1e-6);    // No-go zone.
+
+        // 5 m/s toward the west, then 10 m/s toward the south six hours later.
+        float[] west = new float[4];
+        float[] calm = new float[4];
+        float[] south = new float[4];
+        Arrays.fill(west, -5);
+        Arrays.fill(south, -10);
+        GridWindField grid = new GridWindField(0, 0, 1, 1, 2, 2, new long[]{0, 6 * 3_600_000L},
+                new float[][]{west, calm}, new float[][]{calm, south});
+        double[] w = new double[2];
+        assertTrue(grid.sample(0.5, 0.5, 0, w));
+        assertEquals(5 * GridWindField.KNOTS_PER_MPS, w[0], 1e-6);
+        assertEquals(90, w[1], 1e-6);                        // From the east.
+        assertTrue(grid.sample(0.5, 0.5, 3 * 3_600_000L, w));
+        assertEquals(Math.hypot(2.5, 5) * GridWindField.KNOTS_PER_MPS, w[0], 1e-6);
+        assertTrue(grid.sample(1, 1, 99 * 3_600_000L, w));  // Holds the last step.
+        assertEquals(0, w[1], 1e-6);                         // From the north.
+        assertFalse(grid.sample(1.5, 0.5, 0, w));
+    }
+}
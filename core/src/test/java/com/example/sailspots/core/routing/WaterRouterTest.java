@@ -0,0 +1,99 @@
+package com.example.sailspots.core.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.geo.GeoMath;
+import com.example.sailspots.core.geo.GeoPoint;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Routes around a synthetic peninsula: a thin strip of land running north from the south
+ * edge of a one-degree square of sea, plus an island with an enclosed lake.
+ */
+public class WaterRouterTest {
+
+    private static final BoundingBox SEA = new BoundingBox(0, 0, 1, 1);
+    private static final String LAND = "{\"type\":\"FeatureCollection\",\"features\":["
+            // The peninsula, from the south edge up to latitude 0.9.
+            + "{\"type\":\"Feature\",\"properties\":{},\"geometry\":{\"type\":\"Polygon\",\"coordinates\":"
+            + "[[[0.49,-0.1],[0.51,-0.1],[0.51,0.9],[0.49,0.9],[0.49,-0.1]]]}},"
+            // An island with a lake in the middle, as a MultiPolygon with a hole.
+            + "{\"type\":\"Feature\",\"geometry\":{\"coordinates\":[[[[0.7,0.1],[0.9,0.1],[0.9,0.3],"
+            + "[0.7,0.3],[0.7,0.1]],[[0.75,0.15],[0.85,0.15],[0.85,0.25],[0.75,0.25],[0.75,0.15]]]],"
+            + "\"type\":\"MultiPolygon\"}},"
+            // Far outside the grid; dropped while reading.
+            + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Polygon\",\"coordinates\":"
+            + "[[[10,10],[11,10],[11,11],[10,10]]]}}]}";
+
+    private static List<WaterGrid> levels() throws IOException {
+        List<List<double[]>> land = WaterGridTool.readLand(
+                new ByteArrayInputStream(LAND.getBytes(StandardCharsets.UTF_8)), SEA);
+        assertEquals(2, land.size());
+        return WaterGrid.fromLand(SEA, 0.005, land).withLevels(1000);
+    }
+
+    @Test
+    public void routesAroundLandNotAcrossIt() throws IOException {
+        List<WaterGrid> levels = levels();
+        assertEquals(4, levels.size());
+        WaterGrid fine = levels.get(0);
+        assertFalse(fine.isWater(fine.col(0.5), fine.row(0.5)));
+        assertTrue(fine.isWater(fine.col(0.5), fine.row(0.95)));
+        assertTrue(fine.isWater(fine.col(0.8), fine.row(0.2)));  // The lake.
+
+        GeoPoint from = new GeoPoint(0.5, 0.45);
+        GeoPoint acrossThePeninsula = new GeoPoint(0.5, 0.56);
+        GeoPoint downTheCoast = new GeoPoint(0.5, 0.2);
+        GeoPoint onTheLake = new GeoPoint(0.2, 0.8);
+        GeoPoint offTheGrid = new GeoPoint(5, 5);
+        WaterRouter.Result result = new WaterRouter(levels).distances(from,
+                Arrays.asList(acrossThePeninsula, downTheCoast, onTheLake, offTheGrid));
+
+        // Around the tip of the peninsula at latitude 0.9 and back down.
+        double around = (Math.hypot(0.4, 0.05) + Math.hypot(0.4, 0.06)) * GeoMath.MILES_PER_DEGREE;
+        assertTrue(result.miles(0) + " vs " + around,
+                result.miles(0) > 0.97 * around && result.miles(0) < 1.08 * around);
+        double straight = GeoMath.haversineMiles(from, downTheCoast);
+        assertEquals(straight, result.miles(1), 0.03 * straight);
+        assertTrue(result.miles(1) < result.miles(0)); // Nearer by water, though farther in a line.
+        assertFalse(result.isApproximate(0));
+
+        assertTrue(result.isKnown(2));
+        assertFalse(result.isReachable(2));
+        assertFalse(result.isKnown(3));
+    }
+
+    @Test
+    public void levelsRoundTripThroughTheFileFormat() throws IOException {
+        List<WaterGrid> levels = levels();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WaterGrid.write(levels, bytes);
+        List<WaterGrid> read = WaterGrid.wrap(ByteBuffer.wrap(bytes.toByteArray()));
+        assertEquals(levels.size(), read.size());
+        for (int l = 0; l < levels.size(); l++) {
+            WaterGrid a = levels.get(l);
+            WaterGrid b = read.get(l);
+            assertEquals(a.cols, b.cols);
+            assertEquals(a.cellDegrees, b.cellDegrees, 0);
+            for (int cell = 0; cell < a.cellCount(); cell++) assertEquals(a.isWater(cell), b.isWater(cell));
+        }
+
+        GeoPoint from = new GeoPoint(0.95, 0.1);
+        List<GeoPoint> to = Arrays.asList(new GeoPoint(0.05, 0.9), new GeoPoint(0.3, 0.3));
+        WaterRouter.Result expected = new WaterRouter(levels).distances(from, to);
+        WaterRouter.Result actual = new WaterRouter(read).distances(from, to);
+        for (int i = 0; i < to.size(); i++) assertEquals(expected.miles(i), actual.miles(i), 1e-9);
+    }
+}
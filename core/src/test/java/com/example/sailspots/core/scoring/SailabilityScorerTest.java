@@ -0,0 +1,112 @@
+package com.example.sailspots.core.scoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.sailspots.core.catalog.PlaceIdRegistry;
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.model.MarinaItem;
+import com.example.sailspots.core.routing.WaterGrid;
+import com.example.sailspots.core.weather.UniformWind;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Scores spots on a coast running north-south along the prime meridian, land to the east.
+ */
+public class SailabilityScorerTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private static WaterGrid westCoast() {
+        List<double[]> land = Collections.singletonList(new double[]{0, -0.5, 0.5, -0.5, 0.5, 0.5, 0, 0.5, 0, -0.5});
+        return WaterGrid.fromLand(new BoundingBox(-0.5, -0.5, 0.5, 0.5), 0.01,
+                Collections.singletonList(land));
+    }
+
+    private static MarinaItem spot(String id, double lat, double lng, double miles, float rating) {
+        String placeId = "scorer-test-" + id;
+        return new MarinaItem(id, "", placeId, PlaceIdRegistry.global().intern(placeId), new GeoPoint(lat, lng),
+                miles, rating, MarinaItem.OPEN_UNKNOWN, false);
+    }
+
+    @Test
+    public void ranksByConditionsDistanceAndRating() {
+        MarinaItem near = spot("near", 0.1, -0.1, 2, 4.5f);
+        MarinaItem far = spot("far", 0.2, -0.2, 60, 4.5f);
+        MarinaItem poor = spot("poor", 0.3, -0.1, 2, 1f);
+        MarinaItem unrated = spot("unrated", 0.1, -0.3, 2, Float.NaN);
+        SailabilityScorer scorer = new SailabilityScorer(pool).setWind(new UniformWind(12, 0), NOW);
+        SailabilityScorer.Ranking r = scorer.score(Arrays.asList(far, poor, unrated, near));
+        assertEquals(r.toString(), Arrays.asList(near, unrated, poor, far), r.sorted);
+        for (int i = 1; i < r.sorted.size(); i++) assertTrue(r.score(i - 1) >= r.score(i));
+
+        // A gale drags everything down but leaves the order to distance and rating.
+        double breezy = r.score(0);
+        r = scorer.setWind(new UniformWind(40, 0), NOW).score(Arrays.asList(far, poor, unrated, near));
+        assertEquals(Arrays.asList(near, unrated, poor, far), r.sorted);
+        assertTrue(r.score(0) < breezy - 0.2);
+    }
+
+    @Test
+    public void rescoresOnlyWhatChanged() {
+        List<MarinaItem> items = new ArrayList<>();
+        for (int i = 0; i < 300; i++) items.add(spot("inc" + i, -0.4 + i * 0.0025, -0.05, i * 0.1, 3f));
+        SailabilityScorer scorer = new SailabilityScorer(pool)
+                .setWater(westCoast())
+                .setWind(new UniformWind(12, 270), NOW);
+
+        SailabilityScorer.Ranking r = scorer.score(items);
+        assertEquals(300, r.exposuresComputed);
+        assertEquals(300, r.windSampled);
+
+        // Same inputs: nothing to redo.
+        r = scorer.score(items);
+        assertEquals(0, r.exposuresComputed + r.windSampled + r.tideSampled);
+
+        // New wind: wind only. The costly exposure scan is kept.
+        r = scorer.setWind(new UniformWind(15, 200), NOW).score(items);
+        assertEquals(0, r.exposuresComputed);
+        assertEquals(300, r.windSampled);
+
+        // A new spot panned into view, listed twice: one of everything, for it alone.
+        items.add(spot("new", 0.45, -0.05, 1, 3f));
+        items.add(items.get(items.size() - 1));
+        r = scorer.setTide((lat, lng, t) -> 0.5).score(items);
+        assertEquals(1, r.exposuresComputed);
+        assertEquals(1, r.windSampled);
+        assertEquals(301, r.tideSampled);
+        assertEquals(302, r.sorted.size());
+    }
+
+    @Test
+    public void crossShoreBeatsOnshoreBeatsOffshore() {
+        WaterGrid water = westCoast();
+        double[] out = new double[2];
+        assertTrue(water.seaward(0, -0.02, SailabilityScorer.EXPOSURE_MILES, out));
+        assertEquals(270, out[0], 5);
+        assertTrue(out[1] > 0.2);  // A straight shore is about 1/pi.
+
+        List<MarinaItem> one = Collections.singletonList(spot("coast", 0, -0.02, 5, 4f));
+        SailabilityScorer scorer = new SailabilityScorer(pool).setWater(water);
+        double cross = scorer.setWind(new UniformWind(12, 0), NOW).score(one).score(0);
+        double onshore = scorer.setWind(new UniformWind(12, 270), NOW).score(one).score(0);
+        double offshore = scorer.setWind(new UniformWind(12, 90), NOW).score(one).score(0);
+        assertTrue(cross + " vs " + onshore, cross > onshore);
+        assertTrue(onshore + " vs " + offshore, onshore > offshore);
+    }
+}
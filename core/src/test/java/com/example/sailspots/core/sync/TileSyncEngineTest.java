@@ -0,0 +1,185 @@
+package com.example.sailspots.core.sync;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.sailspots.core.catalog.MarinaStore;
+import com.example.sailspots.core.geo.BoundingBox;
+import com.example.sailspots.core.geo.Geohash;
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.model.MarinaItem;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Syncs tiles from a local HTTP server standing in for the catalog backend.
+ */
+public class TileSyncEngineTest {
+
+    private static final int MAX_CONCURRENT = 3;
+
+    private File remoteDir;
+    private File localDir;
+    private HttpServer server;
+    private ExecutorService pool;
+    private final List<String> tileRequests = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        remoteDir = Files.createTempDirectory("remote").toFile();
+        localDir = Files.createTempDirectory("local").toFile();
+        pool = Executors.newFixedThreadPool(8);
+
+        // Serves remoteDir; tile requests are slowed down a little so they overlap.
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(16));
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            File file = new File(remoteDir, path.substring(1));
+            boolean tile = path.startsWith("/tiles/");
+            if (tile) {
+                tileRequests.add(path);
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            }
+            try {
+                if (tile) Thread.sleep(20);
+                if (!file.isFile()) {
+                    exchange.sendResponseHeaders(404, -1);
+                } else {
+                    byte[] body = Files.readAllBytes(file.toPath());
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (tile) inFlight.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        pool.shutdownNow();
+    }
+
+    private TileSyncEngine engine() {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        return new TileSyncEngine(new HttpTileSource(url), new LocalTileStore(localDir), pool, MAX_CONCURRENT);
+    }
+
+    /**
+     * Five marinas in each of a row of precision-3 tiles along the US east coast.
+     */
+    private static List<MarinaItem> marinas(String suffix) {
+        List<MarinaItem> out = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            for (int i = 0; i < 5; i++) {
+                double lat = 36.0 + t * 1.5 + i * 0.01;
+                out.add(new MarinaItem("Marina " + t + "-" + i + suffix, "", "sync-" + t + "-" + i,
+                        new GeoPoint(lat, -76.0 + t * 0.8), 0, false));
+            }
+        }
+        return out;
+    }
+
+    @Test
+    public void fetchesOnlyChangedTiles() throws IOException {
+        TileManifest published = MarinaTiler.publish(marinas(""), 3, remoteDir);
+        int tiles = published.size();
+        assertTrue(tiles >= 6);
+
+        TileSyncEngine.Result first = engine().sync();
+        assertEquals(tiles, first.fetched);
+        assertTrue(first.failed.isEmpty());
+        assertEquals(tiles, tileRequests.size());
+        assertTrue("concurrency " + maxInFlight.get(), maxInFlight.get() <= MAX_CONCURRENT);
+        assertTrue(maxInFlight.get() > 1);
+
+        // Nothing changed: no tile is downloaded again.
+        tileRequests.clear();
+        TileSyncEngine.Result second = engine().sync();
+        assertEquals(0, second.fetched);
+        assertEquals(tiles, second.unchanged);
+        assertTrue(tileRequests.isEmpty());
+
+        // Rename one marina and drop one whole tile.
+        List<MarinaItem> edited = marinas("");
+        MarinaItem renamed = edited.get(0);
+        edited.set(0, new MarinaItem("Renamed", "", renamed.placeId, renamed.latLng, 0, false));
+        String dropped = Geohash.encode(edited.get(edited.size() - 1).latLng.latitude,
+                edited.get(edited.size() - 1).latLng.longitude, 3);
+        edited.removeIf(m -> Geohash.encode(m.latLng.latitude, m.latLng.longitude, 3).equals(dropped));
+        TileManifest republished = MarinaTiler.publish(edited, 3, remoteDir);
+        String changedId = Geohash.encode(renamed.latLng.latitude, renamed.latLng.longitude, 3);
+        assertEquals(published.get(changedId).version + 1, republished.get(changedId).version);
+
+        tileRequests.clear();
+        TileSyncEngine.Result third = engine().sync();
+        assertEquals(1, third.fetched);
+        assertEquals(1, third.removed);
+        assertEquals(Collections.singletonList("/tiles/" + changedId + ".pack"), tileRequests);
+        assertFalse(new LocalTileStore(localDir).tileFile(dropped).exists());
+
+        MarinaStore store = new LocalTileStore(localDir).openStore();
+        assertEquals(edited.size(), store.size());
+        assertEquals("Renamed", store.nearest(renamed.latLng, 1).get(0).name);
+        assertEquals(5, store.within(Geohash.bounds(changedId)).size());
+    }
+
+    @Test
+    public void corruptTileKeepsTheOldVersion() throws IOException {
+        TileManifest published = MarinaTiler.publish(marinas(""), 3, remoteDir);
+        engine().sync();
+
+        // Publish a change, then corrupt that tile on the server.
+        TileManifest republished = MarinaTiler.publish(marinas(" v2"), 3, remoteDir);
+        String victim = republished.entries().iterator().next().id;
+        try (FileOutputStream out = new FileOutputStream(new File(remoteDir, "tiles/" + victim + ".pack"), true)) {
+            out.write(42);
+        }
+
+        TileSyncEngine.Result result = engine().sync();
+        assertEquals(published.size() - 1, result.fetched);
+        assertEquals(Collections.singleton(victim), result.failed.keySet());
+
+        LocalTileStore local = new LocalTileStore(localDir);
+        assertEquals(published.get(victim).sha256, local.manifest().get(victim).sha256);
+        BoundingBox bounds = Geohash.bounds(victim);
+        for (MarinaItem m : local.openStore().within(bounds)) assertFalse(m.name.endsWith(" v2"));
+        String[] leftovers = new File(localDir, "tmp").list();
+        assertEquals(0, leftovers == null ? 0 : leftovers.length);
+    }
+
+    @Test
+    public void geohashRoundTrips() {
+        assertEquals("dr5re", Geohash.encode(40.7128, -74.0060, 5));
+        BoundingBox box = Geohash.bounds("dr5re");
+        assertTrue(box.contains(40.7128, -74.0060));
+        assertTrue(box.north - box.south < 0.05);
+    }
+}
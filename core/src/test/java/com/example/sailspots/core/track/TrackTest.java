@@ -0,0 +1,165 @@
+package com.example.sailspots.core.track;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.sailspots.core.geo.GeoMath;
+import com.example.sailspots.core.geo.GeoPoint;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.Random;
+
+public class TrackTest {
+
+    private static final long START = 1_720_000_000_000L;
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    /**
+     * A day of beating to windward at 1 Hz: 6 knots, tacking every ten minutes, with GPS
+     * jitter of about a metre. Fills lat[i], lng[i].
+     */
+    private static void sail(double[] lat, double[] lng) {
+        Random random = new Random(46);
+        double la = 41.0;
+        double lo = -71.5;
+        double metresPerSecond = 6 * 0.514;
+        for (int i = 0; i < lat.length; i++) {
+            double heading = Math.toRadians((i / 600) % 2 == 0 ? 45 : 315);
+            la += metresPerSecond * Math.cos(heading) / 111_195;
+            lo += metresPerSecond * Math.sin(heading) / (111_195 * Math.cos(Math.toRadians(la)));
+            lat[i] = la + random.nextGaussian() * 0.7 / 111_195;
+            lng[i] = lo + random.nextGaussian() * 0.7 / 111_195;
+        }
+    }
+
+    @Test
+    public void aDayAtOneHertzFitsWellUnderAMegabyte() throws IOException {
+        int n = 86_400;
+        double[] lat = new double[n];
+        double[] lng = new double[n];
+        sail(lat, lng);
+
+        File file = tmp.newFile("day.sstk");
+        TrackRing ring = new TrackRing(1000);
+        assertEquals(1024, ring.capacity());
+        try (TrackWriter writer = TrackWriter.create(file, START)) {
+            for (int i = 0; i < n; i++) {
+                assertTrue(ring.offer(START + i * 1000L, lat[i], lng[i]));
+                if (i % 10 == 9) {
+                    ring.drain(writer);
+                    writer.flush();
+                }
+            }
+            ring.drain(writer);
+            assertEquals(n, writer.fixes());
+        }
+        assertTrue(file.length() + " bytes", file.length() < 512 * 1024);
+
+        Track track = Track.read(file);
+        assertEquals(n, track.size());
+        assertEquals(file.length(), track.validBytes());
+        for (int i = 0; i < n; i += 997) {
+            assertEquals(START + i * 1000L, track.time(i));
+            assertEquals(lat[i], track.latitude(i), 0.6e-6);
+            assertEquals(lng[i], track.longitude(i), 0.6e-6);
+        }
+    }
+
+    @Test
+    public void resumesAfterACrashMidRecord() throws IOException {
+        File file = tmp.newFile("crash.sstk");
+        try (TrackWriter writer = TrackWriter.create(file, START)) {
+            for (int i = 0; i < 100; i++) writer.append(START + i * 1000L, 41 + i * 1e-4, -71);
+        }
+        // The last record loses its final byte, as if power went mid-write.
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+        Track cut = Track.read(file);
+        assertEquals(99, cut.size());
+
+        try (TrackWriter writer = TrackWriter.resume(file)) {
+            assertEquals(99, writer.fixes());
+            writer.append(START + 200_000, -33.9, 151.2);  // A big jump encodes fine too.
+        }
+        Track track = Track.read(file);
+        assertEquals(100, track.size());
+        assertEquals(41 + 98e-4, track.latitude(98), 1e-6);
+        assertEquals(START + 200_000, track.time(99));
+        assertEquals(151.2, track.longitude(99), 1e-6);
+    }
+
+    @Test
+    public void ringDropsWhenFullAndKeepsOrder() {
+        TrackRing ring = new TrackRing(4);
+        for (int i = 0; i < 6; i++) ring.offer(i, i, -i);
+        assertEquals(4, ring.size());
+        assertEquals(2, ring.dropped());
+        long[] seen = new long[1];
+        assertEquals(4, ring.drain((t, la, lo) -> {
+            assertEquals(seen[0]++, t);
+            assertEquals(t * 1_000_000, la);
+        }));
+        assertTrue(ring.offer(9, 0, 0));
+        assertEquals(1, ring.size());
+    }
+
+    @Test
+    public void simplifiesIncrementallyWithinTolerance() {
+        int n = 4 * 3600;
+        double[] lat = new double[n];
+        double[] lng = new double[n];
+        sail(lat, lng);
+        double tolerance = 5;
+        TrackSimplifier simplifier = new TrackSimplifier(tolerance);
+        for (int i = 0; i < n; i++) simplifier.add(lat[i], lng[i]);
+        List<GeoPoint> points = simplifier.points();
+
+        // Twenty-four tacks need little more than their corners.
+        assertTrue(points.size() + " points", points.size() < 200);
+        assertTrue(points.size() >= 25);
+        assertEquals(lat[0], points.get(0).latitude, 1e-6);
+        assertEquals(lat[n - 1], points.get(points.size() - 1).latitude, 1e-6);
+
+        // Every fix lies near the simplified line.
+        for (int i = 0; i < n; i += 7) {
+            double best = Double.MAX_VALUE;
+            for (int k = 1; k < points.size(); k++) {
+                best = Math.min(best, segmentMetres(lat[i], lng[i], points.get(k - 1), points.get(k)));
+            }
+            assertTrue("fix " + i + " is " + best + " m off", best <= 2 * tolerance + 0.5);
+        }
+
+        // A single fix, and a straight line, are their own simplification.
+        TrackSimplifier line = new TrackSimplifier(tolerance);
+        line.add(41.0, -71.0);
+        assertEquals(1, line.points().size());
+        for (int i = 1; i < 2000; i++) line.add(41 + i * 1e-5, -71.0);
+        assertEquals(2, line.points().size());
+        assertFalse(line.points().get(1).latitude < 41.0199);
+    }
+
+    private static double segmentMetres(double lat, double lng, GeoPoint a, GeoPoint b) {
+        double k = GeoMath.MILES_PER_DEGREE * 1609.344;
+        double cos = Math.cos(Math.toRadians(lat));
+        double ax = (a.longitude - lng) * cos * k;
+        double ay = (a.latitude - lat) * k;
+        double bx = (b.longitude - lng) * cos * k;
+        double by = (b.latitude - lat) * k;
+        double dx = bx - ax;
+        double dy = by - ay;
+        double len2 = dx * dx + dy * dy;
+        double t = len2 == 0 ? 0 : Math.max(0, Math.min(1, -(ax * dx + ay * dy) / len2));
+        return Math.hypot(ax + t * dx, ay + t * dy);
+    }
+}
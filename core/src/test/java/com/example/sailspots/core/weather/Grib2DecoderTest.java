@@ -0,0 +1,155 @@
+package com.example.sailspots.core.weather;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.example.sailspots.core.geo.BoundingBox;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+
+public class Grib2DecoderTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    /** A smooth field that differs by parameter and forecast hour. */
+    private static double value(int kind, int hours, double lat, double lng) {
+        return kind * 3 + hours * 0.5 + lat * 0.25 - lng * 0.125;
+    }
+
+    /**
+     * Values in file order for a grid scanned from (la1, lo1) eastward, rows moving north or south.
+     */
+    private static double[] grid(int kind, int hours, int ni, int nj, double la1, double lo1, double step,
+                                 boolean northward) {
+        double[] out = new double[ni * nj];
+        for (int j = 0; j < nj; j++) {
+            for (int i = 0; i < ni; i++) {
+                double lat = la1 + (northward ? j : -j) * step;
+                double lng = lo1 + i * step;
+                out[j * ni + i] = value(kind, hours, lat, lng > 180 ? lng - 360 : lng);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * A global 2-degree grid like GFS's: longitudes 0-358 and rows from the north pole down.
+     */
+    private static ByteBuffer globalFile() throws IOException {
+        Grib2Writer w = new Grib2Writer(180, 91, 90, 0, 2, 0);
+        for (int hours : new int[]{0, 6}) {
+            w.field(0, 2, 2, 103, 10, 0, hours, grid(1, hours, 180, 91, 90, 0, 2, false), 0, 0);
+            w.field(0, 2, 3, 103, 10, 0, hours, grid(2, hours, 180, 91, 90, 0, 2, false), 0, 0);
+            w.field(0, 3, 1, 101, 0, 0, hours, grid(3, hours, 180, 91, 90, 0, 2, false), 0, 0);
+            w.field(0, 0, 0, 103, 2, 0, hours, grid(4, hours, 180, 91, 90, 0, 2, false), 0, 0);  // Temperature.
+        }
+        return w.toBuffer();
+    }
+
+    @Test
+    public void decodesOnlyTheWantedFieldsInTheRegion() throws IOException {
+        Grib2Decoder decoder = new Grib2Decoder(EnumSet.of(Grib2Parameter.WIND_U, Grib2Parameter.WIND_V),
+                new BoundingBox(39, -75, 45, -67));
+        Forecast f = decoder.decode(globalFile());
+        assertEquals(4, decoder.fieldsDecoded());
+        assertEquals(4, decoder.fieldsSkipped());
+        assertEquals(EnumSet.of(Grib2Parameter.WIND_U, Grib2Parameter.WIND_V), f.parameters());
+
+        // Cropped to whole cells around the box, with longitudes west of Greenwich negative.
+        assertEquals(38, f.south, 1e-9);
+        assertEquals(-76, f.west, 1e-9);
+        assertEquals(6, f.cols);
+        assertEquals(5, f.rows);
+        assertEquals(2, f.timeCount());
+        assertEquals(Grib2Writer.REFERENCE, f.referenceMillis);
+        assertEquals(Grib2Writer.REFERENCE + 6 * HOUR, f.time(1));
+
+        long t0 = Grib2Writer.REFERENCE;
+        // On grid points, between them (the field is linear, so bilinear is exact), and between times.
+        assertEquals(value(1, 0, 40, -70), f.sample(Grib2Parameter.WIND_U, 40, -70, t0), 0.006);
+        assertEquals(value(1, 0, 41.3, -71.7), f.sample(Grib2Parameter.WIND_U, 41.3, -71.7, t0), 0.006);
+        assertEquals(value(2, 3, 41.3, 288.3 - 360), f.sample(Grib2Parameter.WIND_V, 41.3, 288.3, t0 + 3 * HOUR), 0.006);
+        assertTrue(Double.isNaN(f.sample(Grib2Parameter.WIND_U, 30, -70, t0)));
+        assertTrue(Double.isNaN(f.sample(Grib2Parameter.PRESSURE, 40, -70, t0)));
+
+        double[] wind = new double[2];
+        assertTrue(f.windField().sample(40, -70, t0, wind));
+        double u = value(1, 0, 40, -70);
+        double v = value(2, 0, 40, -70);
+        assertEquals(Math.hypot(u, v) * GridWindField.KNOTS_PER_MPS, wind[0], 0.02);
+    }
+
+    @Test
+    public void complexPackingAndBitmapsMatchTheSource() throws IOException {
+        // A regional grid scanned from the south, with a "land" patch left out by the bitmap.
+        int ni = 31;
+        int nj = 21;
+        double[][] expected = new double[3][];
+        Grib2Writer w = new Grib2Writer(ni, nj, 30, -80, 0.5, 0x40);
+        for (int order = 1; order <= 2; order++) {
+            double[] values = grid(order, 0, ni, nj, 30, -80, 0.5, true);
+            for (int j = 5; j < 9; j++) for (int i = 10; i < 20; i++) values[j * ni + i] = Double.NaN;
+            expected[order] = values;
+            w.field(0, 2, order == 1 ? 2 : 3, 103, 10, 0, 0, values, 3, order);
+        }
+        w.field(0, 2, 22, 1, 0, 8, 6, grid(5, 6, ni, nj, 30, -80, 0.5, true), 3, 2);
+
+        Forecast f = new Grib2Decoder(EnumSet.allOf(Grib2Parameter.class), null).decode(w.toBuffer());
+        assertEquals(30, f.south, 1e-9);
+        assertEquals(-80, f.west, 1e-9);
+        assertEquals(ni, f.cols);
+        assertEquals(nj, f.rows);
+        for (int order = 1; order <= 2; order++) {
+            float[] grid = f.grid(order == 1 ? Grib2Parameter.WIND_U : Grib2Parameter.WIND_V, 0);
+            for (int k = 0; k < grid.length; k++) {
+                if (Double.isNaN(expected[order][k])) assertTrue(Float.isNaN(grid[k]));
+                else assertEquals("point " + k, expected[order][k], grid[k], 0.006);
+            }
+        }
+        // The wind field has no data over the masked patch.
+        double[] wind = new double[2];
+        assertFalse(f.windField().sample(33, -74.5, Grib2Writer.REFERENCE, wind));
+        assertTrue(f.windField().sample(35, -74.5, Grib2Writer.REFERENCE, wind));
+
+        // Gusts are a maximum over an interval and apply at its end; before that there are none.
+        assertEquals(2, f.timeCount());
+        assertEquals(value(5, 6, 35, -75), f.sample(Grib2Parameter.GUST, 35, -75, Grib2Writer.REFERENCE + 6 * HOUR), 0.006);
+        assertTrue(Double.isNaN(f.sample(Grib2Parameter.GUST, 35, -75, Grib2Writer.REFERENCE)));
+    }
+
+    @Test
+    public void reportsWhatItCannotRead() throws IOException {
+        Grib2Writer w = new Grib2Writer(4, 4, 40, -72, 1, 0)
+                .jpeg2000(2, 22)  // Unwanted, so passed over unread.
+                .field(0, 3, 1, 101, 0, 0, 0, new double[16], 0, 0);
+        Forecast f = new Grib2Decoder(EnumSet.of(Grib2Parameter.PRESSURE), null).decode(w.toBuffer());
+        assertNotNull(f);
+
+        try {
+            new Grib2Decoder(EnumSet.of(Grib2Parameter.WIND_U), null).decode(new Grib2Writer(4, 4, 40, -72, 1, 0)
+                    .jpeg2000(2, 2).toBuffer());
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("5.40"));
+        }
+        try {
+            new Grib2Decoder(EnumSet.of(Grib2Parameter.WIND_U), null).decode(w.toBuffer());
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("WIND_U"));
+        }
+        try {
+            new Grib2Decoder(EnumSet.of(Grib2Parameter.PRESSURE), new BoundingBox(10, 10, 11, 11)).decode(w.toBuffer());
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("outside"));
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.example.sailspots.core.weather;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes small GRIB2 files for the decoder tests: one message per field on a regular
+ * latitude/longitude grid, with simple packing or complex packing with spatial differencing.
+ */
+final class Grib2Writer {
+
+    static final long REFERENCE = Grib2Decoder.daysFromCivil(2024, 7, 1) * 86_400_000L + 6 * 3_600_000L;
+
+    private final ByteArrayOutputStream file = new ByteArrayOutputStream();
+    private final int ni;
+    private final int nj;
+    private final double la1;
+    private final double lo1;
+    private final double la2;
+    private final double lo2;
+    private final double step;
+    private final int scanMode;
+
+    /**
+     * @param scanMode 0 for rows from north to south, 0x40 for south to north.
+     */
+    Grib2Writer(int ni, int nj, double la1, double lo1, double step, int scanMode) {
+        this.ni = ni;
+        this.nj = nj;
+        this.la1 = la1;
+        this.lo1 = lo1;
+        this.step = step;
+        this.scanMode = scanMode;
+        this.la2 = la1 + ((scanMode & 0x40) != 0 ? 1 : -1) * (nj - 1) * step;
+        this.lo2 = lo1 + (ni - 1) * step;
+    }
+
+    /**
+     * @param values  One per grid point in file order; NaN points are left out with a bitmap.
+     * @param packing 0 for simple packing, or 3 for complex packing with spatial differencing.
+     */
+    Grib2Writer field(int discipline, int category, int number, int surfaceType, int surfaceValue,
+                      int productTemplate, int hours, double[] values, int packing, int order) throws IOException {
+        boolean masked = false;
+        for (double v : values) masked |= Double.isNaN(v);
+        int decimal = 2;
+        int present = 0;
+        long[] ints = new long[values.length];
+        for (double v : values) {
+            if (!Double.isNaN(v)) ints[present++] = Math.round(v * 100);
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+        // Section 1: identification, with the reference time.
+        section(out, 1, s -> {
+            s.writeShort(7);
+            s.writeShort(0);
+            s.writeByte(2);
+            s.writeByte(1);
+            s.writeByte(1);
+            dateTime(s, REFERENCE);
+            s.writeByte(0);
+            s.writeByte(1);
+        });
+        // Section 3: regular latitude/longitude grid.
+        section(out, 3, s -> {
+            s.writeByte(0);
+            s.writeInt(ni * nj);
+            s.writeByte(0);
+            s.writeByte(0);
+            s.writeShort(0);
+            s.writeByte(6);
+            s.writeByte(0);
+            s.writeInt(0);
+            s.writeByte(0);
+            s.writeInt(0);
+            s.writeByte(0);
+            s.writeInt(0);
+            s.writeInt(ni);
+            s.writeInt(nj);
+            s.writeInt(0);
+            s.writeInt(-1);
+            s.writeInt(signed32(micro(la1)));
+            s.writeInt(signed32(micro(lo1)));
+            s.writeByte(48);
+            s.writeInt(signed32(micro(la2)));
+            s.writeInt(signed32(micro(lo2)));
+            s.writeInt(micro(step));
+            s.writeInt(micro(step));
+            s.writeByte(scanMode);
+        });
+        // Section 4: the parameter, its level and its time.
+        section(out, 4, s -> {
+            s.writeShort(0);
+            s.writeShort(productTemplate);
+            s.writeByte(category);
+            s.writeByte(number);
+            s.writeByte(2);
+            s.writeByte(0);
+            s.writeByte(96);
+            s.writeShort(0);
+            s.writeByte(0);
+            s.writeByte(1);
+            s.writeInt(productTemplate == 8 ? hours - 1 : hours);
+            s.writeByte(surfaceType);
+            s.writeByte(0);
+            s.writeInt(surfaceValue);
+            s.writeByte(255);
+            s.writeByte(0);
+            s.writeInt(0);
+            if (productTemplate == 8) {
+                dateTime(s, REFERENCE + hours * 3_600_000L);
+                s.writeByte(1);
+                s.writeInt(0);
+                s.writeByte(2);
+                s.writeByte(2);
+                s.writeByte(1);
+                s.writeInt(1);
+                s.writeByte(1);
+                s.writeInt(0);
+            }
+        });
+        byte[] data = packing == 0 ? simple(out, ints, present, decimal) : complex(out, ints, present, decimal, order);
+        // Section 6: bitmap, or none.
+        final boolean hasBitmap = masked;
+        section(out, 6, s -> {
+            if (!hasBitmap) {
+                s.writeByte(255);
+                return;
+            }
+            s.writeByte(0);
+            byte[] bits = new byte[(values.length + 7) / 8];
+            for (int i = 0; i < values.length; i++) {
+                if (!Double.isNaN(values[i])) bits[i >>> 3] |= (byte) (0x80 >>> (i & 7));
+            }
+            s.write(bits);
+        });
+        section(out, 7, s -> s.write(data));
+
+        DataOutputStream msg = new DataOutputStream(file);
+        msg.writeInt(0x47524942);
+        msg.writeShort(0);
+        msg.writeByte(discipline);
+        msg.writeByte(2);
+        msg.writeLong(16 + body.size() + 4);
+        body.writeTo(msg);
+        msg.writeInt(0x37373737);
+        return this;
+    }
+
+    /**
+     * Appends a 10 m field stored with JPEG 2000 packing (5.40), which the decoder cannot read.
+     */
+    Grib2Writer jpeg2000(int category, int number) throws IOException {
+        int start = file.size();
+        field(0, category, number, 103, 10, 0, 0, new double[ni * nj], 0, 0);
+        byte[] all = file.toByteArray();
+        ByteBuffer b = ByteBuffer.wrap(all);
+        int s = start + 16;
+        while (b.get(s + 4) != 5) s += b.getInt(s);
+        b.putShort(s + 9, (short) 40);
+        file.reset();
+        file.write(all);
+        return this;
+    }
+
+    ByteBuffer toBuffer() {
+        return ByteBuffer.wrap(file.toByteArray());
+    }
+
+    // --- Packing ---
+
+    private static byte[] simple(DataOutputStream out, long[] ints, int n, int decimal) throws IOException {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            min = Math.min(min, ints[i]);
+            max = Math.max(max, ints[i]);
+        }
+        if (n == 0) min = max = 0;
+        int bits = bitsFor(max - min);
+        final long ref = min;
+        section(out, 5, s -> {
+            s.writeInt(n);
+            s.writeShort(0);
+            s.writeFloat(ref);
+            s.writeShort(0);
+            s.writeShort(decimal);
+            s.writeByte(bits);
+            s.writeByte(0);
+        });
+        BitWriter w = new BitWriter();
+        for (int i = 0; i < n; i++) w.write(ints[i] - min, bits);
+        return w.toBytes();
+    }
+
+    private static byte[] complex(DataOutputStream out, long[] ints, int n, int decimal, int order)
+            throws IOException {
+        long[] packed = new long[n];
+        long minDiff = Long.MAX_VALUE;
+        for (int i = order; i < n; i++) {
+            packed[i] = order == 1 ? ints[i] - ints[i - 1] : ints[i] - 2 * ints[i - 1] + ints[i - 2];
+            minDiff = Math.min(minDiff, packed[i]);
+        }
+        if (minDiff == Long.MAX_VALUE) minDiff = 0;
+        for (int i = order; i < n; i++) packed[i] -= minDiff;
+
+        int length = 4;
+        int groups = (n + length - 1) / length;
+        long[] refs = new long[groups];
+        int[] widths = new int[groups];
+        long maxRef = 0;
+        int maxWidth = 0;
+        for (int g = 0; g < groups; g++) {
+            long lo = Long.MAX_VALUE;
+            long hi = Long.MIN_VALUE;
+            for (int i = g * length; i < Math.min(n, (g + 1) * length); i++) {
+                lo = Math.min(lo, packed[i]);
+                hi = Math.max(hi, packed[i]);
+            }
+            refs[g] = lo;
+            widths[g] = bitsFor(hi - lo);
+            maxRef = Math.max(maxRef, lo);
+            maxWidth = Math.max(maxWidth, widths[g]);
+        }
+        int bits = bitsFor(maxRef);
+        int widthBits = bitsFor(maxWidth);
+        int last = n - (groups - 1) * length;
+        section(out, 5, s -> {
+            s.writeInt(n);
+            s.writeShort(3);
+            s.writeFloat(0);
+            s.writeShort(0);
+            s.writeShort(decimal);
+            s.writeByte(bits);
+            s.writeByte(0);
+            s.writeByte(1);
+            s.writeByte(0);
+            s.writeInt(0);
+            s.writeInt(0);
+            s.writeInt(groups);
+            s.writeByte(0);
+            s.writeByte(widthBits);
+            s.writeInt(length);
+            s.writeByte(1);
+            s.writeInt(last);
+            s.writeByte(0);
+            s.writeByte(order);
+            s.writeByte(4);
+        });
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        DataOutputStream d = new DataOutputStream(data);
+        d.writeInt(signed32((int) ints[0]));
+        if (order == 2) d.writeInt(signed32((int) ints[1]));
+        d.writeInt(signed32((int) minDiff));
+        BitWriter w = new BitWriter();
+        for (long r : refs) w.write(r, bits);
+        w.align();
+        for (int width : widths) w.write(width, widthBits);
+        w.align();
+        // Group lengths all equal the reference, so they take no bits.
+        for (int g = 0; g < groups; g++) {
+            for (int i = g * length; i < Math.min(n, (g + 1) * length); i++) w.write(packed[i] - refs[g], widths[g]);
+        }
+        d.write(w.toBytes());
+        return data.toByteArray();
+    }
+
+    // --- Helpers ---
+
+    private interface SectionBody {
+        void write(DataOutputStream s) throws IOException;
+    }
+
+    private static void section(DataOutputStream out, int number, SectionBody body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        body.write(new DataOutputStream(bytes));
+        out.writeInt(5 + bytes.size());
+        out.writeByte(number);
+        bytes.writeTo(out);
+    }
+
+    private static void dateTime(DataOutputStream s, long millis) throws IOException {
+        long days = Math.floorDiv(millis, 86_400_000L);
+        long secs = Math.floorMod(millis, 86_400_000L) / 1000;
+        // Inverse of daysFromCivil, good enough for dates after 1970.
+        int year = 1970;
+        while (Grib2Decoder.daysFromCivil(year + 1, 1, 1) <= days) year++;
+        int month = 1;
+        while (month < 12 && Grib2Decoder.daysFromCivil(year, month + 1, 1) <= days) month++;
+        int day = (int) (days - Grib2Decoder.daysFromCivil(year, month, 1)) + 1;
+        s.writeShort(year);
+        s.writeByte(month);
+        s.writeByte(day);
+        s.writeByte((int) (secs / 3600));
+        s.writeByte((int) (secs / 60 % 60));
+        s.writeByte((int) (secs % 60));
+    }
+
+    private static int micro(double degrees) {
+        return (int) Math.round(degrees * 1e6);
+    }
+
+    private static int signed32(int v) {
+        return v < 0 ? 0x80000000 | -v : v;
+    }
+
+    private static int bitsFor(long max) {
+        return max <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(max);
+    }
+
+    private static final class BitWriter {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private long acc;
+        private int accBits;
+
+        void write(long value, int bits) {
+            for (int i = bits - 1; i >= 0; i--) {
+                acc = (acc << 1) | ((value >>> i) & 1);
+                if (++accBits == 8) {
+                    out.write((int) acc);
+                    acc = 0;
+                    accBits = 0;
+                }
+            }
+        }
+
+        void align() {
+            if (accBits > 0) write(0, 8 - accBits);
+        }
+
+        byte[] toBytes() {
+            align();
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.sailspots.core.weather;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.sailspots.core.geo.GeoPoint;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+public class WindThresholdsTest {
+
+    private static final long HOUR = 3_600_000L;
+    private static final double KT = GridWindField.KNOTS_PER_MPS;
+
+    @Test
+    public void groupsPlacesByTile() {
+        List<GeoPoint> places = Arrays.asList(
+                new GeoPoint(41.2, -71.9), new GeoPoint(-33.9, 151.2), new GeoPoint(44.99, -70.01),
+                new GeoPoint(45, -70), new GeoPoint(-33.1, 151.9));
+        Map<ForecastTile, List<GeoPoint>> tiles = ForecastTile.group(places, p -> p);
+        assertEquals(3, tiles.size());
+        ForecastTile newEngland = ForecastTile.of(41.2, -71.9);
+        assertEquals(Arrays.asList(places.get(0), places.get(2)), tiles.get(newEngland));
+        assertEquals(Arrays.asList(places.get(1), places.get(4)), tiles.get(ForecastTile.of(-33, 151)));
+
+        assertEquals("n40w075", newEngland.key());
+        assertEquals("n45w070", ForecastTile.of(45, -70).key());
+        assertEquals("s35e150", ForecastTile.of(-33.9, 151.2).key());
+        assertEquals(40, newEngland.box().south, 0);
+        assertEquals(-70, newEngland.box().east, 0);
+        // The poles and the antimeridian stay on the grid.
+        assertEquals("n85w180", ForecastTile.of(90, 180).key());
+        assertEquals("n85e175", ForecastTile.of(89, 179.9).key());
+        assertEquals("s90w180", ForecastTile.of(-90, -180).key());
+    }
+
+    /** A 4x4 forecast around 40N 72W: a rising westerly, gusts at six hours only. */
+    private static Forecast forecast() throws IOException {
+        Grib2Writer w = new Grib2Writer(4, 4, 42, -73, 1, 0);
+        double[] zero = new double[16];
+        for (int hours : new int[]{0, 6, 12}) {
+            double[] u = new double[16];
+            Arrays.fill(u, 5 + hours);  // 5, 11 and 17 m/s toward the east.
+            w.field(0, 2, 2, 103, 10, 0, hours, u, 0, 0);
+            w.field(0, 2, 3, 103, 10, 0, hours, zero, 0, 0);
+        }
+        double[] gust = new double[16];
+        Arrays.fill(gust, 15);
+        w.field(0, 2, 22, 1, 0, 0, 6, gust, 0, 0);
+        return new Grib2Decoder(EnumSet.allOf(Grib2Parameter.class), null).decode(w.toBuffer());
+    }
+
+    @Test
+    public void reportsTheFirstStepOverAThresholdAndThePeaks() throws IOException {
+        Forecast f = forecast();
+        long t0 = Grib2Writer.REFERENCE;
+
+        WindThresholds.Exceedance e = new WindThresholds(20, Double.NaN).check(f, 40.5, -71.5, t0, t0 + 12 * HOUR);
+        assertEquals(t0 + 6 * HOUR, e.firstMillis);
+        assertTrue(e.wind);
+        assertFalse(e.gust);
+        assertEquals(17 * KT, e.windKnots, 0.05);
+        assertEquals(270, e.windFrom, 0.5);
+        assertEquals(15 * KT, e.gustKnots, 0.05);
+
+        e = new WindThresholds(40, 25).check(f, 40.5, -71.5, t0, t0 + 12 * HOUR);
+        assertEquals(t0 + 6 * HOUR, e.firstMillis);
+        assertFalse(e.wind);
+        assertTrue(e.gust);
+
+        // Outside the span, under both thresholds, off, or off the grid: nothing to report.
+        assertNull(new WindThresholds(20, Double.NaN).check(f, 40.5, -71.5, t0, t0 + 5 * HOUR));
+        assertNull(new WindThresholds(40, 35).check(f, 40.5, -71.5, t0, t0 + 12 * HOUR));
+        assertNull(WindThresholds.OFF.check(f, 40.5, -71.5, t0, t0 + 12 * HOUR));
+        assertNull(new WindThresholds(1, 1).check(f, 30, -71.5, t0, t0 + 12 * HOUR));
+    }
+}
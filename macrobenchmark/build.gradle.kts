@@ -0,0 +1,47 @@
+// macrobenchmark/build.gradle.kts
+import java.util.Properties
+
+plugins {
+    alias(libs.plugins.android.test)
+    // Produces the baseline profile consumed by :app.
+    alias(libs.plugins.baselineprofile)
+}
+
+android {
+    namespace = "com.example.sailspots.macrobenchmark"
+    compileSdk = 36
+
+    defaultConfig {
+        // Baseline profile collection requires API 28+.
+        minSdk = 28
+        targetSdk = 36
+        testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        // --- Load benchmark login from local.properties so the journeys can get past LoginActivity ---
+        val props = Properties().apply {
+            val f = rootProject.file("local.properties")
+            if (f.exists()) f.inputStream().use { load(it) }
+        }
+        testInstrumentationRunnerArguments["sailspots.email"] = props.getProperty("BENCHMARK_EMAIL") ?: ""
+        testInstrumentationRunnerArguments["sailspots.password"] = props.getProperty("BENCHMARK_PASSWORD") ?: ""
+    }
+
+    compileOptions {
+        sourceCompatibility = JavaVersion.VERSION_17
+        targetCompatibility = JavaVersion.VERSION_17
+    }
+
+    targetProjectPath = ":app"
+    // Macrobenchmarks drive the target app from their own process.
+    experimentalProperties["android.experimental.self-instrumenting"] = true
+}
+
+baselineProfile {
+    useConnectedDevices = true
+}
+
+dependencies {
+    implementation(libs.ext.junit)
+    implementation(libs.uiautomator)
+    implementation(libs.benchmark.macro.junit4)
+}
@@ -0,0 +1,48 @@
+package com.example.sailspots.macrobenchmark;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+/**
+ * Generates the baseline profile shipped with :app.
+ * Run with ./gradlew :app:generateBaselineProfile on an API 28+ device or emulator.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+
+    @Rule
+    public final BaselineProfileRule rule = new BaselineProfileRule();
+
+    /**
+     * Records cold start through LauncherActivity and LoginActivity, then (when a benchmark
+     * login is configured) the map screen, the marina list and the comments list.
+     */
+    @Test
+    public void generate() {
+        rule.collect(
+                SailSpotsJourneys.PACKAGE,
+                15,     // maxIterations
+                3,      // stableIterations
+                null,   // outputFilePrefix
+                true,   // includeInStartupProfile
+                false,  // strictStability
+                className -> true,
+                scope -> {
+                    scope.pressHome();
+                    SailSpotsJourneys.grantLocation(scope);
+                    SailSpotsJourneys.startToLogin(scope);
+                    if (SailSpotsJourneys.hasCredentials()) {
+                        SailSpotsJourneys.signInToMap(scope);
+                        SailSpotsJourneys.flingMarinas(scope);
+                        SailSpotsJourneys.openDetailAndFlingComments(scope);
+                    }
+                    return Unit.INSTANCE;
+                });
+    }
+}
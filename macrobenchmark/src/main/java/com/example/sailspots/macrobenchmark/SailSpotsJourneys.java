@@ -0,0 +1,121 @@
+package com.example.sailspots.macrobenchmark;
+
+import android.Manifest;
+import android.os.Bundle;
+
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import java.util.List;
+
+/**
+ * The user journeys shared by the baseline profile generator and the benchmarks.
+ * Keeping them in one place means the profile covers exactly what the benchmarks measure.
+ */
+final class SailSpotsJourneys {
+
+    // Package name of the app under test.
+    static final String PACKAGE = "com.example.sailspots";
+
+    // How long to wait for a screen to appear before failing the iteration.
+    private static final long SCREEN_TIMEOUT_MS = 10_000;
+
+    private SailSpotsJourneys() { }
+
+    /**
+     * Checks whether a benchmark login was passed in (see BENCHMARK_EMAIL in local.properties).
+     * Journeys past LoginActivity are skipped without one.
+     */
+    static boolean hasCredentials() {
+        Bundle args = InstrumentationRegistry.getArguments();
+        return !args.getString("sailspots.email", "").isEmpty()
+                && !args.getString("sailspots.password", "").isEmpty();
+    }
+
+    /**
+     * Grants location up front so the runtime permission dialog never covers the map.
+     */
+    static void grantLocation(MacrobenchmarkScope scope) {
+        try {
+            scope.getDevice().executeShellCommand(
+                    "pm grant " + PACKAGE + " " + Manifest.permission.ACCESS_FINE_LOCATION);
+        } catch (java.io.IOException ignored) {
+            // The map still opens; the permission dialog will just show up in the trace.
+        }
+    }
+
+    /**
+     * Cold-starts the app through LauncherActivity and waits for LoginActivity's form.
+     */
+    static void startToLogin(MacrobenchmarkScope scope) {
+        scope.startActivityAndWait();
+        waitFor(scope.getDevice(), "inputEmail");
+    }
+
+    /**
+     * Signs in with the benchmark account and waits for MainActivity to open the map screen.
+     */
+    static void signInToMap(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        Bundle args = InstrumentationRegistry.getArguments();
+
+        device.findObject(By.res(PACKAGE, "inputEmail")).setText(args.getString("sailspots.email"));
+        device.findObject(By.res(PACKAGE, "inputPassword")).setText(args.getString("sailspots.password"));
+        device.findObject(By.res(PACKAGE, "btnLogin")).click();
+
+        // LoginActivity navigates straight to the maps destination after sign-in.
+        waitFor(device, "recyclerMarinas");
+        waitFor(device, "map_container");
+    }
+
+    /**
+     * Flings the marina list down and back up.
+     */
+    static void flingMarinas(MacrobenchmarkScope scope) {
+        fling(scope.getDevice(), "recyclerMarinas");
+    }
+
+    /**
+     * Opens the first marina's detail page and flings through its comments.
+     */
+    static void openDetailAndFlingComments(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        UiObject2 list = waitFor(device, "recyclerMarinas");
+        List<UiObject2> rows = list.getChildren();
+        if (rows.isEmpty()) return;
+        rows.get(0).click();
+
+        waitFor(device, "rvComments");
+        fling(device, "rvComments");
+        device.pressBack();
+        waitFor(device, "recyclerMarinas");
+    }
+
+    /**
+     * Finds a view by its resource ID, failing the iteration if it never shows up.
+     */
+    static UiObject2 waitFor(UiDevice device, String resId) {
+        UiObject2 obj = device.wait(Until.findObject(By.res(PACKAGE, resId)), SCREEN_TIMEOUT_MS);
+        if (obj == null) {
+            throw new AssertionError("Timed out waiting for " + resId);
+        }
+        return obj;
+    }
+
+    /**
+     * Flings a list down and then up again, keeping the gesture clear of system edges.
+     */
+    private static void fling(UiDevice device, String resId) {
+        UiObject2 list = waitFor(device, resId);
+        list.setGestureMargin(device.getDisplayWidth() / 5);
+        list.fling(Direction.DOWN);
+        device.waitForIdle();
+        list.fling(Direction.UP);
+        device.waitForIdle();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.sailspots.macrobenchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Scroll jank benchmarks for recyclerMarinas on the map screen and rvComments on the detail page.
+ * Both need a signed-in session, so they are skipped when no benchmark login is configured.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ScrollBenchmarks {
+
+    private static final int ITERATIONS = 5;
+
+    @Rule
+    public final MacrobenchmarkRule rule = new MacrobenchmarkRule();
+
+    @Before
+    public void requireLogin() {
+        Assume.assumeTrue("BENCHMARK_EMAIL/BENCHMARK_PASSWORD not set", SailSpotsJourneys.hasCredentials());
+    }
+
+    @Test
+    public void flingMarinasNoCompilation() {
+        flingMarinas(new CompilationMode.None());
+    }
+
+    @Test
+    public void flingMarinasBaselineProfile() {
+        flingMarinas(new CompilationMode.Partial(BaselineProfileMode.Require, 0));
+    }
+
+    @Test
+    public void flingCommentsNoCompilation() {
+        flingComments(new CompilationMode.None());
+    }
+
+    @Test
+    public void flingCommentsBaselineProfile() {
+        flingComments(new CompilationMode.Partial(BaselineProfileMode.Require, 0));
+    }
+
+    /**
+     * Frame timing while flinging the marina list under the map.
+     */
+    private void flingMarinas(CompilationMode mode) {
+        rule.measureRepeated(
+                SailSpotsJourneys.PACKAGE,
+                Collections.singletonList(new FrameTimingMetric()),
+                mode,
+                null, // Startup is not what's being measured here.
+                ITERATIONS,
+                scope -> {
+                    scope.killProcess();
+                    SailSpotsJourneys.grantLocation(scope);
+                    SailSpotsJourneys.startToLogin(scope);
+                    SailSpotsJourneys.signInToMap(scope);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    SailSpotsJourneys.flingMarinas(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+
+    /**
+     * Frame timing while opening a marina's detail page and flinging its comments.
+     */
+    private void flingComments(CompilationMode mode) {
+        rule.measureRepeated(
+                SailSpotsJourneys.PACKAGE,
+                Collections.singletonList(new FrameTimingMetric()),
+                mode,
+                null,
+                ITERATIONS,
+                scope -> {
+                    scope.killProcess();
+                    SailSpotsJourneys.grantLocation(scope);
+                    SailSpotsJourneys.startToLogin(scope);
+                    SailSpotsJourneys.signInToMap(scope);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    SailSpotsJourneys.openDetailAndFlingComments(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}
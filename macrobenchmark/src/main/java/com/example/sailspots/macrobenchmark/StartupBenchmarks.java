@@ -0,0 +1,96 @@
+package com.example.sailspots.macrobenchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Cold startup benchmarks. Each journey runs once without any AOT compilation and once
+ * with the baseline profile, so the gain from the profile is tracked alongside the raw number.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmarks {
+
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public final MacrobenchmarkRule rule = new MacrobenchmarkRule();
+
+    @Test
+    public void launcherToLoginNoCompilation() {
+        launcherToLogin(new CompilationMode.None());
+    }
+
+    @Test
+    public void launcherToLoginBaselineProfile() {
+        launcherToLogin(new CompilationMode.Partial(BaselineProfileMode.Require, 0));
+    }
+
+    @Test
+    public void launcherToMapNoCompilation() {
+        launcherToMap(new CompilationMode.None());
+    }
+
+    @Test
+    public void launcherToMapBaselineProfile() {
+        launcherToMap(new CompilationMode.Partial(BaselineProfileMode.Require, 0));
+    }
+
+    /**
+     * Measures time to the first LoginActivity frame, including the launcher's splash delay.
+     */
+    private void launcherToLogin(CompilationMode mode) {
+        rule.measureRepeated(
+                SailSpotsJourneys.PACKAGE,
+                Collections.singletonList(new StartupTimingMetric()),
+                mode,
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    SailSpotsJourneys.startToLogin(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+
+    /**
+     * Measures the full LauncherActivity -> LoginActivity -> MainActivity path up to the map screen.
+     * Frame timing covers the frames spent bringing up the map.
+     */
+    private void launcherToMap(CompilationMode mode) {
+        Assume.assumeTrue("BENCHMARK_EMAIL/BENCHMARK_PASSWORD not set", SailSpotsJourneys.hasCredentials());
+        rule.measureRepeated(
+                SailSpotsJourneys.PACKAGE,
+                Arrays.asList(new StartupTimingMetric(), new FrameTimingMetric()),
+                mode,
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    SailSpotsJourneys.grantLocation(scope);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    SailSpotsJourneys.startToLogin(scope);
+                    SailSpotsJourneys.signInToMap(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -0,0 +1,50 @@
+// microbenchmark/build.gradle.kts
+plugins {
+    alias(libs.plugins.android.test)
+}
+
+android {
+    namespace = "com.example.sailspots.microbenchmark"
+    compileSdk = 36
+
+    defaultConfig {
+        minSdk = 24
+        targetSdk = 36
+        testInstrumentationRunner = "androidx.benchmark.junit4.AndroidBenchmarkRunner"
+        // Emulators are fine for spotting allocation regressions, just not for absolute timings.
+        testInstrumentationRunnerArguments["androidx.benchmark.suppressErrors"] = "EMULATOR"
+    }
+
+    compileOptions {
+        sourceCompatibility = JavaVersion.VERSION_17
+        targetCompatibility = JavaVersion.VERSION_17
+    }
+
+    buildTypes {
+        // Matches :app's "benchmark" build type so the code under test is not debuggable.
+        create("benchmark") {
+            isDebuggable = false
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+        }
+    }
+
+    // The benchmarks run inside the app's process, against the app's own classes.
+    targetProjectPath = ":app"
+}
+
+androidComponents {
+    // Only the benchmark variant produces meaningful numbers.
+    beforeVariants { variant -> variant.enable = variant.buildType == "benchmark" }
+}
+
+dependencies {
+    implementation(libs.ext.junit)
+    implementation(libs.benchmark.junit4)
+
+    // Compile against the same libraries the benchmarked classes use.
+    implementation(project(":core"))
+    implementation(platform("com.google.firebase:firebase-bom:34.5.0"))
+    implementation("com.google.firebase:firebase-firestore")
+    implementation("androidx.recyclerview:recyclerview:1.3.2")
+}
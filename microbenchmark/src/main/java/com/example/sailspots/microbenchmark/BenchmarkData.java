@@ -0,0 +1,91 @@
+package com.example.sailspots.microbenchmark;
+
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.example.sailspots.core.catalog.FavoriteSet;
+import com.example.sailspots.core.geo.GeoPoint;
+import com.example.sailspots.core.model.MarinaItem;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic data sets sized like a real regional catalog.
+ * Every generator takes a seeded Random so runs are comparable.
+ */
+final class BenchmarkData {
+
+    static final int MARINA_COUNT = 10_000;
+    static final int COMMENT_COUNT = 5_000;
+
+    // Fraction of the catalog a heavy user might have favorited.
+    static final int FAVORITE_COUNT = 500;
+
+    private BenchmarkData() { }
+
+    /**
+     * Builds a list of marinas spread around New York harbor with realistic Places-style IDs.
+     */
+    static List<MarinaItem> marinas(int count, Random rnd) {
+        List<MarinaItem> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(new MarinaItem(
+                    "Marina " + i,
+                    (100 + rnd.nextInt(9000)) + " Harbor Rd",
+                    placeId(i),
+                    new GeoPoint(40.5 + rnd.nextDouble(), -74.5 + rnd.nextDouble()),
+                    rnd.nextDouble() * 50.0,
+                    false));
+        }
+        return list;
+    }
+
+    /**
+     * Picks a random subset of the catalog as favorites, keyed by dense place ID.
+     */
+    static FavoriteSet favorites(List<MarinaItem> marinas, int count, Random rnd) {
+        BitSet ids = new BitSet();
+        while (ids.cardinality() < count) {
+            ids.set(marinas.get(rnd.nextInt(marinas.size())).id);
+        }
+        return new FavoriteSet(ids);
+    }
+
+    /**
+     * Returns a Google place ID shaped string (27 chars, "ChIJ" prefix) for index i.
+     */
+    static String placeId(int i) {
+        StringBuilder sb = new StringBuilder("ChIJ");
+        String n = Integer.toString(i, 36);
+        for (int pad = 23 - n.length(); pad > 0; pad--) sb.append('x');
+        return sb.append(n).toString();
+    }
+
+    /**
+     * Runs DiffUtil the same way ListAdapter does on its background thread.
+     */
+    static <T> DiffUtil.DiffResult diff(List<T> oldList, List<T> newList,
+                                        DiffUtil.ItemCallback<T> callback) {
+        return DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override public int getOldListSize() { return oldList.size(); }
+            @Override public int getNewListSize() { return newList.size(); }
+
+            @Override
+            public boolean areItemsTheSame(int oldPos, int newPos) {
+                return callback.areItemsTheSame(oldList.get(oldPos), newList.get(newPos));
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPos, int newPos) {
+                return callback.areContentsTheSame(oldList.get(oldPos), newList.get(newPos));
+            }
+
+            @Override
+            public Object getChangePayload(int oldPos, int newPos) {
+                return callback.getChangePayload(oldList.get(oldPos), newList.get(newPos));
+            }
+        });
+    }
+}
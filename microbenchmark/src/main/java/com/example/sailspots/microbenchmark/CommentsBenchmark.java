@@ -0,0 +1,167 @@
+package com.example.sailspots.microbenchmark;
+
+import android.content.Context;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.sailspots.ui.detail.CommentItem;
+import com.example.sailspots.ui.detail.CommentsAdapter;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Benchmarks the comment hot paths: CommentItem.fromSnapshot, formatDate and
+ * CommentsAdapter.DIFF_CALLBACK, at 5k comments.
+ *
+ * Real DocumentSnapshots come from an isolated, offline Firestore instance: the documents are
+ * written to its local cache only and the instance is wiped afterwards, so nothing reaches
+ * the real project.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CommentsBenchmark {
+
+    // Firestore batches are capped at 500 writes.
+    private static final int BATCH_SIZE = 500;
+
+    @Rule
+    public final BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private static FirebaseApp benchApp;
+    private static FirebaseFirestore benchDb;
+    private static List<DocumentSnapshot> docs;
+    private static List<Timestamp> timestamps;
+
+    @BeforeClass
+    public static void loadSnapshots() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        FirebaseOptions options = new FirebaseOptions.Builder()
+                .setApplicationId("1:0:android:0")
+                .setProjectId("sailspots-benchmark")
+                .setApiKey("benchmark")
+                .build();
+        benchApp = FirebaseApp.initializeApp(context, options, "sailspots-benchmark");
+        benchDb = FirebaseFirestore.getInstance(benchApp);
+        Tasks.await(benchDb.disableNetwork());
+
+        // Pending writes are visible to cache reads straight away; their commit tasks never
+        // complete offline, so they are not awaited.
+        CollectionReference col = benchDb.collection("spots").document("bench").collection("comments");
+        Random rnd = new Random(42);
+        long now = System.currentTimeMillis() / 1000;
+        timestamps = new ArrayList<>(BenchmarkData.COMMENT_COUNT);
+        for (int start = 0; start < BenchmarkData.COMMENT_COUNT; start += BATCH_SIZE) {
+            WriteBatch batch = benchDb.batch();
+            int end = Math.min(start + BATCH_SIZE, BenchmarkData.COMMENT_COUNT);
+            for (int i = start; i < end; i++) {
+                Timestamp ts = new Timestamp(now - rnd.nextInt(365 * 24 * 3600), 0);
+                timestamps.add(ts);
+                Map<String, Object> data = new HashMap<>();
+                data.put("authorName", "Sailor " + i);
+                data.put("rating", 1 + rnd.nextInt(5));
+                data.put("text", "Comment " + i + " about the moorings, the fuel dock and the showers.");
+                data.put("createdAt", ts);
+                batch.set(col.document("c" + i), data);
+            }
+            batch.commit();
+        }
+
+        QuerySnapshot snap = Tasks.await(
+                col.orderBy("createdAt", Query.Direction.DESCENDING).get(Source.CACHE));
+        docs = snap.getDocuments();
+    }
+
+    @AfterClass
+    public static void wipeSnapshots() throws Exception {
+        if (benchDb != null) {
+            Tasks.await(benchDb.terminate());
+            Tasks.await(benchDb.clearPersistence());
+        }
+        if (benchApp != null) benchApp.delete();
+    }
+
+    /**
+     * Decoding a full 5k snapshot, as MarinaDetailActivity does on every delivery.
+     */
+    @Test
+    public void fromSnapshot() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            List<CommentItem> list = new ArrayList<>(docs.size());
+            for (DocumentSnapshot doc : docs) {
+                list.add(CommentItem.fromSnapshot(doc));
+            }
+            if (list.isEmpty()) throw new AssertionError();
+        }
+    }
+
+    /**
+     * Date formatting alone, once per comment.
+     */
+    @Test
+    public void formatDate() {
+        BenchmarkState state = benchmarkRule.getState();
+        int chars = 0;
+        while (state.keepRunning()) {
+            for (Timestamp ts : timestamps) {
+                chars += CommentItem.formatDate(ts).length();
+            }
+        }
+        if (chars < 0) throw new AssertionError();
+    }
+
+    /**
+     * Diffing two 5k comment lists where one new comment arrived at the top.
+     */
+    @Test
+    public void diffNewComment() {
+        List<CommentItem> oldList = decode(1, docs.size());
+        List<CommentItem> newList = decode(0, docs.size());
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            BenchmarkData.diff(oldList, newList, CommentsAdapter.DIFF_CALLBACK);
+        }
+    }
+
+    /**
+     * Diffing two identical 5k comment lists, which is what a cache-then-server redelivery costs.
+     */
+    @Test
+    public void diffUnchanged() {
+        List<CommentItem> oldList = decode(0, docs.size());
+        List<CommentItem> newList = decode(0, docs.size());
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            BenchmarkData.diff(oldList, newList, CommentsAdapter.DIFF_CALLBACK);
+        }
+    }
+
+    private static List<CommentItem> decode(int from, int to) {
+        List<CommentItem> list = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) list.add(CommentItem.fromSnapshot(docs.get(i)));
+        return list;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.sailspots.microbenchmark;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.sailspots.core.catalog.FavoriteSet;
+import com.example.sailspots.core.model.MarinaItem;
+import com.example.sailspots.data.MarinaAdapter;
+import com.example.sailspots.ui.maps.MapsFragment;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks the marina list hot paths: MarinaAdapter.DIFF and MapsFragment's favorites merge.
+ * Time and allocation counts are reported per operation by BenchmarkRule.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MarinaListBenchmark {
+
+    // How many favorites flip between two snapshots in the churn pattern.
+    private static final int CHURN_PER_SNAPSHOT = 10;
+
+    @Rule
+    public final BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private List<MarinaItem> marinas;
+    private FavoriteSet favorites;
+    private Random rnd;
+
+    @Before
+    public void setUp() {
+        rnd = new Random(42);
+        marinas = BenchmarkData.marinas(BenchmarkData.MARINA_COUNT, rnd);
+        favorites = BenchmarkData.favorites(marinas, BenchmarkData.FAVORITE_COUNT, rnd);
+    }
+
+    /**
+     * Diffing two identical 10k lists: the cost paid on every resubmit with no real change.
+     */
+    @Test
+    public void diffUnchanged() {
+        List<MarinaItem> oldList = MapsFragment.mergeFavorites(marinas, favorites);
+        List<MarinaItem> newList = MapsFragment.mergeFavorites(marinas, favorites);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            BenchmarkData.diff(oldList, newList, MarinaAdapter.DIFF);
+        }
+    }
+
+    /**
+     * Diffing a 10k list where one percent of the rows changed their favorite state.
+     */
+    @Test
+    public void diffFavoriteChanges() {
+        List<MarinaItem> oldList = MapsFragment.mergeFavorites(marinas, favorites);
+        BitSet changed = favorites.toBitSet();
+        for (int i = 0; i < marinas.size(); i += 100) {
+            changed.flip(marinas.get(i).id);
+        }
+        List<MarinaItem> newList = MapsFragment.mergeFavorites(marinas, new FavoriteSet(changed));
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            BenchmarkData.diff(oldList, newList, MarinaAdapter.DIFF);
+        }
+    }
+
+    /**
+     * Diffing a 10k list after a location fix moved every distance: each row gets a
+     * PAYLOAD_DISTANCE mask instead of a full rebind.
+     */
+    @Test
+    public void diffDistanceUpdate() {
+        List<MarinaItem> oldList = MapsFragment.mergeFavorites(marinas, favorites);
+        List<MarinaItem> newList = new ArrayList<>(oldList.size());
+        for (MarinaItem m : oldList) {
+            newList.add(m.withDistance(m.distanceMiles + 0.1));
+        }
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            BenchmarkData.diff(oldList, newList, MarinaAdapter.DIFF);
+        }
+    }
+
+    /**
+     * The merge step alone, as run by recomputeMergedAndSubmit on every favorites snapshot.
+     */
+    @Test
+    public void mergeFavorites() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            MapsFragment.mergeFavorites(marinas, favorites);
+        }
+    }
+
+    /**
+     * Favorites churn: each snapshot toggles a few favorites, then the list is merged and diffed
+     * against the previous one, which is the full work behind one favorites listener callback.
+     */
+    @Test
+    public void favoritesChurn() {
+        FavoriteSet live = favorites;
+        List<MarinaItem> current = MapsFragment.mergeFavorites(marinas, live);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            state.pauseTiming();
+            // The listener hands over a fresh set each time, like SpotsRepository does.
+            BitSet bits = live.toBitSet();
+            for (int i = 0; i < CHURN_PER_SNAPSHOT; i++) {
+                bits.flip(marinas.get(rnd.nextInt(marinas.size())).id);
+            }
+            live = new FavoriteSet(bits);
+            state.resumeTiming();
+
+            List<MarinaItem> next = MapsFragment.mergeFavorites(marinas, live);
+            DiffUtil.DiffResult result = BenchmarkData.diff(current, next, MarinaAdapter.DIFF);
+            current = next;
+            if (result == null) throw new AssertionError();
+        }
+    }
+
+    /**
+     * The per-item callbacks alone, without DiffUtil's Myers bookkeeping.
+     */
+    @Test
+    public void itemCallbacks() {
+        List<MarinaItem> oldList = MapsFragment.mergeFavorites(marinas, favorites);
+        List<MarinaItem> newList = MapsFragment.mergeFavorites(marinas, FavoriteSet.EMPTY);
+        BenchmarkState state = benchmarkRule.getState();
+        int same = 0;
+        while (state.keepRunning()) {
+            for (int i = 0; i < oldList.size(); i++) {
+                MarinaItem o = oldList.get(i);
+                MarinaItem n = newList.get(i);
+                if (MarinaAdapter.DIFF.areItemsTheSame(o, n)
+                        && !MarinaAdapter.DIFF.areContentsTheSame(o, n)
+                        && MarinaAdapter.DIFF.getChangePayload(o, n) != null) {
+                    same++;
+                }
+            }
+        }
+        if (same < 0) throw new AssertionError();
+    }
+}
@@ -15,4 +15,7 @@ dependencyResolutionManagement {
 
 rootProject.name = "SailSpots"
 include(":app")
+include(":core")
+include(":macrobenchmark")
+include(":microbenchmark")
  
\ No newline at end of file